@@ -0,0 +1,91 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.MockRule;
+import net.sourceforge.pmd.lang.rule.ParametricRuleViolation;
+
+/**
+ * Measures the accumulation of the per-file reports into a single report, as
+ * done by the accumulating renderers, followed by an iteration over the
+ * violations. In each file, several rules report their violations, so they
+ * are not added in order.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportBenchmark {
+
+    @Param("1000")
+    public int files;
+
+    @Param("100")
+    public int violationsPerFile;
+
+    private final List<Report> reports = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42L);
+        Rule[] rules = new Rule[5];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = new MockRule("Rule" + i, "desc", "msg", "rulesetname");
+        }
+        RuleContext ctx = new RuleContext();
+        for (int f = 0; f < files; f++) {
+            Report report = new Report();
+            ctx.setSourceCodeFilename("src/File" + f + ".java");
+            for (int v = 0; v < violationsPerFile; v++) {
+                Rule rule = rules[v * rules.length / violationsPerFile];
+                report.addRuleViolation(new LineViolation(rule, ctx, 1 + random.nextInt(1000)));
+            }
+            reports.add(report);
+        }
+    }
+
+    @Benchmark
+    public int merge() {
+        Report merged = new Report();
+        for (Report report : reports) {
+            merged.merge(report);
+        }
+        int lines = 0;
+        for (Iterator<RuleViolation> it = merged.iterator(); it.hasNext();) {
+            lines += it.next().getBeginLine();
+        }
+        return lines;
+    }
+
+    private static class LineViolation extends ParametricRuleViolation<Node> {
+        LineViolation(Rule rule, RuleContext ctx, int line) {
+            super(rule, ctx, null, rule.getMessage());
+            beginLine = line;
+            endLine = line;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares JMH results in CSV format ({@code -rf csv}) with a baseline and
+ * reports the benchmarks whose score got worse by more than a tolerance.
+ *
+ * <p>Scores in {@code ops/<time>} are better when higher, scores in
+ * {@code <unit>/op} (time or allocated bytes per operation) are better when
+ * lower. Other scores (e.g. allocation rates) depend on the throughput and are
+ * not compared, neither are the per-space GC churn scores, which depend on
+ * when collections happen.
+ *
+ * <p>A score whose error, in the baseline or in the results, is larger than
+ * the tolerance can't tell a regression from noise: it is reported as
+ * unreliable and not compared. Record the scores with more forks and
+ * iterations to compare it.
+ *
+ * <p>Arguments: baseline.csv results.csv [tolerance in percent, default 10].
+ * The exit status is 1 if there is a regression.
+ */
+public final class BaselineComparison {
+
+    private BaselineComparison() {
+        // utility class
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.csv> <results.csv> [tolerance%]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.1;
+        Map<String, Score> baseline = read(new File(args[0]));
+        Map<String, Score> results = read(new File(args[1]));
+
+        List<String> unreliable = new ArrayList<>();
+        List<String> regressions = compare(baseline, results, tolerance, unreliable);
+        for (String score : unreliable) {
+            System.out.println(score);
+        }
+        for (String regression : regressions) {
+            System.out.println(regression);
+        }
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+        System.out.println("No regression above " + Math.round(tolerance * 100) + "% in " + results.size()
+                + " scores, " + unreliable.size() + " of them unreliable.");
+    }
+
+    /**
+     * Compares the results with the baseline, and adds the scores whose error
+     * is larger than the tolerance to the unreliable ones.
+     *
+     * @return the regressions
+     */
+    static List<String> compare(Map<String, Score> baseline, Map<String, Score> results, double tolerance,
+            List<String> unreliable) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Score> result : results.entrySet()) {
+            Score base = baseline.get(result.getKey());
+            Score current = result.getValue();
+            if (base == null || !base.unit.equals(current.unit) || result.getKey().contains("gc.churn")) {
+                continue;
+            }
+            boolean lowerIsWorse = current.unit.startsWith("ops/");
+            if (!lowerIsWorse && !current.unit.endsWith("/op")) {
+                continue;
+            }
+            if (base.relativeError() > tolerance || current.relativeError() > tolerance) {
+                unreliable.add(String.format("UNRELIABLE %s: %.3f +/- %.3f %s (baseline %.3f +/- %.3f %s)",
+                        result.getKey(), current.value, current.error, current.unit, base.value, base.error,
+                        base.unit));
+                continue;
+            }
+            boolean regression;
+            if (lowerIsWorse) {
+                regression = current.value < base.value * (1 - tolerance);
+            } else {
+                regression = current.value > base.value * (1 + tolerance);
+            }
+            if (regression) {
+                regressions.add(String.format("REGRESSION %s: %.3f %s (baseline %.3f %s)", result.getKey(),
+                        current.value, current.unit, base.value, base.unit));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Reads the scores of a JMH CSV file, by benchmark name, mode and parameters.
+     */
+    static Map<String, Score> read(File csv) throws IOException {
+        List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        Map<String, Score> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return scores;
+        }
+        List<String> header = parseLine(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> values = parseLine(line);
+            StringBuilder key = new StringBuilder(values.get(benchmark)).append(" [").append(values.get(mode));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && i < values.size() && !values.get(i).isEmpty()) {
+                    key.append(", ").append(header.get(i).substring("Param: ".length())).append('=')
+                        .append(values.get(i));
+                }
+            }
+            key.append(']');
+            double scoreError = error >= 0 ? Double.parseDouble(values.get(error)) : Double.NaN;
+            scores.put(key.toString(), new Score(Double.parseDouble(values.get(score)), scoreError,
+                    values.get(unit)));
+        }
+        return scores;
+    }
+
+    private static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    static final class Score {
+        final double value;
+        /** The error of the score, NaN if unknown, e.g. with a single iteration. */
+        final double error;
+        final String unit;
+
+        Score(double value, double error, String unit) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * Returns the error relative to the score, infinite if it is unknown.
+         */
+        double relativeError() {
+            if (Double.isNaN(error)) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return error == 0 ? 0 : Math.abs(error / value);
+        }
+    }
+}
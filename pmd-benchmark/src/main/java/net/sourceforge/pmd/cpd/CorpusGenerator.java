@@ -0,0 +1,178 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic sources with a controlled duplication rate for the CPD
+ * benchmarks. A source is made of blocks (methods or functions of a few
+ * statements); each block is, with the probability given by the duplication
+ * rate, a copy of one of a small pool of shared blocks, otherwise it is unique.
+ *
+ * <p>The generator is seeded, so that the same parameters always produce the
+ * same corpus and benchmark results stay comparable with the baseline.
+ */
+public final class CorpusGenerator {
+
+    /** The syntax of the generated sources. */
+    public enum Flavor {
+        JAVA(".java"), ECMASCRIPT(".js"), JSP(".jsp");
+
+        private final String extension;
+
+        Flavor(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int SHARED_BLOCKS = 20;
+    private static final int STATEMENTS_PER_BLOCK = 12;
+
+    private final Flavor flavor;
+    private final double duplicationRate;
+    private final Random random;
+    private final List<String> sharedBlocks = new ArrayList<>();
+    private int blockCount;
+
+    public CorpusGenerator(Flavor flavor, double duplicationRate, long seed) {
+        if (duplicationRate < 0 || duplicationRate > 1) {
+            throw new IllegalArgumentException("The duplication rate must be between 0 and 1: " + duplicationRate);
+        }
+        this.flavor = flavor;
+        this.duplicationRate = duplicationRate;
+        this.random = new Random(seed);
+        for (int i = 0; i < SHARED_BLOCKS; i++) {
+            sharedBlocks.add(block("shared" + i));
+        }
+    }
+
+    /**
+     * Generates the given number of sources.
+     *
+     * @return the content of the sources, by file name
+     */
+    public Map<String, String> generate(int files, int blocksPerFile) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < files; i++) {
+            sources.put("Generated" + i + flavor.getExtension(), generateSource("Generated" + i, blocksPerFile));
+        }
+        return sources;
+    }
+
+    /**
+     * Generates a single source.
+     */
+    public String generateSource(String name, int blocks) {
+        StringBuilder sb = new StringBuilder();
+        switch (flavor) {
+        case JAVA:
+            sb.append("package net.sourceforge.pmd.benchmark;\n\npublic class ").append(name).append(" {\n");
+            break;
+        case JSP:
+            sb.append("<%@ page contentType=\"text/html\" %>\n<html>\n<body>\n<h1>").append(name).append("</h1>\n<%!\n");
+            break;
+        default:
+            sb.append("// ").append(name).append('\n');
+            break;
+        }
+
+        for (int i = 0; i < blocks; i++) {
+            if (random.nextDouble() < duplicationRate) {
+                sb.append(sharedBlocks.get(random.nextInt(sharedBlocks.size())));
+            } else {
+                sb.append(block("unique" + blockCount++));
+            }
+        }
+
+        switch (flavor) {
+        case JAVA:
+            sb.append("}\n");
+            break;
+        case JSP:
+            sb.append("%>\n<p>${").append(name.toLowerCase(Locale.ROOT)).append("}</p>\n</body>\n</html>\n");
+            break;
+        default:
+            break;
+        }
+        return sb.toString();
+    }
+
+    private String block(String name) {
+        StringBuilder sb = new StringBuilder();
+        boolean java = flavor != Flavor.ECMASCRIPT;
+        if (java) {
+            sb.append("    public int ").append(name).append("(int a, int b) {\n");
+        } else {
+            sb.append("function ").append(name).append("(a, b) {\n");
+        }
+        String intType = java ? "int " : "var ";
+        String stringType = java ? "String " : "var ";
+        for (int i = 0; i < STATEMENTS_PER_BLOCK; i++) {
+            int v = random.nextInt(10);
+            int n = random.nextInt(1000);
+            sb.append("        ");
+            switch (random.nextInt(5)) {
+            case 0:
+                sb.append(intType).append("v").append(i).append(" = a + ").append(n).append(";\n");
+                break;
+            case 1:
+                sb.append("if (a > ").append(n).append(") {\n            b = b * ").append(v)
+                    .append(" - a;\n        }\n");
+                break;
+            case 2:
+                sb.append("for (").append(intType).append("i = 0; i < ").append(n)
+                    .append("; i++) {\n            a += i % ").append(v + 1).append(";\n        }\n");
+                break;
+            case 3:
+                sb.append(stringType).append("s").append(i).append(" = \"text ").append(n).append("\";\n");
+                break;
+            default:
+                sb.append("b = call").append(v).append("(a, b, ").append(n).append(");\n");
+                break;
+            }
+        }
+        sb.append("        return a + b;\n").append(java ? "    }\n" : "}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Writes a corpus to a directory, e.g. to benchmark the CPD command line.
+     *
+     * <p>Arguments: directory flavor files blocksPerFile duplicationRate [seed]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 5) {
+            System.err.println("Usage: CorpusGenerator <directory> <java|ecmascript|jsp> <files> <blocksPerFile> "
+                    + "<duplicationRate> [seed]");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create " + directory);
+        }
+        Flavor flavor = Flavor.valueOf(args[1].toUpperCase(Locale.ROOT));
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 42L;
+        CorpusGenerator generator = new CorpusGenerator(flavor, Double.parseDouble(args[4]), seed);
+        for (Map.Entry<String, String> source : generator
+                .generate(Integer.parseInt(args[2]), Integer.parseInt(args[3])).entrySet()) {
+            Files.write(new File(directory, source.getKey()).toPath(),
+                    source.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
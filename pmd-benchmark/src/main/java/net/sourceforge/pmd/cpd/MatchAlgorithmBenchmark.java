@@ -0,0 +1,66 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link MatchAlgorithm#findMatches()} on a synthetic Java corpus
+ * tokenized once, for several duplication rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchAlgorithmBenchmark {
+
+    @Param({ "0.0", "0.1", "0.5" })
+    public double duplicationRate;
+
+    @Param({ "100" })
+    public int minimumTileSize;
+
+    private Map<String, SourceCode> sources;
+    private Tokens tokens;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        TokenEntry.clearImages();
+        sources = new TreeMap<>();
+        tokens = new Tokens();
+        Tokenizer tokenizer = new JavaTokenizer();
+        CorpusGenerator generator = new CorpusGenerator(CorpusGenerator.Flavor.JAVA, duplicationRate, 42L);
+        for (Map.Entry<String, String> source : generator.generate(100, 50).entrySet()) {
+            SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader(source.getValue(), source.getKey()));
+            tokenizer.tokenize(sourceCode, tokens);
+            sources.put(source.getKey(), sourceCode);
+        }
+    }
+
+    @Benchmark
+    public MatchAlgorithm findMatches() {
+        MatchAlgorithm algorithm = new MatchAlgorithm(sources, tokens, minimumTileSize);
+        algorithm.findMatches();
+        return algorithm;
+    }
+}
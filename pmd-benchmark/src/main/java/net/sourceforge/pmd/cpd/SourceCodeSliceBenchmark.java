@@ -0,0 +1,82 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how a code slice of a file is obtained when rendering a match: from
+ * the lines held in memory, with the line offset index of {@link SourceCode.FileCodeLoader},
+ * or by reading the file sequentially when there is no index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SourceCodeSliceBenchmark {
+
+    @Param({ "10", "100" })
+    public int sliceLines;
+
+    private File file;
+    private SourceCode.FileCodeLoader indexedLoader;
+    private List<String> lines;
+    private int startLine;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("pmd-benchmark", ".java");
+        String code = new CorpusGenerator(CorpusGenerator.Flavor.JAVA, 0.2, 42L).generateSource("Sliced", 1000);
+        Files.write(file.toPath(), code.getBytes(StandardCharsets.UTF_8));
+
+        indexedLoader = new SourceCode.FileCodeLoader(file, "UTF-8");
+        // keep the lines strongly reachable, so that the soft reference isn't cleared
+        lines = indexedLoader.getCode();
+        // slices near the end of the file are the worst case for the sequential read
+        startLine = lines.size() - sliceLines;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public List<String> sliceFromMemory() {
+        return indexedLoader.getCodeSlice(startLine, startLine + sliceLines - 1);
+    }
+
+    @Benchmark
+    public List<String> sliceFromLineIndex() {
+        return indexedLoader.load(startLine, startLine + sliceLines - 1);
+    }
+
+    @Benchmark
+    public List<String> sliceSequential() {
+        // a loader which hasn't loaded the file has no line index
+        return new SourceCode.FileCodeLoader(file, "UTF-8").load(startLine, startLine + sliceLines - 1);
+    }
+}
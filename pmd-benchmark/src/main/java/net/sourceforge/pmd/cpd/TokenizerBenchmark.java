@@ -0,0 +1,92 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the CPD tokenizers. Besides the number of corpus
+ * tokenizations per second, the auxiliary counter {@code tokens} reports the
+ * tokens per second. Run with {@code -prof gc} to get the allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @State(Scope.Thread)
+    public static class Corpus {
+        @Param({ "java", "ecmascript", "jsp", "any" })
+        public String tokenizer;
+
+        Tokenizer instance;
+        List<SourceCode> sources = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            CorpusGenerator.Flavor flavor;
+            switch (tokenizer) {
+            case "java":
+                instance = new JavaTokenizer();
+                flavor = CorpusGenerator.Flavor.JAVA;
+                break;
+            case "ecmascript":
+                instance = new EcmascriptTokenizer();
+                flavor = CorpusGenerator.Flavor.ECMASCRIPT;
+                break;
+            case "jsp":
+                instance = new JSPTokenizer();
+                flavor = CorpusGenerator.Flavor.JSP;
+                break;
+            default:
+                instance = new AnyTokenizer();
+                flavor = CorpusGenerator.Flavor.JAVA;
+                break;
+            }
+            CorpusGenerator generator = new CorpusGenerator(flavor, 0.2, 42L);
+            for (Map.Entry<String, String> source : generator.generate(20, 50).entrySet()) {
+                sources.add(new SourceCode(new SourceCode.StringCodeLoader(source.getValue(), source.getKey())));
+            }
+        }
+    }
+
+    /** Counts the tokens, so that JMH reports them per second. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCount {
+        public long tokens;
+    }
+
+    @Benchmark
+    public Tokens tokenize(Corpus corpus, TokenCount count) throws IOException {
+        TokenEntry.clearImages();
+        Tokens tokens = new Tokens();
+        for (SourceCode source : corpus.sources) {
+            corpus.instance.tokenize(source, tokens);
+        }
+        count.tokens += tokens.size();
+        return tokens;
+    }
+}
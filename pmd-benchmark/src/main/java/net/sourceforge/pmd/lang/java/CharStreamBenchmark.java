@@ -0,0 +1,140 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java;
+
+import java.io.CharArrayReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.cpd.CorpusGenerator;
+import net.sourceforge.pmd.lang.ast.CharStream;
+import net.sourceforge.pmd.lang.ast.JavaCharArrayStream;
+import net.sourceforge.pmd.lang.ast.JavaCharStream;
+import net.sourceforge.pmd.lang.java.ast.JavaParserConstants;
+import net.sourceforge.pmd.lang.java.ast.JavaParserTokenManager;
+import net.sourceforge.pmd.lang.java.ast.Token;
+
+/**
+ * Compares the Java token manager over a {@link JavaCharStream} and over a
+ * {@link JavaCharArrayStream}. The sources are loaded in memory beforehand,
+ * so only the char stream and the token manager are measured.
+ *
+ * <p>The {@code sources} parameter is a directory or a zip file of Java
+ * sources, e.g. the {@code lib/src.zip} of a JDK:
+ * {@code -p sources=$JAVA_HOME/lib/src.zip}. By default, a generated corpus is
+ * used. The auxiliary counter {@code tokens} reports the tokens per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CharStreamBenchmark {
+
+    @State(Scope.Thread)
+    public static class Corpus {
+        @Param({ "reader", "array" })
+        public String stream;
+
+        @Param("")
+        public String sources;
+
+        List<char[]> contents;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            contents = loadSources(sources);
+        }
+
+        CharStream open(char[] content) {
+            return "array".equals(stream) ? JavaCharArrayStream.of(content)
+                    : new JavaCharStream(new CharArrayReader(content));
+        }
+    }
+
+    /**
+     * Loads the Java sources of a directory or a zip file, or generates some
+     * if the path is empty.
+     */
+    static List<char[]> loadSources(String sources) throws IOException {
+        List<char[]> contents = new ArrayList<>();
+        if (sources.isEmpty()) {
+            CorpusGenerator generator = new CorpusGenerator(CorpusGenerator.Flavor.JAVA, 0.2, 42L);
+            for (String source : generator.generate(100, 50).values()) {
+                contents.add(source.toCharArray());
+            }
+        } else if (new File(sources).isDirectory()) {
+            List<Path> files;
+            try (Stream<Path> paths = Files.walk(Paths.get(sources))) {
+                files = paths.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                contents.add(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).toCharArray());
+            }
+        } else {
+            try (ZipFile zip = new ZipFile(sources)) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.getName().endsWith(".java")) {
+                        contents.add(IOUtils.toCharArray(
+                                new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8)));
+                    }
+                }
+            }
+        }
+        return contents;
+    }
+
+    /** Counts the tokens, so that JMH reports them per second. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class TokenCount {
+        public long tokens;
+    }
+
+    @Benchmark
+    public int tokenize(Corpus corpus, TokenCount count) {
+        int lines = 0;
+        for (char[] content : corpus.contents) {
+            JavaParserTokenManager tokenManager = new JavaParserTokenManager(corpus.open(content));
+            Token token = tokenManager.getNextToken();
+            while (token.kind != JavaParserConstants.EOF) {
+                lines += token.endLine;
+                count.tokens++;
+                token = tokenManager.getNextToken();
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.Parser;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.ParseException;
+
+/**
+ * Measures the Java parser, with and without skipping the bodies of the
+ * methods and initializers, alone and followed by the qualified name and
+ * symbol table resolution which run before the rules.
+ *
+ * <p>The {@code sources} parameter is the same as for the
+ * {@link CharStreamBenchmark}. The sources which don't parse are left out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class JavaParserBenchmark {
+
+    @State(Scope.Thread)
+    public static class Corpus {
+        @Param({ "false", "true" })
+        public boolean skipBodies;
+
+        @Param("")
+        public String sources;
+
+        List<char[]> contents = new ArrayList<>();
+        LanguageVersionHandler handler;
+        Parser parser;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            handler = LanguageRegistry.getLanguage(JavaLanguageModule.NAME).getVersion("10")
+                    .getLanguageVersionHandler();
+            JavaParserOptions options = new JavaParserOptions();
+            options.setSkipBodies(skipBodies);
+            parser = handler.getParser(options);
+            Parser fullParser = handler.getParser(handler.getDefaultParserOptions());
+            for (char[] content : CharStreamBenchmark.loadSources(sources)) {
+                try {
+                    fullParser.parse(null, new CharArrayReader(content));
+                    contents.add(content);
+                } catch (ParseException | Error e) {
+                    // e.g. a newer syntax
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int parse(Corpus corpus) {
+        int count = 0;
+        for (char[] content : corpus.contents) {
+            count += corpus.parser.parse(null, new CharArrayReader(content)).jjtGetNumChildren();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int parseAndResolve(Corpus corpus) {
+        int count = 0;
+        for (char[] content : corpus.contents) {
+            Node root = corpus.parser.parse(null, new CharArrayReader(content));
+            corpus.handler.getQualifiedNameResolutionFacade(JavaParserBenchmark.class.getClassLoader()).start(root);
+            corpus.handler.getSymbolFacade().start(root);
+            count += root.jjtGetNumChildren();
+        }
+        return count;
+    }
+}
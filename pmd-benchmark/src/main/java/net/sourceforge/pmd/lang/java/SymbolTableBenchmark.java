@@ -0,0 +1,92 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTVariableDeclaratorId;
+
+/**
+ * Measures the Java symbol table, including the name occurrences, on a
+ * generated class with many overloads of the same method, like a builder or
+ * a visitor, and as many calls to them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SymbolTableBenchmark {
+
+    @State(Scope.Thread)
+    public static class Overloads {
+        @Param("2000")
+        public int overloads;
+
+        LanguageVersionHandler handler;
+        ASTCompilationUnit root;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            handler = LanguageRegistry.getLanguage(JavaLanguageModule.NAME).getVersion("10")
+                    .getLanguageVersionHandler();
+            root = (ASTCompilationUnit) handler.getParser(handler.getDefaultParserOptions())
+                    .parse(null, new StringReader(generate(overloads)));
+        }
+    }
+
+    /**
+     * Generates a class with overloads of "with" taking one to four
+     * parameters, the first one of a distinct type, and a method calling
+     * each of them.
+     */
+    static String generate(int overloads) {
+        StringBuilder sb = new StringBuilder("public class Builder {\n");
+        for (int i = 0; i < overloads; i++) {
+            sb.append("  static class T").append(i).append(" { }\n");
+        }
+        for (int i = 0; i < overloads; i++) {
+            sb.append("  public Builder with(T").append(i).append(" p0");
+            for (int p = 1; p <= i % 4; p++) {
+                sb.append(", int p").append(p);
+            }
+            sb.append(") { return this; }\n");
+        }
+        sb.append("  void build() {\n    int x = 0;\n");
+        for (int i = 0; i < overloads; i++) {
+            sb.append("    with(new T").append(i).append("()");
+            for (int p = 1; p <= i % 4; p++) {
+                sb.append(", x");
+            }
+            sb.append(");\n");
+        }
+        sb.append("  }\n}\n");
+        return sb.toString();
+    }
+
+    @Benchmark
+    public int symbolTable(Overloads state) {
+        state.handler.getSymbolFacade().start(state.root);
+        // the occurrences are found on demand
+        return state.root.getFirstDescendantOfType(ASTVariableDeclaratorId.class).getUsages().size();
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class CorpusGeneratorTest {
+
+    @Test
+    public void testSameSeedSameCorpus() {
+        Map<String, String> first = new CorpusGenerator(CorpusGenerator.Flavor.JAVA, 0.3, 1L).generate(3, 10);
+        Map<String, String> second = new CorpusGenerator(CorpusGenerator.Flavor.JAVA, 0.3, 1L).generate(3, 10);
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testDuplicationRate() throws IOException {
+        assertFalse(findMatches(0.0));
+        assertTrue(findMatches(0.5));
+    }
+
+    private boolean findMatches(double duplicationRate) throws IOException {
+        TokenEntry.clearImages();
+        Map<String, SourceCode> sources = new TreeMap<>();
+        Tokens tokens = new Tokens();
+        Tokenizer tokenizer = new JavaTokenizer();
+        CorpusGenerator generator = new CorpusGenerator(CorpusGenerator.Flavor.JAVA, duplicationRate, 42L);
+        for (Map.Entry<String, String> source : generator.generate(5, 20).entrySet()) {
+            SourceCode sourceCode = new SourceCode(new SourceCode.StringCodeLoader(source.getValue(), source.getKey()));
+            tokenizer.tokenize(sourceCode, tokens);
+            sources.put(source.getKey(), sourceCode);
+        }
+        MatchAlgorithm algorithm = new MatchAlgorithm(sources, tokens, 50);
+        algorithm.findMatches();
+        return algorithm.matches().hasNext();
+    }
+}
@@ -14,13 +14,16 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import net.sourceforge.pmd.baseline.Baseline;
 import net.sourceforge.pmd.benchmark.TextTimingReportRenderer;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
@@ -32,6 +35,7 @@ import net.sourceforge.pmd.cli.PMDCommandLineInterface;
 import net.sourceforge.pmd.cli.PMDParameters;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageFilenameFilter;
+import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.LanguageVersionDiscoverer;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
@@ -49,7 +53,10 @@ import net.sourceforge.pmd.util.database.DBMSMetadata;
 import net.sourceforge.pmd.util.database.DBURI;
 import net.sourceforge.pmd.util.database.SourceObject;
 import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.datasource.FileDataSource;
 import net.sourceforge.pmd.util.datasource.ReaderDataSource;
+import net.sourceforge.pmd.util.datasource.ZipDataSource;
+import net.sourceforge.pmd.util.filter.Filter;
 import net.sourceforge.pmd.util.log.ScopedLogHandlersManager;
 
 /**
@@ -162,16 +169,56 @@ public class PMD {
      * @return the pre-configured parser
      */
     public static Parser parserFor(LanguageVersion languageVersion, PMDConfiguration configuration) {
+        return parserFor(languageVersion, configuration, null);
+    }
+
+    /**
+     * Helper method to get a configured parser for the requested language. If
+     * all the rules of the language return equal parser options, of the same
+     * kind as the default ones, these options are used, otherwise the
+     * defaults.
+     *
+     * @param languageVersion
+     *            the requested language
+     * @param configuration
+     *            the given configuration
+     * @param ruleSets
+     *            the rules which are applied, may be null
+     * @return the pre-configured parser
+     */
+    public static Parser parserFor(LanguageVersion languageVersion, PMDConfiguration configuration,
+            RuleSets ruleSets) {
 
         // TODO Handle Rules having different parser options.
         LanguageVersionHandler languageVersionHandler = languageVersion.getLanguageVersionHandler();
         ParserOptions options = languageVersionHandler.getDefaultParserOptions();
+        if (ruleSets != null) {
+            ParserOptions ruleOptions = commonParserOptions(languageVersion.getLanguage(), ruleSets);
+            if (ruleOptions != null && ruleOptions.getClass() == options.getClass()) {
+                options = ruleOptions;
+            }
+        }
         if (configuration != null) {
             options.setSuppressMarker(configuration.getSuppressMarker());
         }
         return languageVersionHandler.getParser(options);
     }
 
+    private static ParserOptions commonParserOptions(Language language, RuleSets ruleSets) {
+        ParserOptions common = null;
+        for (Rule rule : ruleSets.getAllRules()) {
+            if (rule.getLanguage().equals(language)) {
+                ParserOptions options = rule.getParserOptions();
+                if (common == null) {
+                    common = options;
+                } else if (!common.equals(options)) {
+                    return null;
+                }
+            }
+        }
+        return common;
+    }
+
     /**
      * Get the runtime configuration. The configuration can be modified to
      * affect how PMD behaves.
@@ -201,28 +248,81 @@ public class PMD {
      */
     public static int doPMD(PMDConfiguration configuration) {
 
-        // Load the RuleSets
+        // The files are collected first, so that only the rules of their
+        // languages are loaded. The languages of a database aren't known.
+        // Only the patterns of the rulesets are read first, to skip the
+        // excluded directories.
         RuleSetFactory ruleSetFactory = RulesetsFactoryUtils.getRulesetFactory(configuration, new ResourceLoader());
-        RuleSets ruleSets = RulesetsFactoryUtils.getRuleSetsWithBenchmark(configuration.getRuleSets(), ruleSetFactory);
+        List<DataSource> files = null;
+        Set<Language> fileLanguages = null;
+        if (configuration.getInputUri() == null) {
+            files = getApplicableFiles(configuration, new HashSet<>(LanguageRegistry.getLanguages()),
+                    ruleSetFactory.createRuleSetPatterns(configuration.getRuleSets()));
+            fileLanguages = getLanguagesOfFiles(files);
+        }
+
+        // Load the RuleSets
+        RuleSets ruleSets = RulesetsFactoryUtils.getRuleSetsWithBenchmark(configuration.getRuleSets(),
+                configuration.getRuleSetSnapshot(), ruleSetFactory, fileLanguages);
         if (ruleSets == null) {
             return 0;
         }
 
+        try {
+            if (files == null) {
+                return doPMD(configuration, ruleSets, null);
+            }
+            files = selectFiles(files, getApplicableLanguages(configuration, ruleSets));
+            return doPMD(configuration, ruleSets, selectFiles(configuration, files, ruleSets), null);
+        } finally {
+            /*
+             * Make sure it's our own classloader before attempting to close it....
+             * Maven + Jacoco provide us with a cloaseable classloader that if closed
+             * will throw a ClassNotFoundException.
+            */
+            if (configuration.getClassLoader() instanceof ClasspathClassLoader) {
+                IOUtil.tryCloseClassLoader(configuration.getClassLoader());
+            }
+        }
+    }
+
+    /**
+     * Runs PMD with rulesets which are already loaded, e.g. kept by a long
+     * running process, and reports the violations with the given renderer.
+     * The misconfigured rules are removed from the rulesets, which must not be
+     * used by another analysis.
+     *
+     * @param configuration
+     *            the configure to use
+     * @param ruleSets
+     *            the rulesets to apply
+     * @param reportRenderer
+     *            the renderer, with its writer, or <code>null</code> to
+     *            create the renderer of the configuration
+     * @return number of violations found.
+     */
+    public static int doPMD(PMDConfiguration configuration, RuleSets ruleSets, Renderer reportRenderer) {
         Set<Language> languages = getApplicableLanguages(configuration, ruleSets);
-        List<DataSource> files = getApplicableFiles(configuration, languages);
+        List<DataSource> files = getApplicableFiles(configuration, languages, ruleSets);
+        return doPMD(configuration, ruleSets, files, reportRenderer);
+    }
 
+    private static int doPMD(PMDConfiguration configuration, RuleSets ruleSets, List<DataSource> files,
+            Renderer reportRenderer) {
         try {
             Renderer renderer;
             List<Renderer> renderers;
             try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
-                renderer = configuration.createRenderer();
+                renderer = reportRenderer == null ? configuration.createRenderer(true) : reportRenderer;
                 renderers = Collections.singletonList(renderer);
 
-                renderer.setWriter(IOUtil.createWriter(configuration.getReportFile()));
                 renderer.start();
             }
 
             RuleContext ctx = new RuleContext();
+            if (configuration.getBaseline() != null) {
+                ctx.getReport().setBaseline(Baseline.load(configuration.getBaseline(), configuration.getInputPaths()));
+            }
             final AtomicInteger violations = new AtomicInteger(0);
             ctx.getReport().addListener(new ThreadSafeReportListener() {
                 @Override
@@ -237,7 +337,7 @@ public class PMD {
             });
 
             try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.FILE_PROCESSING)) {
-                processFiles(configuration, ruleSetFactory, files, ctx, renderers);
+                processFiles(configuration, ruleSets, files, ctx, renderers);
             }
 
             try (TimedOperation rto = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
@@ -255,15 +355,6 @@ public class PMD {
             LOG.log(Level.FINE, "Exception during processing", e);
             LOG.info(PMDCommandLineInterface.buildUsageText());
             return 0;
-        } finally {
-            /*
-             * Make sure it's our own classloader before attempting to close it....
-             * Maven + Jacoco provide us with a cloaseable classloader that if closed
-             * will throw a ClassNotFoundException.
-            */
-            if (configuration.getClassLoader() instanceof ClasspathClassLoader) {
-                IOUtil.tryCloseClassLoader(configuration.getClassLoader());
-            }
         }
     }
 
@@ -303,18 +394,7 @@ public class PMD {
     public static void processFiles(final PMDConfiguration configuration, final RuleSetFactory ruleSetFactory,
             final List<DataSource> files, final RuleContext ctx, final List<Renderer> renderers) {
 
-        if (!configuration.isIgnoreIncrementalAnalysis()
-                && configuration.getAnalysisCache() instanceof NoopAnalysisCache
-                && LOG.isLoggable(Level.WARNING)) {
-            final String version = PMDVersion.isUnknown() || PMDVersion.isSnapshot() ? "latest" : "pmd-" + PMDVersion.VERSION;
-            LOG.warning("This analysis could be faster, please consider using Incremental Analysis: "
-                                + "https://pmd.github.io/" + version + "/pmd_userdocs_incremental_analysis.html");
-        }
-
-        sortFiles(configuration, files);
-
-        // Make sure the cache is listening for analysis results
-        ctx.getReport().addListener(configuration.getAnalysisCache());
+        prepareFiles(configuration, files, ctx);
 
         final RuleSetFactory silentFactoy = new RuleSetFactory(ruleSetFactory, false);
 
@@ -333,6 +413,53 @@ public class PMD {
         configuration.getAnalysisCache().persist();
     }
 
+    /**
+     * Run PMD on a list of files with rulesets which are already loaded,
+     * using multiple threads - if more than one is available. The
+     * misconfigured rules are removed from the rulesets.
+     *
+     * @param configuration
+     *            Configuration
+     * @param ruleSets
+     *            RuleSets used by this analysis only
+     * @param files
+     *            List of {@link DataSource}s
+     * @param ctx
+     *            RuleContext
+     * @param renderers
+     *            List of {@link Renderer}s
+     */
+    public static void processFiles(final PMDConfiguration configuration, final RuleSets ruleSets,
+            final List<DataSource> files, final RuleContext ctx, final List<Renderer> renderers) {
+
+        prepareFiles(configuration, files, ctx);
+
+        if (configuration.getThreads() > 0) {
+            new MultiThreadProcessor(configuration).processFiles(ruleSets, files, ctx, renderers);
+        } else {
+            new MonoThreadProcessor(configuration).processFiles(ruleSets, files, ctx, renderers);
+        }
+
+        // Persist the analysis cache
+        configuration.getAnalysisCache().persist();
+    }
+
+    private static void prepareFiles(final PMDConfiguration configuration, final List<DataSource> files,
+            final RuleContext ctx) {
+        if (!configuration.isIgnoreIncrementalAnalysis()
+                && configuration.getAnalysisCache() instanceof NoopAnalysisCache
+                && LOG.isLoggable(Level.WARNING)) {
+            final String version = PMDVersion.isUnknown() || PMDVersion.isSnapshot() ? "latest" : "pmd-" + PMDVersion.VERSION;
+            LOG.warning("This analysis could be faster, please consider using Incremental Analysis: "
+                                + "https://pmd.github.io/" + version + "/pmd_userdocs_incremental_analysis.html");
+        }
+
+        sortFiles(configuration, files);
+
+        // Make sure the cache is listening for analysis results
+        ctx.getReport().addListener(configuration.getAnalysisCache());
+    }
+
     private static void sortFiles(final PMDConfiguration configuration, final List<DataSource> files) {
         if (configuration.isStressTest()) {
             // randomize processing order
@@ -348,9 +475,41 @@ public class PMD {
                     return leftString.compareTo(rightString);
                 }
             });
+            if (configuration.getThreads() > 1) {
+                sortBySize(files);
+            }
         }
     }
 
+    /**
+     * Sorts the files from the largest to the smallest, so that the largest
+     * files don't start last and delay the end of a multithreaded analysis.
+     * The sort is stable: files of the same size stay sorted by name. The
+     * entries of an archive are sorted by the length of the archive, so that
+     * they stay together, as the archive is decompressed at once.
+     */
+    private static void sortBySize(final List<DataSource> files) {
+        final Map<DataSource, Long> lengths = new IdentityHashMap<>();
+        for (DataSource file : files) {
+            lengths.put(file, lengthOf(file));
+        }
+        Collections.sort(files, new Comparator<DataSource>() {
+            @Override
+            public int compare(DataSource left, DataSource right) {
+                return Long.compare(lengths.get(right), lengths.get(left));
+            }
+        });
+    }
+
+    private static long lengthOf(DataSource file) {
+        if (file instanceof FileDataSource) {
+            return ((FileDataSource) file).getLength();
+        } else if (file instanceof ZipDataSource) {
+            return ((ZipDataSource) file).getArchiveLength();
+        }
+        return 0L;
+    }
+
     /**
      * Determines all the files, that should be analyzed by PMD.
      *
@@ -362,18 +521,40 @@ public class PMD {
      * @return List of {@link DataSource} of files
      */
     public static List<DataSource> getApplicableFiles(PMDConfiguration configuration, Set<Language> languages) {
+        return getApplicableFiles(configuration, languages, null);
+    }
+
+    /**
+     * Determines all the files, that should be analyzed by PMD, to which one
+     * of the given rulesets applies. The directories whose files are all
+     * excluded by the rulesets are not traversed.
+     *
+     * @param configuration
+     *            contains either the file path or the DB URI, from where to
+     *            load the files
+     * @param languages
+     *            used to filter by file extension
+     * @param ruleSets
+     *            used to filter by the exclude and include patterns, or
+     *            <code>null</code> for all files
+     * @return List of {@link DataSource} of files
+     */
+    public static List<DataSource> getApplicableFiles(PMDConfiguration configuration, Set<Language> languages,
+            RuleSets ruleSets) {
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.COLLECT_FILES)) {
-            return internalGetApplicableFiles(configuration, languages);
+            return selectFiles(configuration, internalGetApplicableFiles(configuration, languages, ruleSets),
+                    ruleSets);
         }
     }
 
     private static List<DataSource> internalGetApplicableFiles(PMDConfiguration configuration,
-            Set<Language> languages) {
+            Set<Language> languages, RuleSets ruleSets) {
         LanguageFilenameFilter fileSelector = new LanguageFilenameFilter(languages);
+        Filter<File> directoryFilter = getDirectoryFilter(configuration, ruleSets);
         List<DataSource> files = new ArrayList<>();
 
         if (null != configuration.getInputPaths()) {
-            files.addAll(FileUtil.collectFiles(configuration.getInputPaths(), fileSelector));
+            files.addAll(FileUtil.collectFiles(configuration.getInputPaths(), fileSelector, directoryFilter));
         }
 
         if (null != configuration.getInputUri()) {
@@ -397,7 +578,7 @@ public class PMD {
                     throw new RuntimeException("Problem with Input File Path: " + inputFilePath);
                 } else {
                     String filePaths = FileUtil.readFilelist(new File(inputFilePath));
-                    files.addAll(FileUtil.collectFiles(filePaths, fileSelector));
+                    files.addAll(FileUtil.collectFiles(filePaths, fileSelector, directoryFilter));
                 }
             } catch (IOException ex) {
                 LOG.log(Level.SEVERE, "Problem with Input File", ex);
@@ -408,7 +589,112 @@ public class PMD {
         return files;
     }
 
-    private static Set<Language> getApplicableLanguages(PMDConfiguration configuration, RuleSets ruleSets) {
+    /**
+     * Determines the languages of the files, from their extension, as
+     * {@link LanguageFilenameFilter} does.
+     */
+    private static Set<Language> getLanguagesOfFiles(List<DataSource> files) {
+        Set<String> extensions = new HashSet<>();
+        for (DataSource file : files) {
+            String name = file.getNiceFileName(false, null);
+            extensions.add(name.substring(name.lastIndexOf('.') + 1));
+        }
+        Set<Language> languages = new HashSet<>();
+        for (Language language : LanguageRegistry.getLanguages()) {
+            LanguageFilenameFilter filter = new LanguageFilenameFilter(language);
+            for (String extension : extensions) {
+                if (filter.accept(null, "." + extension)) {
+                    languages.add(language);
+                    break;
+                }
+            }
+        }
+        return languages;
+    }
+
+    /**
+     * Selects the files of the given languages, as
+     * {@link #getApplicableFiles(PMDConfiguration, Set)} does when it collects
+     * them.
+     */
+    private static List<DataSource> selectFiles(List<DataSource> files, Set<Language> languages) {
+        LanguageFilenameFilter fileSelector = new LanguageFilenameFilter(languages);
+        List<DataSource> selected = new ArrayList<>(files.size());
+        for (DataSource file : files) {
+            if (fileSelector.accept(null, file.getNiceFileName(false, null))) {
+                selected.add(file);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Selects the files to which one of the given rulesets applies, with the
+     * name they are processed with.
+     */
+    private static List<DataSource> selectFiles(PMDConfiguration configuration, List<DataSource> files,
+            RuleSets ruleSets) {
+        if (!excludesFiles(ruleSets)) {
+            return files;
+        }
+        List<DataSource> selected = new ArrayList<>(files.size());
+        for (DataSource file : files) {
+            String niceFileName = file.getNiceFileName(configuration.isReportShortNames(),
+                    configuration.getInputPaths());
+            if (ruleSets.applies(new File(niceFileName))) {
+                selected.add(file);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Returns the filter of the directories which may contain files to which
+     * one of the given rulesets applies, or <code>null</code> to traverse all
+     * of them. The directories are matched with their canonical path, the
+     * name of their files unless short names are reported.
+     */
+    private static Filter<File> getDirectoryFilter(PMDConfiguration configuration, final RuleSets ruleSets) {
+        if (!excludesFiles(ruleSets) || configuration.isReportShortNames()) {
+            return null;
+        }
+        return new Filter<File>() {
+            @Override
+            public boolean filter(File directory) {
+                try {
+                    return ruleSets.appliesToDirectory(directory.getCanonicalFile());
+                } catch (IOException e) {
+                    return true;
+                }
+            }
+        };
+    }
+
+    /**
+     * Whether the given rulesets don't apply to some files.
+     */
+    private static boolean excludesFiles(RuleSets ruleSets) {
+        if (ruleSets != null) {
+            for (RuleSet ruleSet : ruleSets.getAllRuleSets()) {
+                if (!ruleSet.getExcludePatterns().isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines the languages of the rules, which apply to the default
+     * version of their language.
+     *
+     * @param configuration
+     *            the configuration, with the language versions
+     * @param ruleSets
+     *            the rules
+     * @return the languages of the files to analyze
+     */
+    public static Set<Language> getApplicableLanguages(PMDConfiguration configuration, RuleSets ruleSets) {
         Set<Language> languages = new HashSet<>();
         LanguageVersionDiscoverer discoverer = configuration.getLanguageVersionDiscoverer();
 
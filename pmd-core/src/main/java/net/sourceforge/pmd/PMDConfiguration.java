@@ -16,6 +16,7 @@ import net.sourceforge.pmd.cache.NoopAnalysisCache;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.LanguageVersionDiscoverer;
+import net.sourceforge.pmd.renderers.BinaryRenderer;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.renderers.RendererFactory;
 import net.sourceforge.pmd.util.ClasspathClassLoader;
@@ -46,6 +47,7 @@ import net.sourceforge.pmd.util.IOUtil;
  * <p>The aspects related to Rules and Source files are:</p>
  * <ul>
  * <li>A comma separated list of RuleSets URIs. {@link #getRuleSets()}</li>
+ * <li>The snapshot file of the RuleSets. {@link #getRuleSetSnapshot()}</li>
  * <li>A minimum priority threshold when loading Rules from RuleSets, defaults
  * to {@link RulePriority#LOW}. {@link #getMinimumPriority()}</li>
  * <li>The character encoding of source files, defaults to the system default as
@@ -56,6 +58,8 @@ import net.sourceforge.pmd.util.IOUtil;
  * {@link #getInputPaths()}</li>
  * <li>A flag which controls, whether {@link RuleSetFactoryCompatibility} filter
  * should be used or not: #isRuleSetFactoryCompatibilityEnabled;
+ * <li>The limits of the files to analyze, in bytes, lines and nodes,
+ * and whether generated files are skipped. {@link #getMaximumFileSize()}</li>
  * </ul>
  *
  * <ul>
@@ -67,6 +71,8 @@ import net.sourceforge.pmd.util.IOUtil;
  * {@link #getReportProperties()}</li>
  * <li>An indicator of whether to show suppressed Rule violations in Reports.
  * {@link #isShowSuppressedViolations()}</li>
+ * <li>The previous report, whose violations are not reported again.
+ * {@link #getBaseline()}</li>
  * </ul>
  *
  * <p>The aspects related to special PMD behavior are:</p>
@@ -88,6 +94,7 @@ public class PMDConfiguration extends AbstractConfiguration {
 
     // Rule and source file options
     private String ruleSets;
+    private String ruleSetSnapshot;
     private RulePriority minimumPriority = RulePriority.LOW;
     private String inputPaths;
     private String inputUri;
@@ -101,12 +108,19 @@ public class PMDConfiguration extends AbstractConfiguration {
     private Properties reportProperties = new Properties();
     private boolean showSuppressedViolations = false;
     private boolean failOnViolation = true;
+    private String baseline;
 
     private boolean stressTest;
     private boolean benchmark;
     private AnalysisCache analysisCache = new NoopAnalysisCache();
     private boolean ignoreIncrementalAnalysis;
 
+    // Large file limits, 0 means no limit
+    private int maximumFileSize;
+    private int maximumFileLines;
+    private int maximumNodes;
+    private boolean skipGeneratedFiles;
+
     /**
      * Get the suppress marker. This is the source level marker used to indicate
      * a RuleViolation should be suppressed.
@@ -273,6 +287,28 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.ruleSets = ruleSets;
     }
 
+    /**
+     * Get the file of the snapshot of the RuleSets, from which they are
+     * created while their files are unchanged.
+     *
+     * @return The snapshot file, or <code>null</code> if there is none.
+     * @see RuleSetSnapshot
+     */
+    public String getRuleSetSnapshot() {
+        return ruleSetSnapshot;
+    }
+
+    /**
+     * Set the file of the snapshot of the RuleSets, from which they are
+     * created while their files are unchanged.
+     *
+     * @param ruleSetSnapshot
+     *            the snapshot file to set
+     */
+    public void setRuleSetSnapshot(String ruleSetSnapshot) {
+        this.ruleSetSnapshot = ruleSetSnapshot;
+    }
+
     /**
      * Get the minimum priority threshold when loading Rules from RuleSets.
      *
@@ -387,7 +423,11 @@ public class PMDConfiguration extends AbstractConfiguration {
         Renderer renderer = RendererFactory.createRenderer(reportFormat, reportProperties);
         renderer.setShowSuppressedViolations(showSuppressedViolations);
         if (withReportWriter) {
-            renderer.setWriter(IOUtil.createWriter(reportFile));
+            if (renderer instanceof BinaryRenderer) {
+                ((BinaryRenderer) renderer).setOutputStream(IOUtil.createOutputStream(reportFile));
+            } else {
+                renderer.setWriter(IOUtil.createWriter(reportFile));
+            }
         }
         return renderer;
     }
@@ -432,6 +472,27 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.reportFile = reportFile;
     }
 
+    /**
+     * Get the previous report in the binary format, whose violations are not
+     * reported again.
+     *
+     * @return The baseline report, or <code>null</code> if there is none.
+     */
+    public String getBaseline() {
+        return baseline;
+    }
+
+    /**
+     * Set the previous report in the binary format, whose violations are not
+     * reported again.
+     *
+     * @param baseline
+     *            the baseline report to set
+     */
+    public void setBaseline(String baseline) {
+        this.baseline = baseline;
+    }
+
     /**
      * Get whether the report should show suppressed violations.
      *
@@ -624,4 +685,89 @@ public class PMDConfiguration extends AbstractConfiguration {
     public boolean isIgnoreIncrementalAnalysis() {
         return ignoreIncrementalAnalysis;
     }
+
+
+    /**
+     * Returns the maximum size of a file in bytes. Larger files are skipped
+     * with a processing error, without being read fully. The default, 0,
+     * means no limit.
+     *
+     * @return The maximum size of a file in bytes
+     */
+    public int getMaximumFileSize() {
+        return maximumFileSize;
+    }
+
+    /**
+     * Sets the maximum size of a file in bytes, 0 for no limit.
+     *
+     * @param maximumFileSize The maximum size in bytes
+     * @see #getMaximumFileSize()
+     */
+    public void setMaximumFileSize(int maximumFileSize) {
+        this.maximumFileSize = maximumFileSize;
+    }
+
+    /**
+     * Returns the maximum number of lines of a file. Longer files are skipped
+     * with a processing error. The default, 0, means no limit.
+     *
+     * @return The maximum number of lines of a file
+     */
+    public int getMaximumFileLines() {
+        return maximumFileLines;
+    }
+
+    /**
+     * Sets the maximum number of lines of a file, 0 for no limit.
+     *
+     * @param maximumFileLines The maximum number of lines
+     * @see #getMaximumFileLines()
+     */
+    public void setMaximumFileLines(int maximumFileLines) {
+        this.maximumFileLines = maximumFileLines;
+    }
+
+    /**
+     * Returns the maximum number of nodes of the AST of a file. The rules are
+     * not applied on larger trees, and a processing error is reported
+     * instead. The default, 0, means no limit.
+     *
+     * @return The maximum number of nodes of a file
+     */
+    public int getMaximumNodes() {
+        return maximumNodes;
+    }
+
+    /**
+     * Sets the maximum number of nodes of the AST of a file, 0 for no limit.
+     *
+     * @param maximumNodes The maximum number of nodes
+     * @see #getMaximumNodes()
+     */
+    public void setMaximumNodes(int maximumNodes) {
+        this.maximumNodes = maximumNodes;
+    }
+
+    /**
+     * Returns whether generated files are skipped with a processing error.
+     * A file is considered generated if its header contains a generated code
+     * marker, like a {@code @Generated} annotation, or if it looks minified.
+     * Defaults to {@code false}.
+     *
+     * @return {@code true} if generated files are skipped
+     */
+    public boolean isSkipGeneratedFiles() {
+        return skipGeneratedFiles;
+    }
+
+    /**
+     * Sets whether generated files are skipped.
+     *
+     * @param skipGeneratedFiles Whether to skip the generated files
+     * @see #isSkipGeneratedFiles()
+     */
+    public void setSkipGeneratedFiles(boolean skipGeneratedFiles) {
+        this.skipGeneratedFiles = skipGeneratedFiles;
+    }
 }
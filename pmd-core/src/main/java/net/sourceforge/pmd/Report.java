@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -16,9 +17,11 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.apache.commons.lang3.StringUtils;
 
+import net.sourceforge.pmd.baseline.Baseline;
 import net.sourceforge.pmd.lang.dfa.report.ReportTree;
 import net.sourceforge.pmd.renderers.AbstractAccumulatingRenderer;
 import net.sourceforge.pmd.stat.Metric;
@@ -37,20 +40,32 @@ public class Report implements Iterable<RuleViolation> {
      * The idea is to store the violations in a tree instead of a list, to do
      * better and faster sort and filter mechanism and to visualize the result
      * as tree. (ide plugins).
+     * Few renderers use it, so it is built on demand from the violations, and
+     * then maintained.
      */
-    private final ReportTree violationTree = new ReportTree();
+    private ReportTree violationTree;
 
-    // Note that this and the above data structure are both being maintained for
-    // a bit
+    // The violations in the order they are added. While they are added in
+    // order, they are iterated over as they are. Once one is added out of
+    // order, a sorted copy is made and maintained: the violations added to it
+    // afterwards are sorted in on the next iteration.
     private final List<RuleViolation> violations = new ArrayList<>();
+    private List<RuleViolation> sortedViolations;
+    private boolean sorted = true;
     private final Set<Metric> metrics = new HashSet<>();
     private final List<ThreadSafeReportListener> listeners = new ArrayList<>();
     private List<ProcessingError> errors;
     private List<ConfigurationError> configErrors;
-    private Map<Integer, String> linesToSuppress = new HashMap<>();
+    // the lines suppressed via a NOPMD comment, sorted, and their comments
+    private int[] suppressedLines = new int[0];
+    private String[] suppressedLineComments = new String[0];
     private long start;
     private long end;
     private List<SuppressedViolation> suppressedRuleViolations = new ArrayList<>();
+    // the violations of a previous report, which are not reported again
+    private Baseline baseline;
+    // the number of violations of the baseline found, by their fingerprint
+    private Map<Long, Integer> baselineMatches;
 
     /**
      * Creates a new, initialized, empty report for the given file name.
@@ -66,6 +81,7 @@ public class Report implements Iterable<RuleViolation> {
 
         // overtake the listener
         report.addListeners(ctx.getReport().getListeners());
+        report.setBaseline(ctx.getReport().getBaseline());
 
         ctx.setReport(report);
         ctx.setSourceCodeFilename(fileName);
@@ -247,7 +263,15 @@ public class Report implements Iterable<RuleViolation> {
      *            the suppressed lines
      */
     public void suppress(Map<Integer, String> lines) {
-        linesToSuppress = lines;
+        Map<Integer, String> sortedLines = new TreeMap<>(lines);
+        suppressedLines = new int[sortedLines.size()];
+        suppressedLineComments = new String[sortedLines.size()];
+        int i = 0;
+        for (Map.Entry<Integer, String> line : sortedLines.entrySet()) {
+            suppressedLines[i] = line.getKey();
+            suppressedLineComments[i] = line.getValue();
+            i++;
+        }
     }
 
     private static String keyFor(RuleViolation rv) {
@@ -262,7 +286,7 @@ public class Report implements Iterable<RuleViolation> {
      */
     public Map<String, Integer> getCountSummary() {
         Map<String, Integer> summary = new HashMap<>();
-        for (RuleViolation rv : violationTree) {
+        for (RuleViolation rv : getViolationTree()) {
             String key = keyFor(rv);
             Integer o = summary.get(key);
             summary.put(key, o == null ? NumericConstants.ONE : o + 1);
@@ -271,6 +295,12 @@ public class Report implements Iterable<RuleViolation> {
     }
 
     public ReportTree getViolationTree() {
+        if (violationTree == null) {
+            violationTree = new ReportTree();
+            for (RuleViolation violation : violations) {
+                violationTree.addRuleViolation(violation);
+            }
+        }
         return this.violationTree;
     }
 
@@ -316,9 +346,9 @@ public class Report implements Iterable<RuleViolation> {
     public void addRuleViolation(RuleViolation violation) {
 
         // NOPMD suppress
-        int line = violation.getBeginLine();
-        if (linesToSuppress.containsKey(line)) {
-            suppressedRuleViolations.add(new SuppressedViolation(violation, true, linesToSuppress.get(line)));
+        int suppressed = Arrays.binarySearch(suppressedLines, violation.getBeginLine());
+        if (suppressed >= 0) {
+            suppressedRuleViolations.add(new SuppressedViolation(violation, true, suppressedLineComments[suppressed]));
             return;
         }
 
@@ -327,14 +357,70 @@ public class Report implements Iterable<RuleViolation> {
             return;
         }
 
-        int index = Collections.binarySearch(violations, violation, RuleViolationComparator.INSTANCE);
-        violations.add(index < 0 ? -index - 1 : index, violation);
-        violationTree.addRuleViolation(violation);
+        if (baseline != null && isInBaseline(violation)) {
+            return;
+        }
+
+        addViolation(violation);
         for (ThreadSafeReportListener listener : listeners) {
             listener.ruleViolationAdded(violation);
         }
     }
 
+    /**
+     * Checks whether the violation is one of the violations of the baseline
+     * not found yet, and counts it if so.
+     */
+    private boolean isInBaseline(RuleViolation violation) {
+        long fingerprint = baseline.fingerprint(violation);
+        int count = baseline.count(fingerprint);
+        if (count == 0) {
+            return false;
+        }
+        if (baselineMatches == null) {
+            baselineMatches = new HashMap<>();
+        }
+        Integer matches = baselineMatches.get(fingerprint);
+        int found = matches == null ? 0 : matches;
+        if (found >= count) {
+            return false;
+        }
+        baselineMatches.put(fingerprint, found + 1);
+        return true;
+    }
+
+    private void addViolation(RuleViolation violation) {
+        List<RuleViolation> ordered = sortedViolations == null ? violations : sortedViolations;
+        if (sorted && !ordered.isEmpty()
+                && RuleViolationComparator.INSTANCE.compare(ordered.get(ordered.size() - 1), violation) > 0) {
+            sorted = false;
+        }
+        violations.add(violation);
+        if (sortedViolations != null) {
+            sortedViolations.add(violation);
+        }
+        if (violationTree != null) {
+            violationTree.addRuleViolation(violation);
+        }
+    }
+
+    /**
+     * Returns the violations, sorted with the {@link RuleViolationComparator}.
+     * The sorted copy is only sorted again if violations were added out of
+     * order since the last call. It is then a sorted run followed by the new
+     * violations, which the sort merges without sorting the run again.
+     */
+    private List<RuleViolation> getSortedViolations() {
+        if (!sorted) {
+            if (sortedViolations == null) {
+                sortedViolations = new ArrayList<>(violations);
+            }
+            Collections.sort(sortedViolations, RuleViolationComparator.INSTANCE);
+            sorted = true;
+        }
+        return sortedViolations == null ? violations : sortedViolations;
+    }
+
     /**
      * Adds a new metric to the report and notify the listeners
      *
@@ -398,10 +484,7 @@ public class Report implements Iterable<RuleViolation> {
         }
         Iterator<RuleViolation> v = r.iterator();
         while (v.hasNext()) {
-            RuleViolation violation = v.next();
-            int index = Collections.binarySearch(violations, violation, RuleViolationComparator.INSTANCE);
-            violations.add(index < 0 ? -index - 1 : index, violation);
-            violationTree.addRuleViolation(violation);
+            addViolation(v.next());
         }
         Iterator<SuppressedViolation> s = r.getSuppressedRuleViolations().iterator();
         while (s.hasNext()) {
@@ -459,7 +542,7 @@ public class Report implements Iterable<RuleViolation> {
      *         <code>false</code> otherwise
      */
     public boolean treeIsEmpty() {
-        return !violationTree.iterator().hasNext();
+        return !getViolationTree().iterator().hasNext();
     }
 
     /**
@@ -468,12 +551,42 @@ public class Report implements Iterable<RuleViolation> {
      * @return an iterator
      */
     public Iterator<RuleViolation> treeIterator() {
-        return violationTree.iterator();
+        return getViolationTree().iterator();
     }
 
+    /**
+     * Returns an iterator over the violations, sorted with the
+     * {@link RuleViolationComparator}. A violation removed with the iterator
+     * is removed from the report.
+     *
+     * @return the iterator
+     */
     @Override
     public Iterator<RuleViolation> iterator() {
-        return violations.iterator();
+        final Iterator<RuleViolation> iterator = getSortedViolations().iterator();
+        if (sortedViolations == null) {
+            return iterator;
+        }
+        return new Iterator<RuleViolation>() {
+            private RuleViolation current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public RuleViolation next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                violations.remove(current);
+            }
+        };
     }
 
     /**
@@ -500,7 +613,7 @@ public class Report implements Iterable<RuleViolation> {
      * @return number of violations.
      */
     public int treeSize() {
-        return violationTree.size();
+        return getViolationTree().size();
     }
 
     /**
@@ -535,6 +648,20 @@ public class Report implements Iterable<RuleViolation> {
         return end - start;
     }
 
+    /**
+     * Sets the baseline, whose violations are not added to this report.
+     *
+     * @param baseline
+     *            the baseline, or <code>null</code> to add all the violations
+     */
+    public void setBaseline(Baseline baseline) {
+        this.baseline = baseline;
+    }
+
+    public Baseline getBaseline() {
+        return baseline;
+    }
+
     public List<ThreadSafeReportListener> getListeners() {
         return listeners;
     }
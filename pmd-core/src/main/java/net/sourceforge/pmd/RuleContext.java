@@ -44,8 +44,8 @@ public class RuleContext {
     }
 
     /**
-     * Constructor which shares attributes and report listeners with the given
-     * RuleContext.
+     * Constructor which shares attributes and report listeners and
+     * baseline with the given RuleContext.
      *
      * @param ruleContext
      *            the context from which the values are shared
@@ -53,6 +53,7 @@ public class RuleContext {
     public RuleContext(RuleContext ruleContext) {
         this.attributes = ruleContext.attributes;
         this.report.addListeners(ruleContext.getReport().getListeners());
+        this.report.setBaseline(ruleContext.getReport().getBaseline());
     }
 
     /**
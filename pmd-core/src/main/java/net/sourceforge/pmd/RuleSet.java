@@ -55,6 +55,7 @@ public class RuleSet implements ChecksumAware {
     private final List<String> includePatterns;
 
     private final Filter<File> filter;
+    private final Filter<File> directoryFilter;
 
     /**
      * Creates a new RuleSet with the given checksum.
@@ -77,6 +78,8 @@ public class RuleSet implements ChecksumAware {
 
         final Filter<String> regexFilter = Filters.buildRegexFilterIncludeOverExclude(includePatterns, excludePatterns);
         filter = Filters.toNormalizedFileFilter(regexFilter);
+        final Filter<String> regexDirectoryFilter = Filters.buildRegexDirectoryFilter(includePatterns, excludePatterns);
+        directoryFilter = regexDirectoryFilter == null ? null : Filters.toNormalizedFileFilter(regexDirectoryFilter);
     }
     
     public RuleSet(final RuleSet rs) {
@@ -93,6 +96,7 @@ public class RuleSet implements ChecksumAware {
         excludePatterns = rs.excludePatterns; // we can share immutable lists of immutable elements
         includePatterns = rs.includePatterns;
         filter = rs.filter; // filters are immutable, can be shared
+        directoryFilter = rs.directoryFilter;
     }
 
     /* package */ static class RuleSetBuilder {
@@ -472,6 +476,22 @@ public class RuleSet implements ChecksumAware {
         return file == null || filter.filter(file);
     }
 
+    /**
+     * Check if source files in a given directory may be checked by rules in
+     * this RuleSet. The files of a directory are not checked if an
+     * <code>exclude</code> pattern, ending with <code>.*</code>, matches all
+     * of them, and there is no <code>include</code> pattern.
+     *
+     * @param directory
+     *            the directory, with the path its files are checked with by
+     *            {@link #applies(File)}
+     * @return <code>false</code> if no file in the directory should be
+     *         checked, <code>true</code> otherwise
+     */
+    public boolean appliesToDirectory(File directory) {
+        return directoryFilter == null || directoryFilter.filter(directory);
+    }
+
     /**
      * Triggers that start lifecycle event on each rule in this ruleset. Some
      * rules perform initialization tasks on start.
@@ -11,6 +11,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.logging.Level;
@@ -21,6 +22,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -57,6 +59,12 @@ public class RuleSetFactory {
     private final RulePriority minimumPriority;
     private final boolean warnDeprecated;
     private final RuleSetFactoryCompatibility compatibilityFilter;
+    // the checksums of the ruleset files read, by file name, if recorded
+    private final Map<String, Long> readRuleSetFiles;
+    // the languages of the rules to build, or null for all
+    private final Set<Language> languages;
+    // the names of the rules left out, as they are of other languages
+    private final Set<String> otherLanguageRules = new HashSet<>();
 
     public RuleSetFactory() {
         this(new ResourceLoader(), RulePriority.LOW, false, true);
@@ -74,7 +82,15 @@ public class RuleSetFactory {
 
     public RuleSetFactory(final ResourceLoader resourceLoader, final RulePriority minimumPriority,
             final boolean warnDeprecated, final boolean enableCompatibility) {
+        this(resourceLoader, minimumPriority, warnDeprecated, enableCompatibility, null, null);
+    }
+
+    private RuleSetFactory(final ResourceLoader resourceLoader, final RulePriority minimumPriority,
+            final boolean warnDeprecated, final boolean enableCompatibility, final Map<String, Long> readRuleSetFiles,
+            final Set<Language> languages) {
         this.resourceLoader = resourceLoader;
+        this.readRuleSetFiles = readRuleSetFiles;
+        this.languages = languages;
         this.minimumPriority = minimumPriority;
         this.warnDeprecated = warnDeprecated;
 
@@ -95,7 +111,41 @@ public class RuleSetFactory {
      *            factory.
      */
     public RuleSetFactory(final RuleSetFactory factory, final boolean warnDeprecated) {
-        this(factory.resourceLoader, factory.minimumPriority, warnDeprecated, factory.compatibilityFilter != null);
+        this(factory.resourceLoader, factory.minimumPriority, warnDeprecated, factory.compatibilityFilter != null,
+                factory.readRuleSetFiles, factory.languages);
+    }
+
+    /**
+     * Constructor copying all configuration from another factory, which
+     * records the checksum of each ruleset file it reads, including the
+     * referenced ones.
+     *
+     * @param factory
+     *            The factory whose configuration to copy.
+     * @param readRuleSetFiles
+     *            The map to which the checksums of the files are put, by
+     *            their name.
+     */
+    public RuleSetFactory(final RuleSetFactory factory, final Map<String, Long> readRuleSetFiles) {
+        this(factory.resourceLoader, factory.minimumPriority, factory.warnDeprecated,
+                factory.compatibilityFilter != null, readRuleSetFiles, factory.languages);
+    }
+
+    /**
+     * Constructor copying all configuration from another factory, which
+     * builds only the rules of the given languages, e.g. the languages of the
+     * files to analyze. The rules of the other languages are left out of the
+     * rulesets, including the references to them, and their classes are not
+     * loaded.
+     *
+     * @param factory
+     *            The factory whose configuration to copy.
+     * @param languages
+     *            The languages of the rules to build.
+     */
+    public RuleSetFactory(final RuleSetFactory factory, final Set<Language> languages) {
+        this(factory.resourceLoader, factory.minimumPriority, factory.warnDeprecated,
+                factory.compatibilityFilter != null, factory.readRuleSetFiles, languages);
     }
 
     /**
@@ -108,6 +158,34 @@ public class RuleSetFactory {
         return compatibilityFilter;
     }
 
+    /* package */ RulePriority getMinimumPriority() {
+        return minimumPriority;
+    }
+
+    /**
+     * Returns the current checksum of a ruleset file, as recorded by a
+     * factory created with {@link #RuleSetFactory(RuleSetFactory, Map)}, to
+     * tell whether it has changed since.
+     *
+     * @param ruleSetFileName
+     *            The name of the ruleset file.
+     * @return The checksum, or -1 if the file is not found.
+     * @throws IOException
+     *             if the file couldn't be read
+     */
+    public long getRuleSetFileChecksum(final String ruleSetFileName) throws IOException {
+        InputStream stream;
+        try {
+            stream = resourceLoader.loadResourceAsStream(ruleSetFileName);
+        } catch (RuleSetNotFoundException e) {
+            return -1;
+        }
+        try (CheckedInputStream in = new CheckedInputStream(stream, new Adler32())) {
+            IOUtils.skip(in, Long.MAX_VALUE);
+            return in.getChecksum().getValue();
+        }
+    }
+
     /**
      * Returns an Iterator of RuleSet objects loaded from descriptions from the
      * "categories.properties" resource for each Language with Rule support.
@@ -173,6 +251,44 @@ public class RuleSetFactory {
         return ruleSets;
     }
 
+    /**
+     * Create a RuleSets without rules from a comma separated list of RuleSet
+     * reference IDs. This is a convenience method which calls
+     * {@link RuleSetReferenceId#parse(String)}, and then calls
+     * {@link #createRuleSetPatterns(List)}.
+     *
+     * @param referenceString
+     *            A comma separated list of RuleSet reference IDs.
+     * @return The new RuleSets, or <code>null</code> if a RuleSet can't be
+     *         read.
+     */
+    public RuleSets createRuleSetPatterns(String referenceString) {
+        return createRuleSetPatterns(RuleSetReferenceId.parse(referenceString));
+    }
+
+    /**
+     * Create a RuleSets without rules from a list of RuleSetReferenceIds, with
+     * the name and the include and exclude patterns of each RuleSet, e.g. to
+     * skip the excluded files before the rules are loaded. The referenced
+     * RuleSets are not read. The currently configured ResourceLoader is used.
+     *
+     * @param ruleSetReferenceIds
+     *            The List of RuleSetReferenceId of the RuleSets to create.
+     * @return The new RuleSets, or <code>null</code> if a RuleSet can't be
+     *         read, which is reported when its rules are loaded.
+     */
+    public RuleSets createRuleSetPatterns(List<RuleSetReferenceId> ruleSetReferenceIds) {
+        RuleSets ruleSets = new RuleSets();
+        for (RuleSetReferenceId ruleSetReferenceId : ruleSetReferenceIds) {
+            RuleSet ruleSet = parseRuleSetPatterns(ruleSetReferenceId);
+            if (ruleSet == null) {
+                return null;
+            }
+            ruleSets.addRuleSet(ruleSet);
+        }
+        return ruleSets;
+    }
+
     /**
      * Create a RuleSet from a RuleSet reference ID string. This is a
      * convenience method which calls {@link RuleSetReferenceId#parse(String)},
@@ -341,6 +457,11 @@ public class RuleSetFactory {
             }
             Document document = builder.parse(inputSource);
             Element ruleSetElement = document.getDocumentElement();
+            if (readRuleSetFiles != null) {
+                // the recorded checksum is the one of the whole file
+                IOUtils.skip(inputStream, Long.MAX_VALUE);
+                readRuleSetFiles.put(ruleSetReferenceId.getRuleSetFileName(), inputStream.getChecksum().getValue());
+            }
 
             RuleSetBuilder ruleSetBuilder = new RuleSetBuilder(inputStream.getChecksum().getValue())
                     .withFileName(ruleSetReferenceId.getRuleSetFileName());
@@ -395,6 +516,38 @@ public class RuleSetFactory {
         }
     }
 
+    /**
+     * Parse the name and the patterns of a RuleSet node, without its rules.
+     *
+     * @param ruleSetReferenceId
+     *            The RuleSetReferenceId of the RuleSet being parsed.
+     * @return The RuleSet, or <code>null</code> if it can't be read.
+     */
+    private RuleSet parseRuleSetPatterns(RuleSetReferenceId ruleSetReferenceId) {
+        if (!ruleSetReferenceId.isExternal()) {
+            return null;
+        }
+        try (InputStream inputStream = ruleSetReferenceId.getInputStream(resourceLoader)) {
+            Element ruleSetElement = createDocumentBuilder().parse(new InputSource(inputStream)).getDocumentElement();
+            RuleSetBuilder ruleSetBuilder = new RuleSetBuilder(0L)
+                    .withFileName(ruleSetReferenceId.getRuleSetFileName())
+                    .withName(ruleSetElement.getAttribute("name"))
+                    .withDescription("");
+            NodeList nodeList = ruleSetElement.getChildNodes();
+            for (int i = 0; i < nodeList.getLength(); i++) {
+                Node node = nodeList.item(i);
+                if ("include-pattern".equals(node.getNodeName())) {
+                    ruleSetBuilder.addIncludePattern(parseTextNode(node));
+                } else if ("exclude-pattern".equals(node.getNodeName())) {
+                    ruleSetBuilder.addExcludePattern(parseTextNode(node));
+                }
+            }
+            return ruleSetBuilder.build();
+        } catch (RuleSetNotFoundException | ParserConfigurationException | IOException | SAXException e) {
+            return null;
+        }
+    }
+
     private DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
         final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         
@@ -496,8 +649,10 @@ public class RuleSetFactory {
 
         // load the ruleset with minimum priority low, so that we get all rules, to be able to exclude any rule
         // minimum priority will be applied again, before constructing the final ruleset
-        RuleSetFactory ruleSetFactory = new RuleSetFactory(resourceLoader, RulePriority.LOW, warnDeprecated, this.compatibilityFilter != null);
+        RuleSetFactory ruleSetFactory = new RuleSetFactory(resourceLoader, RulePriority.LOW, warnDeprecated,
+                this.compatibilityFilter != null, readRuleSetFiles, languages);
         RuleSet otherRuleSet = ruleSetFactory.createRuleSet(RuleSetReferenceId.parse(ref).get(0));
+        excludedRulesCheck.removeAll(ruleSetFactory.otherLanguageRules);
         List<RuleReference> potentialRules = new ArrayList<>();
         int countDeprecated = 0;
         for (Rule rule : otherRuleSet.getRules()) {
@@ -559,6 +714,10 @@ public class RuleSetFactory {
                 && !isRuleName(ruleElement, ruleSetReferenceId.getRuleName())) {
             return;
         }
+        if (!isOfBuiltLanguage(ruleElement)) {
+            otherLanguageRules.add(ruleElement.getAttribute("name"));
+            return;
+        }
         Rule rule = new RuleFactory().buildRule(ruleElement);
         rule.setRuleSetName(ruleSetBuilder.getName());
 
@@ -596,7 +755,8 @@ public class RuleSetFactory {
 
         // load the ruleset with minimum priority low, so that we get all rules, to be able to exclude any rule
         // minimum priority will be applied again, before constructing the final ruleset
-        RuleSetFactory ruleSetFactory = new RuleSetFactory(resourceLoader, RulePriority.LOW, warnDeprecated, this.compatibilityFilter != null);
+        RuleSetFactory ruleSetFactory = new RuleSetFactory(resourceLoader, RulePriority.LOW, warnDeprecated,
+                this.compatibilityFilter != null, readRuleSetFiles, languages);
 
         boolean isSameRuleSet = false;
         RuleSetReferenceId otherRuleSetReferenceId = RuleSetReferenceId.parse(ref).get(0);
@@ -608,6 +768,12 @@ public class RuleSetFactory {
         // do not ignore deprecated rule references
         Rule referencedRule = ruleSetFactory.createRule(otherRuleSetReferenceId, true);
 
+        if (referencedRule == null
+                && ruleSetFactory.otherLanguageRules.contains(otherRuleSetReferenceId.getRuleName())) {
+            otherLanguageRules.add(ruleElement.hasAttribute("name") ? ruleElement.getAttribute("name")
+                    : otherRuleSetReferenceId.getRuleName());
+            return;
+        }
         if (referencedRule == null) {
             throw new IllegalArgumentException("Unable to find referenced rule " + otherRuleSetReferenceId.getRuleName()
                     + "; perhaps the rule name is mispelled?");
@@ -720,6 +886,38 @@ public class RuleSetFactory {
     }
 
 
+    /**
+     * Determines whether the rule of the element is to be built, i.e. whether
+     * it is of one of the languages of this factory. Without a language
+     * attribute, the language of a rule class follows from its package, by the
+     * convention of the built-in rules: <code>net.sourceforge.pmd.lang.&lt;language&gt;.rule</code>.
+     * A rule whose language is still unknown is built, so that it is reported
+     * as before.
+     */
+    private boolean isOfBuiltLanguage(Element ruleElement) {
+        if (languages == null) {
+            return true;
+        }
+        String terseName = ruleElement.getAttribute("language");
+        if (StringUtils.isBlank(terseName)) {
+            terseName = languageOfRuleClass(ruleElement.getAttribute("class"));
+        }
+        Language language = terseName == null ? null : LanguageRegistry.findLanguageByTerseName(terseName);
+        return language == null || languages.contains(language);
+    }
+
+    private static String languageOfRuleClass(String className) {
+        String prefix = "net.sourceforge.pmd.lang.";
+        if (!className.startsWith(prefix)) {
+            return null;
+        }
+        int end = className.indexOf('.', prefix.length());
+        if (end < 0 || !className.startsWith(".rule.", end)) {
+            return null;
+        }
+        return className.substring(prefix.length(), end);
+    }
+
     /**
      * Determine if the specified rule element will represent a Rule with the
      * given name.
@@ -0,0 +1,337 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.RuleSet.RuleSetBuilder;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+import net.sourceforge.pmd.properties.PropertyDescriptorField;
+import net.sourceforge.pmd.properties.PropertyTypeId;
+import net.sourceforge.pmd.properties.builders.PropertyDescriptorExternalBuilder;
+import net.sourceforge.pmd.rules.RuleBuilder;
+
+/**
+ * A snapshot of the rulesets created from ruleset files, in a binary file,
+ * from which they are created again without reading the ruleset files and
+ * resolving their references.
+ *
+ * <p>The snapshot keeps the checksums of all the ruleset files read to
+ * create the rulesets, including the referenced ones, so that it is used only
+ * while none of them has changed, with the same version of PMD and the same
+ * configuration of the {@link RuleSetFactory}. Otherwise the rulesets are
+ * created from the ruleset files, and the snapshot is written again.
+ *
+ * <p>The rules are written with their effective attributes and property
+ * values, so that a rule reference is created again as the rule it
+ * references, with the overridden attributes and properties.
+ */
+public final class RuleSetSnapshot {
+
+    private static final Logger LOG = Logger.getLogger(RuleSetSnapshot.class.getName());
+
+    private static final int MAGIC = 0x504d4453; // PMDS
+    private static final int VERSION = 1;
+
+    private RuleSetSnapshot() {
+    }
+
+    /**
+     * Creates the rulesets from the snapshot if it is up to date, otherwise
+     * from the ruleset files, writing the snapshot.
+     *
+     * @param snapshotFile
+     *            the snapshot file
+     * @param referenceString
+     *            a comma separated list of RuleSet reference IDs
+     * @param factory
+     *            the factory to create the rulesets from the ruleset files
+     * @return the rulesets
+     * @throws RuleSetNotFoundException
+     *             if unable to find a ruleset file
+     */
+    public static RuleSets createRuleSets(String snapshotFile, String referenceString, RuleSetFactory factory)
+            throws RuleSetNotFoundException {
+        File file = new File(snapshotFile);
+        if (file.isFile()) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                RuleSets ruleSets = read(input, referenceString, factory);
+                if (ruleSets != null) {
+                    return ruleSets;
+                }
+                LOG.fine("The ruleset snapshot " + snapshotFile + " is out of date");
+            } catch (IOException | RuntimeException e) {
+                LOG.log(Level.WARNING, "Couldn't read the ruleset snapshot " + snapshotFile, e);
+            }
+        }
+
+        Map<String, Long> readRuleSetFiles = new LinkedHashMap<>();
+        RuleSets ruleSets = new RuleSetFactory(factory, readRuleSetFiles).createRuleSets(referenceString);
+        try {
+            write(file, referenceString, factory, readRuleSetFiles, ruleSets);
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Couldn't write the ruleset snapshot " + snapshotFile, e);
+        }
+        return ruleSets;
+    }
+
+    private static void write(File file, String referenceString, RuleSetFactory factory,
+            Map<String, Long> readRuleSetFiles, RuleSets ruleSets) throws IOException {
+        // another run may read the snapshot meanwhile, so it is replaced at once
+        File temporary = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                writeString(output, PMDVersion.VERSION);
+                writeString(output, referenceString);
+                output.writeInt(factory.getMinimumPriority().getPriority());
+                output.writeBoolean(factory.getCompatibilityFilter() != null);
+                output.writeInt(readRuleSetFiles.size());
+                for (Map.Entry<String, Long> ruleSetFile : readRuleSetFiles.entrySet()) {
+                    writeString(output, ruleSetFile.getKey());
+                    output.writeLong(ruleSetFile.getValue());
+                }
+
+                output.writeInt(ruleSets.getAllRuleSets().length);
+                for (RuleSet ruleSet : ruleSets.getAllRuleSets()) {
+                    writeRuleSet(output, ruleSet);
+                }
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private static void writeRuleSet(DataOutputStream output, RuleSet ruleSet) throws IOException {
+        writeString(output, ruleSet.getName());
+        writeString(output, ruleSet.getDescription());
+        writeString(output, ruleSet.getFileName());
+        output.writeLong(ruleSet.getChecksum());
+        writeStrings(output, ruleSet.getExcludePatterns());
+        writeStrings(output, ruleSet.getIncludePatterns());
+        output.writeInt(ruleSet.getRules().size());
+        for (Rule rule : ruleSet.getRules()) {
+            writeRule(output, rule);
+        }
+    }
+
+    private static void writeRule(DataOutputStream output, Rule rule) throws IOException {
+        writeString(output, rule.getName());
+        writeString(output, rule.getRuleClass());
+        writeString(output, rule.getLanguage() == null ? null : rule.getLanguage().getTerseName());
+        writeString(output, versionOf(rule.getMinimumLanguageVersion()));
+        writeString(output, versionOf(rule.getMaximumLanguageVersion()));
+        writeString(output, rule.getSince());
+        writeString(output, rule.getMessage());
+        writeString(output, rule.getExternalInfoUrl());
+        writeString(output, rule.getDescription());
+        writeStrings(output, rule.getExamples());
+        output.writeInt(rule.getPriority().getPriority());
+        output.writeBoolean(rule.isDeprecated());
+        output.writeBoolean(rule.isDfa());
+        output.writeBoolean(rule.isTypeResolution());
+        output.writeBoolean(rule.isMultifile());
+        writeString(output, rule.getRuleSetName());
+
+        List<PropertyDescriptor<?>> definitions = new ArrayList<>();
+        List<PropertyDescriptor<?>> overridden = new ArrayList<>();
+        for (PropertyDescriptor<?> descriptor : rule.getPropertyDescriptors()) {
+            if (descriptor.isDefinedExternally()) {
+                definitions.add(descriptor);
+            }
+            Object value = rule.getProperty(descriptor);
+            if (value != null && !value.equals(descriptor.defaultValue())) {
+                overridden.add(descriptor);
+            }
+        }
+        output.writeInt(definitions.size());
+        for (PropertyDescriptor<?> descriptor : definitions) {
+            writeString(output, PropertyTypeId.typeIdFor(descriptor.type(), descriptor.isMultiValue()));
+            Map<PropertyDescriptorField, String> attributes = descriptor.attributeValuesById();
+            output.writeInt(attributes.size());
+            for (Map.Entry<PropertyDescriptorField, String> attribute : attributes.entrySet()) {
+                writeString(output, attribute.getKey().attributeName());
+                writeString(output, attribute.getValue());
+            }
+        }
+        output.writeInt(overridden.size());
+        for (PropertyDescriptor<?> descriptor : overridden) {
+            writeString(output, descriptor.name());
+            writeString(output, valueAsString(rule, descriptor));
+        }
+    }
+
+    private static <T> String valueAsString(Rule rule, PropertyDescriptor<T> descriptor) {
+        return descriptor.asDelimitedString(rule.getProperty(descriptor));
+    }
+
+    private static String versionOf(LanguageVersion languageVersion) {
+        return languageVersion == null ? null : languageVersion.getVersion();
+    }
+
+    /**
+     * Reads the rulesets, or returns <code>null</code> if the snapshot is
+     * not the one of the given rulesets in their current state.
+     */
+    private static RuleSets read(DataInputStream input, String referenceString, RuleSetFactory factory)
+            throws IOException {
+        if (input.readInt() != MAGIC || input.readInt() != VERSION || !PMDVersion.VERSION.equals(readString(input))
+                || !referenceString.equals(readString(input))
+                || input.readInt() != factory.getMinimumPriority().getPriority()
+                || input.readBoolean() != (factory.getCompatibilityFilter() != null)) {
+            return null;
+        }
+        int ruleSetFiles = input.readInt();
+        for (int i = 0; i < ruleSetFiles; i++) {
+            String fileName = readString(input);
+            long checksum = input.readLong();
+            // a file which is gone has the checksum -1, so the snapshot is out of date
+            if (checksum != factory.getRuleSetFileChecksum(fileName)) {
+                return null;
+            }
+        }
+
+        RuleSets ruleSets = new RuleSets();
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            ruleSets.addRuleSet(readRuleSet(input));
+        }
+        return ruleSets;
+    }
+
+    private static RuleSet readRuleSet(DataInputStream input) throws IOException {
+        String name = readString(input);
+        String description = readString(input);
+        String fileName = readString(input);
+        RuleSetBuilder builder = new RuleSetBuilder(input.readLong())
+                .withName(name)
+                .withDescription(description)
+                .withFileName(fileName)
+                .setExcludePatterns(readStrings(input))
+                .setIncludePatterns(readStrings(input));
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            builder.addRule(readRule(input));
+        }
+        return builder.build();
+    }
+
+    private static Rule readRule(DataInputStream input) throws IOException {
+        String name = readString(input);
+        RuleBuilder builder = new RuleBuilder(name, readString(input), readString(input));
+        builder.minimumLanguageVersion(readString(input));
+        builder.maximumLanguageVersion(readString(input));
+        builder.since(readString(input));
+        builder.message(readString(input));
+        builder.externalInfoUrl(readString(input));
+        builder.description(readString(input));
+        for (String example : readStrings(input)) {
+            builder.addExample(example);
+        }
+        builder.priority(input.readInt());
+        builder.setDeprecated(input.readBoolean());
+        builder.usesDFA(input.readBoolean());
+        builder.usesTyperesolution(input.readBoolean());
+        builder.usesMultifile(input.readBoolean());
+        String ruleSetName = readString(input);
+
+        int definitions = input.readInt();
+        for (int i = 0; i < definitions; i++) {
+            String typeId = readString(input);
+            PropertyDescriptorExternalBuilder<?> propertyBuilder = PropertyTypeId.factoryFor(typeId);
+            if (propertyBuilder == null) {
+                throw new IOException("No property descriptor factory for type: " + typeId);
+            }
+            Map<PropertyDescriptorField, String> attributes = new HashMap<>();
+            int count = input.readInt();
+            for (int j = 0; j < count; j++) {
+                attributes.put(PropertyDescriptorField.getConstant(readString(input)), readString(input));
+            }
+            builder.defineProperty(propertyBuilder.build(attributes));
+        }
+
+        Rule rule;
+        try {
+            rule = builder.build();
+        } catch (ClassNotFoundException | IllegalAccessException | InstantiationException e) {
+            throw new IOException("Couldn't create the rule " + name, e);
+        }
+        rule.setRuleSetName(ruleSetName);
+
+        int overridden = input.readInt();
+        for (int i = 0; i < overridden; i++) {
+            String propertyName = readString(input);
+            PropertyDescriptor<?> descriptor = rule.getPropertyDescriptor(propertyName);
+            if (descriptor == null) {
+                throw new IOException("Cannot set non-existent property '" + propertyName + "' on Rule " + name);
+            }
+            setPropertyValue(rule, descriptor, readString(input));
+        }
+        return rule;
+    }
+
+    private static <T> void setPropertyValue(Rule rule, PropertyDescriptor<T> descriptor, String value) {
+        rule.setProperty(descriptor, descriptor.valueFrom(value));
+    }
+
+    private static void writeStrings(DataOutputStream output, List<String> values) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            writeString(output, value);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(input));
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            // not writeUTF, which is limited to 64 KB
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
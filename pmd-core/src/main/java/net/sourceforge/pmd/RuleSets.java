@@ -114,6 +114,25 @@ public class RuleSets {
         return false;
     }
 
+    /**
+     * Check if source files in a given directory may be checked by any
+     * RuleSet.
+     *
+     * @param directory
+     *            the directory, with the path its files are checked with
+     * @return <code>false</code> if no file in the directory should be
+     *         checked, <code>true</code> otherwise
+     * @see RuleSet#appliesToDirectory(File)
+     */
+    public boolean appliesToDirectory(File directory) {
+        for (RuleSet ruleSet : ruleSets) {
+            if (ruleSet.appliesToDirectory(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Notify all rules of the start of processing.
      */
@@ -4,12 +4,14 @@
 
 package net.sourceforge.pmd;
 
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.util.ResourceLoader;
 
 public final class RulesetsFactoryUtils {
@@ -33,9 +35,33 @@ public final class RulesetsFactoryUtils {
      *             a ruleset couldn't be found.
      */
     public static RuleSets getRuleSets(String rulesets, RuleSetFactory factory) {
+        return getRuleSets(rulesets, null, factory);
+    }
+
+    /**
+     * See {@link #getRuleSets(String, RuleSetFactory)}. In addition, the
+     * rulesets are created from the given snapshot while it is up to date.
+     *
+     * @param rulesets
+     *            the string with the rulesets to load
+     * @param snapshotFile
+     *            the snapshot file of the rulesets, or <code>null</code>
+     * @param factory
+     *            the ruleset factory
+     * @return the rulesets
+     * @throws IllegalArgumentException
+     *             if rulesets is empty (means, no rules have been found) or if
+     *             a ruleset couldn't be found.
+     * @see RuleSetSnapshot
+     */
+    public static RuleSets getRuleSets(String rulesets, String snapshotFile, RuleSetFactory factory) {
         RuleSets ruleSets = null;
         try {
-            ruleSets = factory.createRuleSets(rulesets);
+            if (snapshotFile == null) {
+                ruleSets = factory.createRuleSets(rulesets);
+            } else {
+                ruleSets = RuleSetSnapshot.createRuleSets(snapshotFile, rulesets, factory);
+            }
             printRuleNamesInDebug(ruleSets);
             if (ruleSets.ruleCount() == 0) {
                 String msg = "No rules found. Maybe you mispelled a rule name? (" + rulesets + ')';
@@ -63,8 +89,68 @@ public final class RulesetsFactoryUtils {
      *             a ruleset couldn't be found.
      */
     public static RuleSets getRuleSetsWithBenchmark(String rulesets, RuleSetFactory factory) {
+        return getRuleSetsWithBenchmark(rulesets, null, factory);
+    }
+
+    /**
+     * See {@link #getRuleSets(String, String, RuleSetFactory)}. In addition,
+     * the loading of the rules is benchmarked.
+     *
+     * @param rulesets
+     *            the string with the rulesets to load
+     * @param snapshotFile
+     *            the snapshot file of the rulesets, or <code>null</code>
+     * @param factory
+     *            the ruleset factory
+     * @return the rulesets
+     * @throws IllegalArgumentException
+     *             if rulesets is empty (means, no rules have been found) or if
+     *             a ruleset couldn't be found.
+     */
+    public static RuleSets getRuleSetsWithBenchmark(String rulesets, String snapshotFile, RuleSetFactory factory) {
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.LOAD_RULES)) {
+            return getRuleSets(rulesets, snapshotFile, factory);
+        }
+    }
+
+    /**
+     * See {@link #getRuleSetsWithBenchmark(String, String, RuleSetFactory)}.
+     * In addition, only the rules of the given languages are loaded, e.g. the
+     * languages of the files to analyze, unless the rulesets are created from
+     * a snapshot, which is shared by the analyses of any languages. If none of
+     * the rules are of these languages, all the rules are loaded, so that an
+     * error is reported as before.
+     *
+     * @param rulesets
+     *            the string with the rulesets to load
+     * @param snapshotFile
+     *            the snapshot file of the rulesets, or <code>null</code>
+     * @param factory
+     *            the ruleset factory
+     * @param languages
+     *            the languages of the rules to load, or <code>null</code>
+     *            for all
+     * @return the rulesets
+     * @throws IllegalArgumentException
+     *             if rulesets is empty (means, no rules have been found) or if
+     *             a ruleset couldn't be found.
+     * @see RuleSetFactory#RuleSetFactory(RuleSetFactory, Set)
+     */
+    public static RuleSets getRuleSetsWithBenchmark(String rulesets, String snapshotFile, RuleSetFactory factory,
+            Set<Language> languages) {
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.LOAD_RULES)) {
-            return getRuleSets(rulesets, factory);
+            if (snapshotFile == null && languages != null) {
+                try {
+                    RuleSets ruleSets = new RuleSetFactory(factory, languages).createRuleSets(rulesets);
+                    if (ruleSets.ruleCount() > 0) {
+                        printRuleNamesInDebug(ruleSets);
+                        return ruleSets;
+                    }
+                } catch (RuleSetNotFoundException ignored) {
+                    // reported when loading all the rules
+                }
+            }
+            return getRuleSets(rulesets, snapshotFile, factory);
         }
     }
 
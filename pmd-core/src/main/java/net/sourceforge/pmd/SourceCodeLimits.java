@@ -0,0 +1,136 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Checks a file against the limits of the {@link PMDConfiguration}: its
+ * size, its number of lines and of nodes, and whether it is generated. A file
+ * over the limits is skipped with a {@link PMDException}, which is reported
+ * as a processing error.
+ */
+final class SourceCodeLimits {
+
+    // markers of generated code, searched in the header of the file
+    private static final String[] GENERATED_MARKERS = { "@Generated", "@javax.annotation.Generated",
+        "@javax.annotation.processing.Generated", "@generated", "Generated By:", "DO NOT EDIT" };
+    private static final int HEADER_LENGTH = 4096;
+
+    // a minified file is not small, and has long lines on average
+    private static final int MINIFIED_MINIMUM_LENGTH = 2048;
+    private static final int MINIFIED_AVERAGE_LINE_LENGTH = 300;
+
+    private SourceCodeLimits() {
+    }
+
+    /**
+     * Returns the content of the stream, if the configuration has a maximum
+     * file size. At most one byte more than the maximum is read, the whole
+     * file is not read if it is too large.
+     *
+     * @return the content of the stream, or the stream itself if the size of
+     *         the files isn't limited
+     */
+    static InputStream checkSize(PMDConfiguration configuration, String fileName, InputStream sourceCode)
+            throws IOException, PMDException {
+        int maximumSize = configuration.getMaximumFileSize();
+        if (maximumSize <= 0) {
+            return sourceCode;
+        }
+        byte[] content = IOUtils.toByteArray(new BoundedInputStream(sourceCode, maximumSize + 1L));
+        if (content.length > maximumSize) {
+            throw skipped(fileName, "more than the maximum of " + maximumSize + " bytes");
+        }
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Returns whether the content of the files must be checked before they
+     * are parsed.
+     */
+    static boolean checksContent(PMDConfiguration configuration) {
+        return configuration.getMaximumFileLines() > 0 || configuration.isSkipGeneratedFiles();
+    }
+
+    static void checkContent(PMDConfiguration configuration, String fileName, char[] content) throws PMDException {
+        int lines = countLines(content);
+        int maximumLines = configuration.getMaximumFileLines();
+        if (maximumLines > 0 && lines > maximumLines) {
+            throw skipped(fileName, lines + " lines, more than the maximum of " + maximumLines);
+        }
+        if (configuration.isSkipGeneratedFiles()) {
+            if (hasGeneratedMarker(content)) {
+                throw skipped(fileName, "generated code");
+            } else if (isMinified(content, lines)) {
+                throw skipped(fileName, "minified code");
+            }
+        }
+    }
+
+    static void checkNodes(PMDConfiguration configuration, String fileName, Node root) throws PMDException {
+        int maximumNodes = configuration.getMaximumNodes();
+        if (maximumNodes > 0 && countNodes(root, maximumNodes) > maximumNodes) {
+            throw skipped(fileName, "more than the maximum of " + maximumNodes + " nodes");
+        }
+    }
+
+    static int countLines(char[] content) {
+        int lines = content.length == 0 ? 0 : 1;
+        for (int i = 0; i < content.length; i++) {
+            char c = content[i];
+            if (i + 1 < content.length && (c == '\n' || c == '\r' && content[i + 1] != '\n')) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    static boolean hasGeneratedMarker(char[] content) {
+        String header = new String(content, 0, Math.min(content.length, HEADER_LENGTH));
+        for (String marker : GENERATED_MARKERS) {
+            if (header.contains(marker)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isMinified(char[] content, int lines) {
+        return content.length >= MINIFIED_MINIMUM_LENGTH && content.length / lines > MINIFIED_AVERAGE_LINE_LENGTH;
+    }
+
+    /**
+     * Counts the nodes of the tree, up to one more than the limit. The nodes
+     * skipped by the parser, like the statements of a Java body parsed in the
+     * mode which skips them, have no children, and aren't parsed here.
+     */
+    static int countNodes(Node root, int limit) {
+        int count = 0;
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty() && count <= limit) {
+            Node node = pending.pop();
+            count++;
+            for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+                pending.push(node.jjtGetChild(i));
+            }
+        }
+        return count;
+    }
+
+    private static PMDException skipped(String fileName, String reason) {
+        return new PMDException("Skipped " + fileName + ": " + reason);
+    }
+}
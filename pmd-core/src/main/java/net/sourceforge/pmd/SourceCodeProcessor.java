@@ -4,6 +4,7 @@
 
 package net.sourceforge.pmd;
 
+import java.io.CharArrayReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -11,6 +12,8 @@ import java.io.Reader;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
@@ -18,7 +21,6 @@ import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
-import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.lang.xpath.Initializer;
@@ -26,14 +28,76 @@ import net.sourceforge.pmd.lang.xpath.Initializer;
 public class SourceCodeProcessor {
 
     private final PMDConfiguration configuration;
+    private final boolean multifileIndexed;
 
     public SourceCodeProcessor(PMDConfiguration configuration) {
+        this(configuration, false);
+    }
+
+    /**
+     * @param configuration
+     *            The configuration of the analysis
+     * @param multifileIndexed
+     *            Whether all the files have been indexed for the multifile
+     *            analysis with {@link #indexSourceCode(InputStream, RuleSets, RuleContext)}
+     *            before their analysis. The analysis then doesn't index them
+     *            again.
+     */
+    public SourceCodeProcessor(PMDConfiguration configuration, boolean multifileIndexed) {
         this.configuration = configuration;
+        this.multifileIndexed = multifileIndexed;
+    }
+
+    /**
+     * Indexes the input stream for the multifile analysis, without applying
+     * the rules. Indexing all the files before analysing any of them makes
+     * the information about the other files complete for the multifile
+     * rules, whatever the order of the analysis. The files can be indexed in
+     * parallel. Nothing is done if no multifile rule applies to the file.
+     *
+     * <p>The file is parsed again by its analysis: keeping the trees of all
+     * the files until they are analyzed would hold the whole project in
+     * memory. The indexing only resolves the qualified names and the symbol
+     * table, which the multifile facade needs, and not the types. On the
+     * pmd-core sources, it adds about a fifth to the time of an analysis
+     * with the best practices and error prone rules, on a single thread.
+     *
+     * @param sourceCode
+     *            The InputStream to index.
+     * @param ruleSets
+     *            The collection of rules which will be applied to the file.
+     * @param ctx
+     *            The context in which PMD is operating.
+     * @throws PMDException
+     *             if the input stream could not be parsed, or other error is
+     *             encountered.
+     */
+    public void indexSourceCode(InputStream sourceCode, RuleSets ruleSets, RuleContext ctx) throws PMDException {
+        determineLanguage(ctx);
+        Language language = ctx.getLanguageVersion().getLanguage();
+        if (!ruleSets.usesMultifile(language) || !ruleSets.applies(ctx.getSourceCodeFile())) {
+            return;
+        }
+
+        try (Reader streamReader = new InputStreamReader(
+                SourceCodeLimits.checkSize(configuration, ctx.getSourceCodeFilename(), sourceCode),
+                configuration.getSourceEncoding())) {
+            LanguageVersionHandler languageVersionHandler = ctx.getLanguageVersion().getLanguageVersionHandler();
+            Node rootNode = parse(ctx, checkContent(streamReader, ctx), ruleSets);
+            resolveQualifiedNames(rootNode, languageVersionHandler);
+            symbolFacade(rootNode, languageVersionHandler);
+            usesMultifile(rootNode, languageVersionHandler, ruleSets, language);
+        } catch (ParseException pe) {
+            throw new PMDException("Error while parsing " + ctx.getSourceCodeFilename(), pe);
+        } catch (IOException e) {
+            throw new PMDException("IO exception: " + e.getMessage(), e);
+        }
     }
 
     /**
      * Processes the input stream against a rule set using the given input
-     * encoding.
+     * encoding. The stream is not read beyond the
+     * {@link PMDConfiguration#getMaximumFileSize() maximum file size}.
      *
      * @param sourceCode
      *            The InputStream to analyze.
@@ -47,7 +111,9 @@ public class SourceCodeProcessor {
      * @see #processSourceCode(Reader, RuleSets, RuleContext)
      */
     public void processSourceCode(InputStream sourceCode, RuleSets ruleSets, RuleContext ctx) throws PMDException {
-        try (Reader streamReader = new InputStreamReader(sourceCode, configuration.getSourceEncoding())) {
+        try (Reader streamReader = new InputStreamReader(
+                SourceCodeLimits.checkSize(configuration, ctx.getSourceCodeFilename(), sourceCode),
+                configuration.getSourceEncoding())) {
             processSourceCode(streamReader, ruleSets, ctx);
         } catch (IOException e) {
             throw new PMDException("IO exception: " + e.getMessage(), e);
@@ -93,10 +159,13 @@ public class SourceCodeProcessor {
 
             try {
                 ruleSets.start(ctx);
-                processSource(sourceCode, ruleSets, ctx);
+                processSource(checkContent(sourceCode, ctx), ruleSets, ctx);
             } catch (ParseException pe) {
                 configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
                 throw new PMDException("Error while parsing " + ctx.getSourceCodeFilename(), pe);
+            } catch (PMDException e) {
+                configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
+                throw e;
             } catch (Exception e) {
                 configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
                 throw new PMDException("Error while processing " + ctx.getSourceCodeFilename(), e);
@@ -106,6 +175,19 @@ public class SourceCodeProcessor {
         }
     }
 
+    /**
+     * Reads the source fully, if the configuration has limits on its content,
+     * and checks them.
+     */
+    private Reader checkContent(Reader sourceCode, RuleContext ctx) throws IOException, PMDException {
+        if (!SourceCodeLimits.checksContent(configuration)) {
+            return sourceCode;
+        }
+        char[] content = IOUtils.toCharArray(sourceCode);
+        SourceCodeLimits.checkContent(configuration, ctx.getSourceCodeFilename(), content);
+        return new CharArrayReader(content);
+    }
+
     private Node parse(RuleContext ctx, Reader sourceCode, Parser parser) {
         try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.PARSER)) {
             Node rootNode = parser.parse(ctx.getSourceCodeFilename(), sourceCode);
@@ -135,15 +217,6 @@ public class SourceCodeProcessor {
     // return parserOptions;
     // }
 
-    private void usesDFA(LanguageVersion languageVersion, Node rootNode, RuleSets ruleSets, Language language) {
-        if (ruleSets.usesDFA(language)) {
-            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.DFA)) {
-                VisitorStarter dataFlowFacade = languageVersion.getLanguageVersionHandler().getDataFlowFacade();
-                dataFlowFacade.start(rootNode);
-            }
-        }
-    }
-
     private void usesTypeResolution(LanguageVersion languageVersion, Node rootNode, RuleSets ruleSets,
             Language language) {
 
@@ -167,18 +240,25 @@ public class SourceCodeProcessor {
     }
 
 
-    private void processSource(Reader sourceCode, RuleSets ruleSets, RuleContext ctx) {
+    private Node parse(RuleContext ctx, Reader sourceCode, RuleSets ruleSets) throws PMDException {
+        Parser parser = PMD.parserFor(ctx.getLanguageVersion(), configuration, ruleSets);
+        Node rootNode = parse(ctx, sourceCode, parser);
+        SourceCodeLimits.checkNodes(configuration, ctx.getSourceCodeFilename(), rootNode);
+        return rootNode;
+    }
+
+    private void processSource(Reader sourceCode, RuleSets ruleSets, RuleContext ctx) throws PMDException {
         LanguageVersion languageVersion = ctx.getLanguageVersion();
         LanguageVersionHandler languageVersionHandler = languageVersion.getLanguageVersionHandler();
-        Parser parser = PMD.parserFor(languageVersion, configuration);
+        Language language = languageVersion.getLanguage();
 
-        Node rootNode = parse(ctx, sourceCode, parser);
+        Node rootNode = parse(ctx, sourceCode, ruleSets);
         resolveQualifiedNames(rootNode, languageVersionHandler);
         symbolFacade(rootNode, languageVersionHandler);
-        Language language = languageVersion.getLanguage();
-        usesDFA(languageVersion, rootNode, ruleSets, language);
         usesTypeResolution(languageVersion, rootNode, ruleSets, language);
-        usesMultifile(rootNode, languageVersionHandler, ruleSets, language);
+        if (!multifileIndexed) {
+            usesMultifile(rootNode, languageVersionHandler, ruleSets, language);
+        }
 
         List<Node> acus = Collections.singletonList(rootNode);
         ruleSets.apply(acus, ctx, language);
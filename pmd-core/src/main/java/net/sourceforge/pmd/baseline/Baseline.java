@@ -0,0 +1,205 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.baseline;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.renderers.BinaryReportReader;
+
+/**
+ * The violations of a previous report, which are not reported again. Only
+ * the violations found since then are reported.
+ *
+ * <p>A violation is identified by a fingerprint of its rule, its file, its
+ * package, class, method and variable, and its message, without the line
+ * numbers, so that it is still identified when lines are added or removed
+ * before it. The numbers in the message are ignored too, since a message can
+ * mention a line or a measure. As many violations with the same fingerprint
+ * are baselined in a file as there were in the previous report. The file is
+ * relative to the input paths, so that the baseline of one checkout applies
+ * to another one in a different directory.
+ *
+ * <p>The previous report is a report in the binary format. The fingerprints
+ * of its violations are kept in an index file next to it, which is built
+ * the first time, and read from the disk as needed afterwards. The index is
+ * built again when the report or the input paths change.
+ */
+public final class Baseline {
+
+    private static final Logger LOG = Logger.getLogger(Baseline.class.getName());
+
+    // FNV-1a
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // the directories of the input paths, with '/' separators and a trailing
+    // '/', the longest first
+    private final String[] roots;
+    private BaselineIndex index;
+
+    private Baseline(String[] roots) {
+        this.roots = roots;
+    }
+
+    /**
+     * Loads the baseline of the given report in the binary format, building
+     * its index file if it does not exist or is older than the report.
+     *
+     * @param reportFile
+     *            the previous report
+     * @param inputPaths
+     *            the comma separated input paths the files of the
+     *            violations are relative to, or <code>null</code>
+     */
+    public static Baseline load(String reportFile, String inputPaths) throws IOException {
+        File report = new File(reportFile);
+        if (!report.isFile()) {
+            throw new IOException("Baseline report not found: " + reportFile);
+        }
+        Baseline baseline = new Baseline(roots(inputPaths));
+        long rootsHash = FNV_OFFSET_BASIS;
+        for (String root : baseline.roots) {
+            rootsHash = hash(rootsHash, root, false);
+        }
+        File indexFile = new File(reportFile + ".idx");
+        BaselineIndex index = BaselineIndex.open(indexFile, report, rootsHash);
+        if (index == null) {
+            LOG.fine("Building the index of the baseline " + reportFile);
+            baseline.buildIndex(report, indexFile, rootsHash);
+            index = BaselineIndex.open(indexFile, report, rootsHash);
+            if (index == null) {
+                throw new IOException("Baseline report modified while being indexed: " + reportFile);
+            }
+        }
+        baseline.index = index;
+        return baseline;
+    }
+
+    private static String[] roots(String inputPaths) {
+        if (inputPaths == null) {
+            return new String[0];
+        }
+        List<String> roots = new ArrayList<>();
+        for (String inputPath : inputPaths.split(",")) {
+            File file = new File(inputPath.trim());
+            File directory = file.isFile() ? file.getAbsoluteFile().getParentFile() : file;
+            String root;
+            try {
+                root = directory.getCanonicalPath();
+            } catch (IOException e) {
+                root = directory.getAbsolutePath();
+            }
+            root = root.replace('\\', '/');
+            roots.add(root.endsWith("/") ? root : root + '/');
+        }
+        Collections.sort(roots, new Comparator<String>() {
+            @Override
+            public int compare(String first, String second) {
+                return Integer.compare(second.length(), first.length());
+            }
+        });
+        return roots.toArray(new String[0]);
+    }
+
+    private void buildIndex(File report, File indexFile, long rootsHash) throws IOException {
+        long[] fingerprints = new long[1024];
+        int count = 0;
+        try (BinaryReportReader reader = new BinaryReportReader(
+                new BufferedInputStream(new FileInputStream(report)))) {
+            for (Report fileReport = reader.nextReport(); fileReport != null; fileReport = reader.nextReport()) {
+                for (Iterator<RuleViolation> i = fileReport.iterator(); i.hasNext();) {
+                    if (count == fingerprints.length) {
+                        fingerprints = Arrays.copyOf(fingerprints, count * 2);
+                    }
+                    fingerprints[count++] = fingerprint(i.next());
+                }
+            }
+        }
+        // another run may read the index meanwhile, so it is replaced at once
+        File temporary = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getAbsoluteFile().getParentFile());
+        try {
+            BaselineIndex.write(temporary, report, rootsHash, fingerprints, count);
+            Files.move(temporary.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Returns the number of violations with the same fingerprint as the
+     * given violation in the baseline.
+     */
+    public int count(long fingerprint) {
+        return index.count(fingerprint);
+    }
+
+    /**
+     * Returns the fingerprint of the violation, which is never 0.
+     */
+    public long fingerprint(RuleViolation violation) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, violation.getRule().getName(), false);
+        hash = hash(hash, relativize(violation.getFilename()), false);
+        hash = hash(hash, violation.getPackageName(), false);
+        hash = hash(hash, violation.getClassName(), false);
+        hash = hash(hash, violation.getMethodName(), false);
+        hash = hash(hash, violation.getVariableName(), false);
+        hash = hash(hash, violation.getDescription(), true);
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Returns the path of the file relative to the input path it is in. A
+     * file which is in none of them, e.g. with a short name already, is kept
+     * as it is.
+     */
+    private String relativize(String fileName) {
+        String path = fileName.replace('\\', '/');
+        for (String root : roots) {
+            if (path.startsWith(root)) {
+                return path.substring(root.length());
+            }
+        }
+        return path;
+    }
+
+    private static long hash(long hash, String value, boolean ignoreNumbers) {
+        long result = hash;
+        if (value != null) {
+            boolean inNumber = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (ignoreNumbers && c >= '0' && c <= '9') {
+                    if (inNumber) {
+                        continue;
+                    }
+                    // a number is hashed as a single 0
+                    c = '0';
+                    inNumber = true;
+                } else {
+                    inNumber = false;
+                }
+                result = (result ^ c) * FNV_PRIME;
+            }
+        }
+        // the separator of the values
+        return (result ^ 0xFFFF) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.baseline;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * An open addressing hash table of the fingerprints of the violations of a
+ * baseline, with their number, in a file. The file is mapped in memory, so
+ * the table is not on the heap, and only its pages that are looked up are
+ * read.
+ *
+ * <p>The file starts with a header, with the size and the modification time
+ * of the report it is built from and the hash of the input paths the files
+ * of its violations are relative to, followed by the slots, each one a
+ * fingerprint and its number. The fingerprint 0 marks an empty slot.
+ */
+final class BaselineIndex {
+
+    private static final int MAGIC = 0x504d4442; // PMDB
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4;
+    private static final int SLOT_SIZE = 8 + 4;
+
+    private final MappedByteBuffer buffer;
+    private final int mask;
+
+    private BaselineIndex(MappedByteBuffer buffer, int capacity) {
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Opens the index, or returns <code>null</code> if it is not an index of
+     * the given report in its current state, relative to the same input
+     * paths.
+     */
+    static BaselineIndex open(File indexFile, File report, long rootsHash) throws IOException {
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r")) {
+            if (file.length() < HEADER_SIZE || file.readInt() != MAGIC || file.readInt() != VERSION
+                    || file.readLong() != report.length() || file.readLong() != report.lastModified()
+                    || file.readLong() != rootsHash) {
+                return null;
+            }
+            int capacity = file.readInt();
+            if (Integer.bitCount(capacity) != 1 || file.length() != HEADER_SIZE + (long) capacity * SLOT_SIZE) {
+                return null;
+            }
+            MappedByteBuffer buffer = file.getChannel().map(MapMode.READ_ONLY, HEADER_SIZE,
+                    (long) capacity * SLOT_SIZE);
+            return new BaselineIndex(buffer, capacity);
+        }
+    }
+
+    /**
+     * Writes an index of the given fingerprints, as the index of the given
+     * report.
+     *
+     * @param rootsHash
+     *            the hash of the input paths the fingerprints are relative to
+     * @param fingerprints
+     *            the fingerprints, in any order and with duplicates, none of
+     *            them 0
+     * @param count
+     *            the number of fingerprints in the array
+     */
+    static void write(File indexFile, File report, long rootsHash, long[] fingerprints, int count) throws IOException {
+        long capacity = Long.highestOneBit(Math.max(16, (long) count * 2 - 1)) << 1;
+        if (HEADER_SIZE + capacity * SLOT_SIZE > Integer.MAX_VALUE) {
+            throw new IOException("Too many violations in the baseline: " + count);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw")) {
+            file.setLength(0);
+            file.setLength(HEADER_SIZE + capacity * SLOT_SIZE);
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE + capacity * SLOT_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(report.length()).putLong(report.lastModified())
+                .putLong(rootsHash).putInt((int) capacity);
+            int mask = (int) capacity - 1;
+            for (int i = 0; i < count; i++) {
+                int position = HEADER_SIZE + find(buffer, HEADER_SIZE, mask, fingerprints[i]) * SLOT_SIZE;
+                buffer.putLong(position, fingerprints[i]);
+                buffer.putInt(position + 8, buffer.getInt(position + 8) + 1);
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Returns the number of violations with the fingerprint in the baseline.
+     */
+    int count(long fingerprint) {
+        int position = find(buffer, 0, mask, fingerprint) * SLOT_SIZE;
+        return buffer.getLong(position) == fingerprint ? buffer.getInt(position + 8) : 0;
+    }
+
+    /**
+     * Returns the slot of the fingerprint, or the empty slot where it would
+     * be. The table is never full.
+     */
+    private static int find(MappedByteBuffer buffer, int offset, int mask, long fingerprint) {
+        int slot = (int) (fingerprint ^ fingerprint >>> 32) & mask;
+        while (true) {
+            long stored = buffer.getLong(offset + slot * SLOT_SIZE);
+            if (stored == fingerprint || stored == 0) {
+                return slot;
+            }
+            slot = slot + 1 & mask;
+        }
+    }
+}
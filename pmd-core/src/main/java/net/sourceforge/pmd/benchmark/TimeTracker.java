@@ -83,6 +83,16 @@ public final class TimeTracker {
         return new TimingReport(System.currentTimeMillis() - wallClockStartMillis, ACCUMULATED_RESULTS);
     }
     
+    /**
+     * Stops global tracking, if any, and discards the timed data, e.g. of an
+     * analysis which failed before it could stop tracking.
+     */
+    public static void reset() {
+        trackTime = false;
+        ACCUMULATED_RESULTS.clear();
+        TIMER_ENTRIES.remove();
+    }
+
     /**
      * Initialize a thread, starting to track it's own time.
      */
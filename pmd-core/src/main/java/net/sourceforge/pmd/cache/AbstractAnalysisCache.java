@@ -5,6 +5,7 @@
 package net.sourceforge.pmd.cache;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
@@ -46,6 +47,7 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
     protected long rulesetChecksum;
     protected long auxClassPathChecksum;
     protected long executionClassPathChecksum;
+    protected long baselineChecksum;
     protected final CachedRuleMapper ruleMapper = new CachedRuleMapper();
     
     /**
@@ -101,6 +103,12 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
 
     @Override
     public void checkValidity(final RuleSets ruleSets, final ClassLoader auxclassPathClassLoader) {
+        checkValidity(ruleSets, auxclassPathClassLoader, null);
+    }
+
+    @Override
+    public void checkValidity(final RuleSets ruleSets, final ClassLoader auxclassPathClassLoader,
+            final String baseline) {
         boolean cacheIsValid = true;
 
         if (ruleSets.getChecksum() != rulesetChecksum) {
@@ -133,6 +141,12 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
             cacheIsValid = false;
         }
 
+        final long currentBaselineChecksum = computeBaselineChecksum(baseline);
+        if (currentBaselineChecksum != baselineChecksum) {
+            LOG.info("Analysis cache invalidated, baseline changed.");
+            cacheIsValid = false;
+        }
+
         if (!cacheIsValid) {
             // Clear the cache
             fileResultsCache.clear();
@@ -142,6 +156,7 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
         rulesetChecksum = ruleSets.getChecksum();
         auxClassPathChecksum = currentAuxClassPathChecksum;
         executionClassPathChecksum = currentExecutionClassPathChecksum;
+        baselineChecksum = currentBaselineChecksum;
         ruleMapper.initialize(ruleSets);
     }
 
@@ -177,6 +192,23 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
         return entries.toArray(new URL[0]);
     }
 
+    private long computeBaselineChecksum(final String baseline) {
+        if (baseline == null) {
+            return 0;
+        }
+        final Adler32 adler32 = new Adler32();
+        try (CheckedInputStream inputStream = new CheckedInputStream(new FileInputStream(baseline), adler32)) {
+            // Just read it, the CheckedInputStream will update the checksum on it's own
+            while (IOUtils.skip(inputStream, Long.MAX_VALUE) == Long.MAX_VALUE) {
+                // just loop
+            }
+        } catch (final IOException e) {
+            LOG.log(Level.SEVERE, "Incremental analysis can't check baseline contents", e);
+            throw new RuntimeException(e);
+        }
+        return adler32.getValue();
+    }
+
     private long computeClassPathHash(final URL... classpathEntry) {
         final Adler32 adler32 = new Adler32();
         for (final URL url : classpathEntry) {
@@ -47,4 +47,13 @@ public interface AnalysisCache extends ThreadSafeReportListener {
      * @param auxclassPathClassLoader The class loader for auxclasspath configured for this analysis.
      */
     void checkValidity(RuleSets ruleSets, ClassLoader auxclassPathClassLoader);
+
+    /**
+     * Checks if the cache is valid for the configured rulesets, class loader and baseline.
+     * The cache only holds the violations which are not in the baseline.
+     * @param ruleSets The rulesets configured for this analysis.
+     * @param auxclassPathClassLoader The class loader for auxclasspath configured for this analysis.
+     * @param baseline The baseline report configured for this analysis, or <code>null</code>.
+     */
+    void checkValidity(RuleSets ruleSets, ClassLoader auxclassPathClassLoader, String baseline);
 }
@@ -57,6 +57,7 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                     rulesetChecksum = inputStream.readLong();
                     auxClassPathChecksum = inputStream.readLong();
                     executionClassPathChecksum = inputStream.readLong();
+                    baselineChecksum = inputStream.readLong();
                     
                     // Cached results
                     while (inputStream.available() > 0) {
@@ -103,6 +104,7 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
             outputStream.writeLong(rulesetChecksum);
             outputStream.writeLong(auxClassPathChecksum);
             outputStream.writeLong(executionClassPathChecksum);
+            outputStream.writeLong(baselineChecksum);
             
             for (final Map.Entry<String, AnalysisResult> resultEntry : updatedResultsCache.entrySet()) {
                 final List<RuleViolation> violations = resultEntry.getValue().getViolations();
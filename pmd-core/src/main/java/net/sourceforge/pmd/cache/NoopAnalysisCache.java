@@ -47,6 +47,11 @@ public class NoopAnalysisCache implements AnalysisCache {
         // noop
     }
 
+    @Override
+    public void checkValidity(final RuleSets ruleSets, final ClassLoader classLoader, final String baseline) {
+        // noop
+    }
+
     @Override
     public List<RuleViolation> getCachedViolations(File sourceFile) {
         return Collections.emptyList();
@@ -0,0 +1,71 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.sourceforge.pmd.daemon.PMDDaemon;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * The daemon command: runs PMD on the requests of the clients, e.g.
+ * <code>run.sh daemonclient</code>, with the rulesets kept loaded between
+ * the requests.
+ *
+ * <pre>
+ * $ run.sh daemon -idletimeout 60 &amp;
+ * $ run.sh daemonclient -d src -R rulesets/java/basic.xml -f text
+ * </pre>
+ *
+ * @see PMDDaemon
+ */
+public final class DaemonCommandLineInterface {
+
+    public static final String PROG_NAME = "daemon";
+
+    private DaemonCommandLineInterface() { }
+
+    public static void main(String[] args) {
+        PMDCommandLineInterface.setStatusCodeOrExit(run(args));
+    }
+
+    /**
+     * Parses the command line arguments and runs the daemon until it stops.
+     *
+     * @param args
+     *            command line arguments
+     * @return the exit code, where <code>0</code> means successful execution
+     *         and <code>1</code> means error.
+     */
+    public static int run(String[] args) {
+        DaemonParameters params = new DaemonParameters();
+        JCommander jcommander = new JCommander(params);
+        jcommander.setProgramName(PROG_NAME);
+        try {
+            jcommander.parse(args);
+            if (params.isHelp()) {
+                jcommander.usage();
+                return PMDCommandLineInterface.ERROR_STATUS;
+            }
+        } catch (ParameterException e) {
+            jcommander.usage();
+            System.err.println(e.getMessage());
+            return PMDCommandLineInterface.ERROR_STATUS;
+        }
+
+        PMDDaemon daemon = new PMDDaemon(params.getDaemonFile() == null ? null : new File(params.getDaemonFile()),
+                params.getIdleTimeout(), params.getMaxMemory());
+        try {
+            daemon.run(params.getPort());
+            return 0;
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            return PMDCommandLineInterface.ERROR_STATUS;
+        }
+    }
+}
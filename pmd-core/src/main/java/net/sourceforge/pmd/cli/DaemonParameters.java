@@ -0,0 +1,61 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.validators.PositiveInteger;
+
+/**
+ * The parameters of the daemon command, which runs PMD on the requests of
+ * its clients.
+ */
+public class DaemonParameters {
+
+    @Parameter(names = "-port", description = "The port of the loopback interface to listen on; default to any free port.",
+            validateWith = PositiveInteger.class)
+    private int port = 0;
+
+    @Parameter(names = "-daemonfile",
+            description = "The file to which the port is written, and from which the clients read it; default to ~/.pmd/daemon.properties.")
+    private String daemonFile;
+
+    @Parameter(names = "-idletimeout", description = "Stops the daemon after this many minutes without any request; 0 for never.",
+            validateWith = PositiveInteger.class)
+    private int idleTimeout = 180;
+
+    @Parameter(names = "-maxmemory",
+            description = "The heap used, in megabytes, above which the daemon drops its loaded rulesets, and stops if that is not enough; default to three quarters of the maximum heap size.",
+            validateWith = PositiveInteger.class)
+    private int maxMemory = 0;
+
+    @Parameter(names = { "-help", "-h", "-H" }, description = "Display help on usage.", help = true)
+    private boolean help;
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getDaemonFile() {
+        return daemonFile;
+    }
+
+    /**
+     * Returns the idle timeout in milliseconds.
+     */
+    public int getIdleTimeout() {
+        return idleTimeout * 60 * 1000;
+    }
+
+    /**
+     * Returns the memory ceiling in bytes.
+     */
+    public long getMaxMemory() {
+        return maxMemory > 0 ? maxMemory * 1024L * 1024L : Runtime.getRuntime().maxMemory() / 4 * 3;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+}
@@ -82,6 +82,10 @@ public class PMDParameters {
     @Parameter(names = { "-reportfile", "-r" }, description = "Sends report output to a file; default to System.out.")
     private String reportfile = null;
 
+    @Parameter(names = "-baseline",
+            description = "Specifies a previous report in the binary format, whose violations are not reported again.")
+    private String baseline = null;
+
     @Parameter(names = { "-version", "-v" }, description = "Specify version of a language PMD should use.")
     private String version = null;
 
@@ -99,6 +103,10 @@ public class PMDParameters {
     @Parameter(names = "-norulesetcompatibility",
             description = "Disable the ruleset compatibility filter. The filter is active by default and tries automatically 'fix' old ruleset files with old rule names")
     private boolean noRuleSetCompatibility = false;
+
+    @Parameter(names = "-rulesetsnapshot",
+            description = "Specifies a file where the loaded rulesets are saved, to load them faster while their files are unchanged.")
+    private String ruleSetSnapshot = null;
     
     @Parameter(names = "-cache", description = "Specify the location of the cache file for incremental analysis.")
     private String cacheLocation = null;
@@ -106,6 +114,18 @@ public class PMDParameters {
     @Parameter(names = "-no-cache", description = "Explicitly disable incremental analysis. The '-cache' option is ignored if this switch is present in the command line.")
     private boolean noCache = false;
 
+    @Parameter(names = "-maxfilesize", description = "Skips the files larger than this, in bytes; default to no limit.")
+    private int maxFileSize = 0;
+
+    @Parameter(names = "-maxfilelines", description = "Skips the files with more lines than this; default to no limit.")
+    private int maxFileLines = 0;
+
+    @Parameter(names = "-maxnodes", description = "Skips the files with more AST nodes than this; default to no limit.")
+    private int maxNodes = 0;
+
+    @Parameter(names = "-skipgenerated", description = "Skips the generated files, marked e.g. with @Generated, and the minified files.")
+    private boolean skipGenerated = false;
+
     // this has to be a public static class, so that JCommander can use it!
     public static class PropertyConverter implements IStringConverter<Properties> {
 
@@ -179,10 +199,12 @@ public class PMDParameters {
         configuration.setDebug(this.isDebug());
         configuration.setMinimumPriority(this.getMinimumPriority());
         configuration.setReportFile(this.getReportfile());
+        configuration.setBaseline(this.baseline);
         configuration.setReportProperties(this.getProperties());
         configuration.setReportShortNames(this.isShortnames());
         configuration.setRuleSets(this.getRulesets());
         configuration.setRuleSetFactoryCompatibilityEnabled(!this.noRuleSetCompatibility);
+        configuration.setRuleSetSnapshot(this.ruleSetSnapshot);
         configuration.setShowSuppressedViolations(this.isShowsuppressed());
         configuration.setSourceEncoding(this.getEncoding());
         configuration.setStressTest(this.isStress());
@@ -191,6 +213,10 @@ public class PMDParameters {
         configuration.setFailOnViolation(this.isFailOnViolation());
         configuration.setAnalysisCacheLocation(this.cacheLocation);
         configuration.setIgnoreIncrementalAnalysis(this.isIgnoreIncrementalAnalysis());
+        configuration.setMaximumFileSize(this.maxFileSize);
+        configuration.setMaximumFileLines(this.maxFileLines);
+        configuration.setMaximumNodes(this.maxNodes);
+        configuration.setSkipGeneratedFiles(this.skipGenerated);
 
         LanguageVersion languageVersion = LanguageRegistry
                 .findLanguageVersionByTerseName(this.getLanguage() + ' ' + this.getVersion());
@@ -0,0 +1,72 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import net.sourceforge.pmd.renderers.BinaryReportReader;
+import net.sourceforge.pmd.renderers.Renderer;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * The render command: renders a report written in the binary format, e.g.
+ * with <code>-f binary -r report.bin</code>, in any other report format,
+ * without analyzing the files again.
+ *
+ * <pre>
+ * $ run.sh render -i report.bin -f xml -r report.xml
+ * $ run.sh render -i report.bin -f html -r report.html
+ * </pre>
+ */
+public final class RenderCommandLineInterface {
+
+    public static final String PROG_NAME = "render";
+
+    private RenderCommandLineInterface() { }
+
+    public static void main(String[] args) {
+        PMDCommandLineInterface.setStatusCodeOrExit(run(args));
+    }
+
+    /**
+     * Parses the command line arguments and renders the report.
+     *
+     * @param args
+     *            command line arguments
+     * @return the exit code, where <code>0</code> means successful execution
+     *         and <code>1</code> means error.
+     */
+    public static int run(String[] args) {
+        RenderParameters params = new RenderParameters();
+        JCommander jcommander = new JCommander(params);
+        jcommander.setProgramName(PROG_NAME);
+        try {
+            jcommander.parse(args);
+            if (params.isHelp()) {
+                jcommander.usage();
+                return PMDCommandLineInterface.ERROR_STATUS;
+            }
+        } catch (ParameterException e) {
+            jcommander.usage();
+            System.err.println(e.getMessage());
+            return PMDCommandLineInterface.ERROR_STATUS;
+        }
+
+        try (BinaryReportReader reader = new BinaryReportReader(
+                new BufferedInputStream(new FileInputStream(params.getInput())))) {
+            Renderer renderer = params.toConfiguration().createRenderer(true);
+            reader.render(renderer);
+            renderer.flush();
+            return 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return PMDCommandLineInterface.ERROR_STATUS;
+        }
+    }
+}
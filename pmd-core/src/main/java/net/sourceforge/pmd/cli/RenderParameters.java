@@ -0,0 +1,79 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import net.sourceforge.pmd.PMDConfiguration;
+
+import com.beust.jcommander.Parameter;
+
+/**
+ * The parameters of the render command, which renders a binary report in
+ * another report format.
+ */
+public class RenderParameters {
+
+    @Parameter(names = { "-input", "-i" }, description = "The binary report to render.", required = true)
+    private String input;
+
+    @Parameter(names = { "-format", "-f" }, description = "Report format type.")
+    private String format = "text";
+
+    @Parameter(names = { "-help", "-h", "-H" }, description = "Display help on usage.", help = true)
+    private boolean help;
+
+    @Parameter(names = "-showsuppressed", description = "Report should show suppressed rule violations.")
+    private boolean showsuppressed;
+
+    @Parameter(names = { "-property", "-P" }, description = "{name}={value}: Define a property for the report format.",
+            converter = PMDParameters.PropertyConverter.class)
+    private List<Properties> properties = new ArrayList<>();
+
+    @Parameter(names = { "-reportfile", "-r" }, description = "Sends report output to a file; default to System.out.")
+    private String reportfile;
+
+    /**
+     * Returns a configuration with the report options of these parameters.
+     */
+    public PMDConfiguration toConfiguration() {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setReportFormat(format);
+        configuration.setReportFile(reportfile);
+        configuration.setReportProperties(getProperties());
+        configuration.setShowSuppressedViolations(showsuppressed);
+        return configuration;
+    }
+
+    public String getInput() {
+        return input;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public boolean isHelp() {
+        return help;
+    }
+
+    public boolean isShowsuppressed() {
+        return showsuppressed;
+    }
+
+    public Properties getProperties() {
+        Properties result = new Properties();
+        for (Properties p : properties) {
+            result.putAll(p);
+        }
+        return result;
+    }
+
+    public String getReportfile() {
+        return reportfile;
+    }
+}
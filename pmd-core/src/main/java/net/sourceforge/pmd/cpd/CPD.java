@@ -5,9 +5,16 @@
 package net.sourceforge.pmd.cpd;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -35,6 +42,8 @@ public class CPD {
     private Tokens tokens = new Tokens();
     private MatchAlgorithm matchAlgorithm;
     private Set<String> current = new HashSet<>();
+    private Map<ByteBuffer, String> contentHashes = new HashMap<>();
+    private Map<String, List<String>> identicalFiles = new TreeMap<>();
 
     public CPD(CPDConfiguration theConfiguration) {
         configuration = theConfiguration;
@@ -103,6 +112,10 @@ public class CPD {
             return;
         }
 
+        if (configuration.isSkipIdenticalFiles() && isIdenticalToAddedFile(file)) {
+            return;
+        }
+
         SourceCode sourceCode = configuration.sourceCodeFor(file);
         add(sourceCode);
     }
@@ -130,6 +143,41 @@ public class CPD {
         }
     }
 
+    /**
+     * Hashes the content of the file, and records it as a copy if a file with
+     * the same content has already been added. The 128-bit hash is only used to
+     * detect identical content, not for security.
+     */
+    private boolean isIdenticalToAddedFile(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+
+        String original = contentHashes.get(hash);
+        if (original == null) {
+            contentHashes.put(hash, file.getAbsolutePath());
+            return false;
+        }
+        List<String> copies = identicalFiles.get(original);
+        if (copies == null) {
+            copies = new ArrayList<>();
+            identicalFiles.put(original, copies);
+        }
+        copies.add(file.getAbsolutePath());
+        return true;
+    }
+
     private void add(SourceCode sourceCode) throws IOException {
         if (configuration.isSkipLexicalErrors()) {
             addAndSkipLexicalErrors(sourceCode);
@@ -173,6 +221,18 @@ public class CPD {
         return new ArrayList<>(source.values());
     }
 
+    /**
+     * Files which have been skipped because their content is identical to an
+     * already added file. Only filled if
+     * {@link CPDConfiguration#isSkipIdenticalFiles()} is enabled.
+     *
+     * @return the paths of the identical copies, by the path of the file which
+     *         has been tokenized
+     */
+    public Map<String, List<String>> getIdenticalFiles() {
+        return Collections.unmodifiableMap(identicalFiles);
+    }
+
     public static void main(String[] args) {
         CPDCommandLineInterface.main(args);
     }
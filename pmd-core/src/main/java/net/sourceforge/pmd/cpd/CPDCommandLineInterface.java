@@ -13,6 +13,7 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import net.sourceforge.pmd.PMD;
@@ -92,6 +93,7 @@ public final class CPDCommandLineInterface {
             } else {
                 arguments.getCPDRenderer().render(cpd.getMatches(), new BufferedWriter(new OutputStreamWriter(System.out)));
             }
+            printIdenticalFiles(cpd);
             if (cpd.getMatches().hasNext()) {
                 if (arguments.isFailOnViolation()) {
                     setStatusCodeOrExit(DUPLICATE_CODE_FOUND);
@@ -107,6 +109,15 @@ public final class CPDCommandLineInterface {
         }
     }
 
+    private static void printIdenticalFiles(CPD cpd) {
+        for (Map.Entry<String, List<String>> entry : cpd.getIdenticalFiles().entrySet()) {
+            System.err.println("Skipped " + entry.getValue().size() + " file(s) identical to " + entry.getKey() + ":");
+            for (String copy : entry.getValue()) {
+                System.err.println("    " + copy);
+            }
+        }
+    }
+
     public static void addSourceFilesToCPD(CPD cpd, CPDConfiguration arguments) {
         // Add files
         if (null != arguments.getFiles() && !arguments.getFiles().isEmpty()) {
@@ -61,6 +61,11 @@ public class CPDConfiguration extends AbstractConfiguration {
             description = "Ignore multiple copies of files of the same name and length in comparison", required = false)
     private boolean skipDuplicates;
 
+    @Parameter(names = "--skip-identical-files",
+            description = "Tokenize files with identical content only once, and list the identical copies "
+                    + "instead of reporting them as duplications", required = false)
+    private boolean skipIdenticalFiles;
+
     @Parameter(names = "--format", description = "Report format. Default value is " + DEFAULT_RENDERER,
             required = false)
     private String rendererName;
@@ -302,6 +307,14 @@ public class CPDConfiguration extends AbstractConfiguration {
         this.skipDuplicates = skipDuplicates;
     }
 
+    public boolean isSkipIdenticalFiles() {
+        return skipIdenticalFiles;
+    }
+
+    public void setSkipIdenticalFiles(boolean skipIdenticalFiles) {
+        this.skipIdenticalFiles = skipIdenticalFiles;
+    }
+
     public String getRendererName() {
         return rendererName;
     }
@@ -62,6 +62,7 @@ public class CPDTask extends Task {
     private boolean ignoreUsings;
     private boolean skipLexicalErrors;
     private boolean skipDuplicateFiles;
+    private boolean skipIdenticalFiles;
     private boolean skipBlocks = true;
     private String skipBlocksPattern = Tokenizer.DEFAULT_SKIP_BLOCKS_PATTERN;
     private File outputFile;
@@ -84,6 +85,7 @@ public class CPDTask extends Task {
             config.setLanguage(createLanguage());
             config.setEncoding(encoding);
             config.setSkipDuplicates(skipDuplicateFiles);
+            config.setSkipIdenticalFiles(skipIdenticalFiles);
             config.setSkipLexicalErrors(skipLexicalErrors);
 
             CPD cpd = new CPD(config);
@@ -230,6 +232,10 @@ public class CPDTask extends Task {
         this.skipDuplicateFiles = skipDuplicateFiles;
     }
 
+    public void setSkipIdenticalFiles(boolean skipIdenticalFiles) {
+        this.skipIdenticalFiles = skipIdenticalFiles;
+    }
+
     public void setOutputFile(File outputFile) {
         this.outputFile = outputFile;
     }
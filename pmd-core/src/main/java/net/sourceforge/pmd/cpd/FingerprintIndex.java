@@ -0,0 +1,598 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A persistent index of the fingerprints of a corpus of source files, which
+ * allows to find the duplications between a few files and a large corpus
+ * without tokenizing the whole corpus again.
+ *
+ * <p>The fingerprints are selected by {@link Winnower} so that any duplication
+ * of at least {@link CPDConfiguration#getMinimumTileSize()} tokens shares at
+ * least one fingerprint. They are stored in a directory:
+ * <ul>
+ * <li>{@code catalog}: the indexing parameters, the indexed files, the segments and
+ * the merged segments which couldn't be deleted yet</li>
+ * <li>{@code segment-N.fp}: postings (hash, file id, token offset) of 16 bytes each,
+ * sorted by hash, which are memory mapped and binary searched</li>
+ * </ul>
+ *
+ * <p>Files are added and removed incrementally: added files are written as a new
+ * segment by {@link #flush()}, removed files are only marked as removed in the
+ * catalog. {@link #compact()} merges all segments into one and drops the postings
+ * of removed files.
+ *
+ * <p>{@link #query(List)} looks up the fingerprints of the given files, and
+ * confirms the candidates with the exact {@link MatchAlgorithm}, run on the query
+ * files and the corpus files they share fingerprints with.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class FingerprintIndex implements Closeable {
+
+    /** The default number of tokens per hashed k-gram. */
+    public static final int DEFAULT_KGRAM_SIZE = 12;
+
+    private static final Logger LOGGER = Logger.getLogger(FingerprintIndex.class.getName());
+
+    private static final int CATALOG_MAGIC = 0x43504446; // CPDF
+    private static final int SEGMENT_MAGIC = 0x43504453; // CPDS
+    private static final int VERSION = 2;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int POSTING_SIZE = 16;
+    private static final String CATALOG = "catalog";
+
+    private final File directory;
+    private final CPDConfiguration configuration;
+    private final Winnower winnower;
+    private final int kgramSize;
+    private final int window;
+
+    private final Map<String, Integer> fileIds = new HashMap<>();
+    private final List<String> paths = new ArrayList<>();
+    private final BitSet removed = new BitSet();
+    private final List<Segment> segments = new ArrayList<>();
+    /** The names of the merged segment files which couldn't be deleted yet. */
+    private final List<String> staleSegments = new ArrayList<>();
+    /** The postings of the files added since the last flush, by hash. */
+    private final Map<Long, List<Posting>> pending = new HashMap<>();
+    private int nextSegmentId;
+    private boolean hasRemovedPostings;
+
+    /**
+     * Opens the index stored in the given directory, or creates a new empty
+     * index if the directory doesn't contain one yet.
+     *
+     * @param directory     the index directory
+     * @param configuration the configuration used to tokenize the files, its minimum
+     *                      tile size is the size of the smallest duplication found
+     */
+    public FingerprintIndex(File directory, CPDConfiguration configuration) throws IOException {
+        this(directory, configuration, DEFAULT_KGRAM_SIZE);
+    }
+
+    /**
+     * Opens the index stored in the given directory, or creates a new empty
+     * index if the directory doesn't contain one yet.
+     *
+     * @param directory     the index directory
+     * @param configuration the configuration used to tokenize the files, its minimum
+     *                      tile size is the size of the smallest duplication found
+     * @param kgramSize     the number of tokens per hashed k-gram, at most the minimum tile size
+     */
+    public FingerprintIndex(File directory, CPDConfiguration configuration, int kgramSize) throws IOException {
+        int minimumTileSize = configuration.getMinimumTileSize();
+        if (kgramSize < 1 || kgramSize > minimumTileSize) {
+            throw new IllegalArgumentException(
+                    "The k-gram size must be between 1 and the minimum tile size (" + minimumTileSize + ")");
+        }
+        this.directory = directory;
+        this.configuration = configuration;
+        this.kgramSize = kgramSize;
+        this.window = minimumTileSize - kgramSize + 1;
+        this.winnower = new Winnower(kgramSize, window);
+
+        if (new File(directory, CATALOG).exists()) {
+            readCatalog();
+            if (deleteStaleSegments()) {
+                writeCatalog();
+            }
+        } else if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create index directory " + directory);
+        }
+    }
+
+    /**
+     * Adds a file to the index, or replaces its fingerprints if it is already
+     * indexed. The fingerprints are only persisted by {@link #flush()}.
+     */
+    public void add(File file) throws IOException {
+        remove(file);
+
+        Winnower.Fingerprints fingerprints = fingerprint(file);
+        int fileId = paths.size();
+        String path = pathOf(file);
+        paths.add(path);
+        fileIds.put(path, fileId);
+
+        for (int i = 0; i < fingerprints.size; i++) {
+            List<Posting> postings = pending.get(fingerprints.hashes[i]);
+            if (postings == null) {
+                postings = new ArrayList<>(1);
+                pending.put(fingerprints.hashes[i], postings);
+            }
+            postings.add(new Posting(fingerprints.hashes[i], fileId, fingerprints.offsets[i]));
+        }
+    }
+
+    /**
+     * Removes a file from the index. Its postings are dropped by the next
+     * {@link #compact()}.
+     *
+     * @return true if the file was indexed
+     */
+    public boolean remove(File file) throws IOException {
+        Integer fileId = fileIds.remove(pathOf(file));
+        if (fileId == null) {
+            return false;
+        }
+        removed.set(fileId);
+        hasRemovedPostings = true;
+        return true;
+    }
+
+    /**
+     * Returns the paths of the indexed files.
+     */
+    public Set<String> getIndexedFiles() {
+        return Collections.unmodifiableSet(new TreeSet<>(fileIds.keySet()));
+    }
+
+    /**
+     * Writes the files added since the last flush as a new segment, and
+     * persists the catalog.
+     */
+    public void flush() throws IOException {
+        if (!pending.isEmpty()) {
+            List<Posting> postings = new ArrayList<>();
+            for (List<Posting> hashPostings : pending.values()) {
+                postings.addAll(hashPostings);
+            }
+            Collections.sort(postings);
+            File segmentFile = new File(directory, "segment-" + nextSegmentId++ + ".fp");
+            writeSegment(segmentFile, postings.iterator(), null);
+            segments.add(new Segment(segmentFile));
+            pending.clear();
+        }
+        writeCatalog();
+    }
+
+    /**
+     * Merges all segments into a single one, dropping the postings and the
+     * paths of removed files. The segments are merged without loading them in
+     * memory. The merged segment files which are still mapped, and thus can't
+     * be deleted on some platforms, are deleted when the index is opened again.
+     */
+    public void compact() throws IOException {
+        flush();
+        if (segments.size() <= 1 && !hasRemovedPostings) {
+            return;
+        }
+
+        // the remaining files are numbered again, in the same order
+        int[] newFileIds = new int[paths.size()];
+        List<String> remainingPaths = new ArrayList<>(fileIds.size());
+        for (int i = 0; i < paths.size(); i++) {
+            newFileIds[i] = removed.get(i) ? -1 : remainingPaths.size();
+            if (!removed.get(i)) {
+                remainingPaths.add(paths.get(i));
+            }
+        }
+
+        File segmentFile = new File(directory, "segment-" + nextSegmentId++ + ".fp");
+        writeMergedSegment(segmentFile, newFileIds);
+        // the merged segments aren't referenced anymore, so that their
+        // mappings can be released before their files are deleted
+        for (Segment segment : segments) {
+            staleSegments.add(segment.file.getName());
+        }
+        segments.clear();
+        segments.add(new Segment(segmentFile));
+        paths.clear();
+        paths.addAll(remainingPaths);
+        fileIds.clear();
+        for (int i = 0; i < paths.size(); i++) {
+            fileIds.put(paths.get(i), i);
+        }
+        removed.clear();
+        hasRemovedPostings = false;
+        writeCatalog();
+        if (deleteStaleSegments()) {
+            writeCatalog();
+        }
+    }
+
+    /**
+     * Writes the postings of all segments as a single segment, in the order
+     * of their hashes.
+     */
+    private void writeMergedSegment(File segmentFile, int[] newFileIds) throws IOException {
+        final PriorityQueue<SegmentCursor> cursors = new PriorityQueue<>();
+        for (Segment segment : segments) {
+            SegmentCursor cursor = new SegmentCursor(segment);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+        Iterator<Posting> merged = new Iterator<Posting>() {
+            @Override
+            public boolean hasNext() {
+                return !cursors.isEmpty();
+            }
+
+            @Override
+            public Posting next() {
+                SegmentCursor cursor = cursors.poll();
+                Posting posting = cursor.current;
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+                return posting;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        writeSegment(segmentFile, merged, newFileIds);
+    }
+
+    /**
+     * Deletes the merged segment files. A mapped file can't be deleted on
+     * some platforms, e.g. Windows, and a mapping is only released once its
+     * buffer is garbage collected: the files which can't be deleted yet are
+     * kept in the catalog, and are deleted when the index is opened again.
+     *
+     * @return true if a file was deleted
+     */
+    private boolean deleteStaleSegments() {
+        boolean deleted = false;
+        for (Iterator<String> i = staleSegments.iterator(); i.hasNext();) {
+            File file = new File(directory, i.next());
+            if (file.delete() || !file.exists()) {
+                i.remove();
+                deleted = true;
+            } else {
+                LOGGER.log(Level.FINE, "Couldn''t delete the merged segment {0} yet", file);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Finds the duplications of the given files within the index. The matches
+     * are computed by {@link MatchAlgorithm} and contain at least one mark in
+     * one of the given files. The query files don't need to be indexed.
+     *
+     * @param files the files to look up
+     *
+     * @return the confirmed matches, in the same order as {@link CPD#getMatches()}
+     */
+    public List<Match> query(List<File> files) throws IOException {
+        // the CPD run of the query has its own image table too
+        TokenEntry.ImageTable images = new TokenEntry.ImageTable();
+        images.swap();
+        try {
+            return queryWithCurrentImages(files);
+        } finally {
+            images.swap();
+        }
+    }
+
+    private List<Match> queryWithCurrentImages(List<File> files) throws IOException {
+        Set<String> queryPaths = new TreeSet<>();
+        for (File file : files) {
+            queryPaths.add(pathOf(file));
+        }
+
+        Set<String> candidates = new TreeSet<>();
+        for (File file : files) {
+            Winnower.Fingerprints fingerprints = fingerprint(file);
+            for (int i = 0; i < fingerprints.size; i++) {
+                collectCandidates(fingerprints.hashes[i], candidates);
+            }
+        }
+        candidates.removeAll(queryPaths);
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        CPD cpd = new CPD(configuration);
+        for (String path : queryPaths) {
+            cpd.add(new File(path));
+        }
+        for (String path : candidates) {
+            File candidate = new File(path);
+            if (candidate.exists()) {
+                cpd.add(candidate);
+            } else {
+                LOGGER.log(Level.FINE, "Skipping indexed file {0} since it doesn''t exist anymore", path);
+            }
+        }
+        cpd.go();
+
+        List<Match> matches = new ArrayList<>();
+        for (Iterator<Match> i = cpd.getMatches(); i.hasNext();) {
+            Match match = i.next();
+            for (Mark mark : match) {
+                if (queryPaths.contains(mark.getFilename())) {
+                    matches.add(match);
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Flushes the pending files.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void collectCandidates(long hash, Set<String> candidates) {
+        for (Segment segment : segments) {
+            for (int i = segment.lowerBound(hash); i < segment.size && segment.hashAt(i) == hash; i++) {
+                int fileId = segment.fileIdAt(i);
+                if (!removed.get(fileId)) {
+                    candidates.add(paths.get(fileId));
+                }
+            }
+        }
+        List<Posting> postings = pending.get(hash);
+        if (postings != null) {
+            for (Posting posting : postings) {
+                if (!removed.get(posting.fileId)) {
+                    candidates.add(paths.get(posting.fileId));
+                }
+            }
+        }
+    }
+
+    private Winnower.Fingerprints fingerprint(File file) throws IOException {
+        // the tokens of each file are created with a private image table,
+        // which only keeps the images of the file, and leaves the one of the
+        // current thread untouched
+        TokenEntry.ImageTable images = new TokenEntry.ImageTable();
+        images.swap();
+        try {
+            Tokens tokens = new Tokens();
+            configuration.tokenizer().tokenize(configuration.sourceCodeFor(file), tokens);
+            return winnower.winnow(tokens.getTokens());
+        } finally {
+            images.swap();
+        }
+    }
+
+    private static String pathOf(File file) throws IOException {
+        return file.getCanonicalPath();
+    }
+
+    /**
+     * Writes the postings of the files which aren't removed, with the file
+     * ids mapped to the given new ones, if any.
+     */
+    private void writeSegment(File segmentFile, Iterator<Posting> postings, int[] newFileIds) throws IOException {
+        int count = 0;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(segmentFile)))) {
+            out.writeInt(SEGMENT_MAGIC);
+            out.writeInt(0); // patched below
+            while (postings.hasNext()) {
+                Posting posting = postings.next();
+                if (!removed.get(posting.fileId)) {
+                    out.writeLong(posting.hash);
+                    out.writeInt(newFileIds == null ? posting.fileId : newFileIds[posting.fileId]);
+                    out.writeInt(posting.offset);
+                    count++;
+                }
+            }
+        }
+        try (FileChannel channel = FileChannel.open(segmentFile.toPath(), StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            header.putInt(count).flip();
+            channel.write(header, 4);
+        }
+    }
+
+    private void writeCatalog() throws IOException {
+        File catalog = new File(directory, CATALOG);
+        File tmp = new File(directory, CATALOG + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(CATALOG_MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(configuration.getLanguage().getTerseName());
+            out.writeInt(kgramSize);
+            out.writeInt(window);
+            out.writeInt(nextSegmentId);
+            out.writeInt(segments.size());
+            for (Segment segment : segments) {
+                out.writeUTF(segment.file.getName());
+            }
+            out.writeInt(staleSegments.size());
+            for (String staleSegment : staleSegments) {
+                out.writeUTF(staleSegment);
+            }
+            out.writeInt(paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                out.writeUTF(paths.get(i));
+                out.writeBoolean(removed.get(i));
+            }
+        }
+        Files.move(tmp.toPath(), catalog.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void readCatalog() throws IOException {
+        File catalog = new File(directory, CATALOG);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(catalog)))) {
+            if (in.readInt() != CATALOG_MAGIC || in.readInt() != VERSION) {
+                throw new IOException(catalog + " is not a CPD fingerprint index");
+            }
+            String language = in.readUTF();
+            int storedKgramSize = in.readInt();
+            int storedWindow = in.readInt();
+            if (!language.equals(configuration.getLanguage().getTerseName()) || storedKgramSize != kgramSize
+                    || storedWindow != window) {
+                throw new IOException("The index in " + directory + " was built for language " + language
+                        + " with k-gram size " + storedKgramSize + " and minimum tile size "
+                        + (storedWindow + storedKgramSize - 1));
+            }
+            nextSegmentId = in.readInt();
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                segments.add(new Segment(new File(directory, in.readUTF())));
+            }
+            int staleSegmentCount = in.readInt();
+            for (int i = 0; i < staleSegmentCount; i++) {
+                staleSegments.add(in.readUTF());
+            }
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                String path = in.readUTF();
+                paths.add(path);
+                if (in.readBoolean()) {
+                    removed.set(i);
+                    hasRemovedPostings = true;
+                } else {
+                    fileIds.put(path, i);
+                }
+            }
+        }
+    }
+
+    private static final class Posting implements Comparable<Posting> {
+        final long hash;
+        final int fileId;
+        final int offset;
+
+        Posting(long hash, int fileId, int offset) {
+            this.hash = hash;
+            this.fileId = fileId;
+            this.offset = offset;
+        }
+
+        @Override
+        public int compareTo(Posting other) {
+            if (hash != other.hash) {
+                return hash < other.hash ? -1 : 1;
+            }
+            if (fileId != other.fileId) {
+                return fileId < other.fileId ? -1 : 1;
+            }
+            return offset < other.offset ? -1 : offset == other.offset ? 0 : 1;
+        }
+    }
+
+    /**
+     * A memory mapped, read-only segment file.
+     */
+    private static final class Segment {
+        final File file;
+        final ByteBuffer buffer;
+        final int size;
+
+        Segment(File file) throws IOException {
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.limit() < SEGMENT_HEADER_SIZE || buffer.getInt(0) != SEGMENT_MAGIC) {
+                throw new IOException(file + " is not a CPD fingerprint segment");
+            }
+            size = buffer.getInt(4);
+        }
+
+        long hashAt(int i) {
+            return buffer.getLong(SEGMENT_HEADER_SIZE + i * POSTING_SIZE);
+        }
+
+        int fileIdAt(int i) {
+            return buffer.getInt(SEGMENT_HEADER_SIZE + i * POSTING_SIZE + 8);
+        }
+
+        int offsetAt(int i) {
+            return buffer.getInt(SEGMENT_HEADER_SIZE + i * POSTING_SIZE + 12);
+        }
+
+        /** Returns the index of the first posting whose hash is not lower than the given one. */
+        int lowerBound(long hash) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (hashAt(mid) < hash) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class SegmentCursor implements Comparable<SegmentCursor> {
+        final Segment segment;
+        int index = -1;
+        Posting current;
+
+        SegmentCursor(Segment segment) {
+            this.segment = segment;
+        }
+
+        boolean advance() {
+            index++;
+            if (index >= segment.size) {
+                return false;
+            }
+            current = new Posting(segment.hashAt(index), segment.fileIdAt(index), segment.offsetAt(index));
+            return true;
+        }
+
+        @Override
+        public int compareTo(SegmentCursor other) {
+            return current.compareTo(other.current);
+        }
+    }
+}
@@ -5,13 +5,22 @@
 package net.sourceforge.pmd.cpd;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.io.ByteOrderMark;
@@ -52,13 +61,8 @@ public class SourceCode {
         protected abstract Reader getReader() throws Exception;
 
         protected List<String> load() {
-            try (BufferedReader reader = new BufferedReader(getReader())) {
-                List<String> lines = new ArrayList<>();
-                String currentLine;
-                while ((currentLine = reader.readLine()) != null) {
-                    lines.add(currentLine);
-                }
-                return lines;
+            try (Reader reader = getReader()) {
+                return readLines(reader);
             } catch (Exception e) {
                 e.printStackTrace();
                 throw new RuntimeException("Problem while reading " + getFileName() + ":" + e.getMessage());
@@ -67,7 +71,7 @@ public class SourceCode {
 
         protected List<String> load(int startLine, int endLine) {
             try (BufferedReader reader = new BufferedReader(getReader())) {
-                int linesToRead = endLine - startLine;
+                int linesToRead = endLine - startLine + 1;
                 List<String> lines = new ArrayList<>(linesToRead);
 
                 // Skip lines until we reach the start point
@@ -89,11 +93,29 @@ public class SourceCode {
                 throw new RuntimeException("Problem while reading " + getFileName() + ":" + e.getMessage());
             }
         }
+
+        protected static List<String> readLines(Reader source) throws IOException {
+            try (BufferedReader reader = new BufferedReader(source)) {
+                List<String> lines = new ArrayList<>();
+                String currentLine;
+                while ((currentLine = reader.readLine()) != null) {
+                    lines.add(currentLine);
+                }
+                return lines;
+            }
+        }
     }
 
+    /**
+     * Loads the code of a file. While the whole file is loaded for tokenization,
+     * the byte offset at which each line starts is recorded, so that later slices
+     * (e.g. for rendering a match after the soft reference has been cleared)
+     * can be served with a single positioned read of just the requested lines.
+     */
     public static class FileCodeLoader extends CodeLoader {
         private File file;
         private String encoding;
+        private int[] lineOffsets;
 
         public FileCodeLoader(File file, String encoding) {
             this.file = file;
@@ -102,13 +124,17 @@ public class SourceCode {
 
         @Override
         public Reader getReader() throws Exception {
-            BOMInputStream inputStream = new BOMInputStream(new FileInputStream(file), ByteOrderMark.UTF_8,
+            return new InputStreamReader(openStream(new FileInputStream(file)), encoding);
+        }
+
+        private BOMInputStream openStream(InputStream stream) throws IOException {
+            BOMInputStream inputStream = new BOMInputStream(stream, ByteOrderMark.UTF_8,
                     ByteOrderMark.UTF_16BE, ByteOrderMark.UTF_16LE);
 
             if (inputStream.hasBOM()) {
                 encoding = inputStream.getBOMCharsetName();
             }
-            return new InputStreamReader(inputStream, encoding);
+            return inputStream;
         }
 
         public String getEncoding() {
@@ -119,6 +145,74 @@ public class SourceCode {
         public String getFileName() {
             return file.getAbsolutePath();
         }
+
+        @Override
+        protected List<String> load() {
+            try {
+                byte[] bytes = Files.readAllBytes(file.toPath());
+                BOMInputStream inputStream = openStream(new ByteArrayInputStream(bytes));
+                int contentStart = inputStream.hasBOM() ? inputStream.getBOM().length() : 0;
+                List<String> lines = readLines(new InputStreamReader(inputStream, encoding));
+                lineOffsets = indexLines(bytes, contentStart, lines.size());
+                return lines;
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Problem while reading " + getFileName() + ":" + e.getMessage());
+            }
+        }
+
+        @Override
+        protected List<String> load(int startLine, int endLine) {
+            if (lineOffsets == null || endLine > lineOffsets.length) {
+                return super.load(startLine, endLine);
+            }
+
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long from = lineOffsets[startLine - 1];
+                long to = endLine < lineOffsets.length ? lineOffsets[endLine] : channel.size();
+                ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, from + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+                return readLines(new StringReader(Charset.forName(encoding).decode(buffer).toString()));
+            } catch (IOException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Problem while reading " + getFileName() + ":" + e.getMessage());
+            }
+        }
+
+        /**
+         * Computes the start offset of each line, using the same line terminators
+         * as {@link BufferedReader#readLine()}. This only works for encodings in which
+         * CR and LF are single bytes that don't occur inside other characters, for
+         * any other encoding (or if the line count doesn't match) null is returned
+         * and slices are read sequentially.
+         */
+        private int[] indexLines(byte[] bytes, int contentStart, int lineCount) {
+            if (!Arrays.equals("\r\n".getBytes(Charset.forName(encoding)), new byte[] { '\r', '\n' })) {
+                return null;
+            }
+
+            int[] offsets = new int[lineCount];
+            int line = 0;
+            int lineStart = contentStart;
+            for (int i = contentStart; i < bytes.length && line < lineCount; i++) {
+                if (bytes[i] == '\r' && i + 1 < bytes.length && bytes[i + 1] == '\n') {
+                    i++;
+                }
+                if (bytes[i] == '\r' || bytes[i] == '\n') {
+                    offsets[line++] = lineStart;
+                    lineStart = i + 1;
+                }
+            }
+            if (line < lineCount && lineStart < bytes.length) {
+                offsets[line++] = lineStart;
+            }
+            return line == lineCount ? offsets : null;
+        }
     }
 
     public static class StringCodeLoader extends CodeLoader {
@@ -62,6 +62,42 @@ public class TokenEntry implements Comparable<TokenEntry> {
         TOKEN_COUNT.remove();
     }
 
+    /**
+     * Returns the images of the tokens created so far on the current thread,
+     * indexed by their identifier. Index 0 is used by {@link #EOF} and is null.
+     */
+    static String[] getImages() {
+        Map<String, Integer> images = TOKENS.get();
+        String[] result = new String[images.size() + 1];
+        for (Map.Entry<String, Integer> e : images.entrySet()) {
+            result[e.getValue()] = e.getKey();
+        }
+        return result;
+    }
+
+    /**
+     * An image table and a token count, which can be swapped with the ones of
+     * the current thread, so that tokens are created with a private table
+     * without clearing the table of the thread.
+     */
+    static final class ImageTable {
+        private Map<String, Integer> tokens = new HashMap<>();
+        private AtomicInteger tokenCount = new AtomicInteger(0);
+
+        /**
+         * Makes this table the one of the current thread, and keeps the
+         * previous one, which the next call restores.
+         */
+        void swap() {
+            Map<String, Integer> threadTokens = TOKENS.get();
+            AtomicInteger threadTokenCount = TOKEN_COUNT.get();
+            TOKENS.set(tokens);
+            TOKEN_COUNT.set(tokenCount);
+            tokens = threadTokens;
+            tokenCount = threadTokenCount;
+        }
+    }
+
     /**
      * Helper class to preserve and restore the current state of the token
      * entries.
@@ -0,0 +1,134 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Selects the fingerprints of a token sequence with the winnowing algorithm
+ * (Schleimer, Wilkerson, Aiken: "Winnowing: Local Algorithms for Document
+ * Fingerprinting"). A hash is computed for every k-gram of tokens, and in each
+ * window of {@code window} consecutive k-grams the minimal hash is kept.
+ *
+ * <p>Any two token sequences sharing a run of at least {@code window + k - 1}
+ * tokens share at least one fingerprint.
+ *
+ * <p>The hashes only depend on the token images, so they are stable across
+ * runs and can be persisted, contrary to {@link TokenEntry#getIdentifier()}.
+ */
+final class Winnower {
+
+    private static final long BASE = 0x100000001b3L;
+
+    private final int k;
+    private final int window;
+    private final long highestPower;
+
+    Winnower(int k, int window) {
+        if (k < 1 || window < 1) {
+            throw new IllegalArgumentException("k and window must be positive, got " + k + " and " + window);
+        }
+        this.k = k;
+        this.window = window;
+        long power = 1;
+        for (int i = 1; i < k; i++) {
+            power *= BASE;
+        }
+        this.highestPower = power;
+    }
+
+    /**
+     * Computes the fingerprints of the tokens of a single source. The tokens
+     * must have been created on the current thread, since their images are
+     * looked up in the {@link TokenEntry} image table.
+     *
+     * @param tokens the tokens of one source, optionally followed by {@link TokenEntry#EOF}
+     */
+    Fingerprints winnow(List<TokenEntry> tokens) {
+        String[] images = TokenEntry.getImages();
+        int size = tokens.size();
+        if (size > 0 && tokens.get(size - 1) == TokenEntry.EOF) {
+            size--;
+        }
+        int gramCount = size - k + 1;
+        if (gramCount <= 0) {
+            return new Fingerprints(new long[0], new int[0], 0);
+        }
+
+        long[] grams = new long[gramCount];
+        long hash = 0;
+        for (int i = 0; i < size; i++) {
+            if (i >= k) {
+                hash -= highestPower * imageHash(images, tokens.get(i - k));
+            }
+            hash = hash * BASE + imageHash(images, tokens.get(i));
+            if (i >= k - 1) {
+                grams[i - k + 1] = mix(hash);
+            }
+        }
+
+        long[] hashes = new long[gramCount / window * 2 + 2];
+        int[] offsets = new int[hashes.length];
+        int count = 0;
+        int min = -1;
+        int windowCount = Math.max(1, gramCount - window + 1);
+        for (int start = 0; start < windowCount; start++) {
+            int end = Math.min(start + window, gramCount) - 1;
+            if (min < start) {
+                // the previous minimum left the window, rescan it
+                min = start;
+                for (int i = start + 1; i <= end; i++) {
+                    if (grams[i] <= grams[min]) {
+                        min = i;
+                    }
+                }
+            } else if (grams[end] <= grams[min]) {
+                min = end;
+            }
+            if (count == 0 || offsets[count - 1] != min) {
+                if (count == hashes.length) {
+                    hashes = Arrays.copyOf(hashes, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                hashes[count] = grams[min];
+                offsets[count] = min;
+                count++;
+            }
+        }
+        return new Fingerprints(hashes, offsets, count);
+    }
+
+    private static long imageHash(String[] images, TokenEntry token) {
+        String image = images[token.getIdentifier()];
+        return image == null ? 0 : image.hashCode();
+    }
+
+    /** The finalization step of MurmurHash3, so that minima are evenly spread. */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * The selected fingerprints of a source: the k-gram hash and the index of
+     * the first token of the k-gram.
+     */
+    static final class Fingerprints {
+        final long[] hashes;
+        final int[] offsets;
+        final int size;
+
+        Fingerprints(long[] hashes, int[] offsets, int size) {
+            this.hashes = hashes;
+            this.offsets = offsets;
+            this.size = size;
+        }
+    }
+}
@@ -8,25 +8,22 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Iterator;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
+import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.cpd.renderer.CPDRenderer;
 
 /**
+ * Renders the matches as XML. The report is written with a StAX
+ * {@link XMLStreamWriter}: each {@link Match} is serialized as soon as it is
+ * pulled from the iterator and its code fragment is only loaded while it is
+ * being written, so the memory needed doesn't depend on the number of
+ * duplications.
+ *
  * @author Philippe T'Seyen - original implementation
  * @author Romain Pelisse - javax.xml implementation
- *
  */
 public final class XMLRenderer implements Renderer, CPDRenderer {
 
@@ -62,30 +59,6 @@ public final class XMLRenderer implements Renderer, CPDRenderer {
         return this.encoding;
     }
 
-    private Document createDocument() {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder parser = factory.newDocumentBuilder();
-            return parser.newDocument();
-        } catch (ParserConfigurationException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
-    private void dumpDocToWriter(Document doc, Writer writer) {
-        try {
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
-            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-            transformer.setOutputProperty(OutputKeys.ENCODING, encoding);
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, "codefragment");
-            transformer.transform(new DOMSource(doc), new StreamResult(writer));
-        } catch (TransformerException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
     @Override
     public String render(Iterator<Match> matches) {
         StringWriter writer = new StringWriter();
@@ -99,46 +72,73 @@ public final class XMLRenderer implements Renderer, CPDRenderer {
     
     @Override
     public void render(Iterator<Match> matches, Writer writer) throws IOException {
-        Document doc = createDocument();
-        Element root = doc.createElement("pmd-cpd");
-        doc.appendChild(root);
-
-        Match match;
-        while (matches.hasNext()) {
-            match = matches.next();
-            root.appendChild(addCodeSnippet(doc,
-                    addFilesToDuplicationElement(doc, createDuplicationElement(doc, match), match), match));
+        try {
+            XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+            xml.writeStartDocument(encoding, "1.0");
+            xml.writeCharacters(PMD.EOL);
+            if (matches.hasNext()) {
+                xml.writeStartElement("pmd-cpd");
+                while (matches.hasNext()) {
+                    writeDuplication(xml, matches.next());
+                }
+                xml.writeCharacters(PMD.EOL);
+                xml.writeEndElement();
+            } else {
+                xml.writeEmptyElement("pmd-cpd");
+            }
+            xml.writeEndDocument();
+            xml.flush();
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Couldn't write the CPD XML report", e);
         }
-        dumpDocToWriter(doc, writer);
         writer.flush();
     }
 
-    private Element addFilesToDuplicationElement(Document doc, Element duplication, Match match) {
-        Mark mark;
-        for (Iterator<Mark> iterator = match.iterator(); iterator.hasNext();) {
-            mark = iterator.next();
-            Element file = doc.createElement("file");
-            file.setAttribute("line", String.valueOf(mark.getBeginLine()));
-            file.setAttribute("path", mark.getFilename());
-            duplication.appendChild(file);
+    private void writeDuplication(XMLStreamWriter xml, Match match) throws XMLStreamException {
+        indent(xml, 1);
+        xml.writeStartElement("duplication");
+        xml.writeAttribute("lines", String.valueOf(match.getLineCount()));
+        xml.writeAttribute("tokens", String.valueOf(match.getTokenCount()));
+
+        for (Mark mark : match) {
+            indent(xml, 2);
+            xml.writeEmptyElement("file");
+            xml.writeAttribute("line", String.valueOf(mark.getBeginLine()));
+            xml.writeAttribute("path", mark.getFilename());
+        }
+
+        String codeSnippet = match.getSourceCodeSlice();
+        if (codeSnippet != null) {
+            indent(xml, 2);
+            xml.writeStartElement("codefragment");
+            writeCData(xml, codeSnippet);
+            xml.writeEndElement();
         }
-        return duplication;
+
+        indent(xml, 1);
+        xml.writeEndElement();
     }
 
-    private Element addCodeSnippet(Document doc, Element duplication, Match match) {
-        String codeSnipet = match.getSourceCodeSlice();
-        if (codeSnipet != null) {
-            Element codefragment = doc.createElement("codefragment");
-            codefragment.appendChild(doc.createCDATASection(codeSnipet));
-            duplication.appendChild(codefragment);
+    /**
+     * A CDATA section can't contain "]]&gt;", so such a sequence is split over
+     * two adjacent sections, the same way a {@code Transformer} does it.
+     */
+    private static void writeCData(XMLStreamWriter xml, String text) throws XMLStreamException {
+        int start = 0;
+        int end = text.indexOf("]]>");
+        while (end >= 0) {
+            xml.writeCData(text.substring(start, end + 2));
+            start = end + 2;
+            end = text.indexOf("]]>", start);
         }
-        return duplication;
+        xml.writeCData(text.substring(start));
     }
 
-    private Element createDuplicationElement(Document doc, Match match) {
-        Element duplication = doc.createElement("duplication");
-        duplication.setAttribute("lines", String.valueOf(match.getLineCount()));
-        duplication.setAttribute("tokens", String.valueOf(match.getTokenCount()));
-        return duplication;
+    private static void indent(XMLStreamWriter xml, int depth) throws XMLStreamException {
+        xml.writeCharacters(PMD.EOL);
+        for (int i = 0; i < depth; i++) {
+            xml.writeCharacters("    ");
+        }
     }
 }
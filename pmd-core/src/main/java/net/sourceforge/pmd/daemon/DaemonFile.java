@@ -0,0 +1,103 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The file with the port and the token of the running daemon, from which
+ * the clients find it. Only its owner can read it, so that only the user who
+ * started the daemon can send it requests.
+ */
+final class DaemonFile {
+
+    /** The system property with the location of the file. */
+    static final String LOCATION_PROPERTY = "net.sourceforge.pmd.daemon.file";
+
+    final int port;
+    final String token;
+
+    DaemonFile(int port, String token) {
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Returns the location of the file, by default <code>.pmd/daemon.properties</code>
+     * in the home directory of the user.
+     */
+    static File defaultLocation() {
+        String location = System.getProperty(LOCATION_PROPERTY);
+        if (location != null) {
+            return new File(location);
+        }
+        return new File(new File(System.getProperty("user.home"), ".pmd"), "daemon.properties");
+    }
+
+    /**
+     * Reads the file, or returns <code>null</code> if there is none.
+     */
+    static DaemonFile read(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        }
+        String port = properties.getProperty("port");
+        String token = properties.getProperty("token");
+        if (port == null || token == null) {
+            return null;
+        }
+        try {
+            return new DaemonFile(Integer.parseInt(port), token);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the file, readable by its owner only.
+     */
+    void write(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create the directory " + directory);
+        }
+        Properties properties = new Properties();
+        properties.setProperty("port", Integer.toString(port));
+        properties.setProperty("token", token);
+        // a temporary file is created with the permissions of its owner only
+        Path temporary = Files.createTempFile(directory.toPath(), file.getName(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "PMD daemon");
+            }
+            Files.move(temporary, file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Deletes the file, unless another daemon has replaced it.
+     */
+    void delete(File file) throws IOException {
+        DaemonFile current = read(file);
+        if (current != null && current.token.equals(token)) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The protocol between the daemon and its clients.
+ *
+ * <p>A client sends a request: the magic number, the version, the token of
+ * the daemon, its working directory and the command line arguments. The
+ * daemon answers with frames, each one a type followed by its content: the
+ * standard output and the standard error of the analysis, as they are
+ * written, and at last its exit code.
+ */
+final class DaemonProtocol {
+
+    static final int MAGIC = 0x504d4450; // PMDP
+    static final int VERSION = 1;
+
+    /** The longest string of a request, e.g. a list of files, in bytes. */
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+
+    /** A frame with the exit code, the last one. */
+    static final byte EXIT = 0;
+    /** A frame with bytes of the standard output. */
+    static final byte OUT = 1;
+    /** A frame with bytes of the standard error. */
+    static final byte ERR = 2;
+
+    private DaemonProtocol() {
+    }
+
+    static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A stream which writes frames of a type to the response. The streams of
+     * the standard output and of the standard error of a request share the
+     * response, so that they are written in order. Closing the stream only
+     * flushes it, as a renderer closes its writer.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream response;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream response, byte type) {
+            this.response = response;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (response) {
+                response.writeByte(type);
+                response.writeInt(len);
+                response.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (response) {
+                response.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the frame of the exit code, which ends the response.
+     */
+    static void writeExit(DataOutputStream response, int status) throws IOException {
+        synchronized (response) {
+            response.writeByte(EXIT);
+            response.writeInt(status);
+            response.flush();
+        }
+    }
+
+    /**
+     * Copies the frames of a response to the given streams, and returns the
+     * exit code.
+     */
+    static int readResponse(DataInputStream response, OutputStream standardOutput, OutputStream standardError)
+            throws IOException {
+        byte[] buffer = new byte[8192];
+        while (true) {
+            byte type = response.readByte();
+            if (type == EXIT) {
+                return response.readInt();
+            }
+            OutputStream stream = type == OUT ? standardOutput : standardError;
+            int length = response.readInt();
+            while (length > 0) {
+                int read = response.read(buffer, 0, Math.min(length, buffer.length));
+                if (read < 0) {
+                    throw new IOException("Truncated response");
+                }
+                stream.write(buffer, 0, read);
+                length -= read;
+            }
+            stream.flush();
+        }
+    }
+}
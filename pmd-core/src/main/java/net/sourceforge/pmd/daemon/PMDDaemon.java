@@ -0,0 +1,496 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.logging.SimpleFormatter;
+import java.util.logging.StreamHandler;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.RuleSetFactory;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.RulesetsFactoryUtils;
+import net.sourceforge.pmd.benchmark.TextTimingReportRenderer;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.cli.PMDCommandLineInterface;
+import net.sourceforge.pmd.cli.PMDParameters;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.renderers.BinaryRenderer;
+import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.util.FileUtil;
+import net.sourceforge.pmd.util.IOUtil;
+import net.sourceforge.pmd.util.ResourceLoader;
+import net.sourceforge.pmd.util.log.ScopedLogHandlersManager;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.ParameterException;
+
+/**
+ * A long running process which runs PMD on request, e.g. from an editor or a
+ * script which runs PMD again and again, with the rulesets already loaded and
+ * the auxiliary classpaths already opened, so that each analysis doesn't pay
+ * for the start of the JVM, the loading of the rulesets and the warm up of
+ * the JIT compiler again.
+ *
+ * <p>The daemon listens on a port of the loopback interface, which it writes
+ * with a random token to a file readable by its owner only. A request, sent by
+ * {@link PMDDaemonClient}, is made of the command line arguments of PMD and
+ * the working directory of the client, against which the relative paths are
+ * resolved, and must have the token. The requests are run one after the
+ * other, and the report and the log of each one are sent back to its client.
+ *
+ * <p>The rulesets are loaded again when one of their ruleset files changes,
+ * and the auxiliary classpath is opened again when one of its entries
+ * changes. The daemon stops after an idle timeout without any request. When
+ * the heap used after a garbage collection exceeds the memory ceiling, the
+ * loaded rulesets and classpaths are dropped, and the daemon stops if that is
+ * not enough.
+ */
+public class PMDDaemon {
+
+    private static final Logger LOG = Logger.getLogger(PMDDaemon.class.getName());
+    private static final String PMD_LOGGER = "net.sourceforge.pmd";
+
+    /** The time a client has to send its request, in milliseconds. */
+    private static final int REQUEST_TIMEOUT = 10000;
+    private static final int MAX_ARGUMENTS = 1 << 16;
+
+    /** The options whose value is a path. */
+    private static final Set<String> PATH_OPTIONS = new HashSet<>(Arrays.asList("-filelist", "-reportfile", "-r",
+            "-baseline", "-rulesetsnapshot", "-cache"));
+    /** The options whose value is a comma separated list of paths. */
+    private static final Set<String> PATH_LIST_OPTIONS = new HashSet<>(Arrays.asList("-dir", "-d"));
+    /** The options whose value is a comma separated list of ruleset files or ruleset names. */
+    private static final Set<String> RULESET_OPTIONS = new HashSet<>(Arrays.asList("-rulesets", "-R"));
+
+    private final File daemonFile;
+    private final int idleTimeout;
+    private final long memoryCeiling;
+
+    private final Map<String, LoadedRuleSets> loadedRuleSets = new HashMap<>();
+    private final Map<String, LoadedClassLoader> loadedClassLoaders = new HashMap<>();
+
+    private final AtomicReference<ServerSocket> serverSocket = new AtomicReference<>();
+    // the handlers and the level of the PMD logger outside of the requests
+    private Handler[] logHandlers;
+    private Level logLevel;
+
+    /**
+     * Creates a daemon.
+     *
+     * @param daemonFile
+     *            the file to which the port and the token are written, or
+     *            <code>null</code> for the default one
+     * @param idleTimeout
+     *            the time without any request after which the daemon stops,
+     *            in milliseconds, or 0 to never stop
+     * @param memoryCeiling
+     *            the heap used after a garbage collection above which the
+     *            loaded rulesets and classpaths are dropped, in bytes, or 0
+     *            for no ceiling
+     */
+    public PMDDaemon(File daemonFile, int idleTimeout, long memoryCeiling) {
+        this.daemonFile = daemonFile == null ? DaemonFile.defaultLocation() : daemonFile;
+        this.idleTimeout = idleTimeout;
+        this.memoryCeiling = memoryCeiling;
+    }
+
+    /**
+     * Listens on the given port, and runs the requests until the daemon
+     * stops.
+     *
+     * @param port
+     *            the port, or 0 for any free port
+     * @throws IOException
+     *             if the daemon couldn't listen or write its file
+     */
+    public void run(int port) throws IOException {
+        try (ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            socket.setSoTimeout(idleTimeout);
+            serverSocket.set(socket);
+            Logger pmdLogger = Logger.getLogger(PMD_LOGGER);
+            logHandlers = pmdLogger.getHandlers();
+            logLevel = pmdLogger.getLevel();
+            DaemonFile file = new DaemonFile(socket.getLocalPort(), new BigInteger(130, new SecureRandom()).toString(32));
+            file.write(daemonFile);
+            LOG.info("PMD daemon listening on port " + socket.getLocalPort());
+            try {
+                serve(socket, file.token);
+            } finally {
+                file.delete(daemonFile);
+                clearLoaded();
+            }
+        }
+    }
+
+    /**
+     * Stops the daemon, once the current request is run.
+     */
+    public void stop() {
+        ServerSocket socket = serverSocket.get();
+        if (socket != null) {
+            IOUtils.closeQuietly(socket);
+        }
+    }
+
+    private void serve(ServerSocket socket, String token) throws IOException {
+        while (true) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketTimeoutException e) {
+                LOG.info("PMD daemon idle for " + idleTimeout / 1000 + " seconds, stopping");
+                return;
+            } catch (SocketException e) {
+                if (socket.isClosed()) {
+                    // stopped
+                    return;
+                }
+                throw e;
+            }
+            try (Socket s = client) {
+                handle(s, token);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Couldn't answer a request, the client may have gone", e);
+            }
+            if (!isUnderMemoryCeiling()) {
+                LOG.info("PMD daemon above its memory ceiling, stopping");
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket, String token) throws IOException {
+        socket.setSoTimeout(REQUEST_TIMEOUT);
+        DataInputStream request = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        if (request.readInt() != DaemonProtocol.MAGIC || request.readInt() != DaemonProtocol.VERSION
+                || !token.equals(DaemonProtocol.readString(request))) {
+            LOG.warning("Rejected a request without the token of the daemon");
+            return;
+        }
+        File workingDirectory = new File(DaemonProtocol.readString(request));
+        int count = request.readInt();
+        if (count < 0 || count > MAX_ARGUMENTS) {
+            throw new IOException("Invalid number of arguments " + count);
+        }
+        String[] args = new String[count];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = DaemonProtocol.readString(request);
+        }
+        socket.setSoTimeout(0);
+
+        DataOutputStream response = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        int status = runPMD(workingDirectory, args, new DaemonProtocol.FrameOutputStream(response, DaemonProtocol.OUT),
+                new DaemonProtocol.FrameOutputStream(response, DaemonProtocol.ERR));
+        DaemonProtocol.writeExit(response, status);
+    }
+
+    /**
+     * Runs PMD as {@link PMD#run(String[])} does, with the loaded rulesets and
+     * classpaths.
+     */
+    private int runPMD(File workingDirectory, String[] args, OutputStream standardOutput, OutputStream standardError)
+            throws IOException {
+        resetState();
+        PrintStream output = new PrintStream(standardOutput, true);
+        PrintStream errors = new PrintStream(standardError, true);
+        PMDParameters params = new PMDParameters();
+        JCommander jcommander = new JCommander(params);
+        jcommander.setProgramName(PMDCommandLineInterface.PROG_NAME);
+        try {
+            jcommander.parse(resolvePaths(workingDirectory, args));
+            if (params.isHelp()) {
+                output.println(PMDCommandLineInterface.buildUsageText(jcommander));
+                return PMDCommandLineInterface.ERROR_STATUS;
+            }
+        } catch (ParameterException e) {
+            output.println(PMDCommandLineInterface.buildUsageText(jcommander));
+            errors.println(e.getMessage());
+            return PMDCommandLineInterface.ERROR_STATUS;
+        }
+
+        if (params.isBenchmark()) {
+            TimeTracker.startGlobalTracking();
+        }
+        Level requestLogLevel = params.isDebug() ? Level.FINER : Level.INFO;
+        StreamHandler logHandler = new StreamHandler(errors, new SimpleFormatter());
+        ScopedLogHandlersManager logHandlerManager = new ScopedLogHandlersManager(requestLogLevel, logHandler);
+        File fileList = null;
+        try {
+            PMDConfiguration configuration = params.toConfiguration();
+            fileList = resolveFileList(workingDirectory, configuration);
+            useLoadedClassLoader(params.getAuxclasspath(), configuration);
+            RuleSets ruleSets = loadRuleSets(configuration);
+            int violations = PMD.doPMD(configuration, ruleSets, createRenderer(configuration, standardOutput));
+            return violations > 0 && configuration.isFailOnViolation() ? PMDCommandLineInterface.VIOLATIONS_FOUND : 0;
+        } catch (Exception e) {
+            logHandler.flush();
+            errors.println(e.getMessage());
+            return PMDCommandLineInterface.ERROR_STATUS;
+        } finally {
+            if (fileList != null) {
+                Files.deleteIfExists(fileList.toPath());
+            }
+            logHandler.flush();
+            logHandlerManager.close();
+            if (params.isBenchmark()) {
+                // Don't close this writer, the response goes on
+                Writer writer = new OutputStreamWriter(errors);
+                new TextTimingReportRenderer().render(TimeTracker.stopGlobalTracking(), writer);
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Resets the state a previous request may have left behind: the data of
+     * the multifile analysis, the timing of the benchmark, and the handlers
+     * and the level of the PMD logger.
+     */
+    private void resetState() {
+        for (Language language : LanguageRegistry.getLanguages()) {
+            LanguageVersion version = language.getDefaultVersion();
+            if (version != null) {
+                version.getLanguageVersionHandler().resetMultifileData();
+            }
+        }
+        TimeTracker.reset();
+        Logger pmdLogger = Logger.getLogger(PMD_LOGGER);
+        for (Handler handler : pmdLogger.getHandlers()) {
+            pmdLogger.removeHandler(handler);
+        }
+        for (Handler handler : logHandlers) {
+            pmdLogger.addHandler(handler);
+        }
+        pmdLogger.setLevel(logLevel);
+        pmdLogger.setUseParentHandlers(true);
+    }
+
+    /**
+     * Resolves the paths of the file list of the configuration against the
+     * working directory of the client, as the paths of the arguments, in a
+     * temporary file list which replaces it.
+     *
+     * @return the temporary file list, or <code>null</code> if there is none
+     */
+    private static File resolveFileList(File workingDirectory, PMDConfiguration configuration) throws IOException {
+        if (configuration.getInputFilePath() == null) {
+            return null;
+        }
+        File original = new File(configuration.getInputFilePath());
+        if (!original.isFile()) {
+            // PMD reports it
+            return null;
+        }
+        String filePaths = resolve(workingDirectory, FileUtil.readFilelist(original), ",", false);
+        File resolved = File.createTempFile("pmd-daemon-filelist-", ".txt");
+        Files.write(resolved.toPath(), filePaths.getBytes(StandardCharsets.UTF_8));
+        configuration.setInputFilePath(resolved.getPath());
+        return resolved;
+    }
+
+    private static Renderer createRenderer(PMDConfiguration configuration, OutputStream standardOutput) {
+        if (StringUtils.isNotBlank(configuration.getReportFile())) {
+            return configuration.createRenderer(true);
+        }
+        Renderer renderer = configuration.createRenderer();
+        if (renderer instanceof BinaryRenderer) {
+            ((BinaryRenderer) renderer).setOutputStream(new BufferedOutputStream(standardOutput));
+        } else {
+            renderer.setWriter(new BufferedWriter(new OutputStreamWriter(standardOutput)));
+        }
+        return renderer;
+    }
+
+    /**
+     * Returns a copy of the loaded rulesets of the configuration, loading
+     * them if they are not loaded yet or one of their ruleset files has
+     * changed. The ruleset snapshot is not used, as the rulesets stay loaded.
+     */
+    private RuleSets loadRuleSets(PMDConfiguration configuration) throws IOException {
+        RuleSetFactory factory = RulesetsFactoryUtils.getRulesetFactory(configuration, new ResourceLoader());
+        String key = configuration.getRuleSets() + ';' + configuration.getMinimumPriority().getPriority() + ';'
+                + configuration.isRuleSetFactoryCompatibilityEnabled();
+        LoadedRuleSets loaded = loadedRuleSets.get(key);
+        if (loaded == null || !loaded.isUpToDate(factory)) {
+            Map<String, Long> readRuleSetFiles = new HashMap<>();
+            RuleSets ruleSets = RulesetsFactoryUtils.getRuleSets(configuration.getRuleSets(),
+                    new RuleSetFactory(factory, readRuleSetFiles));
+            loaded = new LoadedRuleSets(ruleSets, readRuleSetFiles);
+            loadedRuleSets.put(key, loaded);
+        } else {
+            LOG.fine("Using the loaded rulesets");
+        }
+        // the analysis removes the misconfigured rules, and the rules have a state
+        return new RuleSets(loaded.ruleSets);
+    }
+
+    /**
+     * Replaces the class loader of the auxiliary classpath of the
+     * configuration by the loaded one, if none of its entries has changed.
+     */
+    private void useLoadedClassLoader(String auxclasspath, PMDConfiguration configuration) {
+        if (auxclasspath == null) {
+            return;
+        }
+        String stamp = stampOf(auxclasspath);
+        LoadedClassLoader loaded = loadedClassLoaders.get(auxclasspath);
+        if (loaded != null && loaded.stamp.equals(stamp)) {
+            IOUtil.tryCloseClassLoader(configuration.getClassLoader());
+            configuration.setClassLoader(loaded.classLoader);
+        } else {
+            if (loaded != null) {
+                IOUtil.tryCloseClassLoader(loaded.classLoader);
+            }
+            loadedClassLoaders.put(auxclasspath, new LoadedClassLoader(configuration.getClassLoader(), stamp));
+        }
+    }
+
+    private static String stampOf(String classpath) {
+        StringBuilder stamp = new StringBuilder();
+        for (String entry : classpath.split(Pattern.quote(File.pathSeparator))) {
+            stamp.append(new File(entry).lastModified()).append(';');
+        }
+        return stamp.toString();
+    }
+
+    private void clearLoaded() {
+        loadedRuleSets.clear();
+        for (LoadedClassLoader loaded : loadedClassLoaders.values()) {
+            IOUtil.tryCloseClassLoader(loaded.classLoader);
+        }
+        loadedClassLoaders.clear();
+    }
+
+    /**
+     * Checks the heap used after the last garbage collection, dropping the
+     * loaded rulesets and classpaths if it is above the memory ceiling.
+     *
+     * @return whether the heap used is still under the ceiling
+     */
+    private boolean isUnderMemoryCeiling() {
+        if (memoryCeiling <= 0 || heapUsedAfterGc() <= memoryCeiling) {
+            return true;
+        }
+        LOG.info("PMD daemon above its memory ceiling, dropping the loaded rulesets and classpaths");
+        clearLoaded();
+        System.gc(); // NOPMD the collection usage is only updated by a collection
+        return heapUsedAfterGc() <= memoryCeiling;
+    }
+
+    private static long heapUsedAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Resolves the relative paths of the arguments against the working
+     * directory of the client. The rulesets are resolved only if they are
+     * files, as they can be resources or names of built-in rulesets.
+     */
+    static String[] resolvePaths(File workingDirectory, String[] args) {
+        String[] resolved = args.clone();
+        for (int i = 1; i < resolved.length; i++) {
+            String option = resolved[i - 1];
+            if (PATH_OPTIONS.contains(option)) {
+                resolved[i] = resolve(workingDirectory, resolved[i], null, false);
+            } else if (PATH_LIST_OPTIONS.contains(option)) {
+                resolved[i] = resolve(workingDirectory, resolved[i], ",", false);
+            } else if (RULESET_OPTIONS.contains(option)) {
+                resolved[i] = resolve(workingDirectory, resolved[i], ",", true);
+            } else if ("-auxclasspath".equals(option)) {
+                resolved[i] = resolve(workingDirectory, resolved[i], File.pathSeparator, false);
+            }
+        }
+        return resolved;
+    }
+
+    private static String resolve(File workingDirectory, String value, String separator, boolean onlyFiles) {
+        String[] paths = separator == null ? new String[] { value } : value.split(Pattern.quote(separator), -1);
+        for (int i = 0; i < paths.length; i++) {
+            String path = paths[i].trim();
+            File file = new File(workingDirectory, path);
+            if (!path.isEmpty() && !path.startsWith("file:") && !new File(path).isAbsolute()
+                    && (!onlyFiles || file.isFile())) {
+                paths[i] = file.getPath();
+            }
+        }
+        return separator == null ? paths[0] : StringUtils.join(paths, separator);
+    }
+
+    private static final class LoadedRuleSets {
+        private final RuleSets ruleSets;
+        private final Map<String, Long> readRuleSetFiles;
+
+        LoadedRuleSets(RuleSets ruleSets, Map<String, Long> readRuleSetFiles) {
+            this.ruleSets = ruleSets;
+            this.readRuleSetFiles = readRuleSetFiles;
+        }
+
+        boolean isUpToDate(RuleSetFactory factory) throws IOException {
+            for (Map.Entry<String, Long> ruleSetFile : readRuleSetFiles.entrySet()) {
+                if (factory.getRuleSetFileChecksum(ruleSetFile.getKey()) != ruleSetFile.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class LoadedClassLoader {
+        private final ClassLoader classLoader;
+        private final String stamp;
+
+        LoadedClassLoader(ClassLoader classLoader, String stamp) {
+            this.classLoader = classLoader;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.cli.PMDCommandLineInterface;
+
+/**
+ * The client of the {@link PMDDaemon}: sends its command line arguments,
+ * which are the ones of PMD, to the running daemon, and writes the report and
+ * the log of the daemon to its standard output and standard error. If no
+ * daemon is running, PMD runs in the client instead.
+ *
+ * <pre>
+ * $ run.sh daemon &amp;
+ * $ run.sh daemonclient -d src -R rulesets/java/basic.xml -f text
+ * </pre>
+ */
+public final class PMDDaemonClient {
+
+    /** The status of {@link #send} when no daemon is running. */
+    static final int NO_DAEMON = -1;
+
+    private PMDDaemonClient() {
+    }
+
+    public static void main(String[] args) {
+        PMDCommandLineInterface.setStatusCodeOrExit(run(args));
+    }
+
+    /**
+     * Runs PMD with the given command line arguments in the daemon, or in
+     * this process if no daemon is running.
+     *
+     * @param args
+     *            command line arguments
+     * @return the exit code, as {@link PMD#run(String[])}.
+     */
+    public static int run(String[] args) {
+        try {
+            int status = send(DaemonFile.defaultLocation(), new File(System.getProperty("user.dir")), args,
+                    System.out, System.err);
+            if (status != NO_DAEMON) {
+                return status;
+            }
+        } catch (IOException e) {
+            System.err.println("The PMD daemon failed: " + e.getMessage());
+            return PMDCommandLineInterface.ERROR_STATUS;
+        }
+        return PMD.run(args);
+    }
+
+    /**
+     * Sends a request to the daemon of the given file, and copies its
+     * response to the given streams.
+     *
+     * @return the exit code, or {@link #NO_DAEMON} if no daemon is running
+     * @throws IOException
+     *             if the daemon couldn't answer
+     */
+    static int send(File daemonFile, File workingDirectory, String[] args, OutputStream standardOutput,
+            OutputStream standardError) throws IOException {
+        DaemonFile daemon = DaemonFile.read(daemonFile);
+        if (daemon == null) {
+            return NO_DAEMON;
+        }
+        Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), daemon.port);
+        } catch (ConnectException e) {
+            // the file of a daemon which didn't stop properly
+            return NO_DAEMON;
+        }
+        try (Socket s = socket) {
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            request.writeInt(DaemonProtocol.MAGIC);
+            request.writeInt(DaemonProtocol.VERSION);
+            DaemonProtocol.writeString(request, daemon.token);
+            DaemonProtocol.writeString(request, workingDirectory.getAbsolutePath());
+            request.writeInt(args.length);
+            for (String arg : args) {
+                DaemonProtocol.writeString(request, arg);
+            }
+            request.flush();
+            try {
+                return DaemonProtocol.readResponse(new DataInputStream(new BufferedInputStream(s.getInputStream())),
+                        standardOutput, standardError);
+            } catch (EOFException e) {
+                throw new IOException("The daemon closed the connection before the end of the analysis", e);
+            }
+        }
+    }
+}
@@ -61,6 +61,12 @@ public abstract class AbstractLanguageVersionHandler implements LanguageVersionH
     }
 
 
+    @Override
+    public void resetMultifileData() {
+        // no multifile data
+    }
+
+
     @Override
     public VisitorStarter getQualifiedNameResolutionFacade(ClassLoader classLoader) {
         return VisitorStarter.DUMMY;
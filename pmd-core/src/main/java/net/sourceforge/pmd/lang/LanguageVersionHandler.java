@@ -50,7 +50,12 @@ public interface LanguageVersionHandler {
      * Get the DataFlowFacade.
      *
      * @return VisitorStarter
+     * @deprecated PMD doesn't build the data flow of whole files before
+     *             applying the rules anymore. Languages supporting data flow
+     *             rules build it on demand, in
+     *             {@link net.sourceforge.pmd.lang.ast.Node#getDataFlowNode()}.
      */
+    @Deprecated
     VisitorStarter getDataFlowFacade();
 
     /**
@@ -96,6 +101,13 @@ public interface LanguageVersionHandler {
     VisitorStarter getMultifileFacade();
 
 
+    /**
+     * Clears the data gathered by the multifile facade, so that an analysis
+     * doesn't see the files of a previous analysis in the same process.
+     */
+    void resetMultifileData();
+
+
     /**
      * Gets the visitor that populates the qualified names of the
      * nodes.
@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd.lang;
 
+import net.sourceforge.pmd.util.StringUtil;
+
 /**
  * Represents a set of configuration options for a {@link Parser}. For each
  * unique combination of ParserOptions a Parser will be used to create an AST.
@@ -30,7 +32,7 @@ public class ParserOptions {
             return false;
         }
         final ParserOptions that = (ParserOptions) obj;
-        return this.suppressMarker.equals(that.suppressMarker);
+        return StringUtil.isSame(this.suppressMarker, that.suppressMarker, false, false, false);
     }
 
     @Override
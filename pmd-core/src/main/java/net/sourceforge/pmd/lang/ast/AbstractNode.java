@@ -194,6 +194,16 @@ public abstract class AbstractNode implements Node {
         return dataFlowNode;
     }
 
+    /**
+     * Returns the data flow node set on this node, without looking it up in
+     * the parents.
+     *
+     * @return the data flow node of this node, or <code>null</code>
+     */
+    protected final DataFlowNode getOwnDataFlowNode() {
+        return dataFlowNode;
+    }
+
     @Override
     public void setDataFlowNode(DataFlowNode dataFlowNode) {
         this.dataFlowNode = dataFlowNode;
@@ -0,0 +1,221 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A {@link CharStream} over the fully loaded content of a file, for the
+ * grammars which use a {@link JavaCharStream}. Tokens are read directly from
+ * the array: there is no reader, no ring buffer and no per-character line and
+ * column bookkeeping. Lines are indexed once, and the line and column of a
+ * position are only computed when the token manager asks for them.
+ *
+ * <p>Line and column numbers are the same as with a {@link JavaCharStream}:
+ * lines end with "\n", "\r" or "\r\n", and tabs advance the column to the
+ * next multiple of 8.
+ *
+ * <p>Unicode escapes (backslash-u sequences) can't be translated in place, use
+ * {@link #of(char[])} to get a {@link JavaCharStream} for content which may
+ * contain some.
+ */
+public final class JavaCharArrayStream implements CharStream {
+
+    private static final int TAB_SIZE = 8;
+
+    private final char[] chars;
+    private final int length;
+    // offset of the first char of each line, and a sentinel
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    private int tokenBegin;
+    private int pos = -1;
+
+    // last computed column, as columns are mostly queried in ascending positions
+    private int columnLine = -1;
+    private int columnPos;
+    private int column;
+
+    /**
+     * Creates a stream over the given content, which must not contain any
+     * unicode escape.
+     */
+    public JavaCharArrayStream(char[] chars) {
+        this(chars, chars.length);
+    }
+
+    private JavaCharArrayStream(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+
+        int[] starts = new int[64];
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c == '\n' || c == '\r' && (i + 1 == length || chars[i + 1] != '\n')) {
+                if (count + 1 >= starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        starts[count] = Integer.MAX_VALUE;
+        this.lineStarts = starts;
+        this.lineCount = count;
+    }
+
+    /**
+     * Reads the source fully and returns a stream over its content, see
+     * {@link #of(char[])}.
+     *
+     * @throws ParseException if the source can't be read
+     */
+    public static CharStream of(Reader source) {
+        try {
+            return of(IOUtils.toCharArray(source));
+        } catch (IOException e) {
+            throw new ParseException(e);
+        }
+    }
+
+    /**
+     * Returns a stream over the content: a {@link JavaCharArrayStream}, or a
+     * {@link JavaCharStream} if the content contains a backslash followed by
+     * a "u", which may be a unicode escape.
+     */
+    public static CharStream of(char[] chars) {
+        return of(chars, chars.length);
+    }
+
+    /**
+     * Returns a stream over the first {@code length} chars of the array, see
+     * {@link #of(char[])}.
+     */
+    public static CharStream of(char[] chars, int length) {
+        for (int i = 0; i + 1 < length; i++) {
+            if (chars[i] == '\\' && chars[i + 1] == 'u') {
+                return new JavaCharStream(new CharArrayReader(chars, 0, length));
+            }
+        }
+        return new JavaCharArrayStream(chars, length);
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        if (pos + 1 >= length) {
+            throw new IOException("End of input");
+        }
+        return chars[++pos];
+    }
+
+    @Override
+    public char BeginToken() throws IOException {
+        tokenBegin = pos + 1;
+        return readChar();
+    }
+
+    @Override
+    public void backup(int amount) {
+        pos -= amount;
+    }
+
+    @Override
+    public String GetImage() {
+        return new String(chars, tokenBegin, pos - tokenBegin + 1);
+    }
+
+    @Override
+    public char[] GetSuffix(int len) {
+        return Arrays.copyOfRange(chars, pos - len + 1, pos + 1);
+    }
+
+    @Override
+    public void Done() {
+        // nothing to release
+    }
+
+    @Override
+    @Deprecated
+    public int getColumn() {
+        return getEndColumn();
+    }
+
+    @Override
+    @Deprecated
+    public int getLine() {
+        return getEndLine();
+    }
+
+    @Override
+    public int getEndColumn() {
+        return columnOf(pos);
+    }
+
+    @Override
+    public int getEndLine() {
+        return lineOf(pos) + 1;
+    }
+
+    @Override
+    public int getBeginColumn() {
+        return columnOf(tokenBegin);
+    }
+
+    @Override
+    public int getBeginLine() {
+        return lineOf(tokenBegin) + 1;
+    }
+
+    /**
+     * Returns the line index of the char at the position. Past the end, this
+     * is the position of the last char, like for the end of file token of a
+     * {@link JavaCharStream}.
+     */
+    private int lineOf(int position) {
+        int p = Math.min(position, length - 1);
+        if (p < 0) {
+            return 0;
+        }
+        if (columnLine >= 0 && p >= lineStarts[columnLine] && p < lineStarts[columnLine + 1]) {
+            return columnLine;
+        }
+        int index = Arrays.binarySearch(lineStarts, 0, lineCount, p);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private int columnOf(int position) {
+        int p = Math.min(position, length - 1);
+        if (p < 0) {
+            return 0;
+        }
+        int line = lineOf(p);
+        int start;
+        int col;
+        if (line == columnLine && p >= columnPos) {
+            start = columnPos + 1;
+            col = column;
+        } else {
+            start = lineStarts[line];
+            col = 0;
+        }
+        for (int i = start; i <= p; i++) {
+            col++;
+            if (chars[i] == '\t') {
+                col--;
+                col += TAB_SIZE - col % TAB_SIZE;
+            }
+        }
+        columnLine = line;
+        columnPos = p;
+        column = col;
+        return col;
+    }
+}
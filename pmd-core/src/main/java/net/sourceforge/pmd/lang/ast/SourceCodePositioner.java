@@ -24,18 +24,31 @@ public class SourceCodePositioner {
     }
 
     private void analyzeLineOffsets(String sourceCode) {
-        String[] lines = sourceCode.split("\n");
         sourceCodeLength = sourceCode.length();
 
-        int startOffset = 0;
-        int lineNumber = 0;
+        // like String#split, the trailing empty lines are ignored
+        int last = sourceCodeLength - 1;
+        while (last >= 0 && sourceCode.charAt(last) == '\n') {
+            last--;
+        }
+        if (last < 0 && sourceCodeLength > 0) {
+            lineOffsets = new int[0];
+            return;
+        }
 
-        lineOffsets = new int[lines.length];
+        int lineCount = 1;
+        for (int i = 0; i < last; i++) {
+            if (sourceCode.charAt(i) == '\n') {
+                lineCount++;
+            }
+        }
 
-        for (String line : lines) {
-            lineOffsets[lineNumber] = startOffset;
-            lineNumber++;
-            startOffset += line.length() + 1; // +1 for the "\n" character
+        lineOffsets = new int[lineCount];
+        int lineNumber = 1;
+        for (int i = 0; i < last; i++) {
+            if (sourceCode.charAt(i) == '\n') {
+                lineOffsets[lineNumber++] = i + 1;
+            }
         }
     }
 
@@ -0,0 +1,709 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Compact, array-backed data flow of a method. The data flow is built
+ * directly in this representation, by {@link Structure} and {@link Linker}:
+ * the types of a node are an int mask, the variables are numbered per method,
+ * and the children, the parents and the variable accesses of all the nodes
+ * are each stored in a single int array. Once the data flow is built and
+ * trimmed, these arrays are compressed sparse rows, indexed by an offset
+ * array. The long[] bitsets of the variables each node defines, references
+ * and undefines are computed from the accesses when they are first read.
+ *
+ * <p>The nodes are exposed as {@link DataFlowNode} views, created when they
+ * are first requested, so that the rules and the designer's DFA panel work
+ * unchanged. The analyses of {@link net.sourceforge.pmd.lang.dfa.analysis}
+ * read the arrays and the bitsets directly.
+ */
+public final class CompactDataFlow {
+
+    private static final NodeType[] NODE_TYPES = NodeType.values();
+    // set in the type mask of a start node
+    private static final int START_NODE = 1 << 31;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final String[] NO_VARIABLES = new String[0];
+    private static final VariableAccess[] NO_ACCESSES = new VariableAccess[0];
+    private static final int ACCESS_TYPES = 3;
+
+    static {
+        if (NODE_TYPES.length >= Integer.SIZE) {
+            throw new AssertionError("The node types don't fit in an int");
+        }
+    }
+
+    private int size;
+    private Node[] nodes = new Node[INITIAL_CAPACITY];
+    private int[] lines = new int[INITIAL_CAPACITY];
+    private int[] types = new int[INITIAL_CAPACITY];
+    // created when first requested
+    private FlowNode[] views = new FlowNode[INITIAL_CAPACITY];
+
+    private final NodeValues children = new NodeValues();
+    private final NodeValues parents = new NodeValues();
+
+    private final Map<String, Integer> variables = new HashMap<>();
+    private String[] variableNames = NO_VARIABLES;
+    private int variableCount;
+    // accesses are (variable * ACCESS_TYPES + access type), in the order they were added
+    private final NodeValues accesses = new NodeValues();
+    // one instance per variable and access type, returned by the views
+    private VariableAccess[] accessInstances = NO_ACCESSES;
+    // the variables of node i are the bits of words [i * words, (i + 1) * words),
+    // computed from the accesses when first needed
+    private int words;
+    private long[] definitions;
+    private long[] references;
+    private long[] undefinitions;
+
+    private final List<DataFlowNode> flow = new FlowList();
+
+    /**
+     * Adds a node for the AST node, with a path from the last node to it.
+     *
+     * @param node the AST node, which then refers to the data flow node
+     * @return the data flow node
+     */
+    public DataFlowNode addNode(Node node) {
+        DataFlowNode dataFlowNode = view(add(node, node.getBeginLine(), 0));
+        node.setDataFlowNode(dataFlowNode);
+        return dataFlowNode;
+    }
+
+    /**
+     * Adds a start or an end node, which has no AST node, with a path from
+     * the last node to it.
+     *
+     * @param line        the line of the node
+     * @param isStartNode true for a start node
+     * @return the data flow node
+     */
+    public DataFlowNode addStartOrEndNode(int line, boolean isStartNode) {
+        return view(add(null, line, isStartNode ? START_NODE : 0));
+    }
+
+    private int add(Node node, int line, int type) {
+        if (size == nodes.length) {
+            grow();
+        }
+        int index = size++;
+        nodes[index] = node;
+        lines[index] = line;
+        types[index] = type;
+        // the values of a trimmed data flow are chained again to be changed
+        children.edit(nodes.length);
+        parents.edit(nodes.length);
+        accesses.edit(nodes.length);
+        definitions = null;
+        if (index > 0) {
+            addEdge(index - 1, index);
+        }
+        return index;
+    }
+
+    private DataFlowNode view(int index) {
+        if (views[index] == null) {
+            views[index] = new FlowNode(index);
+        }
+        return views[index];
+    }
+
+    private void grow() {
+        resize(nodes.length * 2);
+    }
+
+    /**
+     * Trims the capacity of the data flow to its size, once it is built, and
+     * stores the edges and the accesses contiguously. Nodes can still be
+     * added afterwards.
+     */
+    public void trimToSize() {
+        if (size < nodes.length) {
+            resize(Math.max(size, 1));
+        }
+        children.trim(size);
+        parents.trim(size);
+        accesses.trim(size);
+        if (variableCount < variableNames.length) {
+            variableNames = Arrays.copyOf(variableNames, variableCount);
+            accessInstances = Arrays.copyOf(accessInstances, variableCount * ACCESS_TYPES);
+        }
+    }
+
+    private void resize(int capacity) {
+        nodes = Arrays.copyOf(nodes, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        types = Arrays.copyOf(types, capacity);
+        views = Arrays.copyOf(views, capacity);
+        children.resize(capacity);
+        parents.resize(capacity);
+        accesses.resize(capacity);
+    }
+
+    /**
+     * Returns the compact data flow the node belongs to, or null if the node
+     * is not part of one.
+     */
+    public static CompactDataFlow of(DataFlowNode node) {
+        return node instanceof FlowNode ? ((FlowNode) node).owner() : null;
+    }
+
+    /**
+     * Returns the nodes of the data flow, in the order they were added.
+     */
+    public List<DataFlowNode> getFlow() {
+        return flow;
+    }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getChildCount(int index) {
+        return children.count(index);
+    }
+
+    /**
+     * Returns the index of the i-th child of the node at the index.
+     */
+    public int getChild(int index, int i) {
+        return children.get(index, i);
+    }
+
+    public int getParentCount(int index) {
+        return parents.count(index);
+    }
+
+    /**
+     * Returns the index of the i-th parent of the node at the index.
+     */
+    public int getParent(int index, int i) {
+        return parents.get(index, i);
+    }
+
+    /**
+     * Returns the number of distinct variables accessed in the data flow.
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    public String getVariableName(int variable) {
+        return variableNames[variable];
+    }
+
+    /**
+     * Returns the number of the variable, or -1 if it isn't accessed.
+     */
+    public int getVariable(String name) {
+        Integer variable = variables.get(name);
+        return variable == null ? -1 : variable;
+    }
+
+    /**
+     * Returns the number of variable accesses of the node at the index.
+     */
+    public int getAccessCount(int index) {
+        return accesses.count(index);
+    }
+
+    /**
+     * Returns the variable of the i-th access of the node at the index.
+     */
+    public int getAccessVariable(int index, int i) {
+        return accesses.get(index, i) / ACCESS_TYPES;
+    }
+
+    /**
+     * Returns the i-th access of the node at the index. The instances are
+     * shared by all the accesses of a variable with the same type.
+     */
+    public VariableAccess getAccess(int index, int i) {
+        return accessInstances[accesses.get(index, i)];
+    }
+
+    /**
+     * Returns true if the node at the index defines the variable.
+     */
+    public boolean defines(int index, int variable) {
+        computeBitSets();
+        return contains(definitions, index, variable);
+    }
+
+    /**
+     * Returns true if the node at the index references the variable.
+     */
+    public boolean references(int index, int variable) {
+        computeBitSets();
+        return contains(references, index, variable);
+    }
+
+    /**
+     * Returns true if the node at the index undefines the variable.
+     */
+    public boolean undefines(int index, int variable) {
+        computeBitSets();
+        return contains(undefinitions, index, variable);
+    }
+
+    /**
+     * Returns a copy of the set of variables defined by the node at the index.
+     */
+    public BitSet getDefinitions(int index) {
+        computeBitSets();
+        return toBitSet(definitions, index);
+    }
+
+    /**
+     * Returns a copy of the set of variables referenced by the node at the index.
+     */
+    public BitSet getReferences(int index) {
+        computeBitSets();
+        return toBitSet(references, index);
+    }
+
+    /**
+     * Returns a copy of the set of variables undefined by the node at the index.
+     */
+    public BitSet getUndefinitions(int index) {
+        computeBitSets();
+        return toBitSet(undefinitions, index);
+    }
+
+    private boolean contains(long[] set, int index, int variable) {
+        return (set[index * words + variable / Long.SIZE] & 1L << variable) != 0;
+    }
+
+    private BitSet toBitSet(long[] set, int index) {
+        return BitSet.valueOf(Arrays.copyOfRange(set, index * words, (index + 1) * words));
+    }
+
+    private void computeBitSets() {
+        if (definitions != null) {
+            return;
+        }
+        words = (variableCount + Long.SIZE - 1) / Long.SIZE;
+        long[] defined = new long[size * words];
+        long[] referenced = new long[size * words];
+        long[] undefined = new long[size * words];
+        for (int i = 0; i < size; i++) {
+            for (int a = 0; a < accesses.count(i); a++) {
+                int instance = accesses.get(i, a);
+                int variable = instance / ACCESS_TYPES;
+                long[] set = accessInstances[instance].isDefinition() ? defined
+                        : accessInstances[instance].isReference() ? referenced : undefined;
+                set[i * words + variable / Long.SIZE] |= 1L << variable;
+            }
+        }
+        definitions = defined;
+        references = referenced;
+        undefinitions = undefined;
+    }
+
+    private void addEdge(int parent, int child) {
+        // a node is linked to a child only once, except to itself
+        if (parent == child || !children.contains(parent, child)) {
+            children.add(parent, child);
+            parents.add(child, parent);
+        }
+    }
+
+    private boolean removeEdge(int parent, int child) {
+        parents.remove(child, parent);
+        return children.remove(parent, child);
+    }
+
+    /**
+     * Adds an access to a variable to the node at the index, after its other
+     * accesses. This is {@link DataFlowNode#setVariableAccess(List)} without
+     * the {@link VariableAccess} instances.
+     *
+     * @param index      the index of the node
+     * @param accessType the type of the access, e.g. {@link VariableAccess#DEFINITION}
+     * @param varName    the name of the variable, e.g. "a" or "a.b" for an access to a
+     */
+    public void addVariableAccess(int index, int accessType, String varName) {
+        checkIndex(index, size);
+        addAccess(index, accessType, VariableAccess.variableNameOf(varName));
+    }
+
+    private void addAccess(int index, int type, String name) {
+        Integer variable = variables.get(name);
+        if (variable == null) {
+            variable = variableCount++;
+            variables.put(name, variable);
+            if (variable == variableNames.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, variable * 2);
+                variableNames = Arrays.copyOf(variableNames, capacity);
+                accessInstances = Arrays.copyOf(accessInstances, capacity * ACCESS_TYPES);
+            }
+            variableNames[variable] = name;
+        }
+        int instance = variable * ACCESS_TYPES + type;
+        if (accessInstances[instance] == null) {
+            accessInstances[instance] = new VariableAccess(type, name);
+        }
+        accesses.add(index, instance);
+        definitions = null;
+    }
+
+    private final class FlowNode implements DataFlowNode {
+
+        private final int index;
+
+        FlowNode(int index) {
+            this.index = index;
+        }
+
+        CompactDataFlow owner() {
+            return CompactDataFlow.this;
+        }
+
+        @Override
+        public List<VariableAccess> getVariableAccess() {
+            return new AccessList(index);
+        }
+
+        @Override
+        public int getLine() {
+            return lines[index];
+        }
+
+        @Override
+        public int getIndex() {
+            return index;
+        }
+
+        @Override
+        public boolean isType(NodeType type) {
+            return (types[index] & 1 << type.ordinal()) != 0;
+        }
+
+        @Override
+        public void setType(NodeType type) {
+            types[index] |= 1 << type.ordinal();
+        }
+
+        @Override
+        public List<DataFlowNode> getChildren() {
+            return new NodeList(index, true);
+        }
+
+        @Override
+        public List<DataFlowNode> getParents() {
+            return new NodeList(index, false);
+        }
+
+        @Override
+        public List<DataFlowNode> getFlow() {
+            return flow;
+        }
+
+        @Override
+        public Node getNode() {
+            return nodes[index];
+        }
+
+        @Override
+        public void setVariableAccess(List<VariableAccess> variableAccess) {
+            for (VariableAccess access : variableAccess) {
+                addAccess(index, access.getAccessType(), access.getVariableName());
+            }
+        }
+
+        @Override
+        public void addPathToChild(DataFlowNode child) {
+            addEdge(index, indexOf(child));
+        }
+
+        @Override
+        public boolean removePathToChild(DataFlowNode child) {
+            return removeEdge(index, indexOf(child));
+        }
+
+        @Override
+        public void reverseParentPathsTo(DataFlowNode destination) {
+            int destinationIndex = indexOf(destination);
+            while (parents.count(index) > 0) {
+                int parent = parents.get(index, 0);
+                removeEdge(parent, index);
+                addEdge(parent, destinationIndex);
+            }
+        }
+
+        private int indexOf(DataFlowNode node) {
+            if (of(node) != CompactDataFlow.this) {
+                throw new IllegalArgumentException("The node " + node + " is not part of this data flow");
+            }
+            return node.getIndex();
+        }
+
+        @Override
+        public String toString() {
+            Node node = nodes[index];
+            if (node == null) {
+                return (types[index] & START_NODE) != 0 ? "Start node" : "End node";
+            }
+            StringBuilder sb = new StringBuilder();
+            sb.append("DataFlowNode: line ").append(getLine()).append(", ");
+            for (NodeType type : NODE_TYPES) {
+                if (isType(type)) {
+                    sb.append('(').append(type).append(')');
+                }
+            }
+            sb.append(", ").append(node.getClass().getSimpleName());
+            sb.append(node.getImage() == null ? "" : "(" + node.getImage() + ")");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * The nodes of the data flow.
+     */
+    private final class FlowList extends AbstractList<DataFlowNode> {
+
+        @Override
+        public DataFlowNode get(int i) {
+            checkIndex(i, size);
+            return view(i);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return o instanceof DataFlowNode && of((DataFlowNode) o) == CompactDataFlow.this
+                    ? ((DataFlowNode) o).getIndex() : -1;
+        }
+    }
+
+    /**
+     * The children or the parents of a node. The list reflects the later
+     * changes of the paths of the node, and is created for each request.
+     */
+    private final class NodeList extends AbstractList<DataFlowNode> {
+
+        private final int index;
+        private final boolean ofChildren;
+
+        NodeList(int index, boolean ofChildren) {
+            this.index = index;
+            this.ofChildren = ofChildren;
+        }
+
+        @Override
+        public DataFlowNode get(int i) {
+            checkIndex(i, size());
+            return view(ofChildren ? children.get(index, i) : parents.get(index, i));
+        }
+
+        @Override
+        public int size() {
+            return ofChildren ? children.count(index) : parents.count(index);
+        }
+    }
+
+    /**
+     * The variable accesses of a node.
+     */
+    private final class AccessList extends AbstractList<VariableAccess> {
+
+        private final int index;
+
+        AccessList(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public VariableAccess get(int i) {
+            checkIndex(i, size());
+            return getAccess(index, i);
+        }
+
+        @Override
+        public int size() {
+            return accesses.count(index);
+        }
+    }
+
+    /**
+     * The int values of each node, in the order they were added: its
+     * children, its parents or its variable accesses. While the data flow is
+     * built, the values of a node are chained through {@code next}, and a
+     * removed value leaves a hole. Once it is trimmed, the values are
+     * compressed sparse rows: the values of node i are {@code values[offsets[i]]}
+     * to {@code values[offsets[i + 1] - 1]}, and an edit chains them again.
+     */
+    private static final class NodeValues {
+
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int valueCount;
+        private int capacity = INITIAL_CAPACITY;
+        // while built: the slot + 1 of the next value of the same node, and
+        // of the first and the last value of each node, 0 for none
+        private int[] next = new int[INITIAL_CAPACITY];
+        private int[] first = new int[INITIAL_CAPACITY];
+        private int[] last = new int[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        // once trimmed, the start of the values of each node
+        private int[] offsets;
+
+        int count(int node) {
+            return offsets != null ? offsets[node + 1] - offsets[node] : counts[node];
+        }
+
+        int get(int node, int i) {
+            if (offsets != null) {
+                return values[offsets[node] + i];
+            }
+            int slot = first[node] - 1;
+            for (int k = 0; k < i; k++) {
+                slot = next[slot] - 1;
+            }
+            return values[slot];
+        }
+
+        boolean contains(int node, int value) {
+            edit(capacity);
+            for (int slot = first[node] - 1; slot >= 0; slot = next[slot] - 1) {
+                if (values[slot] == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(int node, int value) {
+            edit(capacity);
+            if (valueCount == values.length) {
+                values = Arrays.copyOf(values, valueCount * 2);
+                next = Arrays.copyOf(next, valueCount * 2);
+            }
+            int slot = valueCount++;
+            values[slot] = value;
+            next[slot] = 0;
+            if (last[node] == 0) {
+                first[node] = slot + 1;
+            } else {
+                next[last[node] - 1] = slot + 1;
+            }
+            last[node] = slot + 1;
+            counts[node]++;
+        }
+
+        /**
+         * Removes the first occurrence of the value from the values of the
+         * node.
+         */
+        boolean remove(int node, int value) {
+            edit(capacity);
+            int previous = -1;
+            for (int slot = first[node] - 1; slot >= 0; previous = slot, slot = next[slot] - 1) {
+                if (values[slot] == value) {
+                    if (previous < 0) {
+                        first[node] = next[slot];
+                    } else {
+                        next[previous] = next[slot];
+                    }
+                    if (last[node] == slot + 1) {
+                        last[node] = previous + 1;
+                    }
+                    counts[node]--;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void resize(int newCapacity) {
+            capacity = newCapacity;
+            if (offsets == null) {
+                first = Arrays.copyOf(first, newCapacity);
+                last = Arrays.copyOf(last, newCapacity);
+                counts = Arrays.copyOf(counts, newCapacity);
+            }
+        }
+
+        /**
+         * Chains the values of the nodes again after they were trimmed, so
+         * that they can be changed.
+         */
+        void edit(int newCapacity) {
+            if (offsets == null) {
+                return;
+            }
+            int nodeCount = offsets.length - 1;
+            capacity = newCapacity;
+            first = new int[newCapacity];
+            last = new int[newCapacity];
+            counts = new int[newCapacity];
+            valueCount = offsets[nodeCount];
+            values = Arrays.copyOf(values, Math.max(valueCount, INITIAL_CAPACITY));
+            next = new int[values.length];
+            for (int node = 0; node < nodeCount; node++) {
+                int start = offsets[node];
+                int end = offsets[node + 1];
+                counts[node] = end - start;
+                if (end > start) {
+                    first[node] = start + 1;
+                    last[node] = end;
+                    for (int slot = start; slot < end - 1; slot++) {
+                        next[slot] = slot + 2;
+                    }
+                }
+            }
+            offsets = null;
+        }
+
+        /**
+         * Stores the values of the nodes contiguously, in compressed sparse
+         * rows.
+         */
+        void trim(int nodeCount) {
+            if (offsets != null) {
+                return;
+            }
+            int[] trimmed = new int[valueCount];
+            int[] starts = new int[nodeCount + 1];
+            int k = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                starts[node] = k;
+                for (int slot = first[node] - 1; slot >= 0; slot = next[slot] - 1) {
+                    trimmed[k++] = values[slot];
+                }
+            }
+            starts[nodeCount] = k;
+            offsets = starts;
+            values = k < trimmed.length ? Arrays.copyOf(trimmed, k) : trimmed;
+            valueCount = k;
+            next = null;
+            first = null;
+            last = null;
+            counts = null;
+        }
+    }
+
+    private static void checkIndex(int i, int size) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+}
@@ -4,7 +4,6 @@
 
 package net.sourceforge.pmd.lang.dfa;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 import java.util.logging.Level;
@@ -22,40 +21,47 @@ import net.sourceforge.pmd.lang.ast.Node;
 public class Structure {
     private static final Logger LOGGER = Logger.getLogger(Structure.class.getName());
 
-    private final DataFlowHandler dataFlowHandler;
-    private List<DataFlowNode> dataFlow = new ArrayList<>();
+    private CompactDataFlow dataFlow = new CompactDataFlow();
     private Stack<StackObject> braceStack = new Stack<>();
     private Stack<StackObject> continueBreakReturnStack = new Stack<>();
 
+    public Structure() {
+        // the nodes are created by the compact data flow
+    }
+
+    /**
+     * @deprecated The nodes don't depend on the data flow handler anymore,
+     *             use {@link #Structure()}. Will be removed in 7.0.0.
+     */
+    @Deprecated
+    @SuppressWarnings("PMD.UnusedFormalParameter")
     public Structure(DataFlowHandler dataFlowHandler) {
-        this.dataFlowHandler = dataFlowHandler;
+        this();
     }
 
     /**
-     * This class encapsulates the access to the DataFlowNode class. Is this
-     * worthwhile? TODO I think it's too confusing to have the DataFlowNode
-     * constructor add the created instance to the List. I think it'd be clearer
-     * if we did that more "procedurally", i.e., create the object, then add it
-     * to the list.
+     * Adds a node to the data flow, with a path from the last node to it. The
+     * nodes are created in the {@link CompactDataFlow compact representation}
+     * rather than by {@link DataFlowHandler#createDataFlowNode(List, Node)}.
      */
     public DataFlowNode createNewNode(Node node) {
-        return dataFlowHandler.createDataFlowNode(dataFlow, node);
+        return dataFlow.addNode(node);
     }
 
     public DataFlowNode createStartNode(int line) {
-        return new StartOrEndDataFlowNode(this.dataFlow, line, true);
+        return dataFlow.addStartOrEndNode(line, true);
     }
 
     public DataFlowNode createEndNode(int line) {
-        return new StartOrEndDataFlowNode(this.dataFlow, line, false);
+        return dataFlow.addStartOrEndNode(line, false);
     }
 
     public DataFlowNode getLast() {
-        return this.dataFlow.get(this.dataFlow.size() - 1);
+        return this.dataFlow.getFlow().get(this.dataFlow.size() - 1);
     }
 
     public DataFlowNode getFirst() {
-        return this.dataFlow.get(0);
+        return this.dataFlow.getFlow().get(0);
     }
 
     // ----------------------------------------------------------------------------
@@ -19,8 +19,15 @@ public class VariableAccess {
 
     public VariableAccess(int accessType, String varName) {
         this.accessType = accessType;
+        variableName = variableNameOf(varName);
+    }
+
+    /**
+     * Returns the name of the variable accessed by the name, e.g. "a" for "a.b".
+     */
+    static String variableNameOf(String varName) {
         int dotPos = varName.indexOf('.');
-        variableName = dotPos < 0 ? varName : varName.substring(0, dotPos);
+        return dotPos < 0 ? varName : varName.substring(0, dotPos);
     }
 
     // TODO completely encapsulate this somehow?
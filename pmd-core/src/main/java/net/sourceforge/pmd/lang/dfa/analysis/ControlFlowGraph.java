@@ -0,0 +1,241 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import net.sourceforge.pmd.lang.dfa.CompactDataFlow;
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+
+/**
+ * Int-indexed view of the {@link CompactDataFlow data flow} of a method, for
+ * the data flow analyses. Each data flow node is a block, identified by its
+ * index in the flow; the first one is the entry.
+ *
+ * <p>The variable accesses of the blocks are numbered as well: a site is a
+ * single {@link VariableAccess}, the sites of a block are contiguous and in
+ * the order of {@link DataFlowNode#getVariableAccess()}. Variables are
+ * numbered as in the data flow.
+ */
+public final class ControlFlowGraph {
+
+    private static final int[] NO_BLOCKS = new int[0];
+
+    private final CompactDataFlow flow;
+    private final int[][] successors;
+    private final int[][] predecessors;
+    private final int[] reversePostOrder;
+
+    private final int[] firstSite;
+    private final int[] siteBlock;
+    private final int[] siteVariable;
+    private final int[][] variableSites;
+
+    /**
+     * Builds the graph of the given data flow.
+     *
+     * @param flow the data flow, the first node being the start node
+     */
+    public ControlFlowGraph(CompactDataFlow flow) {
+        this.flow = flow;
+        int size = flow.size();
+        successors = new int[size][];
+        predecessors = new int[size][];
+        for (int i = 0; i < size; i++) {
+            successors[i] = indexes(flow.getChildCount(i));
+            for (int c = 0; c < successors[i].length; c++) {
+                successors[i][c] = flow.getChild(i, c);
+            }
+            predecessors[i] = indexes(flow.getParentCount(i));
+            for (int p = 0; p < predecessors[i].length; p++) {
+                predecessors[i][p] = flow.getParent(i, p);
+            }
+        }
+        reversePostOrder = computeReversePostOrder();
+
+        // number the sites
+        firstSite = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            firstSite[i + 1] = firstSite[i] + flow.getAccessCount(i);
+        }
+        int siteCount = firstSite[size];
+        siteBlock = new int[siteCount];
+        siteVariable = new int[siteCount];
+        int[] siteCounts = new int[flow.getVariableCount()];
+        for (int b = 0; b < size; b++) {
+            for (int s = firstSite[b]; s < firstSite[b + 1]; s++) {
+                siteBlock[s] = b;
+                siteVariable[s] = flow.getAccessVariable(b, s - firstSite[b]);
+                siteCounts[siteVariable[s]]++;
+            }
+        }
+        variableSites = new int[siteCounts.length][];
+        for (int v = 0; v < siteCounts.length; v++) {
+            variableSites[v] = new int[siteCounts[v]];
+            siteCounts[v] = 0;
+        }
+        for (int s = 0; s < siteCount; s++) {
+            int v = siteVariable[s];
+            variableSites[v][siteCounts[v]++] = s;
+        }
+    }
+
+    private static int[] indexes(int count) {
+        return count == 0 ? NO_BLOCKS : new int[count];
+    }
+
+    private int[] computeReversePostOrder() {
+        int size = successors.length;
+        int[] order = new int[size];
+        if (size == 0) {
+            return order;
+        }
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int[] nextChild = new int[size];
+        int position = size;
+        int top = 0;
+        stack[top++] = 0;
+        visited[0] = true;
+        while (top > 0) {
+            int block = stack[top - 1];
+            if (nextChild[block] < successors[block].length) {
+                int child = successors[block][nextChild[block]++];
+                if (!visited[child]) {
+                    visited[child] = true;
+                    stack[top++] = child;
+                }
+            } else {
+                top--;
+                order[--position] = block;
+            }
+        }
+        // blocks not reachable from the entry are left out
+        return position == 0 ? order : Arrays.copyOfRange(order, position, size);
+    }
+
+    /**
+     * Returns the number of blocks.
+     */
+    public int size() {
+        return successors.length;
+    }
+
+    /**
+     * Returns the entry block.
+     */
+    public int getEntry() {
+        return 0;
+    }
+
+    public DataFlowNode getNode(int block) {
+        return flow.getFlow().get(block);
+    }
+
+    public int[] getSuccessors(int block) {
+        return successors[block];
+    }
+
+    public int[] getPredecessors(int block) {
+        return predecessors[block];
+    }
+
+    /**
+     * Returns true if the block has no successor, e.g. the end node.
+     */
+    public boolean isExit(int block) {
+        return successors[block].length == 0;
+    }
+
+    /**
+     * Returns the blocks reachable from the entry, in reverse post order.
+     */
+    public int[] getReversePostOrder() {
+        return reversePostOrder;
+    }
+
+    /**
+     * Returns the number of variable access sites.
+     */
+    public int getSiteCount() {
+        return siteBlock.length;
+    }
+
+    /**
+     * Returns the first site of the block.
+     */
+    public int getFirstSite(int block) {
+        return firstSite[block];
+    }
+
+    /**
+     * Returns the site after the last site of the block.
+     */
+    public int getSiteEnd(int block) {
+        return firstSite[block + 1];
+    }
+
+    public VariableAccess getSiteAccess(int site) {
+        int block = siteBlock[site];
+        return flow.getAccess(block, site - firstSite[block]);
+    }
+
+    public int getSiteBlock(int site) {
+        return siteBlock[site];
+    }
+
+    public int getSiteVariable(int site) {
+        return siteVariable[site];
+    }
+
+    /**
+     * Returns the number of distinct variables accessed in the graph.
+     */
+    public int getVariableCount() {
+        return flow.getVariableCount();
+    }
+
+    public String getVariableName(int variable) {
+        return flow.getVariableName(variable);
+    }
+
+    /**
+     * Returns the number of the variable, or -1 if it isn't accessed.
+     */
+    public int getVariable(String name) {
+        return flow.getVariable(name);
+    }
+
+    /**
+     * Returns the variables defined by the block, see
+     * {@link CompactDataFlow#getDefinitions(int)}.
+     */
+    public BitSet getDefinitions(int block) {
+        return flow.getDefinitions(block);
+    }
+
+    /**
+     * Returns the variables referenced by the block.
+     */
+    public BitSet getReferences(int block) {
+        return flow.getReferences(block);
+    }
+
+    /**
+     * Returns the variables undefined by the block.
+     */
+    public BitSet getUndefinitions(int block) {
+        return flow.getUndefinitions(block);
+    }
+
+    /**
+     * Returns the sites accessing the variable, in ascending order.
+     */
+    public int[] getSites(int variable) {
+        return variableSites[variable];
+    }
+}
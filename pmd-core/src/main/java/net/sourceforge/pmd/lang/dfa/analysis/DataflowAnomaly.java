@@ -0,0 +1,63 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+
+/**
+ * An anomaly between two consecutive accesses to a variable on some path of
+ * the data flow, found by the {@link DataflowAnomalyDetector}.
+ */
+public final class DataflowAnomaly {
+
+    /** The kind of anomaly. */
+    public enum Type {
+        /** A definition followed by another definition. */
+        DD,
+        /** A definition followed by an undefinition, i.e. a value that is never used. */
+        DU,
+        /** An undefinition followed by a reference. */
+        UR
+    }
+
+    private final Type type;
+    private final String variableName;
+    private final DataFlowNode firstNode;
+    private final DataFlowNode lastNode;
+
+    DataflowAnomaly(Type type, String variableName, DataFlowNode firstNode, DataFlowNode lastNode) {
+        this.type = type;
+        this.variableName = variableName;
+        this.firstNode = firstNode;
+        this.lastNode = lastNode;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getVariableName() {
+        return variableName;
+    }
+
+    /**
+     * Returns the node of the first access.
+     */
+    public DataFlowNode getFirstNode() {
+        return firstNode;
+    }
+
+    /**
+     * Returns the node of the second access.
+     */
+    public DataFlowNode getLastNode() {
+        return lastNode;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + variableName + ", " + firstNode.getLine() + "-" + lastNode.getLine() + ")";
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+
+/**
+ * Finds the DD, DU and UR anomalies of a data flow. Two accesses to a
+ * variable are consecutive if there is a path from the first one to the
+ * second one without any other access to the variable: this is reaching
+ * definitions where every access is a definition, so each pair of accesses
+ * is checked once, however many paths there are.
+ */
+public final class DataflowAnomalyDetector {
+
+    private DataflowAnomalyDetector() {
+        // utility class
+    }
+
+    /**
+     * Returns the anomalies of the graph, in the order of the second access.
+     */
+    public static List<DataflowAnomaly> detect(ControlFlowGraph graph) {
+        DataflowResult result = WorklistSolver.solve(new LastAccesses(graph));
+        List<DataflowAnomaly> anomalies = new ArrayList<>();
+        BitSet lastAccesses = new BitSet(graph.getSiteCount());
+        int[] blocks = graph.getReversePostOrder().clone();
+        Arrays.sort(blocks);
+        for (int block : blocks) {
+            lastAccesses.clear();
+            lastAccesses.or(result.getIn(block));
+            for (int site = graph.getFirstSite(block); site < graph.getSiteEnd(block); site++) {
+                VariableAccess access = graph.getSiteAccess(site);
+                int[] variableSites = graph.getSites(graph.getSiteVariable(site));
+                for (int previous : variableSites) {
+                    if (lastAccesses.get(previous)) {
+                        DataflowAnomaly.Type type = check(graph.getSiteAccess(previous), access);
+                        if (type != null) {
+                            anomalies.add(new DataflowAnomaly(type, access.getVariableName(),
+                                    graph.getNode(graph.getSiteBlock(previous)), graph.getNode(block)));
+                        }
+                        lastAccesses.clear(previous);
+                    }
+                }
+                lastAccesses.set(site);
+            }
+        }
+        return anomalies;
+    }
+
+    private static DataflowAnomaly.Type check(VariableAccess first, VariableAccess second) {
+        if (first.isDefinition() && second.isDefinition()) {
+            return DataflowAnomaly.Type.DD;
+        } else if (first.isUndefinition() && second.isReference()) {
+            return DataflowAnomaly.Type.UR;
+        } else if (first.isDefinition() && second.isUndefinition()) {
+            return DataflowAnomaly.Type.DU;
+        }
+        return null;
+    }
+
+    /**
+     * Reaching definitions where every access counts as a definition.
+     */
+    private static final class LastAccesses extends ReachingDefinitions {
+
+        LastAccesses(ControlFlowGraph graph) {
+            super(graph);
+        }
+
+        @Override
+        protected boolean isTracked(int site) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.BitSet;
+
+/**
+ * A monotone data flow problem over bit vectors, solved by the
+ * {@link WorklistSolver}.
+ *
+ * <p>The facts are indexes in a bit vector, e.g. site numbers for reaching
+ * definitions or variable numbers for liveness. The meet operator is either
+ * the union ("may" problems) or the intersection ("must" problems).
+ */
+public abstract class DataflowProblem {
+
+    private final ControlFlowGraph graph;
+
+    protected DataflowProblem(ControlFlowGraph graph) {
+        this.graph = graph;
+    }
+
+    public ControlFlowGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns true if the facts flow from the entry to the exits, false if
+     * they flow backwards.
+     */
+    public abstract boolean isForward();
+
+    /**
+     * Returns true if the meet operator is the union, false if it is the
+     * intersection.
+     */
+    public abstract boolean isMay();
+
+    /**
+     * Returns the number of facts, i.e. the length of the bit vectors.
+     */
+    public abstract int getFactCount();
+
+    /**
+     * Returns the facts holding at the entry (forward problems) or at the
+     * exits (backward problems).
+     */
+    public BitSet getBoundaryValue() {
+        return new BitSet(getFactCount());
+    }
+
+    /**
+     * Returns the initial facts of the other blocks: nothing for union
+     * problems, everything for intersection problems.
+     */
+    public BitSet getInitialValue() {
+        BitSet initial = new BitSet(getFactCount());
+        if (!isMay()) {
+            initial.set(0, getFactCount());
+        }
+        return initial;
+    }
+
+    /**
+     * Applies the transfer function of the block. The facts flowing into the
+     * block are updated in place to the facts flowing out of it.
+     *
+     * @param block the block
+     * @param facts the facts before the block in the direction of the problem
+     */
+    public abstract void transfer(int block, BitSet facts);
+}
@@ -0,0 +1,43 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.BitSet;
+
+/**
+ * The solution of a {@link DataflowProblem}: the facts holding at the entry
+ * and at the exit of each block, in program order whatever the direction of
+ * the problem. The returned sets must not be modified.
+ */
+public final class DataflowResult {
+
+    private final DataflowProblem problem;
+    private final BitSet[] in;
+    private final BitSet[] out;
+
+    DataflowResult(DataflowProblem problem, BitSet[] in, BitSet[] out) {
+        this.problem = problem;
+        this.in = in;
+        this.out = out;
+    }
+
+    public DataflowProblem getProblem() {
+        return problem;
+    }
+
+    /**
+     * Returns the facts holding before the block is executed.
+     */
+    public BitSet getIn(int block) {
+        return in[block];
+    }
+
+    /**
+     * Returns the facts holding after the block is executed.
+     */
+    public BitSet getOut(int block) {
+        return out[block];
+    }
+}
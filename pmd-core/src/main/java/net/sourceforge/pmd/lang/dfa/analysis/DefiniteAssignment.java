@@ -0,0 +1,60 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.BitSet;
+
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+
+/**
+ * Definite assignment: the facts are the variables (see
+ * {@link ControlFlowGraph#getVariable(String)}) which are defined on every
+ * path reaching a block. An undefinition, e.g. when leaving the scope of the
+ * variable, makes it unassigned again.
+ */
+public class DefiniteAssignment extends GenKillProblem {
+
+    public DefiniteAssignment(ControlFlowGraph graph) {
+        super(graph);
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    @Override
+    public boolean isMay() {
+        return false;
+    }
+
+    @Override
+    public int getFactCount() {
+        return getGraph().getVariableCount();
+    }
+
+    @Override
+    protected void initialize(int block, BitSet gen, BitSet kill) {
+        ControlFlowGraph graph = getGraph();
+        BitSet definitions = graph.getDefinitions(block);
+        BitSet undefinitions = graph.getUndefinitions(block);
+        gen.or(definitions);
+        gen.andNot(undefinitions);
+        kill.or(undefinitions);
+        kill.andNot(definitions);
+
+        // a variable defined and undefined by the block ends up as the last access leaves it
+        definitions.and(undefinitions);
+        for (int site = graph.getSiteEnd(block) - 1; site >= graph.getFirstSite(block) && !definitions.isEmpty(); site--) {
+            int variable = graph.getSiteVariable(site);
+            VariableAccess access = graph.getSiteAccess(site);
+            if (definitions.get(variable) && !access.isReference()) {
+                gen.set(variable, access.isDefinition());
+                kill.set(variable, access.isUndefinition());
+                definitions.clear(variable);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.BitSet;
+
+/**
+ * A data flow problem whose transfer functions have the form
+ * {@code out = gen | (in & ~kill)}. Subclasses compute the gen and kill sets
+ * of each block once, in {@link #initialize(int, BitSet, BitSet)}.
+ */
+public abstract class GenKillProblem extends DataflowProblem {
+
+    private BitSet[] gen;
+    private BitSet[] kill;
+
+    protected GenKillProblem(ControlFlowGraph graph) {
+        super(graph);
+    }
+
+    /**
+     * Computes the gen and kill sets of the block.
+     *
+     * @param block the block
+     * @param gen   the facts generated by the block, empty initially
+     * @param kill  the facts killed by the block, empty initially
+     */
+    protected abstract void initialize(int block, BitSet gen, BitSet kill);
+
+    private void initialize() {
+        int size = getGraph().size();
+        gen = new BitSet[size];
+        kill = new BitSet[size];
+        for (int block = 0; block < size; block++) {
+            gen[block] = new BitSet();
+            kill[block] = new BitSet();
+            initialize(block, gen[block], kill[block]);
+        }
+    }
+
+    public BitSet getGen(int block) {
+        if (gen == null) {
+            initialize();
+        }
+        return gen[block];
+    }
+
+    public BitSet getKill(int block) {
+        if (kill == null) {
+            initialize();
+        }
+        return kill[block];
+    }
+
+    @Override
+    public void transfer(int block, BitSet facts) {
+        facts.andNot(getKill(block));
+        facts.or(getGen(block));
+    }
+}
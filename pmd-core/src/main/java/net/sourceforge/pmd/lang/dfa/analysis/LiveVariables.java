@@ -0,0 +1,57 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.BitSet;
+
+/**
+ * Liveness: the facts are the variables (see
+ * {@link ControlFlowGraph#getVariable(String)}) whose current value may be
+ * referenced later on. A definition or an undefinition ends the life of the
+ * previous value.
+ */
+public class LiveVariables extends GenKillProblem {
+
+    public LiveVariables(ControlFlowGraph graph) {
+        super(graph);
+    }
+
+    @Override
+    public boolean isForward() {
+        return false;
+    }
+
+    @Override
+    public boolean isMay() {
+        return true;
+    }
+
+    @Override
+    public int getFactCount() {
+        return getGraph().getVariableCount();
+    }
+
+    @Override
+    protected void initialize(int block, BitSet gen, BitSet kill) {
+        ControlFlowGraph graph = getGraph();
+        kill.or(graph.getDefinitions(block));
+        kill.or(graph.getUndefinitions(block));
+        BitSet references = graph.getReferences(block);
+        gen.or(references);
+        gen.andNot(kill);
+
+        // a variable referenced and killed by the block is live if it is referenced first
+        references.and(kill);
+        for (int site = graph.getFirstSite(block); site < graph.getSiteEnd(block) && !references.isEmpty(); site++) {
+            int variable = graph.getSiteVariable(site);
+            if (references.get(variable)) {
+                if (graph.getSiteAccess(site).isReference()) {
+                    gen.set(variable);
+                }
+                references.clear(variable);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.BitSet;
+
+/**
+ * Reaching definitions: the facts are the definition sites (see
+ * {@link ControlFlowGraph#getSiteAccess(int)}) whose value may reach a
+ * block without being overwritten.
+ *
+ * <p>Subclasses may track other sites by overriding
+ * {@link #isTracked(int)}, an access to a variable then kills the other
+ * tracked accesses of the same variable.
+ */
+public class ReachingDefinitions extends GenKillProblem {
+
+    public ReachingDefinitions(ControlFlowGraph graph) {
+        super(graph);
+    }
+
+    /**
+     * Returns true if the site is a fact of this problem.
+     */
+    protected boolean isTracked(int site) {
+        return getGraph().getSiteAccess(site).isDefinition();
+    }
+
+    @Override
+    public boolean isForward() {
+        return true;
+    }
+
+    @Override
+    public boolean isMay() {
+        return true;
+    }
+
+    @Override
+    public int getFactCount() {
+        return getGraph().getSiteCount();
+    }
+
+    @Override
+    protected void initialize(int block, BitSet gen, BitSet kill) {
+        ControlFlowGraph graph = getGraph();
+        for (int site = graph.getFirstSite(block); site < graph.getSiteEnd(block); site++) {
+            if (!isTracked(site)) {
+                continue;
+            }
+            for (int other : graph.getSites(graph.getSiteVariable(site))) {
+                if (isTracked(other)) {
+                    kill.set(other);
+                    gen.clear(other);
+                }
+            }
+            gen.set(site);
+        }
+    }
+}
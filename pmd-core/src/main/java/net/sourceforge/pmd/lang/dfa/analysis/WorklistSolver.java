@@ -0,0 +1,94 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import java.util.BitSet;
+
+/**
+ * Solves monotone {@link DataflowProblem}s with the iterative worklist
+ * algorithm. The blocks are first visited in reverse post order (post order
+ * for backward problems), then only the blocks whose input changed are
+ * visited again, until a fixed point is reached.
+ *
+ * <p>The solution is only meaningful for the blocks which are reachable from
+ * the entry.
+ */
+public final class WorklistSolver {
+
+    private WorklistSolver() {
+        // utility class
+    }
+
+    public static DataflowResult solve(DataflowProblem problem) {
+        ControlFlowGraph graph = problem.getGraph();
+        boolean forward = problem.isForward();
+        boolean may = problem.isMay();
+        int size = graph.size();
+
+        // "before" and "after" are in the direction of the problem
+        BitSet[] before = new BitSet[size];
+        BitSet[] after = new BitSet[size];
+        for (int block = 0; block < size; block++) {
+            before[block] = problem.getInitialValue();
+            after[block] = problem.getInitialValue();
+        }
+
+        int[] order = graph.getReversePostOrder();
+        int[] queue = new int[size];
+        boolean[] queued = new boolean[size];
+        int head = 0;
+        int count = order.length;
+        for (int i = 0; i < order.length; i++) {
+            int block = forward ? order[i] : order[order.length - 1 - i];
+            queue[i] = block;
+            queued[block] = true;
+        }
+
+        BitSet boundary = problem.getBoundaryValue();
+        BitSet facts = new BitSet(problem.getFactCount());
+        while (count > 0) {
+            int block = queue[head];
+            head = (head + 1) % size;
+            count--;
+            queued[block] = false;
+
+            int[] sources = forward ? graph.getPredecessors(block) : graph.getSuccessors(block);
+            BitSet input = before[block];
+            boolean isBoundary = forward ? block == graph.getEntry() : graph.isExit(block);
+            if (isBoundary) {
+                input.clear();
+                input.or(boundary);
+            } else if (sources.length > 0) {
+                input.clear();
+                input.or(after[sources[0]]);
+            }
+            for (int i = isBoundary ? 0 : 1; i < sources.length; i++) {
+                if (may) {
+                    input.or(after[sources[i]]);
+                } else {
+                    input.and(after[sources[i]]);
+                }
+            }
+
+            facts.clear();
+            facts.or(input);
+            problem.transfer(block, facts);
+            if (!facts.equals(after[block])) {
+                BitSet changed = after[block];
+                after[block] = facts;
+                facts = changed;
+                for (int target : forward ? graph.getSuccessors(block) : graph.getPredecessors(block)) {
+                    if (!queued[target]) {
+                        queued[target] = true;
+                        queue[(head + count) % size] = target;
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return forward ? new DataflowResult(problem, before, after) : new DataflowResult(problem, after, before);
+    }
+}
@@ -15,7 +15,11 @@ import net.sourceforge.pmd.lang.dfa.NodeType;
  *
  * @author raik
  * @since Created on 09.08.2004
+ * @deprecated The number of paths grows exponentially with the branches of
+ *             a method, use the data flow analyses of
+ *             {@link net.sourceforge.pmd.lang.dfa.analysis} instead.
  */
+@Deprecated
 public class DAAPathFinder {
     private static final int MAX_PATHS = 5000;
 
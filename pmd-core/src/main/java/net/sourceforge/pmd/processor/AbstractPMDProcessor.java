@@ -5,6 +5,7 @@
 package net.sourceforge.pmd.processor;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -22,6 +23,8 @@ import net.sourceforge.pmd.SourceCodeProcessor;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.util.datasource.DataSource;
 
@@ -65,14 +68,19 @@ public abstract class AbstractPMDProcessor {
      * @return the rules within a rulesets
      */
     protected RuleSets createRuleSets(RuleSetFactory factory, Report report) {
-        final RuleSets rs = RulesetsFactoryUtils.getRuleSets(configuration.getRuleSets(), factory);
+        final RuleSets rs = RulesetsFactoryUtils.getRuleSets(configuration.getRuleSets(),
+                configuration.getRuleSetSnapshot(), factory);
         
-        final Set<Rule> brokenRules = removeBrokenRules(rs);
+        reportBrokenRules(rs, report);
+        
+        return rs;
+    }
+
+    private void reportBrokenRules(RuleSets ruleSets, Report report) {
+        final Set<Rule> brokenRules = removeBrokenRules(ruleSets);
         for (final Rule rule : brokenRules) {
             report.addConfigError(new Report.ConfigurationError(rule, rule.dysfunctionReason()));
         }
-        
-        return rs;
     }
     
     /**
@@ -98,9 +106,37 @@ public abstract class AbstractPMDProcessor {
 
     public void processFiles(RuleSetFactory ruleSetFactory, List<DataSource> files, RuleContext ctx,
             List<Renderer> renderers) {
-        RuleSets rs = createRuleSets(ruleSetFactory, ctx.getReport());
-        configuration.getAnalysisCache().checkValidity(rs, configuration.getClassLoader());
-        SourceCodeProcessor processor = new SourceCodeProcessor(configuration);
+        process(createRuleSets(ruleSetFactory, ctx.getReport()), files, ctx, renderers);
+    }
+
+    /**
+     * Processes the files with rulesets which are already loaded. The
+     * misconfigured rules are removed from the rulesets and reported, so the
+     * rulesets must not be used by another analysis.
+     *
+     * @param ruleSets The rules to apply
+     * @param files The files to analyze
+     * @param ctx The context, whose report receives any configuration errors
+     * @param renderers The renderers of the reports
+     */
+    public void processFiles(RuleSets ruleSets, List<DataSource> files, RuleContext ctx, List<Renderer> renderers) {
+        reportBrokenRules(ruleSets, ctx.getReport());
+        process(ruleSets, files, ctx, renderers);
+    }
+
+    private void process(RuleSets rs, List<DataSource> files, RuleContext ctx, List<Renderer> renderers) {
+        configuration.getAnalysisCache().checkValidity(rs, configuration.getClassLoader(), configuration.getBaseline());
+        boolean multifile = usesMultifile(rs);
+        if (multifile) {
+            // index all the files first, so that the multifile rules see all of them
+            SourceCodeProcessor indexer = new SourceCodeProcessor(configuration);
+            List<MultifileIndexRunnable> indexing = new ArrayList<>(files.size());
+            for (DataSource dataSource : files) {
+                indexing.add(new MultifileIndexRunnable(dataSource, filenameFrom(dataSource), rs, indexer));
+            }
+            runIndexing(indexing);
+        }
+        SourceCodeProcessor processor = new SourceCodeProcessor(configuration, multifile);
 
         for (DataSource dataSource : files) {
             String niceFileName = filenameFrom(dataSource);
@@ -115,6 +151,27 @@ public abstract class AbstractPMDProcessor {
         collectReports(renderers);
     }
 
+    private static boolean usesMultifile(RuleSets ruleSets) {
+        for (Language language : LanguageRegistry.getLanguages()) {
+            if (ruleSets.usesMultifile(language)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indexes the files for the multifile analysis, and returns once they are
+     * all indexed. The files are indexed on the current thread by default.
+     *
+     * @param indexing The indexing of each file
+     */
+    protected void runIndexing(List<MultifileIndexRunnable> indexing) {
+        for (MultifileIndexRunnable runnable : indexing) {
+            runnable.call();
+        }
+    }
+
     protected abstract void runAnalysis(PmdRunnable runnable);
 
     protected abstract void collectReports(List<Renderer> renderers);
@@ -10,6 +10,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.Report;
@@ -32,6 +33,19 @@ public class MultiThreadProcessor extends AbstractPMDProcessor {
         completionService = new ExecutorCompletionService<>(executor);
     }
 
+    @Override
+    protected void runIndexing(List<MultifileIndexRunnable> indexing) {
+        try {
+            for (Future<Void> future : executor.invokeAll(indexing)) {
+                future.get();
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException ee) {
+            throw rethrow(ee);
+        }
+    }
+
     @Override
     protected void runAnalysis(PmdRunnable runnable) {
         completionService.submit(runnable);
@@ -48,16 +62,20 @@ public class MultiThreadProcessor extends AbstractPMDProcessor {
         } catch (final InterruptedException ie) {
             Thread.currentThread().interrupt();
         } catch (final ExecutionException ee) {
-            final Throwable t = ee.getCause();
-            if (t instanceof RuntimeException) {
-                throw (RuntimeException) t;
-            } else if (t instanceof Error) {
-                throw (Error) t;
-            } else {
-                throw new IllegalStateException("PmdRunnable exception", t);
-            }
+            throw rethrow(ee);
         } finally {
             executor.shutdownNow();
         }
     }
+
+    private static RuntimeException rethrow(ExecutionException ee) {
+        final Throwable t = ee.getCause();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else {
+            throw new IllegalStateException("PmdRunnable exception", t);
+        }
+    }
 }
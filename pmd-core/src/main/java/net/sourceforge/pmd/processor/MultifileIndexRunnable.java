@@ -0,0 +1,62 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.processor;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.PMDException;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.SourceCodeProcessor;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.util.datasource.DataSource;
+
+/**
+ * Indexes a file for the multifile analysis, before the analysis of the
+ * files. The rules are not applied, so they are shared between the threads.
+ * The errors are only logged, since the analysis of the file reports them.
+ */
+public class MultifileIndexRunnable implements Callable<Void> {
+
+    private static final Logger LOG = Logger.getLogger(MultifileIndexRunnable.class.getName());
+
+    private final DataSource dataSource;
+    private final String fileName;
+    private final RuleSets ruleSets;
+    private final SourceCodeProcessor sourceCodeProcessor;
+
+    public MultifileIndexRunnable(DataSource dataSource, String fileName, RuleSets ruleSets,
+            SourceCodeProcessor sourceCodeProcessor) {
+        this.dataSource = dataSource;
+        this.fileName = fileName;
+        this.ruleSets = ruleSets;
+        this.sourceCodeProcessor = sourceCodeProcessor;
+    }
+
+    @Override
+    public Void call() {
+        TimeTracker.initThread();
+
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(fileName);
+        ctx.setSourceCodeFile(new File(fileName));
+
+        try (InputStream stream = new BufferedInputStream(dataSource.getInputStream())) {
+            sourceCodeProcessor.indexSourceCode(stream, ruleSets, ctx);
+        } catch (PMDException | IOException | RuntimeException e) {
+            LOG.log(Level.FINE, "Error while indexing file: " + fileName, e);
+        }
+
+        TimeTracker.finishThread();
+
+        return null;
+    }
+}
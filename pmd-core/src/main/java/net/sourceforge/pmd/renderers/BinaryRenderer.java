@@ -0,0 +1,247 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.util.datasource.DataSource;
+
+/**
+ * Renderer to a compact binary format, which is read back by the
+ * {@link BinaryReportReader} to render the report again in any other format
+ * without analyzing the files again.
+ *
+ * <p>The report is a sequence of records, each one a tag byte followed by the
+ * varint length of its payload, so that a reader can skip the records it does
+ * not know. The strings and the rules are written once, in their own records,
+ * and then referenced by their index; the numbers are written as varints. Each
+ * report of a file starts with a {@link #REPORT} record, followed by its
+ * violations, suppressed violations and errors.
+ *
+ * <p>The output is binary, so this renderer writes to the stream given by
+ * {@link #setOutputStream(OutputStream)}, and not to its writer.
+ */
+public class BinaryRenderer extends AbstractRenderer {
+
+    public static final String NAME = "binary";
+
+    static final byte[] MAGIC = { 'P', 'M', 'D', 'R' };
+    static final int VERSION = 1;
+
+    // the record tags
+    static final int END = 0;
+    static final int STRING = 1;
+    static final int RULE = 2;
+    static final int REPORT = 3;
+    static final int VIOLATION = 4;
+    static final int SUPPRESSED_VIOLATION = 5;
+    static final int ERROR = 6;
+    static final int CONFIG_ERROR = 7;
+
+    private OutputStream output;
+
+    // the index 0 stands for null
+    private final Map<String, Integer> strings = new HashMap<>();
+    // keyed by the ruleset name and the rule name, as the rules of the
+    // threads are copies of the rules of the ruleset
+    private final Map<List<String>, Integer> rules = new HashMap<>();
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+
+    public BinaryRenderer() {
+        super(NAME, "Compact binary format, to be rendered later with the render command.");
+    }
+
+    @Override
+    public String defaultFileExtension() {
+        return "bin";
+    }
+
+    /**
+     * Sets the stream the report is written to. It is closed by
+     * {@link #flush()}.
+     */
+    public void setOutputStream(OutputStream output) {
+        this.output = output;
+    }
+
+    public OutputStream getOutputStream() {
+        return output;
+    }
+
+    @Override
+    public void start() throws IOException {
+        if (output == null) {
+            throw new IOException("The " + NAME + " report format needs an output stream");
+        }
+        output.write(MAGIC);
+        writeVarint(output, VERSION);
+    }
+
+    @Override
+    public void startFileAnalysis(DataSource dataSource) {
+        // does nothing
+    }
+
+    @Override
+    public void renderFileReport(Report report) throws IOException {
+        writeRecord(REPORT);
+
+        for (Iterator<RuleViolation> i = report.iterator(); i.hasNext();) {
+            writeViolation(i.next());
+            writeRecord(VIOLATION);
+        }
+
+        for (Report.SuppressedViolation s : report.getSuppressedRuleViolations()) {
+            int userMessage = string(s.getUserMessage());
+            writeViolation(s.getRuleViolation());
+            writeVarint(payload, s.suppressedByNOPMD() ? 1 : 0);
+            writeVarint(payload, userMessage);
+            writeRecord(SUPPRESSED_VIOLATION);
+        }
+
+        for (Iterator<Report.ProcessingError> i = report.errors(); i.hasNext();) {
+            Report.ProcessingError error = i.next();
+            int file = string(error.getFile());
+            int msg = string(error.getMsg());
+            int detail = string(error.getDetail());
+            writeVarint(payload, file);
+            writeVarint(payload, msg);
+            writeVarint(payload, detail);
+            writeRecord(ERROR);
+        }
+
+        for (Iterator<Report.ConfigurationError> i = report.configErrors(); i.hasNext();) {
+            Report.ConfigurationError error = i.next();
+            int rule = rule(error.rule());
+            int issue = string(error.issue());
+            writeVarint(payload, rule);
+            writeVarint(payload, issue);
+            writeRecord(CONFIG_ERROR);
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        writeRecord(END);
+    }
+
+    @Override
+    public void flush() {
+        try {
+            output.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Writes the payload of a violation, after the records of its new strings
+     * and rule.
+     */
+    private void writeViolation(RuleViolation rv) throws IOException {
+        int[] fields = {
+            rule(rv.getRule()),
+            string(rv.getFilename()),
+            string(rv.getDescription()),
+            string(rv.getPackageName()),
+            string(rv.getClassName()),
+            string(rv.getMethodName()),
+            string(rv.getVariableName()),
+        };
+        for (int field : fields) {
+            writeVarint(payload, field);
+        }
+        // the end line is usually close to the begin line
+        writeSignedVarint(payload, rv.getBeginLine());
+        writeSignedVarint(payload, rv.getEndLine() - rv.getBeginLine());
+        writeSignedVarint(payload, rv.getBeginColumn());
+        writeSignedVarint(payload, rv.getEndColumn());
+    }
+
+    /**
+     * Returns the index of the string, writing it first if it is new. Since
+     * this writes a record, the strings of a record are looked up before its
+     * payload is written.
+     */
+    private int string(String value) throws IOException {
+        if (value == null) {
+            return 0;
+        }
+        Integer index = strings.get(value);
+        if (index == null) {
+            index = strings.size() + 1;
+            strings.put(value, index);
+            payload.write(value.getBytes(StandardCharsets.UTF_8));
+            writeRecord(STRING);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the rule, writing it first if it is new.
+     */
+    private int rule(Rule rule) throws IOException {
+        List<String> key = Arrays.asList(rule.getRuleSetName(), rule.getName());
+        Integer index = rules.get(key);
+        if (index == null) {
+            int[] fields = {
+                string(rule.getName()),
+                string(rule.getRuleSetName()),
+                string(rule.getLanguage() == null ? null : rule.getLanguage().getTerseName()),
+                string(rule.getSince()),
+                string(rule.getMessage()),
+                string(rule.getDescription()),
+                string(rule.getExternalInfoUrl()),
+                rule.getPriority().getPriority(),
+            };
+            index = rules.size() + 1;
+            rules.put(key, index);
+            for (int field : fields) {
+                writeVarint(payload, field);
+            }
+            writeRecord(RULE);
+        }
+        return index;
+    }
+
+    private void writeRecord(int tag) throws IOException {
+        output.write(tag);
+        writeVarint(output, payload.size());
+        payload.writeTo(output);
+        payload.reset();
+    }
+
+    static void writeVarint(OutputStream stream, int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            stream.write(remaining & 0x7F | 0x80);
+            remaining >>>= 7;
+        }
+        stream.write(remaining);
+    }
+
+    /**
+     * Writes a number that may be negative, such as an unknown column, in
+     * the zigzag encoding.
+     */
+    static void writeSignedVarint(OutputStream stream, int value) throws IOException {
+        writeVarint(stream, value << 1 ^ value >> 31);
+    }
+}
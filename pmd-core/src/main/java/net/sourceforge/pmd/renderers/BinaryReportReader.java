@@ -0,0 +1,370 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RulePriority;
+import net.sourceforge.pmd.RuleViolation;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+
+/**
+ * Reads a report written by the {@link BinaryRenderer}, one report of a file
+ * at a time, so that it can be rendered again by any {@link Renderer} without
+ * analyzing the files again. The rules of the violations only have the
+ * attributes written in the report, such as their name, ruleset and
+ * priority.
+ */
+public class BinaryReportReader implements Closeable {
+
+    private final DataInputStream input;
+
+    private final List<String> strings = new ArrayList<>();
+    private final List<Rule> rules = new ArrayList<>();
+    private byte[] payload = new byte[256];
+    private int position;
+    private int length;
+
+    private boolean started;
+    private boolean ended;
+    // whether the REPORT record of the next report has already been read
+    private boolean nextReportStarted;
+
+    public BinaryReportReader(InputStream input) {
+        this.input = new DataInputStream(input);
+        // the index 0 stands for null
+        strings.add(null);
+        rules.add(null);
+    }
+
+    /**
+     * Renders all the reports with the given renderer, from its start to its
+     * end.
+     */
+    public void render(Renderer renderer) throws IOException {
+        renderer.start();
+        for (Report report = nextReport(); report != null; report = nextReport()) {
+            renderer.renderFileReport(report);
+        }
+        renderer.end();
+    }
+
+    /**
+     * Returns the next report, as given to the {@link BinaryRenderer}, or
+     * <code>null</code> at the end.
+     */
+    public Report nextReport() throws IOException {
+        if (!started) {
+            readHeader();
+            started = true;
+        }
+        if (ended) {
+            return null;
+        }
+        Report report = null;
+        if (nextReportStarted) {
+            nextReportStarted = false;
+            report = new Report();
+        }
+        while (true) {
+            int tag = readRecord();
+            switch (tag) {
+            case BinaryRenderer.END:
+                ended = true;
+                return report;
+            case BinaryRenderer.REPORT:
+                if (report != null) {
+                    // the start of the following report
+                    nextReportStarted = true;
+                    return report;
+                }
+                report = new Report();
+                break;
+            case BinaryRenderer.STRING:
+                strings.add(new String(payload, 0, length, StandardCharsets.UTF_8));
+                break;
+            case BinaryRenderer.RULE:
+                rules.add(readRule());
+                break;
+            case BinaryRenderer.VIOLATION:
+                checkReport(report).addRuleViolation(readViolation());
+                break;
+            case BinaryRenderer.SUPPRESSED_VIOLATION:
+                readSuppressedViolation(checkReport(report));
+                break;
+            case BinaryRenderer.ERROR:
+                String file = readString();
+                String msg = readString();
+                String detail = readString();
+                checkReport(report).addError(new Report.ProcessingError(new ReportedError(msg, detail), file));
+                break;
+            case BinaryRenderer.CONFIG_ERROR:
+                Rule rule = readRuleIndex();
+                checkReport(report).addConfigError(new Report.ConfigurationError(rule, readString()));
+                break;
+            default:
+                // a record of a later version, skipped
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private void readHeader() throws IOException {
+        byte[] magic = new byte[BinaryRenderer.MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(magic, BinaryRenderer.MAGIC)) {
+            throw new IOException("Not a binary PMD report");
+        }
+        int version = readVarint(input);
+        if (version > BinaryRenderer.VERSION) {
+            throw new IOException("Unsupported version of the binary PMD report: " + version);
+        }
+    }
+
+    private Report checkReport(Report report) throws IOException {
+        if (report == null) {
+            throw new IOException("Corrupted binary PMD report: record outside of a report");
+        }
+        return report;
+    }
+
+    /**
+     * Reads the next record into the payload, and returns its tag.
+     */
+    private int readRecord() throws IOException {
+        int tag = input.read();
+        if (tag < 0) {
+            throw new EOFException("Truncated binary PMD report");
+        }
+        length = readVarint(input);
+        if (length > payload.length) {
+            payload = new byte[Math.max(length, payload.length * 2)];
+        }
+        input.readFully(payload, 0, length);
+        position = 0;
+        return tag;
+    }
+
+    private Rule readRule() throws IOException {
+        ReportedRule rule = new ReportedRule();
+        rule.setName(readString());
+        rule.setRuleSetName(readString());
+        String language = readString();
+        if (language != null) {
+            rule.setLanguage(LanguageRegistry.findLanguageByTerseName(language));
+        }
+        rule.setSince(readString());
+        rule.setMessage(readString());
+        rule.setDescription(readString());
+        rule.setExternalInfoUrl(readString());
+        rule.setPriority(RulePriority.valueOf(readVarint()));
+        return rule;
+    }
+
+    private ReportedViolation readViolation() throws IOException {
+        ReportedViolation rv = new ReportedViolation();
+        rv.rule = readRuleIndex();
+        rv.filename = readString();
+        rv.description = readString();
+        rv.packageName = readString();
+        rv.className = readString();
+        rv.methodName = readString();
+        rv.variableName = readString();
+        rv.beginLine = readSignedVarint();
+        rv.endLine = rv.beginLine + readSignedVarint();
+        rv.beginColumn = readSignedVarint();
+        rv.endColumn = readSignedVarint();
+        return rv;
+    }
+
+    private void readSuppressedViolation(Report report) throws IOException {
+        ReportedViolation rv = readViolation();
+        boolean nopmd = readVarint() == 1;
+        String userMessage = readString();
+        rv.suppressed = !nopmd;
+        report.getSuppressedRuleViolations().add(new Report.SuppressedViolation(rv, nopmd, userMessage));
+    }
+
+    private Rule readRuleIndex() throws IOException {
+        int index = readVarint();
+        if (index >= rules.size()) {
+            throw new IOException("Corrupted binary PMD report: unknown rule " + index);
+        }
+        return rules.get(index);
+    }
+
+    private String readString() throws IOException {
+        int index = readVarint();
+        if (index >= strings.size()) {
+            throw new IOException("Corrupted binary PMD report: unknown string " + index);
+        }
+        return strings.get(index);
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position >= length) {
+                throw new IOException("Corrupted binary PMD report: truncated record");
+            }
+            int b = payload[position++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted binary PMD report: varint too long");
+    }
+
+    private int readSignedVarint() throws IOException {
+        int value = readVarint();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static int readVarint(InputStream stream) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = stream.read();
+            if (b < 0) {
+                throw new EOFException("Truncated binary PMD report");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted binary PMD report: varint too long");
+    }
+
+    /**
+     * A rule read from the report, with only the attributes written in it.
+     */
+    private static class ReportedRule extends AbstractRule {
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            // the rule is not applied again
+        }
+    }
+
+    private static class ReportedViolation implements RuleViolation {
+        private Rule rule;
+        private String description;
+        private boolean suppressed;
+        private String filename;
+        private int beginLine;
+        private int beginColumn;
+        private int endLine;
+        private int endColumn;
+        private String packageName;
+        private String className;
+        private String methodName;
+        private String variableName;
+
+        @Override
+        public Rule getRule() {
+            return rule;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public boolean isSuppressed() {
+            return suppressed;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public int getBeginLine() {
+            return beginLine;
+        }
+
+        @Override
+        public int getBeginColumn() {
+            return beginColumn;
+        }
+
+        @Override
+        public int getEndLine() {
+            return endLine;
+        }
+
+        @Override
+        public int getEndColumn() {
+            return endColumn;
+        }
+
+        @Override
+        public String getPackageName() {
+            return packageName;
+        }
+
+        @Override
+        public String getClassName() {
+            return className;
+        }
+
+        @Override
+        public String getMethodName() {
+            return methodName;
+        }
+
+        @Override
+        public String getVariableName() {
+            return variableName;
+        }
+    }
+
+    /**
+     * The error of a processing error read from the report, whose stack
+     * trace is the detail written in it.
+     */
+    private static class ReportedError extends Throwable {
+        private static final long serialVersionUID = 1L;
+
+        private final String detail;
+
+        ReportedError(String message, String detail) {
+            super(message, null, false, false);
+            this.detail = detail;
+        }
+
+        @Override
+        public void printStackTrace(PrintWriter s) {
+            s.print(detail);
+        }
+
+        @Override
+        public void printStackTrace(PrintStream s) {
+            s.print(detail);
+        }
+    }
+}
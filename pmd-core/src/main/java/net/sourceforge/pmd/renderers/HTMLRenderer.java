@@ -58,6 +58,16 @@ public class HTMLRenderer extends AbstractIncrementingRenderer {
      * @throws IOException
      */
     public void renderBody(Writer writer, Report report) throws IOException {
+        startBody(writer);
+        renderFileReport(report);
+        endBody(writer);
+    }
+
+    /**
+     * Writes the start of the body, after which the reports of the files are
+     * rendered one at a time with {@link #renderFileReport(Report)}.
+     */
+    void startBody(Writer writer) throws IOException {
         linkPrefix = getProperty(LINK_PREFIX);
         linePrefix = getProperty(LINE_PREFIX);
 
@@ -66,7 +76,12 @@ public class HTMLRenderer extends AbstractIncrementingRenderer {
         writer.write("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\"><tr>" + PMD.EOL
                 + "<th>#</th><th>File</th><th>Line</th><th>Problem</th></tr>" + PMD.EOL);
         setWriter(writer);
-        renderFileReport(report);
+    }
+
+    /**
+     * Writes the end of the body, with the errors of all the files.
+     */
+    void endBody(Writer writer) throws IOException {
         writer.write("</table>");
         glomProcessingErrors(writer, errors);
         if (showSuppressedViolations) {
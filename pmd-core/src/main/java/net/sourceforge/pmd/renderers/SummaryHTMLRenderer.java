@@ -5,17 +5,37 @@
 package net.sourceforge.pmd.renderers;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.commons.io.IOUtils;
+
 import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.Report;
 
 /**
  * Renderer to a summarized HTML format.
+ *
+ * <p>The summary precedes the detail, so the detail of each file is written
+ * to a temporary file as the report of the file arrives, and copied after
+ * the summary at the end. Only the counts of the summary are kept in memory:
+ * the reports aren't merged into the accumulated {@link #report}, which stays
+ * empty.
  */
 public class SummaryHTMLRenderer extends AbstractAccumulatingRenderer {
 
     public static final String NAME = "summaryhtml";
 
+    private final Map<String, Integer> summary = new HashMap<>();
+    private HTMLRenderer htmlRenderer;
+    private Path detailPath;
+    private Writer detailWriter;
+
     public SummaryHTMLRenderer() {
         super(NAME, "Summary HTML format.");
 
@@ -32,19 +52,52 @@ public class SummaryHTMLRenderer extends AbstractAccumulatingRenderer {
     }
 
     @Override
-    public void end() throws IOException {
-        writer.write("<html><head><title>PMD</title></head><body>" + PMD.EOL);
-        renderSummary();
-        writer.write("<center><h2>Detail</h2></center>");
-        writer.write("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\"><tr>" + PMD.EOL);
+    public void start() throws IOException {
+        super.start();
+        detailPath = Files.createTempFile("pmd-summaryhtml-", ".tmp");
+        // in case end() is never called, e.g. when the analysis fails
+        detailPath.toFile().deleteOnExit();
+        try {
+            detailWriter = Files.newBufferedWriter(detailPath, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Files.deleteIfExists(detailPath);
+            throw e;
+        }
 
-        HTMLRenderer htmlRenderer = new HTMLRenderer();
+        htmlRenderer = new HTMLRenderer();
         htmlRenderer.setProperty(HTMLRenderer.LINK_PREFIX, getProperty(HTMLRenderer.LINK_PREFIX));
         htmlRenderer.setProperty(HTMLRenderer.LINE_PREFIX, getProperty(HTMLRenderer.LINE_PREFIX));
         htmlRenderer.setShowSuppressedViolations(showSuppressedViolations);
-        htmlRenderer.renderBody(writer, report);
+        htmlRenderer.startBody(detailWriter);
+    }
 
-        writer.write("</tr></table></body></html>" + PMD.EOL);
+    @Override
+    public void renderFileReport(Report report) throws IOException {
+        for (Map.Entry<String, Integer> entry : report.getSummary().entrySet()) {
+            Integer count = summary.get(entry.getKey());
+            summary.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+        }
+        htmlRenderer.renderFileReport(report);
+    }
+
+    @Override
+    public void end() throws IOException {
+        try {
+            htmlRenderer.endBody(detailWriter);
+            detailWriter.close();
+
+            writer.write("<html><head><title>PMD</title></head><body>" + PMD.EOL);
+            renderSummary();
+            writer.write("<center><h2>Detail</h2></center>");
+            writer.write("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\"><tr>" + PMD.EOL);
+            try (Reader detail = Files.newBufferedReader(detailPath, StandardCharsets.UTF_8)) {
+                IOUtils.copy(detail, writer);
+            }
+            writer.write("</tr></table></body></html>" + PMD.EOL);
+        } finally {
+            IOUtils.closeQuietly(detailWriter);
+            Files.deleteIfExists(detailPath);
+        }
     }
 
     /**
@@ -56,7 +109,6 @@ public class SummaryHTMLRenderer extends AbstractAccumulatingRenderer {
         writer.write("<center><h2>Summary</h2></center>" + PMD.EOL);
         writer.write("<table align=\"center\" cellspacing=\"0\" cellpadding=\"3\">" + PMD.EOL);
         writer.write("<tr><th>Rule name</th><th>Number of violations</th></tr>" + PMD.EOL);
-        Map<String, Integer> summary = report.getSummary();
         for (Map.Entry<String, Integer> entry : summary.entrySet()) {
             String ruleName = entry.getKey();
             writer.write("<tr><td>");
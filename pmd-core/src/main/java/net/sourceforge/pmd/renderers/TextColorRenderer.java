@@ -10,6 +10,7 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -50,8 +51,12 @@ import net.sourceforge.pmd.properties.StringProperty;
  * Bene:</b> colorization is atm only supported under *nix terminals accepting
  * ansi escape sequences, such as xterm, rxvt et cetera.
  * </p>
+ * <p>
+ * The violations are written as the report of each file arrives, so only
+ * the counts of the summary and the errors are kept until the end.
+ * </p>
  */
-public class TextColorRenderer extends AbstractAccumulatingRenderer {
+public class TextColorRenderer extends AbstractIncrementingRenderer {
 
     public static final String NAME = "textcolor";
 
@@ -73,6 +78,10 @@ public class TextColorRenderer extends AbstractAccumulatingRenderer {
 
     private String colorReset = "";
 
+    private String lastFile;
+    private int numberOfWarnings;
+    private final Map<String, Integer> countSummary = new HashMap<>();
+
     public TextColorRenderer() {
         // This Renderer was originally submitted by Adrian Papari and was
         // called the "PapariTextRenderer" pre-PMD 5.0.
@@ -110,18 +119,28 @@ public class TextColorRenderer extends AbstractAccumulatingRenderer {
     }
 
     @Override
-    public void end() throws IOException {
-        StringBuilder buf = new StringBuilder(500);
-        buf.append(PMD.EOL);
+    public void start() throws IOException {
         initializeColorsIfSupported();
-        String lastFile = null;
-        int numberOfErrors = 0;
-        int numberOfWarnings = 0;
+    }
+
+    @Override
+    public void renderFileReport(Report report) throws IOException {
+        super.renderFileReport(report);
+        // only the counts of the summary are kept until the end
+        for (Map.Entry<String, Integer> entry : report.getCountSummary().entrySet()) {
+            Integer count = countSummary.get(entry.getKey());
+            countSummary.put(entry.getKey(), count == null ? entry.getValue() : count + entry.getValue());
+        }
+    }
 
-        for (Iterator<RuleViolation> i = report.iterator(); i.hasNext();) {
+    @Override
+    public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
+        StringBuilder buf = new StringBuilder(500);
+
+        while (violations.hasNext()) {
             buf.setLength(0);
             numberOfWarnings++;
-            RuleViolation rv = i.next();
+            RuleViolation rv = violations.next();
             if (!rv.getFilename().equals(lastFile)) {
                 lastFile = rv.getFilename();
                 buf.append(this.yellowBold + "*" + this.colorReset + " file: " + this.whiteBold
@@ -137,20 +156,25 @@ public class TextColorRenderer extends AbstractAccumulatingRenderer {
                     + PMD.EOL);
             writer.write(buf.toString());
         }
+    }
+
+    @Override
+    public void end() throws IOException {
+        StringBuilder buf = new StringBuilder(500);
+        int numberOfErrors = 0;
+
         writer.write(PMD.EOL + PMD.EOL);
         writer.write("Summary:" + PMD.EOL + PMD.EOL);
-        Map<String, Integer> summary = report.getCountSummary();
-        for (Map.Entry<String, Integer> entry : summary.entrySet()) {
+        for (Map.Entry<String, Integer> entry : countSummary.entrySet()) {
             buf.setLength(0);
             String key = entry.getKey();
             buf.append(key).append(" : ").append(entry.getValue()).append(PMD.EOL);
             writer.write(buf.toString());
         }
 
-        for (Iterator<Report.ProcessingError> i = report.errors(); i.hasNext();) {
+        for (Report.ProcessingError error : errors) {
             buf.setLength(0);
             numberOfErrors++;
-            Report.ProcessingError error = i.next();
             if (error.getFile().equals(lastFile)) {
                 lastFile = error.getFile();
                 buf.append(this.redBold + "*" + this.colorReset + " file: " + this.whiteBold
@@ -161,10 +185,9 @@ public class TextColorRenderer extends AbstractAccumulatingRenderer {
             writer.write(buf.toString());
         }
         
-        for (Iterator<Report.ConfigurationError> i = report.configErrors(); i.hasNext();) {
+        for (Report.ConfigurationError error : configErrors) {
             buf.setLength(0);
             numberOfErrors++;
-            Report.ConfigurationError error = i.next();
             buf.append(this.redBold + "*" + this.colorReset + " rule: " + this.whiteBold
                     + error.rule().getName() + this.colorReset + PMD.EOL);
             buf.append(this.green + "    err:  " + this.cyan + error.issue() + this.colorReset + PMD.EOL + PMD.EOL);
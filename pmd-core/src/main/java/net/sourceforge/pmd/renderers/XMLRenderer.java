@@ -10,6 +10,13 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
 
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
 import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.Report;
@@ -19,6 +26,10 @@ import net.sourceforge.pmd.util.StringUtil;
 
 /**
  * Renderer to XML format.
+ *
+ * <p>The elements of the report are passed as SAX events to a handler, which
+ * writes them as text. The {@link XSLTRenderer} passes the same events to
+ * the transformation.
  */
 public class XMLRenderer extends AbstractIncrementingRenderer {
 
@@ -26,7 +37,12 @@ public class XMLRenderer extends AbstractIncrementingRenderer {
 
     public static final StringProperty ENCODING = new StringProperty("encoding",
             "XML encoding format, defaults to UTF-8.", "UTF-8", 0);
+    static final String NAMESPACE = "http://pmd.sourceforge.net/report/2.0.0";
+
     private boolean useUTF8 = false;
+    final AttributesImpl attributes = new AttributesImpl();
+    private ContentHandler contentHandler;
+    private LexicalHandler lexicalHandler;
 
     public XMLRenderer() {
         super(NAME, "XML format.");
@@ -59,118 +75,158 @@ public class XMLRenderer extends AbstractIncrementingRenderer {
         // buf.append(createTimeElapsedAttr(report));
         buf.append('>').append(PMD.EOL);
         writer.write(buf.toString());
+
+        // the root element is open, the report is written by the events
+        TextHandler textHandler = new TextHandler(writer, useUTF8);
+        setHandler(textHandler, textHandler);
+    }
+
+    /**
+     * Sets the handler to which the elements of the report are passed.
+     *
+     * @param contentHandler
+     *            the handler of the elements
+     * @param lexicalHandler
+     *            the handler of the CDATA sections
+     */
+    void setHandler(ContentHandler contentHandler, LexicalHandler lexicalHandler) {
+        this.contentHandler = contentHandler;
+        this.lexicalHandler = lexicalHandler;
     }
 
     @Override
     public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
-        Writer writer = getWriter();
-        StringBuilder buf = new StringBuilder(500);
         String filename = null;
-
-        // rule violations
-        while (violations.hasNext()) {
-            buf.setLength(0);
-            RuleViolation rv = violations.next();
-            if (!rv.getFilename().equals(filename)) {
-                // New File
-                if (filename != null) {
-                    // Not first file ?
-                    buf.append("</file>").append(PMD.EOL);
+        try {
+            while (violations.hasNext()) {
+                RuleViolation rv = violations.next();
+                if (!rv.getFilename().equals(filename)) {
+                    // New File
+                    if (filename != null) {
+                        // Not first file ?
+                        endElement("file");
+                        characters(PMD.EOL);
+                    }
+                    filename = rv.getFilename();
+                    attributes.clear();
+                    addAttribute("name", filename);
+                    startElement("file");
+                    characters(PMD.EOL);
                 }
-                filename = rv.getFilename();
-                buf.append("<file name=\"");
-                StringUtil.appendXmlEscaped(buf, filename, useUTF8);
-                buf.append("\">").append(PMD.EOL);
-            }
 
-            buf.append("<violation beginline=\"").append(rv.getBeginLine());
-            buf.append("\" endline=\"").append(rv.getEndLine());
-            buf.append("\" begincolumn=\"").append(rv.getBeginColumn());
-            buf.append("\" endcolumn=\"").append(rv.getEndColumn());
-            buf.append("\" rule=\"");
-            StringUtil.appendXmlEscaped(buf, rv.getRule().getName(), useUTF8);
-            buf.append("\" ruleset=\"");
-            StringUtil.appendXmlEscaped(buf, rv.getRule().getRuleSetName(), useUTF8);
-            buf.append('"');
-            maybeAdd("package", rv.getPackageName(), buf);
-            maybeAdd("class", rv.getClassName(), buf);
-            maybeAdd("method", rv.getMethodName(), buf);
-            maybeAdd("variable", rv.getVariableName(), buf);
-            maybeAdd("externalInfoUrl", rv.getRule().getExternalInfoUrl(), buf);
-            buf.append(" priority=\"");
-            buf.append(rv.getRule().getPriority().getPriority());
-            buf.append("\">").append(PMD.EOL);
-            StringUtil.appendXmlEscaped(buf, rv.getDescription(), useUTF8);
-
-            buf.append(PMD.EOL);
-            buf.append("</violation>");
-            buf.append(PMD.EOL);
-            writer.write(buf.toString());
-        }
-        if (filename != null) { // Not first file ?
-            writer.write("</file>");
-            writer.write(PMD.EOL);
+                attributes.clear();
+                addAttribute("beginline", String.valueOf(rv.getBeginLine()));
+                addAttribute("endline", String.valueOf(rv.getEndLine()));
+                addAttribute("begincolumn", String.valueOf(rv.getBeginColumn()));
+                addAttribute("endcolumn", String.valueOf(rv.getEndColumn()));
+                addAttribute("rule", rv.getRule().getName());
+                addAttribute("ruleset", rv.getRule().getRuleSetName());
+                maybeAddAttribute("package", rv.getPackageName());
+                maybeAddAttribute("class", rv.getClassName());
+                maybeAddAttribute("method", rv.getMethodName());
+                maybeAddAttribute("variable", rv.getVariableName());
+                maybeAddAttribute("externalInfoUrl", rv.getRule().getExternalInfoUrl());
+                addAttribute("priority", String.valueOf(rv.getRule().getPriority().getPriority()));
+                startElement("violation");
+                characters(PMD.EOL + rv.getDescription() + PMD.EOL);
+                endElement("violation");
+                characters(PMD.EOL);
+            }
+            if (filename != null) { // Not first file ?
+                endElement("file");
+                characters(PMD.EOL);
+            }
+        } catch (SAXException e) {
+            throw toIOException(e);
         }
     }
 
     @Override
     public void end() throws IOException {
-        Writer writer = getWriter();
-        StringBuilder buf = new StringBuilder(500);
+        try {
+            renderEnd();
+        } catch (SAXException e) {
+            throw toIOException(e);
+        }
+        getWriter().write(PMD.EOL);
+    }
+
+    /**
+     * Passes the errors, the suppressed violations and the configuration
+     * errors to the handler, and closes the root element.
+     */
+    void renderEnd() throws SAXException {
         // errors
         for (Report.ProcessingError pe : errors) {
-            buf.setLength(0);
-            buf.append("<error ").append("filename=\"");
-            StringUtil.appendXmlEscaped(buf, pe.getFile(), useUTF8);
-            buf.append("\" msg=\"");
-            StringUtil.appendXmlEscaped(buf, pe.getMsg(), useUTF8);
-            buf.append("\">").append(PMD.EOL);
-            buf.append("<![CDATA[").append(pe.getDetail()).append("]]>").append(PMD.EOL);
-            buf.append("</error>").append(PMD.EOL);
-            writer.write(buf.toString());
+            attributes.clear();
+            addAttribute("filename", pe.getFile());
+            addAttribute("msg", pe.getMsg());
+            startElement("error");
+            characters(PMD.EOL);
+            lexicalHandler.startCDATA();
+            characters(pe.getDetail());
+            lexicalHandler.endCDATA();
+            characters(PMD.EOL);
+            endElement("error");
+            characters(PMD.EOL);
         }
 
         // suppressed violations
         if (showSuppressedViolations) {
             for (Report.SuppressedViolation s : suppressed) {
-                buf.setLength(0);
-                buf.append("<suppressedviolation ").append("filename=\"");
-                StringUtil.appendXmlEscaped(buf, s.getRuleViolation().getFilename(), useUTF8);
-                buf.append("\" suppressiontype=\"");
-                StringUtil.appendXmlEscaped(buf, s.suppressedByNOPMD() ? "nopmd" : "annotation", useUTF8);
-                buf.append("\" msg=\"");
-                StringUtil.appendXmlEscaped(buf, s.getRuleViolation().getDescription(), useUTF8);
-                buf.append("\" usermsg=\"");
-                StringUtil.appendXmlEscaped(buf, s.getUserMessage() == null ? "" : s.getUserMessage(), useUTF8);
-                buf.append("\"/>").append(PMD.EOL);
-                writer.write(buf.toString());
+                attributes.clear();
+                addAttribute("filename", s.getRuleViolation().getFilename());
+                addAttribute("suppressiontype", s.suppressedByNOPMD() ? "nopmd" : "annotation");
+                addAttribute("msg", s.getRuleViolation().getDescription());
+                addAttribute("usermsg", s.getUserMessage() == null ? "" : s.getUserMessage());
+                startElement("suppressedviolation");
+                endElement("suppressedviolation");
+                characters(PMD.EOL);
             }
         }
-        
+
         // config errors
         for (final Report.ConfigurationError ce : configErrors) {
-            buf.setLength(0);
-            buf.append("<configerror ").append("rule=\"");
-            StringUtil.appendXmlEscaped(buf, ce.rule().getName(), useUTF8);
-            buf.append("\" msg=\"");
-            StringUtil.appendXmlEscaped(buf, ce.issue(), useUTF8);
-            buf.append("\"/>").append(PMD.EOL);
-            writer.write(buf.toString());
+            attributes.clear();
+            addAttribute("rule", ce.rule().getName());
+            addAttribute("msg", ce.issue());
+            startElement("configerror");
+            endElement("configerror");
+            characters(PMD.EOL);
         }
 
-        writer.write("</pmd>" + PMD.EOL);
+        endElement("pmd");
     }
 
-    private void maybeAdd(String attr, String value, StringBuilder buf) {
+    void addAttribute(String name, String value) {
+        attributes.addAttribute("", name, name, "CDATA", value);
+    }
+
+    private void maybeAddAttribute(String name, String value) {
         if (value != null && value.length() > 0) {
-            buf.append(' ').append(attr).append("=\"");
-            StringUtil.appendXmlEscaped(buf, value, useUTF8);
-            buf.append('"');
+            addAttribute(name, value);
         }
     }
 
+    void startElement(String name) throws SAXException {
+        contentHandler.startElement(NAMESPACE, name, name, attributes);
+    }
+
+    private void endElement(String name) throws SAXException {
+        contentHandler.endElement(NAMESPACE, name, name);
+    }
+
+    void characters(String text) throws SAXException {
+        char[] chars = text.toCharArray();
+        contentHandler.characters(chars, 0, chars.length);
+    }
+
+    static IOException toIOException(SAXException e) {
+        return e.getException() instanceof IOException ? (IOException) e.getException() : new IOException(e);
+    }
+
     private void createVersionAttr(StringBuilder buffer) {
-        buffer.append("<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\"").append(PMD.EOL)
+        buffer.append("<pmd xmlns=\"").append(NAMESPACE).append('"').append(PMD.EOL)
             .append("    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"").append(PMD.EOL)
             .append("    xsi:schemaLocation=\"http://pmd.sourceforge.net/report/2.0.0 http://pmd.sourceforge.net/report_2_0_0.xsd\"").append(PMD.EOL)
             .append("    version=\"").append(PMDVersion.VERSION).append('"');
@@ -188,4 +244,112 @@ public class XMLRenderer extends AbstractIncrementingRenderer {
      * Report.ReadableDuration(rpt.getElapsedTimeInMillis()); return
      * " elapsedTime=\"" + d.getTime() + "\""; }
      */
+
+    /**
+     * Writes the elements as text. The end of a start tag is delayed until
+     * the content of the element, so that an empty element is written as
+     * <code>&lt;name/&gt;</code>. The text of a CDATA section isn't escaped.
+     */
+    private static class TextHandler extends DefaultHandler implements LexicalHandler {
+
+        private final Writer writer;
+        private final boolean useUTF8;
+        private final StringBuilder buf = new StringBuilder(500);
+        private boolean startTagOpen;
+        private boolean inCDATA;
+
+        TextHandler(Writer writer, boolean useUTF8) {
+            this.writer = writer;
+            this.useUTF8 = useUTF8;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            closeStartTag();
+            buf.append('<').append(qName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                buf.append(' ').append(attributes.getQName(i)).append("=\"");
+                StringUtil.appendXmlEscaped(buf, attributes.getValue(i), useUTF8);
+                buf.append('"');
+            }
+            startTagOpen = true;
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if (startTagOpen) {
+                buf.append("/>");
+                startTagOpen = false;
+            } else {
+                buf.append("</").append(qName).append('>');
+            }
+            flush();
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            closeStartTag();
+            if (inCDATA) {
+                buf.append(ch, start, length);
+            } else {
+                StringUtil.appendXmlEscaped(buf, new String(ch, start, length), useUTF8);
+            }
+            flush();
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            closeStartTag();
+            buf.append("<![CDATA[");
+            inCDATA = true;
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            buf.append("]]>");
+            inCDATA = false;
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) {
+            // no DTD
+        }
+
+        @Override
+        public void endDTD() {
+            // no DTD
+        }
+
+        @Override
+        public void startEntity(String name) {
+            // entities are not reported
+        }
+
+        @Override
+        public void endEntity(String name) {
+            // entities are not reported
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) {
+            // no comments
+        }
+
+        private void closeStartTag() {
+            if (startTagOpen) {
+                buf.append('>');
+                startTagOpen = false;
+            }
+        }
+
+        private void flush() throws SAXException {
+            try {
+                writer.write(buf.toString());
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+            buf.setLength(0);
+        }
+    }
 }
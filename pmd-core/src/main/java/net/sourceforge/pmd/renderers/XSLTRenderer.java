@@ -9,29 +9,30 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
-import org.w3c.dom.Document;
-import org.xml.sax.InputSource;
+import org.apache.commons.io.IOUtils;
 import org.xml.sax.SAXException;
 
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.properties.StringProperty;
 
 /**
  * Renderer to XML format with a XSL Transformation applied.
  *
+ * <p>The XML report is not written: its elements are passed as SAX events to
+ * the transformation as the violations of each file arrive, so that neither
+ * the XML text nor a DOM of the whole report is kept in memory. The events
+ * are emitted by the {@link XMLRenderer}, which writes them as text.
+ *
  * @author Romain Pelisse, belaran@gmail.com
  */
 public class XSLTRenderer extends XMLRenderer {
@@ -41,9 +42,10 @@ public class XSLTRenderer extends XMLRenderer {
     public static final StringProperty XSLT_FILENAME = new StringProperty("xsltFilename", "The XSLT file name.", null,
             0);
 
-    private Transformer transformer;
+    private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
+
     private String xsltFilename = "/pmd-nicerhtml.xsl";
-    private Writer outputWriter;
+    private TransformerHandler handler;
 
     public XSLTRenderer() {
         super();
@@ -67,11 +69,6 @@ public class XSLTRenderer extends XMLRenderer {
             }
         }
 
-        // We keep the inital writer to put the final html output
-        this.outputWriter = getWriter();
-        // We use a new one to store the XML...
-        Writer w = new StringWriter();
-        setWriter(w);
         // If don't find the xsl no need to bother doing the all report,
         // so we check this here...
         InputStream xslt = null;
@@ -84,71 +81,59 @@ public class XSLTRenderer extends XMLRenderer {
         if (xslt == null) {
             throw new FileNotFoundException("Can't file XSLT sheet :" + this.xsltFilename);
         }
-        this.prepareTransformer(xslt);
-        // Now we build the XML file
-        super.start();
+        try {
+            this.prepareHandler(xslt);
+        } finally {
+            IOUtils.closeQuietly(xslt);
+        }
+
+        // Now we start the XML document
+        try {
+            handler.startDocument();
+            handler.startPrefixMapping("", NAMESPACE);
+            handler.startPrefixMapping("xsi", XSI_NAMESPACE);
+            attributes.clear();
+            attributes.addAttribute(XSI_NAMESPACE, "schemaLocation", "xsi:schemaLocation", "CDATA",
+                    NAMESPACE + " http://pmd.sourceforge.net/report_2_0_0.xsd");
+            addAttribute("version", PMDVersion.VERSION);
+            addAttribute("timestamp", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(new Date()));
+            startElement("pmd");
+            characters(PMD.EOL);
+        } catch (SAXException e) {
+            throw toIOException(e);
+        }
     }
 
     /**
-     * Prepare the transformer, doing the proper "building"...
+     * Prepare the transformation, whose output is the writer of this
+     * renderer.
      *
      * @param xslt
      *            The stylesheet provided as an InputStream
      */
-    private void prepareTransformer(InputStream xslt) {
-        if (xslt != null) {
-            try {
-                // Get a TransformerFactory object
-                TransformerFactory factory = TransformerFactory.newInstance();
-                StreamSource src = new StreamSource(xslt);
-                // Get an XSL Transformer object
-                this.transformer = factory.newTransformer(src);
-            } catch (TransformerConfigurationException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
-    @Override
-    public void end() throws IOException {
-        // First we finish the XML report
-        super.end();
-        // Now we transform it using XSLT
-        Writer writer = super.getWriter();
-        if (writer instanceof StringWriter) {
-            StringWriter w = (StringWriter) writer;
-            StringBuffer buffer = w.getBuffer();
-            Document doc = this.getDocument(buffer.toString());
-            this.transform(doc);
-        } else {
-            // Should not happen !
-            throw new RuntimeException("Wrong writer");
+    private void prepareHandler(InputStream xslt) throws IOException {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        if (!factory.getFeature(SAXTransformerFactory.FEATURE)) {
+            throw new IOException("The XSLT processor does not accept SAX events: " + factory.getClass().getName());
         }
-
-    }
-
-    private void transform(Document doc) {
-        DOMSource source = new DOMSource(doc);
-        this.setWriter(new StringWriter());
-        StreamResult result = new StreamResult(this.outputWriter);
         try {
-            transformer.transform(source, result);
-        } catch (TransformerException e) {
-            e.printStackTrace();
+            handler = ((SAXTransformerFactory) factory).newTransformerHandler(new StreamSource(xslt));
+        } catch (TransformerConfigurationException e) {
+            throw new IOException("Invalid XSLT sheet: " + this.xsltFilename, e);
         }
+        handler.setResult(new StreamResult(getWriter()));
+        setHandler(handler, handler);
     }
 
-    private Document getDocument(String xml) {
+    @Override
+    public void end() throws IOException {
         try {
-            DocumentBuilder parser = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-            return parser.parse(new InputSource(new StringReader(xml)));
-        } catch (ParserConfigurationException e) {
-            e.printStackTrace();
+            renderEnd();
+            handler.endPrefixMapping("xsi");
+            handler.endPrefixMapping("");
+            handler.endDocument();
         } catch (SAXException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
+            throw toIOException(e);
         }
-        return null;
     }
 }
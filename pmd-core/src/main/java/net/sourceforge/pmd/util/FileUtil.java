@@ -7,11 +7,18 @@ package net.sourceforge.pmd.util;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
@@ -22,11 +29,10 @@ import org.apache.commons.lang3.StringUtils;
 
 import net.sourceforge.pmd.util.datasource.DataSource;
 import net.sourceforge.pmd.util.datasource.FileDataSource;
-import net.sourceforge.pmd.util.datasource.ZipDataSource;
+import net.sourceforge.pmd.util.datasource.ZipArchive;
 import net.sourceforge.pmd.util.filter.AndFilter;
 import net.sourceforge.pmd.util.filter.Filter;
 import net.sourceforge.pmd.util.filter.Filters;
-import net.sourceforge.pmd.util.filter.OrFilter;
 
 /**
  * This is a utility class for working with Files.
@@ -85,29 +91,55 @@ public final class FileUtil {
      * @return A list of DataSources, one for each file collected.
      */
     public static List<DataSource> collectFiles(String fileLocations, FilenameFilter filenameFilter) {
+        return collectFiles(fileLocations, filenameFilter, null);
+    }
+
+    /**
+     * Collects a list of DataSources as {@link #collectFiles(String, FilenameFilter)}
+     * does, except that the directories rejected by the given filter are not
+     * traversed. The directories are traversed in parallel, and the files
+     * are returned in the order of a sequential traversal.
+     *
+     * @param fileLocations
+     *            A comma-separated list of file locations.
+     * @param filenameFilter
+     *            The FilenameFilter to apply to files.
+     * @param directoryFilter
+     *            The Filter of the directories to traverse, or <code>null</code>
+     *            for all.
+     * @return A list of DataSources, one for each file collected.
+     */
+    public static List<DataSource> collectFiles(String fileLocations, FilenameFilter filenameFilter,
+            Filter<File> directoryFilter) {
         List<DataSource> dataSources = new ArrayList<>();
-        for (String fileLocation : fileLocations.split(",")) {
-            collect(dataSources, fileLocation, filenameFilter);
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            for (String fileLocation : fileLocations.split(",")) {
+                collect(dataSources, fileLocation, filenameFilter, directoryFilter, pool);
+            }
+        } finally {
+            pool.shutdown();
         }
         return dataSources;
     }
 
     private static List<DataSource> collect(List<DataSource> dataSources, String fileLocation,
-            FilenameFilter filenameFilter) {
+            FilenameFilter filenameFilter, Filter<File> directoryFilter, ForkJoinPool pool) {
         File file = new File(fileLocation);
         if (!file.exists()) {
             throw new RuntimeException("File " + file.getName() + " doesn't exist");
         }
         if (!file.isDirectory()) {
             if (fileLocation.endsWith(".zip") || fileLocation.endsWith(".jar")) {
-                ZipFile zipFile;
-                try {
-                    zipFile = new ZipFile(fileLocation);
+                // the entries are listed from the central directory, and
+                // decompressed by the archive when they are read
+                ZipArchive zipArchive = new ZipArchive(file);
+                try (ZipFile zipFile = new ZipFile(fileLocation)) {
                     Enumeration<? extends ZipEntry> e = zipFile.entries();
                     while (e.hasMoreElements()) {
                         ZipEntry zipEntry = e.nextElement();
                         if (filenameFilter.accept(null, zipEntry.getName())) {
-                            dataSources.add(new ZipDataSource(zipFile, zipEntry));
+                            dataSources.add(zipArchive.addEntry(zipEntry));
                         }
                     }
                 } catch (IOException ze) {
@@ -117,13 +149,14 @@ public final class FileUtil {
                 dataSources.add(new FileDataSource(file));
             }
         } else {
-            // Match files, or directories which are not excluded.
+            // Match directories which are not excluded.
             // FUTURE Make the excluded directories be some configurable option
-            Filter<File> filter = new OrFilter<>(Filters.toFileFilter(filenameFilter),
-                    new AndFilter<>(Filters.getDirectoryFilter(), Filters.toNormalizedFileFilter(
-                            Filters.buildRegexFilterExcludeOverInclude(null, Collections.singletonList("SCCS")))));
-            FileFinder finder = new FileFinder();
-            List<File> files = finder.findFilesFrom(file, Filters.toFilenameFilter(filter), true);
+            Filter<File> filter = Filters.toNormalizedFileFilter(
+                    Filters.buildRegexFilterExcludeOverInclude(null, Collections.singletonList("SCCS")));
+            if (directoryFilter != null) {
+                filter = new AndFilter<>(filter, directoryFilter);
+            }
+            List<File> files = pool.invoke(new DirectoryScan(file, filenameFilter, filter));
             for (File f : files) {
                 dataSources.add(new FileDataSource(f));
             }
@@ -131,6 +164,62 @@ public final class FileUtil {
         return dataSources;
     }
 
+    /**
+     * Collects the files of a directory and of its subdirectories, which are
+     * scanned by tasks of their own. The entries of a directory are read with
+     * their attributes at once, and its files are kept in the order of the
+     * directory, followed in place by the ones of each subdirectory.
+     */
+    private static final class DirectoryScan extends RecursiveTask<List<File>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File directory;
+        private final FilenameFilter filenameFilter;
+        private final Filter<File> directoryFilter;
+
+        DirectoryScan(File directory, FilenameFilter filenameFilter, Filter<File> directoryFilter) {
+            this.directory = directory;
+            this.filenameFilter = filenameFilter;
+            this.directoryFilter = directoryFilter;
+        }
+
+        @Override
+        protected List<File> compute() {
+            List<File> entries = new ArrayList<>();
+            Map<File, DirectoryScan> subdirectories = new IdentityHashMap<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath())) {
+                for (Path path : stream) {
+                    String name = path.getFileName().toString();
+                    File entry = new File(directory + File.separator + name);
+                    if (Files.isDirectory(path)) {
+                        if (directoryFilter.filter(entry)) {
+                            DirectoryScan scan = new DirectoryScan(entry, filenameFilter, directoryFilter);
+                            scan.fork();
+                            subdirectories.put(entry, scan);
+                            entries.add(entry);
+                        }
+                    } else if (filenameFilter.accept(directory, name)) {
+                        entries.add(entry);
+                    }
+                }
+            } catch (IOException ignored) {
+                // an unreadable directory has no files, as with File.list()
+            }
+
+            List<File> files = new ArrayList<>();
+            for (File entry : entries) {
+                DirectoryScan scan = subdirectories.get(entry);
+                if (scan == null) {
+                    files.add(entry);
+                } else {
+                    files.addAll(scan.join());
+                }
+            }
+            return files;
+        }
+    }
+
     /**
      * Handy method to find a certain pattern into a file. While this method
      * lives in the FileUtils, it was designed with with unit test in mind (to
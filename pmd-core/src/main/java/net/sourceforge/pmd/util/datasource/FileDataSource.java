@@ -33,6 +33,15 @@ public class FileDataSource implements DataSource {
         return new FileInputStream(file);
     }
 
+    /**
+     * Returns the length of the file in bytes, 0 if it doesn't exist.
+     *
+     * @return the length of the file
+     */
+    public long getLength() {
+        return file.length();
+    }
+
     @Override
     public String getNiceFileName(boolean shortNames, String inputFileName) {
         return glomName(shortNames, inputFileName, file);
@@ -0,0 +1,164 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util.datasource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A zip or jar file whose entries are read by {@link ZipDataSource}s. The
+ * archive isn't kept open: when an entry is read, it is decompressed with the
+ * next entries to read, in the order of the archive, up to a maximum length.
+ * Each entry is released once it has been read, and is decompressed once
+ * until an entry is read again. The threads analyzing the entries don't share
+ * an open file, on which their decompression would be serialized.
+ */
+public class ZipArchive {
+
+    /** The default maximum length of the entries decompressed in one pass. */
+    private static final long MAX_DECOMPRESSED_LENGTH = 32L * 1024 * 1024;
+
+    private final File file;
+    private final long maxDecompressedLength;
+    private final List<String> entryNames = new ArrayList<>();
+    private long length;
+
+    /** The entries which haven't been read yet in this round. */
+    private final Set<String> unreadEntries = new HashSet<>();
+    /** The index of the next entry to decompress ahead of the reads. */
+    private int nextEntry;
+    /** The decompressed entries which haven't been read yet. */
+    private final Map<String, byte[]> contents = new HashMap<>();
+    private long contentsLength;
+    private long decompressedLength;
+
+    /**
+     * @param file
+     *            the zip or jar file
+     */
+    public ZipArchive(File file) {
+        this(file, MAX_DECOMPRESSED_LENGTH);
+    }
+
+    /**
+     * @param file
+     *            the zip or jar file
+     * @param maxDecompressedLength
+     *            the maximum length of the entries decompressed ahead of the
+     *            entry which is read
+     */
+    ZipArchive(File file, long maxDecompressedLength) {
+        this.file = file;
+        this.maxDecompressedLength = maxDecompressedLength;
+    }
+
+    /**
+     * Adds an entry to read from the archive.
+     *
+     * @param zipEntry
+     *            the entry, from the central directory of the archive
+     * @return the DataSource of the entry
+     */
+    public synchronized ZipDataSource addEntry(ZipEntry zipEntry) {
+        if (unreadEntries.add(zipEntry.getName())) {
+            entryNames.add(zipEntry.getName());
+        }
+        if (zipEntry.getSize() > 0) {
+            length += zipEntry.getSize();
+        }
+        return new ZipDataSource(this, zipEntry);
+    }
+
+    /**
+     * Returns the zip or jar file.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the uncompressed length of the entries to read in bytes.
+     *
+     * @return the length of the entries
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the length of all the entries decompressed so far in bytes.
+     */
+    /* package */ synchronized long getDecompressedLength() {
+        return decompressedLength;
+    }
+
+    /**
+     * Returns the content of an entry, and releases it. An entry which is read
+     * again, e.g. by the multifile indexing and then by the analysis, starts
+     * a new round: the entries left from the previous one, which aren't
+     * analyzed, are released, and all of them are decompressed again.
+     */
+    synchronized byte[] read(String entryName) throws IOException {
+        if (!unreadEntries.contains(entryName)) {
+            contents.clear();
+            contentsLength = 0;
+            unreadEntries.addAll(entryNames);
+            nextEntry = 0;
+        }
+        byte[] content = contents.remove(entryName);
+        if (content != null) {
+            contentsLength -= content.length;
+        } else {
+            content = decompress(entryName);
+        }
+        unreadEntries.remove(entryName);
+        return content;
+    }
+
+    /**
+     * Decompresses an entry, and the next unread entries up to the maximum
+     * length. The entries before the next one are either read or
+     * decompressed already.
+     */
+    private byte[] decompress(String entryName) throws IOException {
+        try (ZipFile zipFile = new ZipFile(file)) {
+            byte[] content = decompress(zipFile, entryName);
+            while (contentsLength < maxDecompressedLength && nextEntry < entryNames.size()) {
+                String name = entryNames.get(nextEntry++);
+                if (unreadEntries.contains(name) && !name.equals(entryName)) {
+                    byte[] next = decompress(zipFile, name);
+                    contents.put(name, next);
+                    contentsLength += next.length;
+                }
+            }
+            return content;
+        }
+    }
+
+    private byte[] decompress(ZipFile zipFile, String entryName) throws IOException {
+        ZipEntry entry = zipFile.getEntry(entryName);
+        if (entry == null) {
+            throw new IOException("Entry " + entryName + " not found in " + file);
+        }
+        try (InputStream stream = zipFile.getInputStream(entry)) {
+            byte[] content = IOUtils.toByteArray(stream);
+            decompressedLength += content.length;
+            return content;
+        }
+    }
+}
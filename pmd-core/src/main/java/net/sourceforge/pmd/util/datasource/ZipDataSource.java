@@ -4,6 +4,7 @@
 
 package net.sourceforge.pmd.util.datasource;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.ZipEntry;
@@ -14,6 +15,7 @@ import java.util.zip.ZipFile;
  */
 public class ZipDataSource implements DataSource {
     private ZipFile zipFile;
+    private ZipArchive zipArchive;
     private ZipEntry zipEntry;
 
     /**
@@ -27,14 +29,50 @@ public class ZipDataSource implements DataSource {
         this.zipEntry = zipEntry;
     }
 
+    /**
+     * @param zipArchive
+     *            the archive, which decompresses the entry
+     * @param zipEntry
+     *            the ZipEntry containing the file to read
+     * @see ZipArchive#addEntry(ZipEntry)
+     */
+    ZipDataSource(ZipArchive zipArchive, ZipEntry zipEntry) {
+        this.zipArchive = zipArchive;
+        this.zipEntry = zipEntry;
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
+        if (zipArchive != null) {
+            return new ByteArrayInputStream(zipArchive.read(zipEntry.getName()));
+        }
         return zipFile.getInputStream(zipEntry);
     }
 
+    /**
+     * Returns the uncompressed length of the entry in bytes, -1 if unknown.
+     *
+     * @return the length of the entry
+     */
+    public long getLength() {
+        return zipEntry.getSize();
+    }
+
+    /**
+     * Returns the uncompressed length of the entries read from the archive of
+     * the entry in bytes, or the length of the entry if it is read from a
+     * ZipFile.
+     *
+     * @return the length of the entries of the archive
+     */
+    public long getArchiveLength() {
+        return zipArchive != null ? zipArchive.getLength() : getLength();
+    }
+
     @Override
     public String getNiceFileName(boolean shortNames, String inputFileName) {
         // FIXME: this could probably be done better
-        return zipFile.getName() + ":" + zipEntry.getName();
+        String archiveName = zipArchive != null ? zipArchive.getFile().getPath() : zipFile.getName();
+        return archiveName + ":" + zipEntry.getName();
     }
 }
@@ -9,6 +9,7 @@ import java.io.FilenameFilter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Utility class for working with Filters. Contains builder style methods, apply
@@ -16,6 +17,12 @@ import java.util.List;
  */
 public final class Filters {
 
+    /**
+     * The parts of a regular expression after which a <code>.*</code> at its
+     * end may not match every suffix.
+     */
+    private static final Pattern NOT_ALL_SUFFIXES = Pattern.compile("[|$]|\\(\\?|\\\\[QbBzZG]");
+
     private Filters() { }
 
     /**
@@ -234,4 +241,67 @@ public final class Filters {
 
         return new OrFilter<>(includeFilter, new NotFilter<>(excludeFilter));
     }
+
+    /**
+     * Construct a String Filter of the directories which may contain Strings
+     * included by {@link #buildRegexFilterIncludeOverExclude(List, List)}
+     * with the same regular expressions. The Strings are the paths of
+     * directories, using <code>/</code> as a path separator. A directory is
+     * excluded only if there are no include regular expressions, and an
+     * exclude regular expression matches every path in it: a regular
+     * expression ending with <code>.*</code>, and without alternatives or
+     * special constructs, which matches the path of the directory followed
+     * by <code>/</code>.
+     *
+     * @param includeRegexes
+     *            The include regular expressions. May be <code>null</code>.
+     * @param excludeRegexes
+     *            The exclude regular expressions. May be <code>null</code>.
+     * @return A String Filter, or <code>null</code> if no directory can be
+     *         excluded.
+     */
+    public static Filter<String> buildRegexDirectoryFilter(List<String> includeRegexes,
+            List<String> excludeRegexes) {
+        if (excludeRegexes == null || includeRegexes != null && !includeRegexes.isEmpty()) {
+            return null;
+        }
+
+        final OrFilter<String> excludeFilter = new OrFilter<>();
+        for (String excludeRegex : excludeRegexes) {
+            if (matchesAllSuffixes(excludeRegex)) {
+                excludeFilter.addFilter(new RegexStringFilter(excludeRegex));
+            }
+        }
+        if (excludeFilter.getFilters().isEmpty()) {
+            return null;
+        }
+
+        return new Filter<String>() {
+            @Override
+            public boolean filter(String directory) {
+                return !excludeFilter.filter(directory + '/');
+            }
+
+            @Override
+            public String toString() {
+                return "directories not " + excludeFilter;
+            }
+        };
+    }
+
+    /**
+     * Whether a regular expression which matches a String matches it followed
+     * by anything: whether it ends with a greedy <code>.*</code>, and has no
+     * alternatives, boundaries, quotations or special constructs.
+     */
+    private static boolean matchesAllSuffixes(String regex) {
+        if (!regex.endsWith(".*") || NOT_ALL_SUFFIXES.matcher(regex).find()) {
+            return false;
+        }
+        int backslashes = 0;
+        for (int i = regex.length() - 3; i >= 0 && regex.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 0;
+    }
 }
@@ -0,0 +1,68 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PMDTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The excluded directories are skipped before the rules are loaded: the
+     * rule of the language of their files, whose class doesn't exist, isn't
+     * loaded.
+     */
+    @Test
+    public void testExcludedDirectoriesNotCollected() throws IOException {
+        writeFile("src/A.dummy");
+        writeFile("src/generated/B.dummy2");
+        writeRuleSet(".*/generated/.*");
+
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setRuleSets(new File(folder.getRoot(), "ruleset.xml").getPath());
+        configuration.setInputPaths(new File(folder.getRoot(), "src").getPath());
+        configuration.setReportFormat("csv");
+        configuration.setReportFile(new File(folder.getRoot(), "report.csv").getPath());
+        configuration.setIgnoreIncrementalAnalysis(true);
+        configuration.setThreads(0);
+
+        assertEquals(1, PMD.doPMD(configuration));
+    }
+
+    private void writeFile(String path) throws IOException {
+        File file = new File(folder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "Foo".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeRuleSet(String excludePattern) throws IOException {
+        String ruleSet = "<?xml version=\"1.0\"?>\n"
+                + "<ruleset name=\"Test ruleset\" xmlns=\"http://pmd.sourceforge.net/ruleset/2.0.0\">\n"
+                + "  <description>Ruleset of the test</description>\n"
+                + "  <exclude-pattern>" + excludePattern + "</exclude-pattern>\n"
+                + "  <rule name=\"NoFoo\" language=\"dummy\" since=\"6.0\" message=\"No Foo\""
+                + "      class=\"net.sourceforge.pmd.FooRule\">\n"
+                + "    <description>No foo</description>\n"
+                + "    <priority>2</priority>\n"
+                + "  </rule>\n"
+                + "  <rule name=\"Missing\" language=\"dummy2\" since=\"6.0\" message=\"Missing\""
+                + "      class=\"net.sourceforge.pmd.MissingRule\">\n"
+                + "    <description>Missing</description>\n"
+                + "  </rule>\n"
+                + "</ruleset>\n";
+        Files.write(new File(folder.getRoot(), "ruleset.xml").toPath(), ruleSet.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -10,6 +10,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -166,6 +167,102 @@ public class ReportTest implements ThreadSafeReportListener {
         assertEquals(2, treeCount);
     }
 
+    @Test
+    public void testSortedOnIteration() {
+        Report r = new Report();
+        RuleContext ctx = new RuleContext();
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        for (String file : new String[] {"foo", "bar"}) {
+            ctx.setSourceCodeFilename(file);
+            r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(10, 5), rule.getMessage()));
+        }
+        assertEquals("bar", r.iterator().next().getFilename());
+
+        Report other = new Report();
+        ctx.setSourceCodeFilename("baz");
+        other.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(10, 5), rule.getMessage()));
+        r.merge(other);
+
+        Iterator<RuleViolation> violations = r.iterator();
+        assertEquals("bar", violations.next().getFilename());
+        assertEquals("baz", violations.next().getFilename());
+        assertEquals("foo", violations.next().getFilename());
+        assertFalse(violations.hasNext());
+    }
+
+    @Test
+    public void testSortedAfterEachOutOfOrderAddition() {
+        Report r = new Report();
+        RuleContext ctx = new RuleContext();
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        String first = "d";
+        for (String file : new String[] {"d", "b", "c", "a"}) {
+            ctx.setSourceCodeFilename(file);
+            r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(10, 5), rule.getMessage()));
+            first = file.compareTo(first) < 0 ? file : first;
+            assertEquals(first, r.iterator().next().getFilename());
+        }
+        StringBuilder files = new StringBuilder();
+        for (RuleViolation violation : r) {
+            files.append(violation.getFilename());
+        }
+        assertEquals("abcd", files.toString());
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        Report r = new Report();
+        RuleContext ctx = new RuleContext();
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        for (String file : new String[] {"foo", "bar"}) {
+            ctx.setSourceCodeFilename(file);
+            r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(10, 5), rule.getMessage()));
+        }
+        Iterator<RuleViolation> violations = r.iterator();
+        assertEquals("bar", violations.next().getFilename());
+        violations.remove();
+
+        assertEquals(1, r.size());
+        assertEquals("foo", r.iterator().next().getFilename());
+        assertEquals(1, r.getCountSummary().values().iterator().next().intValue());
+    }
+
+    @Test
+    public void testTreeBuiltOnDemand() {
+        Report r = new Report();
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename("foo");
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(5, 5, true), rule.getMessage()));
+        assertEquals(1, r.treeSize());
+
+        // the tree is maintained once built
+        r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(6, 5, true), rule.getMessage()));
+        assertEquals(2, r.treeSize());
+        assertEquals(2, r.getCountSummary().values().iterator().next().intValue());
+    }
+
+    @Test
+    public void testSuppressedLines() {
+        Report r = new Report();
+        Map<Integer, String> lines = new HashMap<>();
+        lines.put(10, "suppressed");
+        lines.put(3, "other");
+        r.suppress(lines);
+
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename("foo");
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(10, 5), rule.getMessage()));
+        r.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(5, 5, true), rule.getMessage()));
+
+        assertEquals(1, r.size());
+        assertEquals(1, r.getSuppressedRuleViolations().size());
+        Report.SuppressedViolation suppressed = r.getSuppressedRuleViolations().get(0);
+        assertTrue(suppressed.suppressedByNOPMD());
+        assertEquals("suppressed", suppressed.getUserMessage());
+    }
+
     private static Node getNode(int line, int column) {
         DummyNode s = new DummyNode(2);
         DummyNode parent = new DummyNode(1);
@@ -15,6 +15,7 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -23,6 +24,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import net.sourceforge.pmd.junit.JavaUtilLoggingRule;
+import net.sourceforge.pmd.lang.Dummy2LanguageModule;
 import net.sourceforge.pmd.lang.DummyLanguageModule;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.rule.MockRule;
@@ -522,6 +524,25 @@ public class RuleSetFactoryTest {
         assertEquals(MockRule.class.getName(), rs.getRuleByName("MockRule").getRuleClass());
     }
 
+    @Test
+    public void testRulesOfOtherLanguagesLeftOut() throws RuleSetNotFoundException {
+        // the rule classes of the dummy language don't exist, so they must not be loaded
+        RuleSetFactory factory = new RuleSetFactory(new RuleSetFactory(),
+                Collections.singleton(LanguageRegistry.getLanguage(Dummy2LanguageModule.NAME)));
+        RuleSet rs = factory.createRuleSet(createRuleSetReferenceId(OTHER_LANGUAGES_RULE_SET));
+
+        assertEquals(1, rs.size());
+        assertNotNull(rs.getRuleByName("Dummy2Rule"));
+    }
+
+    @Test
+    public void testRulesOfAllLanguagesBuiltByDefault() throws RuleSetNotFoundException {
+        RuleSet rs = loadRuleSet("<?xml version=\"1.0\"?>\n<ruleset name=\"test\">\n<description>testdesc</description>\n"
+                + "<rule ref=\"rulesets/dummy/basic.xml\"/>\n<rule ref=\"rulesets/dummy2/basic.xml\"/>\n</ruleset>");
+        assertNotNull(rs.getRuleByName("DummyBasicMockRule"));
+        assertNotNull(rs.getRuleByName("Dummy2BasicMockRule"));
+    }
+
     @Test
     public void testIncludeExcludePatterns() throws RuleSetNotFoundException {
         RuleSet ruleSet = loadRuleSet(INCLUDE_EXCLUDE_RULESET);
@@ -538,6 +559,20 @@ public class RuleSetFactoryTest {
         assertEquals("Exclude pattern #3", "exclude3", ruleSet.getExcludePatterns().get(2));
     }
 
+    @Test
+    public void testIncludeExcludePatternsWithoutRules() {
+        RuleSets ruleSets = new RuleSetFactory().createRuleSetPatterns(
+                Arrays.asList(createRuleSetReferenceId(INCLUDE_EXCLUDE_RULESET)));
+
+        assertEquals(1, ruleSets.getAllRuleSets().length);
+        RuleSet ruleSet = ruleSets.getAllRuleSets()[0];
+        assertEquals("test", ruleSet.getName());
+        assertEquals(0, ruleSet.size());
+        assertEquals(Arrays.asList("include1", "include2"), ruleSet.getIncludePatterns());
+        assertEquals(Arrays.asList("exclude1", "exclude2", "exclude3"), ruleSet.getExcludePatterns());
+        assertNull(new RuleSetFactory().createRuleSetPatterns("rulesets/dummy/basic.xml,does/not/exist.xml"));
+    }
+
     /**
      * Rule reference can't be resolved - ref is used instead of class and the
      * class is old (pmd 4.3 and not pmd 5).
@@ -938,6 +973,18 @@ public class RuleSetFactoryTest {
             + "<ruleset name=\"test\">" + PMD.EOL + "<description>testdesc</description>" + PMD.EOL
             + "<rule ref=\"net/sourceforge/pmd/external-reference-ruleset.xml/MockRule\"/>" + PMD.EOL + "</ruleset>";
 
+    private static final String OTHER_LANGUAGES_RULE_SET = "<?xml version=\"1.0\"?>" + PMD.EOL
+            + "<ruleset name=\"test\">" + PMD.EOL + "<description>testdesc</description>" + PMD.EOL
+            + "<rule name=\"DummyRule\" language=\"dummy\" message=\"m\" class=\"net.sourceforge.pmd.NoSuchRule\"/>"
+            + PMD.EOL
+            + "<rule name=\"DummyRuleByPackage\" message=\"m\" class=\"net.sourceforge.pmd.lang.dummy.rule.NoSuchRule\"/>"
+            + PMD.EOL
+            + "<rule name=\"Dummy2Rule\" language=\"dummy2\" message=\"m\" class=\"net.sourceforge.pmd.lang.rule.MockRule\"/>"
+            + PMD.EOL + "<rule ref=\"DummyRule\" name=\"OldDummyRule\" deprecated=\"true\"/>" + PMD.EOL
+            + "<rule ref=\"rulesets/dummy/basic.xml/DummyBasicMockRule\"/>" + PMD.EOL
+            + "<rule ref=\"rulesets/dummy/basic.xml\"><exclude name=\"SampleXPathRule\"/></rule>" + PMD.EOL
+            + "</ruleset>";
+
     private Rule loadFirstRule(String ruleSetXml) throws RuleSetNotFoundException {
         RuleSet rs = loadRuleSet(ruleSetXml);
         return rs.getRules().iterator().next();
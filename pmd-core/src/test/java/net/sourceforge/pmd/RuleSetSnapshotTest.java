@@ -0,0 +1,146 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.lang.rule.RuleReference;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+import net.sourceforge.pmd.util.ResourceLoader;
+
+public class RuleSetSnapshotTest {
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final RuleSetFactory factory = new RuleSetFactory();
+
+    @Test
+    public void testSameRuleSetsAsFromTheFiles() throws Exception {
+        File ruleSetFile = writeRuleSet("Overridden message");
+        String snapshot = new File(folder.getRoot(), "rulesets.snapshot").getPath();
+
+        RuleSets expected = factory.createRuleSets(ruleSetFile.getPath());
+        // the first time, the snapshot is written
+        RuleSets written = RuleSetSnapshot.createRuleSets(snapshot, ruleSetFile.getPath(), factory);
+        RuleSets read = RuleSetSnapshot.createRuleSets(snapshot, ruleSetFile.getPath(), factory);
+
+        assertEquals(describe(expected), describe(written));
+        assertEquals(describe(expected), describe(read));
+        assertEquals(expected.getChecksum(), read.getChecksum());
+        for (Rule rule : read.getAllRules()) {
+            assertTrue(!(rule instanceof RuleReference));
+        }
+    }
+
+    @Test
+    public void testSnapshotReused() throws Exception {
+        File ruleSetFile = writeRuleSet("Overridden message");
+        File snapshot = new File(folder.getRoot(), "rulesets.snapshot");
+
+        RuleSetSnapshot.createRuleSets(snapshot.getPath(), ruleSetFile.getPath(), factory);
+        assertTrue(snapshot.isFile());
+        snapshot.setLastModified(1000L);
+
+        RuleSetSnapshot.createRuleSets(snapshot.getPath(), ruleSetFile.getPath(), factory);
+        assertEquals(1000L, snapshot.lastModified());
+    }
+
+    @Test
+    public void testSnapshotOutOfDateWhenRuleSetChanges() throws Exception {
+        File ruleSetFile = writeRuleSet("Overridden message");
+        String snapshot = new File(folder.getRoot(), "rulesets.snapshot").getPath();
+        RuleSets before = RuleSetSnapshot.createRuleSets(snapshot, ruleSetFile.getPath(), factory);
+
+        writeRuleSet("Another message");
+        RuleSets after = RuleSetSnapshot.createRuleSets(snapshot, ruleSetFile.getPath(), factory);
+
+        assertNotEquals(before.getChecksum(), after.getChecksum());
+        assertEquals("Another message", ruleNamed(after, "MockRule2").getMessage());
+    }
+
+    @Test
+    public void testSnapshotOutOfDateWithAnotherMinimumPriority() throws Exception {
+        File ruleSetFile = writeRuleSet("Overridden message");
+        String snapshot = new File(folder.getRoot(), "rulesets.snapshot").getPath();
+        RuleSets all = RuleSetSnapshot.createRuleSets(snapshot, ruleSetFile.getPath(), factory);
+
+        RuleSetFactory highOnly = new RuleSetFactory(new ResourceLoader(), RulePriority.HIGH, false, true);
+        RuleSets high = RuleSetSnapshot.createRuleSets(snapshot, ruleSetFile.getPath(), highOnly);
+        assertTrue(high.ruleCount() < all.ruleCount());
+    }
+
+    private File writeRuleSet(String message) throws IOException {
+        File file = new File(folder.getRoot(), "ruleset.xml");
+        String ruleSet = "<?xml version=\"1.0\"?>\n"
+                + "<ruleset name=\"Snapshot ruleset\" xmlns=\"http://pmd.sourceforge.net/ruleset/2.0.0\">\n"
+                + "  <description>Ruleset of the snapshot test</description>\n"
+                + "  <exclude-pattern>.*/generated/.*</exclude-pattern>\n"
+                + "  <rule ref=\"net/sourceforge/pmd/TestRuleset1.xml\"/>\n"
+                + "  <rule ref=\"net/sourceforge/pmd/TestRuleset1.xml/MockRule2\" message=\"" + message + "\">\n"
+                + "    <priority>1</priority>\n"
+                + "  </rule>\n"
+                + "  <rule name=\"NoFoo\" language=\"dummy\" since=\"6.0\" message=\"No {0}\""
+                + "      class=\"net.sourceforge.pmd.lang.rule.XPathRule\">\n"
+                + "    <description>No foo</description>\n"
+                + "    <priority>2</priority>\n"
+                + "    <properties>\n"
+                + "      <property name=\"forbidden\" type=\"String\" description=\"The forbidden name\" value=\"foo\"/>\n"
+                + "      <property name=\"xpath\"><value><![CDATA[//DummyNode[@Image = $forbidden]]]></value></property>\n"
+                + "    </properties>\n"
+                + "  </rule>\n"
+                + "</ruleset>\n";
+        Files.write(file.toPath(), ruleSet.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static Rule ruleNamed(RuleSets ruleSets, String name) {
+        for (Rule rule : ruleSets.getAllRules()) {
+            if (rule.getName().equals(name)) {
+                return rule;
+            }
+        }
+        throw new AssertionError("No rule " + name);
+    }
+
+    private static List<String> describe(RuleSets ruleSets) {
+        List<String> description = new ArrayList<>();
+        for (RuleSet ruleSet : ruleSets.getAllRuleSets()) {
+            description.add(ruleSet.getName() + ' ' + ruleSet.getFileName() + ' ' + ruleSet.getChecksum() + ' '
+                    + ruleSet.getExcludePatterns() + ' ' + ruleSet.getIncludePatterns());
+            for (Rule rule : ruleSet.getRules()) {
+                StringBuilder sb = new StringBuilder();
+                sb.append(rule.getName()).append(' ').append(rule.getRuleClass()).append(' ')
+                    .append(rule.getLanguage().getTerseName()).append(' ').append(rule.getRuleSetName()).append(' ')
+                    .append(rule.getMessage()).append(' ').append(rule.getPriority()).append(' ')
+                    .append(rule.getSince()).append(' ').append(rule.getExternalInfoUrl()).append(' ')
+                    .append(rule.isDeprecated()).append(' ').append(rule.getDescription()).append(' ')
+                    .append(rule.getExamples());
+                for (PropertyDescriptor<?> descriptor : rule.getPropertyDescriptors()) {
+                    sb.append(' ').append(descriptor.name()).append('=').append(valueOf(rule, descriptor));
+                }
+                description.add(sb.toString());
+            }
+        }
+        return description;
+    }
+
+    private static <T> String valueOf(Rule rule, PropertyDescriptor<T> descriptor) {
+        T value = rule.getProperty(descriptor);
+        return value == null ? null : descriptor.asDelimitedString(value);
+    }
+}
@@ -410,6 +410,35 @@ public class RuleSetTest {
         assertTrue("Matching include", ruleSet.applies(file));
     }
 
+    @Test
+    public void testIncludeExcludeAppliesToDirectory() {
+        File directory = new File("C:\\myworkspace\\project\\some\\random\\package");
+
+        RuleSet ruleSet = createRuleSetBuilder("ruleset").build();
+        assertTrue("No patterns", ruleSet.appliesToDirectory(directory));
+
+        ruleSet = createRuleSetBuilder("ruleset")
+                .addExcludePattern(".*/package/.*")
+                .build();
+        assertFalse("Matching exclude", ruleSet.appliesToDirectory(directory));
+        assertFalse("Matching exclude of a parent", ruleSet.appliesToDirectory(new File(directory, "sub")));
+        assertTrue("Non-matching exclude", ruleSet.appliesToDirectory(
+                new File("C:\\myworkspace\\project\\some\\random")));
+
+        ruleSet = createRuleSetBuilder("ruleset")
+                .addExcludePattern(".*/package/.*\\.java")
+                .addExcludePattern(".*/package/.*|nomatch")
+                .addExcludePattern(".*/package/$.*")
+                .build();
+        assertTrue("Exclude which doesn't match all the files", ruleSet.appliesToDirectory(directory));
+
+        ruleSet = createRuleSetBuilder("ruleset")
+                .addExcludePattern(".*/package/.*")
+                .addIncludePattern(".*/random/.*")
+                .build();
+        assertTrue("Include", ruleSet.appliesToDirectory(directory));
+    }
+
     @Test
     public void testIncludeExcludeMultipleRuleSetWithRuleChainApplies() throws PMDException {
         File file = new File("C:\\myworkspace\\project\\some\\random\\package\\RandomClass.java");
@@ -0,0 +1,134 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.ast.DummyNode;
+
+public class SourceCodeLimitsTest {
+
+    @Test
+    public void testCountLines() {
+        assertEquals(0, SourceCodeLimits.countLines("".toCharArray()));
+        assertEquals(1, SourceCodeLimits.countLines("a\n".toCharArray()));
+        assertEquals(3, SourceCodeLimits.countLines("a\r\nb\rc".toCharArray()));
+    }
+
+    @Test
+    public void testNoLimitsByDefault() throws PMDException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        assertFalse(SourceCodeLimits.checksContent(configuration));
+        SourceCodeLimits.checkNodes(configuration, "Foo.java", tree(10));
+    }
+
+    @Test
+    public void testMaximumFileSize() throws IOException, PMDException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setMaximumFileSize(10);
+        InputStream content = SourceCodeLimits.checkSize(configuration, "Foo.java", stream("class Foo"));
+        assertEquals("class Foo", IOUtils.toString(content, StandardCharsets.UTF_8));
+        // 10 characters, but 11 bytes
+        assertSizeSkipped(configuration, "class Fo\u00e9o", "Skipped Foo.java: more than the maximum of 10 bytes");
+    }
+
+    @Test
+    public void testMaximumFileSizeBoundsTheRead() throws IOException, PMDException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setMaximumFileSize(10);
+        InputStream large = stream(StringUtils.repeat("class Foo {}", 100));
+        assertSizeSkipped(configuration, large, "Skipped Foo.java: more than the maximum of 10 bytes");
+        assertEquals(1200 - 11, large.available());
+    }
+
+    @Test
+    public void testMaximumFileLines() throws PMDException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setMaximumFileLines(2);
+        SourceCodeLimits.checkContent(configuration, "Foo.java", "class Foo {\n}\n".toCharArray());
+        assertSkipped(configuration, "class Foo {\n\n}", "Skipped Foo.java: 3 lines, more than the maximum of 2");
+    }
+
+    @Test
+    public void testMaximumNodes() throws PMDException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setMaximumNodes(10);
+        SourceCodeLimits.checkNodes(configuration, "Foo.java", tree(9));
+        try {
+            SourceCodeLimits.checkNodes(configuration, "Foo.java", tree(10));
+            fail("Expected a PMDException");
+        } catch (PMDException e) {
+            assertEquals("Skipped Foo.java: more than the maximum of 10 nodes", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testGeneratedFiles() throws PMDException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setSkipGeneratedFiles(true);
+        SourceCodeLimits.checkContent(configuration, "Foo.java", "class Foo {\n}\n".toCharArray());
+        assertSkipped(configuration, "@javax.annotation.Generated(\"gen\")\nclass Foo {}",
+                "Skipped Foo.java: generated code");
+        assertSkipped(configuration, "/* Generated By:JavaCC: Do not edit this line. */\nclass Foo {}",
+                "Skipped Foo.java: generated code");
+        assertSkipped(configuration, StringUtils.repeat("var a=1;", 1000), "Skipped Foo.java: minified code");
+    }
+
+    @Test
+    public void testGeneratedMarkerOutsideOfTheHeader() {
+        String code = "class Foo {\n" + StringUtils.repeat("  int x;\n", 1000) + "  @Generated int y;\n}";
+        assertFalse(SourceCodeLimits.hasGeneratedMarker(code.toCharArray()));
+        assertTrue(SourceCodeLimits.hasGeneratedMarker(("@Generated " + code).toCharArray()));
+    }
+
+    private static void assertSizeSkipped(PMDConfiguration configuration, String code, String message)
+            throws IOException {
+        assertSizeSkipped(configuration, stream(code), message);
+    }
+
+    private static void assertSizeSkipped(PMDConfiguration configuration, InputStream code, String message)
+            throws IOException {
+        try {
+            SourceCodeLimits.checkSize(configuration, "Foo.java", code);
+            fail("Expected a PMDException");
+        } catch (PMDException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    private static InputStream stream(String code) {
+        return new ByteArrayInputStream(code.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void assertSkipped(PMDConfiguration configuration, String code, String message) {
+        try {
+            SourceCodeLimits.checkContent(configuration, "Foo.java", code.toCharArray());
+            fail("Expected a PMDException");
+        } catch (PMDException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    /** A root with the given number of children. */
+    private static DummyNode tree(int children) {
+        DummyNode root = new DummyNode(0);
+        for (int i = 0; i < children; i++) {
+            root.jjtAddChild(new DummyNode(0), i);
+        }
+        return root;
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.baseline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RulePriority;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.MockRule;
+import net.sourceforge.pmd.lang.rule.ParametricRuleViolation;
+import net.sourceforge.pmd.renderers.BinaryRenderer;
+
+public class BaselineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final net.sourceforge.pmd.Rule rule = new MockRule("Foo", "desc", "msg", "rulesetname",
+            RulePriority.HIGH);
+
+    @Test
+    public void testMovedViolationNotReported() throws Exception {
+        Report previous = new Report();
+        previous.addRuleViolation(violation("src/Foo.java", 10, "a problem"));
+        Baseline baseline = Baseline.load(writeReport(previous), null);
+
+        Report report = new Report();
+        report.setBaseline(baseline);
+        report.addRuleViolation(violation("src/Foo.java", 25, "a problem"));
+        assertTrue(report.isEmpty());
+    }
+
+    @Test
+    public void testNewViolationReported() throws Exception {
+        Report previous = new Report();
+        previous.addRuleViolation(violation("src/Foo.java", 10, "a problem"));
+        Baseline baseline = Baseline.load(writeReport(previous), null);
+
+        Report report = new Report();
+        report.setBaseline(baseline);
+        report.addRuleViolation(violation("src/Foo.java", 10, "another problem"));
+        report.addRuleViolation(violation("src/Bar.java", 10, "a problem"));
+        assertEquals(2, report.size());
+    }
+
+    @Test
+    public void testAsManyViolationsNotReportedAsInBaseline() throws Exception {
+        Report previous = new Report();
+        previous.addRuleViolation(violation("src/Foo.java", 10, "a problem"));
+        previous.addRuleViolation(violation("src/Foo.java", 20, "a problem"));
+        Baseline baseline = Baseline.load(writeReport(previous), null);
+
+        Report report = new Report();
+        report.setBaseline(baseline);
+        for (int line = 1; line <= 3; line++) {
+            report.addRuleViolation(violation("src/Foo.java", line, "a problem"));
+        }
+        assertEquals(1, report.size());
+    }
+
+    @Test
+    public void testNumbersInMessageIgnored() throws Exception {
+        Baseline baseline = Baseline.load(writeReport(new Report()), null);
+        assertEquals(baseline.fingerprint(violation("src/Foo.java", 1, "method of 12 lines")),
+                baseline.fingerprint(violation("src/Foo.java", 1, "method of 135 lines")));
+        assertNotEquals(baseline.fingerprint(violation("src/Foo.java", 1, "a problem")),
+                baseline.fingerprint(violation("src/Foo.java", 1, "a problems")));
+    }
+
+    @Test
+    public void testFilesRelativeToTheInputPaths() throws Exception {
+        File checkout = folder.newFolder("checkout");
+        File src = new File(checkout, "src");
+        String file = new File(src, "Foo.java").getCanonicalPath();
+        Report previous = new Report();
+        previous.addRuleViolation(violation("Foo.java", 10, "a problem"));
+        Baseline baseline = Baseline.load(writeReport(previous), src.getPath() + "," + checkout.getPath());
+
+        assertEquals(baseline.fingerprint(violation("Foo.java", 1, "a problem")),
+                baseline.fingerprint(violation(file, 1, "a problem")));
+        Report report = new Report();
+        report.setBaseline(baseline);
+        report.addRuleViolation(violation(file, 25, "a problem"));
+        assertTrue(report.isEmpty());
+    }
+
+    @Test
+    public void testIndexBuiltAgainForOtherInputPaths() throws Exception {
+        File src = folder.newFolder("src");
+        Report previous = new Report();
+        previous.addRuleViolation(violation(new File(src, "Foo.java").getCanonicalPath(), 10, "a problem"));
+        String reportFile = writeReport(previous);
+        Baseline.load(reportFile, null);
+
+        Report report = new Report();
+        report.setBaseline(Baseline.load(reportFile, src.getPath()));
+        report.addRuleViolation(violation("Foo.java", 25, "a problem"));
+        assertTrue(report.isEmpty());
+    }
+
+    @Test
+    public void testIndexReused() throws Exception {
+        Report previous = new Report();
+        previous.addRuleViolation(violation("src/Foo.java", 10, "a problem"));
+        String reportFile = writeReport(previous);
+        Baseline.load(reportFile, null);
+        File index = new File(reportFile + ".idx");
+        assertTrue(index.isFile());
+        index.setLastModified(1000L);
+
+        Baseline.load(reportFile, null);
+        assertEquals(1000L, index.lastModified());
+    }
+
+    @Test
+    public void testBaselinePassedOnToTheReportsOfTheFiles() throws Exception {
+        Baseline baseline = Baseline.load(writeReport(new Report()), null);
+        RuleContext ctx = new RuleContext();
+        ctx.getReport().setBaseline(baseline);
+
+        RuleContext threadContext = new RuleContext(ctx);
+        Report fileReport = Report.createReport(threadContext, "src/Foo.java");
+        assertSame(baseline, fileReport.getBaseline());
+    }
+
+    private String writeReport(Report report) throws IOException {
+        File file = folder.newFile();
+        BinaryRenderer renderer = new BinaryRenderer();
+        renderer.setOutputStream(new FileOutputStream(file));
+        renderer.start();
+        renderer.renderFileReport(report);
+        renderer.end();
+        renderer.flush();
+        return file.getPath();
+    }
+
+    private ParametricRuleViolation<Node> violation(String fileName, int line, String message) {
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(fileName);
+        DummyNode node = new DummyNode(1);
+        node.testingOnlySetBeginLine(line);
+        node.testingOnlySetBeginColumn(1);
+        node.testingOnlySetEndLine(line);
+        node.testingOnlySetEndColumn(10);
+        return new ParametricRuleViolation<Node>(rule, ctx, node, message);
+    }
+}
@@ -214,6 +214,29 @@ public class FileAnalysisCacheTest {
                 reloadedCache.isUpToDate(sourceFile));
     }
 
+    @Test
+    public void testBaselineChangeInvalidatesCache() throws IOException {
+        final RuleSets rs = mock(RuleSets.class);
+        final ClassLoader cl = mock(ClassLoader.class);
+        final File baseline = tempFolder.newFile();
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        cache.checkValidity(rs, cl, baseline.getPath());
+        cache.isUpToDate(sourceFile);
+        cache.persist();
+
+        final FileAnalysisCache sameBaselineCache = new FileAnalysisCache(newCacheFile);
+        sameBaselineCache.checkValidity(rs, cl, baseline.getPath());
+        assertTrue("Cache believes unmodified file is not up to date with the same baseline",
+                sameBaselineCache.isUpToDate(sourceFile));
+
+        Files.write(baseline.toPath(), "some violations".getBytes());
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile);
+        reloadedCache.checkValidity(rs, cl, baseline.getPath());
+        assertFalse("Cache believes unmodified file is up to date after the baseline changed",
+                reloadedCache.isUpToDate(sourceFile));
+    }
+
     @Test
     public void testClasspathChangeInvalidatesCache() throws MalformedURLException, IOException {
         final RuleSets rs = mock(RuleSets.class);
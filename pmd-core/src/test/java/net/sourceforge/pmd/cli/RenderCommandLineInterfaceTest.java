@@ -0,0 +1,71 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.FooRule;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.ParametricRuleViolation;
+import net.sourceforge.pmd.renderers.BinaryRenderer;
+
+public class RenderCommandLineInterfaceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRenderAsXml() throws Exception {
+        File binary = folder.newFile("report.bin");
+        writeBinaryReport(binary);
+        File xml = new File(folder.getRoot(), "report.xml");
+
+        int status = RenderCommandLineInterface.run(new String[] { "-i", binary.getPath(), "-f", "xml", "-r",
+            xml.getPath(), });
+
+        assertEquals(0, status);
+        String content = new String(Files.readAllBytes(xml.toPath()), StandardCharsets.UTF_8);
+        assertTrue(content.contains("<file name=\"Foo.java\">"));
+        assertTrue(content.contains("a problem"));
+    }
+
+    @Test
+    public void testMissingReport() {
+        int status = RenderCommandLineInterface.run(new String[] { "-i",
+            new File(folder.getRoot(), "missing.bin").getPath(), });
+
+        assertEquals(PMDCommandLineInterface.ERROR_STATUS, status);
+    }
+
+    private static void writeBinaryReport(File file) throws Exception {
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename("Foo.java");
+        DummyNode node = new DummyNode(1);
+        node.testingOnlySetBeginLine(1);
+        node.testingOnlySetBeginColumn(1);
+        Report report = new Report();
+        report.addRuleViolation(new ParametricRuleViolation<Node>(new FooRule(), ctx, node, "a problem"));
+
+        BinaryRenderer renderer = new BinaryRenderer();
+        renderer.setOutputStream(new FileOutputStream(file));
+        renderer.start();
+        renderer.renderFileReport(report);
+        renderer.end();
+        renderer.flush();
+    }
+}
@@ -5,11 +5,16 @@
 package net.sourceforge.pmd.cpd;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
 
 import org.apache.commons.lang3.SystemUtils;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit test for {@link CPD}
@@ -26,6 +31,9 @@ public class CPDTest {
         }
     }
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private CPD cpd;
 
     private boolean canTestSymLinks = false;
@@ -120,6 +128,37 @@ public class CPDTest {
         listener.verify();
     }
 
+    /**
+     * Files with the same content should be tokenized only once, whatever
+     * their name.
+     *
+     * @throws Exception
+     *             any error
+     */
+    @Test
+    public void testIdenticalFilesAreSkipped() throws Exception {
+        CPDConfiguration configuration = new CPDConfiguration();
+        configuration.setSkipIdenticalFiles(true);
+        configuration.postContruct();
+        cpd = new CPD(configuration);
+        NoFileAssertListener listener = new NoFileAssertListener(2);
+        cpd.setCpdListener(listener);
+
+        File original = tempFolder.newFile("Original.java");
+        File copy = tempFolder.newFile("Copy.java");
+        File other = tempFolder.newFile("Other.java");
+        Files.write(original.toPath(), "class Foo {}".getBytes(StandardCharsets.UTF_8));
+        Files.write(copy.toPath(), "class Foo {}".getBytes(StandardCharsets.UTF_8));
+        Files.write(other.toPath(), "class Foo { }".getBytes(StandardCharsets.UTF_8));
+
+        cpd.add(original);
+        cpd.add(copy);
+        cpd.add(other);
+        listener.verify();
+        Assert.assertEquals(Collections.singletonMap(original.getAbsolutePath(),
+                Collections.singletonList(copy.getAbsolutePath())), cpd.getIdenticalFiles());
+    }
+
     /**
      * Simple listener that fails, if to many files were added and not skipped.
      */
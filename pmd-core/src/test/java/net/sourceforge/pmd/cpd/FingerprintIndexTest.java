@@ -0,0 +1,175 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FingerprintIndexTest {
+
+    private static final String DUPLICATED = "int a = 1 ; int b = a + 2 ; if ( a > b ) { foo ( a , b ) ; } "
+            + "else { bar ( b , a ) ; } while ( a < 10 ) { a = a + 1 ; } return a * b ;\n";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private CPDConfiguration configuration;
+    private File indexDirectory;
+
+    @Before
+    public void setup() throws IOException {
+        configuration = new CPDConfiguration();
+        configuration.setLanguage(LanguageFactory.createLanguage("Cpddummy"));
+        configuration.setMinimumTileSize(30);
+        configuration.postContruct();
+        indexDirectory = tempFolder.newFolder("index");
+    }
+
+    @Test
+    public void testQueryFindsDuplicationInIndexedFile() throws IOException {
+        File corpus1 = createFile("Corpus1.dummy", "x = y\n" + DUPLICATED + "z = 0 ;\n");
+        File corpus2 = createFile("Corpus2.dummy", "completely different content without any duplication ;\n");
+        File query = createFile("Query.dummy", "q ( )\nq ( )\n" + DUPLICATED);
+
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            index.add(corpus1);
+            index.add(corpus2);
+        }
+
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            assertEquals(2, index.getIndexedFiles().size());
+            List<Match> matches = index.query(Collections.singletonList(query));
+            assertEquals(1, matches.size());
+            Match match = matches.get(0);
+            assertTrue(match.getTokenCount() >= 30);
+            // the query files are tokenized first
+            assertEquals(query.getCanonicalPath(), match.getFirstMark().getFilename());
+            assertEquals(3, match.getFirstMark().getBeginLine());
+            assertEquals(corpus1.getCanonicalPath(), match.getSecondMark().getFilename());
+            assertEquals(2, match.getSecondMark().getBeginLine());
+        }
+    }
+
+    @Test
+    public void testRemovedFileIsNotReported() throws IOException {
+        File corpus1 = createFile("Corpus1.dummy", DUPLICATED);
+        File corpus2 = createFile("Corpus2.dummy", "x = y ;\n" + DUPLICATED);
+        File query = createFile("Query.dummy", DUPLICATED);
+
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            index.add(corpus1);
+            index.flush();
+            index.add(corpus2);
+            index.flush();
+            assertTrue(index.remove(corpus1));
+            assertEquals(1, index.query(Collections.singletonList(query)).size());
+
+            index.compact();
+            assertEquals(1, indexDirectory.list().length - 1);
+        }
+        String catalog = new String(Files.readAllBytes(new File(indexDirectory, "catalog").toPath()),
+                StandardCharsets.UTF_8);
+        assertFalse(catalog.contains(corpus1.getCanonicalPath()));
+
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            assertEquals(Collections.singleton(corpus2.getCanonicalPath()), index.getIndexedFiles());
+            List<Match> matches = index.query(Collections.singletonList(query));
+            assertEquals(1, matches.size());
+            assertEquals(corpus2.getCanonicalPath(), matches.get(0).getSecondMark().getFilename());
+        }
+    }
+
+    /**
+     * A merged segment which can't be deleted, as a mapped file on Windows,
+     * is deleted when the index is opened again.
+     */
+    @Test
+    public void testStaleSegmentDeletedOnOpen() throws IOException {
+        File corpus1 = createFile("Corpus1.dummy", DUPLICATED);
+        File corpus2 = createFile("Corpus2.dummy", "x = y ;\n" + DUPLICATED);
+        File query = createFile("Query.dummy", DUPLICATED);
+        File segment = new File(indexDirectory, "segment-0.fp");
+        File undeletable = new File(segment, "undeletable");
+
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            index.add(corpus1);
+            index.flush();
+            index.add(corpus2);
+            index.flush();
+            // the segment stays mapped, and a non-empty directory replaces its file
+            assertTrue(segment.delete());
+            assertTrue(undeletable.mkdirs());
+
+            index.compact();
+            assertTrue(segment.exists());
+            assertFalse(new File(indexDirectory, "segment-1.fp").exists());
+        }
+
+        assertTrue(undeletable.delete());
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            assertFalse(segment.exists());
+            assertEquals(2, index.getIndexedFiles().size());
+            assertEquals(1, index.query(Collections.singletonList(query)).size());
+        }
+        // the catalog doesn't refer to the deleted segment anymore
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            assertEquals(2, index.getIndexedFiles().size());
+        }
+    }
+
+    @Test
+    public void testNoCandidates() throws IOException {
+        File corpus = createFile("Corpus.dummy", "completely different content without any duplication ;\n");
+        File query = createFile("Query.dummy", DUPLICATED);
+
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            index.add(corpus);
+            assertTrue(index.query(Collections.singletonList(query)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testImagesOfCurrentThreadKept() throws IOException {
+        TokenEntry.clearImages();
+        TokenEntry token = new TokenEntry("callerImage", "Caller.dummy", 1);
+        File corpus = createFile("Corpus.dummy", DUPLICATED);
+        File query = createFile("Query.dummy", DUPLICATED);
+
+        try (FingerprintIndex index = new FingerprintIndex(indexDirectory, configuration)) {
+            index.add(corpus);
+            assertEquals(1, index.query(Collections.singletonList(query)).size());
+        }
+
+        assertEquals("callerImage", TokenEntry.getImages()[token.getIdentifier()]);
+        assertEquals(token.getIdentifier(), new TokenEntry("callerImage", "Caller.dummy", 2).getIdentifier());
+        TokenEntry.clearImages();
+    }
+
+    @Test(expected = IOException.class)
+    public void testIndexWithOtherMinimumTileSize() throws IOException {
+        new FingerprintIndex(indexDirectory, configuration).close();
+        configuration.setMinimumTileSize(50);
+        new FingerprintIndex(indexDirectory, configuration);
+    }
+
+    private File createFile(String name, String content) throws IOException {
+        File file = tempFolder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
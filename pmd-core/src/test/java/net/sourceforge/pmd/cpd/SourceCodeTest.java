@@ -7,9 +7,14 @@ package net.sourceforge.pmd.cpd;
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.List;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.cpd.SourceCode.FileCodeLoader;
@@ -17,6 +22,9 @@ import net.sourceforge.pmd.cpd.SourceCode.FileCodeLoader;
 public class SourceCodeTest {
     private static final String BASE_RESOURCE_PATH = "src/test/resources/net/sourceforge/pmd/cpd/files/";
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private static final String SAMPLE_CODE = "Line 1\n" + "Line 2\n" + "Line 3\n" + "Line 4\n";
 
     @Test
@@ -56,4 +64,20 @@ public class SourceCodeTest {
         loader.getReader();
         assertEquals("ISO-8859-1", loader.getEncoding());
     }
+
+    @Test
+    public void testSliceFromLineOffsets() throws Exception {
+        File file = tempFolder.newFile("Foo.java");
+        String code = "Line 1\r\nLine \u00e4\u00f6\u00fc\rLine 3\n\nLine 5";
+        Files.write(file.toPath(), code.getBytes(StandardCharsets.UTF_8));
+        FileCodeLoader loader = new SourceCode.FileCodeLoader(file, "UTF-8");
+
+        List<String> lines = loader.getCode();
+        assertEquals(5, lines.size());
+        for (int start = 1; start <= lines.size(); start++) {
+            for (int end = start; end <= lines.size(); end++) {
+                assertEquals(lines.subList(start - 1, end), loader.load(start, end));
+            }
+        }
+    }
 }
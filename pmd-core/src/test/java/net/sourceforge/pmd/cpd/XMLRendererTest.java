@@ -142,6 +142,28 @@ public class XMLRendererTest {
         assertTrue(report.contains(espaceChar));
     }
 
+    @Test
+    public void testRendererCodeFragmentWithCDataEnd() throws IOException {
+        CPDRenderer renderer = new XMLRenderer();
+        List<Match> list = new ArrayList<>();
+        String codeFragment = "int[][] a = b[c[0]]>d;";
+        Mark mark1 = createMark("int", "/var/Foo.java", 1, 1, codeFragment);
+        Mark mark2 = createMark("int", "/var/Foo.java", 73, 1, codeFragment);
+        list.add(new Match(75, mark1, mark2));
+
+        StringWriter sw = new StringWriter();
+        renderer.render(list.iterator(), sw);
+        String report = sw.toString();
+        try {
+            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                    .parse(new ByteArrayInputStream(report.getBytes(ENCODING)));
+            assertEquals(codeFragment, doc.getElementsByTagName("codefragment").item(0).getTextContent());
+        } catch (Exception e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+    }
+
     private Mark createMark(String image, String tokenSrcID, int beginLine, int lineCount, String code) {
         Mark result = new Mark(new TokenEntry(image, tokenSrcID, beginLine));
 
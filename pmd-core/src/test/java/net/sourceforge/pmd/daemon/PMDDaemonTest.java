@@ -0,0 +1,175 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.daemon;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+import java.util.logging.StreamHandler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.cli.PMDCommandLineInterface;
+
+public class PMDDaemonTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File daemonFile;
+    private PMDDaemon daemon;
+    private Thread daemonThread;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Before
+    public void startDaemon() throws Exception {
+        daemonFile = new File(folder.getRoot(), "daemon/daemon.properties");
+        daemon = new PMDDaemon(daemonFile, 0, 0);
+        daemonThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    daemon.run(0);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        daemonThread.start();
+        for (int i = 0; i < 500 && !daemonFile.isFile(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(daemonFile.isFile());
+    }
+
+    @After
+    public void stopDaemon() throws Exception {
+        daemon.stop();
+        daemonThread.join(10000);
+    }
+
+    @Test
+    public void testAnalysisInTheDaemon() throws Exception {
+        writeRuleSet("NoFoo");
+        writeFile("src/A.dummy");
+
+        int status = send("-d", "src", "-R", "ruleset.xml", "-f", "csv", "-no-cache");
+
+        assertEquals(PMDCommandLineInterface.VIOLATIONS_FOUND, status);
+        String report = out.toString();
+        assertTrue(report, report.contains(new File(folder.getRoot(), "src/A.dummy").getPath()));
+        assertTrue(report, report.contains("NoFoo"));
+    }
+
+    @Test
+    public void testFileListResolved() throws Exception {
+        writeRuleSet("NoFoo");
+        writeFile("src/A.dummy");
+        Files.write(new File(folder.getRoot(), "files.txt").toPath(), "src/A.dummy\n".getBytes(StandardCharsets.UTF_8));
+
+        int status = send("-filelist", "files.txt", "-R", "ruleset.xml", "-f", "csv", "-no-cache");
+
+        assertEquals(PMDCommandLineInterface.VIOLATIONS_FOUND, status);
+        String report = out.toString();
+        assertTrue(report, report.contains(new File(folder.getRoot(), "src/A.dummy").getPath()));
+    }
+
+    @Test
+    public void testLogHandlersOfAPreviousRequestRemoved() throws Exception {
+        writeRuleSet("NoFoo");
+        writeFile("src/A.dummy");
+        Logger logger = Logger.getLogger("net.sourceforge.pmd");
+        Handler leftOver = new StreamHandler();
+        logger.addHandler(leftOver);
+        try {
+            send("-d", "src", "-R", "ruleset.xml", "-f", "csv", "-no-cache");
+
+            assertFalse(Arrays.asList(logger.getHandlers()).contains(leftOver));
+        } finally {
+            logger.removeHandler(leftOver);
+        }
+    }
+
+    @Test
+    public void testRuleSetsLoadedAgainWhenChanged() throws Exception {
+        writeRuleSet("NoFoo");
+        writeFile("src/A.dummy");
+        send("-d", "src", "-R", "ruleset.xml", "-f", "csv", "-no-cache");
+
+        writeRuleSet("StillNoFoo");
+        out.reset();
+        send("-d", "src", "-R", "ruleset.xml", "-f", "csv", "-no-cache");
+        assertTrue(out.toString(), out.toString().contains("StillNoFoo"));
+        assertFalse(out.toString(), out.toString().contains("\"NoFoo\""));
+    }
+
+    @Test
+    public void testErrorSentBack() throws Exception {
+        writeFile("src/A.dummy");
+
+        int status = send("-d", "src", "-R", "missing.xml", "-no-cache");
+
+        assertEquals(PMDCommandLineInterface.ERROR_STATUS, status);
+        assertTrue(err.toString(), err.toString().contains("missing.xml"));
+    }
+
+    @Test
+    public void testNoDaemon() throws Exception {
+        daemon.stop();
+        daemonThread.join(10000);
+        assertFalse(daemonFile.exists());
+
+        assertEquals(PMDDaemonClient.NO_DAEMON, send("-d", "src", "-R", "ruleset.xml"));
+    }
+
+    @Test
+    public void testRelativePathsResolved() {
+        File dir = new File("/work");
+        String[] resolved = PMDDaemon.resolvePaths(dir, new String[] { "-d", "src,/abs/src", "-R",
+            "rulesets/java/basic.xml", "-r", "report.txt", "-f", "text", });
+
+        assertArrayEquals(new String[] { "-d", new File(dir, "src").getPath() + ",/abs/src", "-R",
+            "rulesets/java/basic.xml", "-r", new File(dir, "report.txt").getPath(), "-f", "text", }, resolved);
+    }
+
+    private int send(String... args) throws IOException {
+        return PMDDaemonClient.send(daemonFile, folder.getRoot(), args, out, err);
+    }
+
+    private void writeFile(String path) throws IOException {
+        File file = new File(folder.getRoot(), path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), "Foo".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeRuleSet(String ruleName) throws IOException {
+        String ruleSet = "<?xml version=\"1.0\"?>\n"
+                + "<ruleset name=\"Daemon ruleset\" xmlns=\"http://pmd.sourceforge.net/ruleset/2.0.0\">\n"
+                + "  <description>Ruleset of the daemon test</description>\n"
+                + "  <rule name=\"" + ruleName + "\" language=\"dummy\" since=\"6.0\" message=\"No Foo\""
+                + "      class=\"net.sourceforge.pmd.FooRule\">\n"
+                + "    <description>No foo</description>\n"
+                + "    <priority>2</priority>\n"
+                + "  </rule>\n"
+                + "</ruleset>\n";
+        Files.write(new File(folder.getRoot(), "ruleset.xml").toPath(), ruleSet.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.sourceforge.pmd.Rule;
 import net.sourceforge.pmd.RuleContext;
@@ -62,11 +63,24 @@ public class DummyLanguageModule extends BaseLanguageModule {
     }
 
     public static class Handler extends AbstractLanguageVersionHandler {
+        /** The number of files visited for the multifile analysis. */
+        public static final AtomicInteger MULTIFILE_VISITS = new AtomicInteger();
+
         @Override
         public RuleViolationFactory getRuleViolationFactory() {
             return new RuleViolationFactory();
         }
 
+        @Override
+        public VisitorStarter getMultifileFacade() {
+            return new VisitorStarter() {
+                @Override
+                public void start(Node rootNode) {
+                    MULTIFILE_VISITS.incrementAndGet();
+                }
+            };
+        }
+
         @Override
         public Parser getParser(ParserOptions parserOptions) {
             return new AbstractParser(parserOptions) {
@@ -0,0 +1,96 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class JavaCharArrayStreamTest {
+
+    @Test
+    public void testSamePositionsAsJavaCharStream() {
+        String[] sources = {
+            "",
+            "a",
+            "class Foo {\n    int x;\n}\n",
+            "a\r\nbb\r\n\r\nccc",
+            "a\rb\r\rc\r",
+            "\tint\tx = 1;\n  \t\ty",
+            "a\n\n\n",
+            "  // comment\r\n/* multi\n line */ x",
+        };
+        for (String source : sources) {
+            assertEquals(source, tokenize(new JavaCharStream(new StringReader(source))),
+                    tokenize(new JavaCharArrayStream(source.toCharArray())));
+        }
+    }
+
+    @Test
+    public void testUnicodeEscapesAreTranslated() {
+        String source = "char c = '\\u0041';";
+        CharStream stream = JavaCharArrayStream.of(source.toCharArray());
+        assertTrue(stream instanceof JavaCharStream);
+        assertEquals(tokenize(new JavaCharStream(new StringReader(source))), tokenize(stream));
+
+        assertTrue(JavaCharArrayStream.of(new StringReader("String s = \"\\n\";")) instanceof JavaCharArrayStream);
+    }
+
+    @Test
+    public void testSuffix() throws IOException {
+        CharStream stream = new JavaCharArrayStream("abcdef".toCharArray());
+        stream.BeginToken();
+        stream.readChar();
+        stream.readChar();
+        stream.readChar();
+        assertEquals("bcd", new String(stream.GetSuffix(3)));
+        assertEquals("abcd", stream.GetImage());
+    }
+
+    /**
+     * Splits the content in runs of the same kind of chars, the way a token
+     * manager would, with a lookahead of one char, and records the images
+     * and positions of the tokens.
+     */
+    private static List<String> tokenize(CharStream stream) {
+        List<String> tokens = new ArrayList<>();
+        while (true) {
+            char first;
+            try {
+                first = stream.BeginToken();
+            } catch (IOException e) {
+                tokens.add("EOF " + stream.getBeginLine() + ":" + stream.getBeginColumn() + "-" + stream.getEndLine()
+                        + ":" + stream.getEndColumn());
+                return tokens;
+            }
+            try {
+                char c = stream.readChar();
+                while (kind(c) == kind(first)) {
+                    c = stream.readChar();
+                }
+                stream.backup(1);
+            } catch (IOException e) {
+                // the token ends with the content
+            }
+            tokens.add(stream.GetImage() + " " + stream.getBeginLine() + ":" + stream.getBeginColumn() + "-"
+                    + stream.getEndLine() + ":" + stream.getEndColumn());
+        }
+    }
+
+    private static int kind(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            return 0;
+        } else if (Character.isWhitespace(c)) {
+            return 1;
+        }
+        return 2;
+    }
+}
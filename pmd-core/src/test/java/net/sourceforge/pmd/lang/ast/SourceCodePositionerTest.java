@@ -40,4 +40,13 @@ public class SourceCodePositionerTest {
         assertEquals(5, positioner.lineNumberFromOffset(offset));
         assertEquals(3, positioner.columnFromOffset(5, offset));
     }
+
+    @Test
+    public void testTrailingEmptyLinesAreIgnored() {
+        assertEquals(1, new SourceCodePositioner("").getLastLine());
+        assertEquals(1, new SourceCodePositioner("abc\n\n").getLastLine());
+        assertEquals(3, new SourceCodePositioner("abc\n\nd").getLastLine());
+        assertEquals(5, new SourceCodePositioner(SOURCE_CODE).getLastLine());
+        assertEquals(3, new SourceCodePositioner(SOURCE_CODE).getLastLineColumn());
+    }
 }
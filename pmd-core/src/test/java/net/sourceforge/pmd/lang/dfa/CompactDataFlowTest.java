@@ -0,0 +1,144 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class CompactDataFlowTest {
+
+    @Test
+    public void testBuild() {
+        CompactDataFlow compact = new CompactDataFlow();
+        DataFlowNode start = compact.addStartOrEndNode(1, true);
+        DataFlowNode condition = compact.addStartOrEndNode(2, false);
+        DataFlowNode body = compact.addStartOrEndNode(3, false);
+        DataFlowNode end = compact.addStartOrEndNode(4, false);
+        condition.addPathToChild(end);
+        assertTrue(body.removePathToChild(end));
+        assertFalse(body.removePathToChild(end));
+        body.addPathToChild(condition);
+        condition.setType(NodeType.WHILE_EXPR);
+        start.setVariableAccess(Arrays.asList(new VariableAccess(VariableAccess.UNDEFINITION, "x"),
+                new VariableAccess(VariableAccess.UNDEFINITION, "y")));
+        condition.setVariableAccess(Arrays.asList(new VariableAccess(VariableAccess.REFERENCING, "x")));
+        body.setVariableAccess(Arrays.asList(new VariableAccess(VariableAccess.REFERENCING, "x"),
+                new VariableAccess(VariableAccess.DEFINITION, "x.length")));
+
+        assertEquals(4, compact.size());
+        assertSame(compact.getFlow(), body.getFlow());
+        assertSame(compact, CompactDataFlow.of(body));
+        assertNull(CompactDataFlow.of(new StartOrEndDataFlowNode(new ArrayList<DataFlowNode>(), 1, true)));
+        assertSame(condition, compact.getFlow().get(1));
+        assertEquals(2, compact.getFlow().indexOf(body));
+
+        assertEquals(2, condition.getLine());
+        assertEquals(1, condition.getIndex());
+        assertTrue(condition.isType(NodeType.WHILE_EXPR));
+        assertFalse(condition.isType(NodeType.IF_EXPR));
+        assertEquals(Arrays.asList(body, end), condition.getChildren());
+        assertEquals(Arrays.asList(start, body), condition.getParents());
+        assertEquals(Collections.singletonList(condition), body.getChildren());
+        assertEquals("Start node", start.toString());
+        assertEquals("End node", end.toString());
+
+        assertEquals("[Undefinition(x), Undefinition(y)]", start.getVariableAccess().toString());
+        assertEquals("[Reference(x), Definition(x)]", body.getVariableAccess().toString());
+        assertTrue(end.getVariableAccess().isEmpty());
+        assertEquals(body.getChildren(), body.getChildren());
+        assertEquals(body.getVariableAccess(), body.getVariableAccess());
+        assertSame(condition.getVariableAccess().get(0), body.getVariableAccess().get(0));
+
+        assertEquals(2, compact.getVariableCount());
+        int x = compact.getVariable("x");
+        assertEquals("x", compact.getVariableName(x));
+        assertEquals(-1, compact.getVariable("z"));
+        assertTrue(compact.references(2, x));
+        assertTrue(compact.defines(2, x));
+        assertFalse(compact.undefines(2, x));
+        assertTrue(compact.undefines(0, compact.getVariable("y")));
+        assertFalse(compact.defines(1, x));
+        BitSet undefined = new BitSet();
+        undefined.set(0, 2);
+        assertEquals(undefined, compact.getUndefinitions(0));
+        assertTrue(compact.getDefinitions(3).isEmpty());
+
+        compact.addVariableAccess(3, VariableAccess.REFERENCING, "y.size");
+        assertEquals("[Reference(y)]", end.getVariableAccess().toString());
+        assertTrue(compact.references(3, compact.getVariable("y")));
+    }
+
+    @Test
+    public void testReverseParentPaths() {
+        CompactDataFlow compact = new CompactDataFlow();
+        DataFlowNode first = compact.addStartOrEndNode(1, true);
+        DataFlowNode second = compact.addStartOrEndNode(2, false);
+        DataFlowNode third = compact.addStartOrEndNode(3, false);
+        DataFlowNode fourth = compact.addStartOrEndNode(4, false);
+        first.addPathToChild(third);
+
+        third.reverseParentPathsTo(fourth);
+        assertTrue(third.getParents().isEmpty());
+        assertEquals(Arrays.asList(second, fourth), first.getChildren());
+        assertEquals(Collections.singletonList(fourth), second.getChildren());
+        assertEquals(Arrays.asList(third, second, first), fourth.getParents());
+    }
+
+    @Test
+    public void testEditAfterTrim() {
+        CompactDataFlow compact = new CompactDataFlow();
+        DataFlowNode start = compact.addStartOrEndNode(1, true);
+        DataFlowNode loop = compact.addStartOrEndNode(2, false);
+        DataFlowNode end = compact.addStartOrEndNode(3, false);
+        loop.addPathToChild(loop);
+        start.addPathToChild(end);
+        loop.setVariableAccess(Arrays.asList(new VariableAccess(VariableAccess.DEFINITION, "x")));
+
+        compact.trimToSize();
+        assertEquals(Arrays.asList(loop, end), start.getChildren());
+        assertEquals(Arrays.asList(end, loop), loop.getChildren());
+        assertEquals(Arrays.asList(start, loop), loop.getParents());
+        assertTrue(compact.defines(1, compact.getVariable("x")));
+
+        assertTrue(start.removePathToChild(loop));
+        DataFlowNode last = compact.addStartOrEndNode(4, false);
+        loop.setVariableAccess(Arrays.asList(new VariableAccess(VariableAccess.REFERENCING, "y")));
+        assertEquals(Collections.singletonList(end), start.getChildren());
+        assertEquals(Collections.singletonList(loop), loop.getParents());
+        assertEquals(Collections.singletonList(last), end.getChildren());
+        assertEquals("[Definition(x), Reference(y)]", loop.getVariableAccess().toString());
+        assertTrue(compact.references(1, compact.getVariable("y")));
+
+        compact.trimToSize();
+        assertEquals(4, compact.size());
+        assertEquals(Collections.singletonList(end), start.getChildren());
+        assertEquals(Collections.singletonList(last), end.getChildren());
+        assertEquals(2, compact.getAccessCount(1));
+    }
+
+    @Test
+    public void testManyNodesAndVariables() {
+        CompactDataFlow compact = new CompactDataFlow();
+        for (int i = 0; i < 100; i++) {
+            compact.addStartOrEndNode(i, i == 0).setVariableAccess(
+                    Arrays.asList(new VariableAccess(VariableAccess.DEFINITION, "v" + i)));
+        }
+        assertEquals(100, compact.size());
+        assertEquals(100, compact.getVariableCount());
+        assertTrue(compact.defines(99, compact.getVariable("v99")));
+        assertFalse(compact.defines(99, compact.getVariable("v98")));
+        assertEquals(Collections.singletonList(compact.getFlow().get(99)), compact.getFlow().get(98).getChildren());
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.dfa.CompactDataFlow;
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+
+public class DataflowAnalysisTest {
+
+    private final CompactDataFlow flow = new CompactDataFlow();
+
+    /**
+     * Adds a node after the last one, with the given accesses to x, e.g. "UD"
+     * for an undefinition followed by a definition.
+     */
+    private DataFlowNode node(String accesses) {
+        DataFlowNode node = flow.addStartOrEndNode(flow.size(), flow.size() == 0);
+        List<VariableAccess> list = new ArrayList<>();
+        for (char c : accesses.toCharArray()) {
+            int type = c == 'D' ? VariableAccess.DEFINITION
+                    : c == 'R' ? VariableAccess.REFERENCING : VariableAccess.UNDEFINITION;
+            list.add(new VariableAccess(type, "x"));
+        }
+        node.setVariableAccess(list);
+        return node;
+    }
+
+    @Test
+    public void testIfWithoutElse() {
+        node("U");
+        DataFlowNode def = node("D");
+        DataFlowNode branch = node("");
+        node("D");
+        DataFlowNode join = node("R");
+        node("U");
+        branch.addPathToChild(join);
+
+        ControlFlowGraph graph = new ControlFlowGraph(flow);
+        assertEquals(6, graph.size());
+        assertEquals(1, graph.getVariableCount());
+        assertEquals(5, graph.getSiteCount());
+
+        DataflowResult reaching = WorklistSolver.solve(new ReachingDefinitions(graph));
+        BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(2);
+        assertEquals(expected, reaching.getIn(4));
+
+        DataflowResult live = WorklistSolver.solve(new LiveVariables(graph));
+        assertTrue(live.getOut(1).get(0));
+        assertTrue(live.getIn(2).get(0));
+        assertFalse(live.getIn(5).get(0));
+        assertFalse(live.getIn(1).get(0));
+
+        DataflowResult assigned = WorklistSolver.solve(new DefiniteAssignment(graph));
+        assertFalse(assigned.getIn(1).get(0));
+        assertTrue(assigned.getIn(4).get(0));
+        assertFalse(assigned.getOut(5).get(0));
+
+        List<DataflowAnomaly> anomalies = DataflowAnomalyDetector.detect(graph);
+        assertEquals(1, anomalies.size());
+        assertEquals(DataflowAnomaly.Type.DD, anomalies.get(0).getType());
+        assertEquals("x", anomalies.get(0).getVariableName());
+        assertEquals(def, anomalies.get(0).getFirstNode());
+        assertEquals(3, anomalies.get(0).getLastNode().getLine());
+    }
+
+    @Test
+    public void testDefiniteAssignmentOnOneBranch() {
+        node("U");
+        DataFlowNode branch = node("");
+        node("D");
+        DataFlowNode join = node("R");
+        node("U");
+        branch.addPathToChild(join);
+
+        ControlFlowGraph graph = new ControlFlowGraph(flow);
+        DataflowResult assigned = WorklistSolver.solve(new DefiniteAssignment(graph));
+        assertTrue(assigned.getOut(2).get(0));
+        assertFalse(assigned.getIn(3).get(0));
+
+        List<DataflowAnomaly> anomalies = DataflowAnomalyDetector.detect(graph);
+        assertEquals(1, anomalies.size());
+        assertEquals(DataflowAnomaly.Type.UR, anomalies.get(0).getType());
+    }
+
+    @Test
+    public void testLoop() {
+        node("U");
+        node("D");
+        DataFlowNode head = node("");
+        DataFlowNode body = node("D");
+        DataFlowNode end = node("U");
+        body.removePathToChild(end);
+        body.addPathToChild(head);
+        head.addPathToChild(end);
+
+        List<DataflowAnomaly> anomalies = DataflowAnomalyDetector.detect(new ControlFlowGraph(flow));
+        assertEquals("[DD(x, 1-3), DD(x, 3-3), DU(x, 1-4), DU(x, 3-4)]", anomalies.toString());
+    }
+
+    @Test
+    public void testManyBranches() {
+        // 2^40 paths, which can't be enumerated
+        node("U");
+        node("D");
+        for (int i = 0; i < 40; i++) {
+            DataFlowNode branch = node("");
+            node("");
+            DataFlowNode join = node("");
+            branch.addPathToChild(join);
+        }
+        node("D");
+        node("U");
+
+        List<DataflowAnomaly> anomalies = DataflowAnomalyDetector.detect(new ControlFlowGraph(flow));
+        assertEquals("[DD(x, 1-122), DU(x, 122-123)]", anomalies.toString());
+    }
+
+    @Test
+    public void testUnreachableBlock() {
+        node("U");
+        DataFlowNode returned = node("D");
+        DataFlowNode dead = node("D");
+        DataFlowNode end = node("U");
+        returned.removePathToChild(dead);
+        returned.addPathToChild(end);
+
+        ControlFlowGraph graph = new ControlFlowGraph(flow);
+        assertEquals(3, graph.getReversePostOrder().length);
+        List<DataflowAnomaly> anomalies = DataflowAnomalyDetector.detect(graph);
+        assertEquals("[DU(x, 1-3)]", anomalies.toString());
+    }
+
+    @Test
+    public void testSeveralAccessesInOneBlock() {
+        node("U");
+        node("RD");
+        node("DU");
+        node("UD");
+        node("R");
+        node("U");
+
+        ControlFlowGraph graph = new ControlFlowGraph(flow);
+        DataflowResult live = WorklistSolver.solve(new LiveVariables(graph));
+        assertTrue(live.getIn(1).get(0));
+        assertFalse(live.getIn(2).get(0));
+        assertTrue(live.getIn(4).get(0));
+
+        DefiniteAssignment definiteAssignment = new DefiniteAssignment(graph);
+        assertTrue(definiteAssignment.getKill(2).get(0));
+        assertFalse(definiteAssignment.getGen(2).get(0));
+        assertTrue(definiteAssignment.getGen(3).get(0));
+        assertFalse(definiteAssignment.getKill(3).get(0));
+        DataflowResult assigned = WorklistSolver.solve(definiteAssignment);
+        assertFalse(assigned.getOut(2).get(0));
+        assertTrue(assigned.getIn(4).get(0));
+    }
+}
@@ -23,6 +23,7 @@ import net.sourceforge.pmd.RuleContext;
 import net.sourceforge.pmd.RuleSetFactory;
 import net.sourceforge.pmd.RuleViolation;
 import net.sourceforge.pmd.ThreadSafeReportListener;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.rule.AbstractRule;
 import net.sourceforge.pmd.renderers.AbstractAccumulatingRenderer;
@@ -85,6 +86,17 @@ public class MultiThreadProcessorTest {
         Assert.assertEquals("Missing violation", 1, reportListener.violations.get());
     }
 
+    @Test
+    public void testMultifileIndexedBeforeAnalysis() {
+        setUpForTest("rulesets/MultiThreadProcessorTest/multifile.xml");
+        DummyLanguageModule.Handler.MULTIFILE_VISITS.set(0);
+        processor.processFiles(ruleSetFactory, files, ctx, Collections.<Renderer>emptyList());
+
+        // each file is visited once, before any analysis
+        Assert.assertEquals(2, DummyLanguageModule.Handler.MULTIFILE_VISITS.get());
+        Assert.assertEquals("Multifile rule has seen missing files", 0, reportListener.violations.get());
+    }
+
     private static class StringDataSource implements DataSource {
         private final String data;
         private final String name;
@@ -137,6 +149,20 @@ public class MultiThreadProcessorTest {
         }
     }
     
+    public static class MultifileRule extends AbstractRule {
+
+        public MultifileRule() {
+            setMultifile(true);
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            if (DummyLanguageModule.Handler.MULTIFILE_VISITS.get() != 2) {
+                addViolation(ctx, nodes.get(0));
+            }
+        }
+    }
+
     public static class DysfunctionalRule extends AbstractRule {
 
         public static final String DYSFUNCTIONAL_RULE_REASON = "dysfunctional rule is dysfunctional";
@@ -0,0 +1,202 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RulePriority;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.MockRule;
+import net.sourceforge.pmd.lang.rule.ParametricRuleViolation;
+
+public class BinaryRendererTest {
+
+    private final Rule rule = new MockRule("Foo", "desc", "msg", "rulesetname", RulePriority.HIGH);
+
+    @Test
+    public void testRenderedAgainAsXml() throws Exception {
+        List<Report> reports = createReports();
+        byte[] binary = renderBinary(reports);
+
+        String expected = render(new XMLRenderer(), reports);
+        String actual = renderFromBinary(new XMLRenderer(), binary);
+        assertEquals(withoutTimestamp(expected), withoutTimestamp(actual));
+        assertTrue(actual.contains("suppressiontype=\"nopmd\""));
+        assertTrue(actual.contains("suppressiontype=\"annotation\""));
+        assertTrue(actual.contains("<configerror "));
+        assertTrue(actual.contains("<error "));
+    }
+
+    @Test
+    public void testRenderedAgainAsText() throws Exception {
+        List<Report> reports = createReports();
+        byte[] binary = renderBinary(reports);
+
+        assertEquals(render(new TextRenderer(), reports), renderFromBinary(new TextRenderer(), binary));
+    }
+
+    @Test
+    public void testReportsReadOneAtATime() throws Exception {
+        BinaryReportReader reader = new BinaryReportReader(new ByteArrayInputStream(renderBinary(createReports())));
+        assertEquals(3, reader.nextReport().size());
+        assertEquals(1, reader.nextReport().size());
+        Report errors = reader.nextReport();
+        assertTrue(errors.hasErrors());
+        assertTrue(errors.hasConfigErrors());
+        assertNull(reader.nextReport());
+    }
+
+    @Test
+    public void testStringsWrittenOnce() throws Exception {
+        Report one = new Report();
+        one.addRuleViolation(violation("Foo.java", 1, "a long message repeated in every violation"));
+        Report many = new Report();
+        for (int i = 0; i < 10; i++) {
+            many.addRuleViolation(violation("Foo.java", i, "a long message repeated in every violation"));
+        }
+        int violationSize = (renderBinary(Collections.singletonList(many)).length
+                - renderBinary(Collections.singletonList(one)).length) / 9;
+        assertTrue("violation size " + violationSize, violationSize < 20);
+    }
+
+    @Test
+    public void testRuleCopiesWrittenOnce() throws Exception {
+        Report report = new Report();
+        report.addRuleViolation(violation("Foo.java", 1, "message"));
+        report.addRuleViolation(violation("Foo.java", 2, "message"));
+        Report copies = new Report();
+        copies.addRuleViolation(violation("Foo.java", 1, "message"));
+        Rule copy = new MockRule("Foo", "desc", "msg", "rulesetname", RulePriority.HIGH);
+        copies.addRuleViolation(violation(copy, "Foo.java", 2, "message"));
+
+        assertEquals(renderBinary(Collections.singletonList(report)).length,
+                renderBinary(Collections.singletonList(copies)).length);
+    }
+
+    @Test
+    public void testSuppressedUserMessages() throws Exception {
+        Report report = new Report();
+        report.suppress(Collections.singletonMap(7, "ok here"));
+        report.addRuleViolation(violation("src/Foo.java", 7, "suppressed by a comment"));
+        report.getSuppressedRuleViolations().add(new Report.SuppressedViolation(
+                new SuppressedViolation(violation("src/Foo.java", 9, "suppressed")), false, "by annotation"));
+
+        BinaryReportReader reader = new BinaryReportReader(
+                new ByteArrayInputStream(renderBinary(Collections.singletonList(report))));
+        List<Report.SuppressedViolation> suppressed = reader.nextReport().getSuppressedRuleViolations();
+        assertEquals(2, suppressed.size());
+        assertTrue(suppressed.get(0).suppressedByNOPMD());
+        assertEquals("ok here", suppressed.get(0).getUserMessage());
+        assertTrue(suppressed.get(1).suppressedByAnnotation());
+        assertTrue(suppressed.get(1).getRuleViolation().isSuppressed());
+        assertEquals("by annotation", suppressed.get(1).getUserMessage());
+    }
+
+    @Test
+    public void testNotABinaryReport() throws Exception {
+        BinaryReportReader reader = new BinaryReportReader(new ByteArrayInputStream("<?xml".getBytes("UTF-8")));
+        try {
+            reader.nextReport();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("Not a binary PMD report", e.getMessage());
+        }
+    }
+
+    private List<Report> createReports() {
+        Report first = new Report();
+        first.suppress(Collections.singletonMap(7, "ok here"));
+        first.addRuleViolation(violation("src/Foo.java", 12, "second <problem>"));
+        first.addRuleViolation(violation("src/Foo.java", 3, "first problem"));
+        first.addRuleViolation(violation("src/Foo.java", 3, "first problem"));
+        first.addRuleViolation(violation("src/Foo.java", 7, "suppressed by a comment"));
+        first.addRuleViolation(new SuppressedViolation(violation("src/Foo.java", 9, "suppressed by an annotation")));
+
+        Report second = new Report();
+        second.addRuleViolation(violation("src/Bar.java", 1, "café problem"));
+
+        Report errors = new Report();
+        errors.addError(new Report.ProcessingError(new RuntimeException("Error"), "src/Baz.java"));
+        errors.addConfigError(new Report.ConfigurationError(rule, "a configuration error"));
+        return Arrays.asList(first, second, errors);
+    }
+
+    private ParametricRuleViolation<Node> violation(String fileName, int line, String message) {
+        return violation(rule, fileName, line, message);
+    }
+
+    private static ParametricRuleViolation<Node> violation(Rule rule, String fileName, int line, String message) {
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(fileName);
+        DummyNode node = new DummyNode(1);
+        node.testingOnlySetBeginLine(line);
+        node.testingOnlySetBeginColumn(5);
+        node.testingOnlySetEndLine(line + 2);
+        node.testingOnlySetEndColumn(-1);
+        return new ParametricRuleViolation<Node>(rule, ctx, node, message);
+    }
+
+    /** A violation suppressed as by an annotation. */
+    private static class SuppressedViolation extends ParametricRuleViolation<Node> {
+        SuppressedViolation(ParametricRuleViolation<Node> violation) {
+            super(violation.getRule(), new RuleContext(), null, violation.getDescription());
+            filename = violation.getFilename();
+            setLines(violation.getBeginLine(), violation.getEndLine());
+            suppressed = true;
+        }
+    }
+
+    private static byte[] renderBinary(List<Report> reports) throws IOException {
+        BinaryRenderer renderer = new BinaryRenderer();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        renderer.setOutputStream(output);
+        renderer.start();
+        for (Report report : reports) {
+            renderer.renderFileReport(report);
+        }
+        renderer.end();
+        renderer.flush();
+        return output.toByteArray();
+    }
+
+    private static String render(Renderer renderer, List<Report> reports) throws IOException {
+        StringWriter writer = new StringWriter();
+        renderer.setWriter(writer);
+        renderer.start();
+        for (Report report : reports) {
+            renderer.renderFileReport(report);
+        }
+        renderer.end();
+        return writer.toString();
+    }
+
+    private static String renderFromBinary(Renderer renderer, byte[] binary) throws IOException {
+        StringWriter writer = new StringWriter();
+        renderer.setWriter(writer);
+        new BinaryReportReader(new ByteArrayInputStream(binary)).render(renderer);
+        return writer.toString();
+    }
+
+    private static String withoutTimestamp(String xml) {
+        return xml.replaceAll("timestamp=\"[^\"]*\"", "");
+    }
+}
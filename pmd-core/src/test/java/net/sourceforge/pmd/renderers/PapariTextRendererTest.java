@@ -4,14 +4,24 @@
 
 package net.sourceforge.pmd.renderers;
 
+import static org.junit.Assert.assertTrue;
+
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
 
+import net.sourceforge.pmd.FooRule;
 import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.Report;
 import net.sourceforge.pmd.Report.ConfigurationError;
 import net.sourceforge.pmd.Report.ProcessingError;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.ParametricRuleViolation;
 
 public class PapariTextRendererTest extends AbstractRendererTst {
 
@@ -68,6 +78,28 @@ public class PapariTextRendererTest extends AbstractRendererTst {
                 + "* errors:   1" + PMD.EOL + "* warnings: 0" + PMD.EOL;
     }
 
+    @Test
+    public void testSeveralFiles() throws Exception {
+        Renderer renderer = getRenderer();
+        StringWriter writer = new StringWriter();
+        renderer.setWriter(writer);
+        renderer.start();
+        renderer.renderFileReport(createReport("Foo.java"));
+        renderer.renderFileReport(createReport("Bar.java"));
+        renderer.end();
+        String actual = writer.toString();
+        assertTrue(actual.indexOf("* file: Foo.java") < actual.indexOf("* file: Bar.java"));
+        assertTrue(actual.endsWith(" : 2" + PMD.EOL + "* warnings: 2" + PMD.EOL));
+    }
+
+    private static Report createReport(String fileName) {
+        Report report = new Report();
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(fileName);
+        report.addRuleViolation(new ParametricRuleViolation<Node>(new FooRule(), ctx, createNode(1), "blah"));
+        return report;
+    }
+
     public static junit.framework.Test suite() {
         return new junit.framework.JUnit4TestAdapter(PapariTextRendererTest.class);
     }
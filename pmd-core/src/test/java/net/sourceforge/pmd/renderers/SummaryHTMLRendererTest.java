@@ -5,7 +5,9 @@
 package net.sourceforge.pmd.renderers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.io.StringWriter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -139,6 +141,29 @@ public class SummaryHTMLRendererTest extends AbstractRendererTst {
         assertEquals(getExpectedEmpty(), actual);
     }
 
+    @Test
+    public void testSeveralFiles() throws Exception {
+        Renderer renderer = getRenderer();
+        StringWriter writer = new StringWriter();
+        renderer.setWriter(writer);
+        renderer.start();
+        renderer.renderFileReport(createReport("Foo.java"));
+        renderer.renderFileReport(createReport("Bar.java"));
+        renderer.end();
+        String actual = writer.toString();
+        assertTrue(actual.contains("<tr><td>Foo</td><td align=center>2</td></tr>"));
+        assertTrue(actual.indexOf(">Foo</a>") < actual.indexOf(">Bar</a>"));
+        assertTrue(actual.contains("<td align=\"center\">2</td>"));
+    }
+
+    private Report createReport(String fileName) {
+        Report rep = new Report();
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(fileName);
+        rep.addRuleViolation(new ParametricRuleViolation<Node>(new FooRule(), ctx, createNode(1), "blah"));
+        return rep;
+    }
+
     private Report createEmptyReportWithSuppression() {
         Report rep = new Report();
         Map<Integer, String> suppressions = new HashMap<>();
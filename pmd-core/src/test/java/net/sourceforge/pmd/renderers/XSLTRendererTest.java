@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd.renderers;
 
+import java.io.StringWriter;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -31,4 +33,33 @@ public class XSLTRendererTest {
         String result = ReportTest.render(renderer, report);
         Assert.assertTrue(result.contains("violation message"));
     }
+
+    @Test
+    public void testSeveralFiles() throws Exception {
+        XSLTRenderer renderer = new XSLTRenderer();
+        StringWriter writer = new StringWriter();
+        renderer.setWriter(writer);
+        renderer.start();
+        renderer.renderFileReport(createReport("Foo.java", "first message"));
+        renderer.renderFileReport(createReport("Bar.java", "second message"));
+        Report report = new Report();
+        report.addError(new Report.ProcessingError(new RuntimeException("Error"), "Baz.java"));
+        renderer.renderFileReport(report);
+        renderer.end();
+        String result = writer.toString();
+        Assert.assertTrue(result.indexOf("first message") < result.indexOf("second message"));
+        Assert.assertTrue(result.contains("Foo.java"));
+        Assert.assertTrue(result.contains("Bar.java"));
+    }
+
+    private static Report createReport(String fileName, String message) {
+        Report report = new Report();
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(fileName);
+        DummyNode node = new DummyNode(1);
+        node.testingOnlySetBeginLine(1);
+        node.testingOnlySetBeginColumn(1);
+        report.addRuleViolation(new ParametricRuleViolation<Node>(new FooRule(), ctx, node, message));
+        return report;
+    }
 }
@@ -0,0 +1,87 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageFilenameFilter;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.util.datasource.DataSource;
+import net.sourceforge.pmd.util.filter.Filter;
+import net.sourceforge.pmd.util.filter.Filters;
+import net.sourceforge.pmd.util.filter.OrFilter;
+
+public class FileUtilTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final LanguageFilenameFilter dummyFiles = new LanguageFilenameFilter(
+            LanguageRegistry.getLanguage(DummyLanguageModule.NAME));
+
+    @Test
+    public void testCollectFilesInTraversalOrder() throws IOException {
+        createFiles("a/A.dummy", "a/b/B.dummy", "a/b/c/C.dummy", "a/b/Other.txt", "a/e/E.dummy", "d/D.dummy");
+        File root = folder.getRoot().getCanonicalFile();
+
+        FilenameFilter dummyFilesOrDirectories = Filters.toFilenameFilter(
+                new OrFilter<>(Filters.toFileFilter(dummyFiles), Filters.getDirectoryFilter()));
+        List<String> expected = new ArrayList<>();
+        for (File file : new FileFinder().findFilesFrom(root, dummyFilesOrDirectories, true)) {
+            expected.add(file.getPath());
+        }
+        List<String> files = namesOf(FileUtil.collectFiles(root.getPath(), dummyFiles));
+
+        assertEquals(5, files.size());
+        assertEquals(expected, files);
+    }
+
+    @Test
+    public void testCollectFilesWithDirectoryFilter() throws IOException {
+        createFiles("a/A.dummy", "a/b/B.dummy", "a/b/c/C.dummy", "d/D.dummy");
+        File root = folder.getRoot().getCanonicalFile();
+        Filter<File> notB = new Filter<File>() {
+            @Override
+            public boolean filter(File directory) {
+                return !"b".equals(directory.getName());
+            }
+        };
+
+        List<String> files = namesOf(FileUtil.collectFiles(root.getPath(), dummyFiles, notB));
+        Collections.sort(files);
+
+        assertEquals(Arrays.asList(new File(root, "a/A.dummy").getPath(), new File(root, "d/D.dummy").getPath()),
+                files);
+    }
+
+    private void createFiles(String... paths) throws IOException {
+        for (String path : paths) {
+            File file = new File(folder.getRoot(), path);
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        }
+    }
+
+    private static List<String> namesOf(List<DataSource> dataSources) {
+        List<String> names = new ArrayList<>();
+        for (DataSource dataSource : dataSources) {
+            names.add(dataSource.getNiceFileName(false, null));
+        }
+        return names;
+    }
+}
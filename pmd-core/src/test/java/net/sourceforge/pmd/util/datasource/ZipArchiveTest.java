@@ -0,0 +1,200 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util.datasource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageFilenameFilter;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.util.FileUtil;
+
+public class ZipArchiveTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File archive;
+
+    @Before
+    public void setup() throws IOException {
+        archive = tempFolder.newFile("sources.jar");
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            addEntry(out, "a/A.dummy", "class A");
+            addEntry(out, "README.txt", "readme");
+            addEntry(out, "b/B.dummy", "class B");
+        }
+    }
+
+    @Test
+    public void testEntriesCollected() {
+        List<DataSource> dataSources = collectDummyFiles();
+
+        assertEquals(2, dataSources.size());
+        assertEquals(archive.getPath() + ":a/A.dummy", dataSources.get(0).getNiceFileName(false, null));
+        assertEquals(archive.getPath() + ":b/B.dummy", dataSources.get(1).getNiceFileName(false, null));
+        assertEquals(14L, ((ZipDataSource) dataSources.get(0)).getArchiveLength());
+    }
+
+    @Test
+    public void testEntriesRead() throws IOException {
+        List<DataSource> dataSources = collectDummyFiles();
+
+        assertEquals("class B", read(dataSources.get(1)));
+        assertEquals("class A", read(dataSources.get(0)));
+    }
+
+    @Test
+    public void testEntryReadAgain() throws IOException {
+        List<DataSource> dataSources = collectDummyFiles();
+
+        assertEquals("class A", read(dataSources.get(0)));
+        assertEquals("class A", read(dataSources.get(0)));
+        assertEquals("class B", read(dataSources.get(1)));
+    }
+
+    @Test
+    public void testEntriesDecompressedInOnePass() throws IOException {
+        List<DataSource> dataSources = collectDummyFiles();
+
+        assertEquals("class A", read(dataSources.get(0)));
+        assertTrue(archive.delete());
+        assertEquals("class B", read(dataSources.get(1)));
+    }
+
+    @Test
+    public void testDecompressedLengthBounded() throws IOException {
+        List<DataSource> dataSources = addEntries(new ZipArchive(archive, 0L));
+        dataSources.remove(1); // README.txt
+
+        assertEquals("class A", read(dataSources.get(0)));
+        assertTrue(archive.delete());
+        try {
+            read(dataSources.get(1));
+            fail("The entry should be decompressed again");
+        } catch (IOException expected) {
+            // the archive is gone
+        }
+    }
+
+    @Test
+    public void testEntriesDecompressedOnceBeyondTheMaximumLength() throws IOException {
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (int i = 0; i < 8; i++) {
+                addEntry(out, "e" + i + ".dummy", StringUtils.repeat(Integer.toString(i), 1024));
+            }
+        }
+        ZipArchive zipArchive = new ZipArchive(archive, 2500L);
+        List<DataSource> dataSources = addEntries(zipArchive);
+
+        for (DataSource dataSource : dataSources) {
+            read(dataSource);
+        }
+        assertEquals(8 * 1024L, zipArchive.getDecompressedLength());
+
+        // read again in the reverse order
+        for (int i = dataSources.size() - 1; i >= 0; i--) {
+            assertEquals(StringUtils.repeat(Integer.toString(i), 1024), read(dataSources.get(i)));
+        }
+        assertEquals(2 * 8 * 1024L, zipArchive.getDecompressedLength());
+    }
+
+    @Test
+    public void testStoredEntriesWithDataDescriptor() throws IOException {
+        writeStoredEntriesWithDataDescriptor("a/A.dummy", "class A", "b/B.dummy", "class B");
+        List<DataSource> dataSources = collectDummyFiles();
+
+        assertEquals(2, dataSources.size());
+        assertEquals("class B", read(dataSources.get(1)));
+        assertEquals("class A", read(dataSources.get(0)));
+    }
+
+    private List<DataSource> collectDummyFiles() {
+        return FileUtil.collectFiles(archive.getPath(),
+                new LanguageFilenameFilter(LanguageRegistry.getLanguage(DummyLanguageModule.NAME)));
+    }
+
+    private List<DataSource> addEntries(ZipArchive zipArchive) throws IOException {
+        List<DataSource> dataSources = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                dataSources.add(zipArchive.addEntry(entries.nextElement()));
+            }
+        }
+        return dataSources;
+    }
+
+    /**
+     * Writes the archive, as ZipOutputStream doesn't write a data descriptor
+     * after a stored entry: the length of the entries is 0 in their local
+     * header, and known from the central directory.
+     */
+    private void writeStoredEntriesWithDataDescriptor(String... namesAndContents) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer centralDirectory = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            byte[] name = namesAndContents[i].getBytes(StandardCharsets.UTF_8);
+            byte[] content = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            int offset = buffer.position();
+            buffer.putInt(0x04034b50).putShort((short) 10).putShort((short) 8).putShort((short) ZipEntry.STORED)
+                    .putInt(0).putInt(0).putInt(0).putInt(0).putShort((short) name.length).putShort((short) 0)
+                    .put(name).put(content);
+            buffer.putInt(0x08074b50).putInt((int) crc.getValue()).putInt(content.length).putInt(content.length);
+            centralDirectory.putInt(0x02014b50).putShort((short) 20).putShort((short) 10).putShort((short) 8)
+                    .putShort((short) ZipEntry.STORED).putInt(0).putInt((int) crc.getValue())
+                    .putInt(content.length).putInt(content.length).putShort((short) name.length)
+                    .putShort((short) 0).putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0)
+                    .putInt(offset).put(name);
+        }
+        int centralDirectoryOffset = buffer.position();
+        int entries = namesAndContents.length / 2;
+        buffer.put(centralDirectory.array(), 0, centralDirectory.position());
+        buffer.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) entries)
+                .putShort((short) entries).putInt(centralDirectory.position()).putInt(centralDirectoryOffset)
+                .putShort((short) 0);
+        Files.write(archive.toPath(), Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    private static void addEntry(ZipOutputStream out, String name, String content) throws IOException {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+    private static String read(DataSource dataSource) throws IOException {
+        try (InputStream in = dataSource.getInputStream()) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
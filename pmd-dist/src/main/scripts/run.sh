@@ -10,7 +10,7 @@ usage() {
 }
 
 valid_app_options () {
-    echo "pmd, cpd, cpdgui, designer, bgastviewer, designerold"
+    echo "pmd, cpd, cpdgui, designer, bgastviewer, designerold, render, daemon, daemonclient"
 }
 
 is_cygwin() {
@@ -74,7 +74,7 @@ check_lib_dir() {
   fi
 }
 
-jre_specific_vm_options() {
+java_version() {
   full_ver=$(java -version 2>&1)
   # java_ver is eg "18" for java 1.8, "90" for java 9.0, "100" for java 10.0.x
   java_ver=$(echo $full_ver | sed -n '{
@@ -85,6 +85,9 @@ jre_specific_vm_options() {
       # extract the major and minor parts of the version
       s/^.* version "\(.*\)\.\(.*\)\..*".*$/\1\2/p
   }')
+}
+
+jre_specific_vm_options() {
   options=""
 
   if [ "$java_ver" -ge 90 ] && [ "${APPNAME}" = "designer" ]
@@ -102,6 +105,38 @@ jre_specific_vm_options() {
   echo $options
 }
 
+# The class data sharing archive of the classes loaded by PMD, listed in
+# lib/pmd.classlist by a training analysis when the distribution is built,
+# which makes the JVM start faster. The archive is bound to the classpath
+# and to the JVM, so it is created by the first run with them, in
+# PMD_CDS_DIR (default ~/.pmd/cds). PMD_CDS=off disables it.
+cds_vm_options() {
+  local classlist="${LIB_DIR}/pmd.classlist"
+  if [ "${PMD_CDS}" = "off" ] || ${cygwin} || [ ! -f "${classlist}" ] || [ -z "$java_ver" ] || [ "$java_ver" -lt 110 ]
+  then
+    return
+  fi
+
+  local cds_dir="${PMD_CDS_DIR:-${HOME}/.pmd/cds}"
+  local archive="${cds_dir}/pmd-$(echo "${classpath} ${full_ver}" | cksum | cut -d ' ' -f 1).jsa"
+  if [ ! -f "${archive}" ] || [ -n "$(find "${LIB_DIR}" -name '*.jar' -newer "${archive}")" ]
+  then
+    mkdir -p "${cds_dir}" 2> /dev/null || return
+    # another run may use the archive meanwhile, so it is replaced at once
+    local temporary="${archive}.$$.tmp"
+    if java -Xshare:dump -XX:SharedClassListFile="${classlist}" -XX:SharedArchiveFile="${temporary}" \
+        -cp "${classpath}" > /dev/null 2>&1
+    then
+      mv -f "${temporary}" "${archive}"
+    else
+      rm -f "${temporary}"
+      return
+    fi
+  fi
+
+  echo "-XX:SharedArchiveFile=${archive}"
+}
+
 readonly APPNAME="${1}"
 if [ -z "${APPNAME}" ]; then
     usage
@@ -128,6 +163,15 @@ case "${APPNAME}" in
   "cpdgui")
     readonly CLASSNAME="net.sourceforge.pmd.cpd.GUI"
     ;;
+  "render")
+    readonly CLASSNAME="net.sourceforge.pmd.cli.RenderCommandLineInterface"
+    ;;
+  "daemon")
+    readonly CLASSNAME="net.sourceforge.pmd.cli.DaemonCommandLineInterface"
+    ;;
+  "daemonclient")
+    readonly CLASSNAME="net.sourceforge.pmd.daemon.PMDDaemonClient"
+    ;;
   *)
     echo "${APPNAME} is NOT a valid application name, valid options are:$(valid_app_options)"
     ;;
@@ -156,5 +200,7 @@ cygwin_paths
 
 java_heapsize_settings
 
-java ${HEAPSIZE} $(jre_specific_vm_options) -cp "${classpath}" "${CLASSNAME}" "$@"
+java_version
+
+java ${HEAPSIZE} $(jre_specific_vm_options) $(cds_vm_options) -cp "${classpath}" "${CLASSNAME}" "$@"
 
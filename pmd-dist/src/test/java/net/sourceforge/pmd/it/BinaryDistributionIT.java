@@ -10,18 +10,24 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.SystemUtils;
 import org.junit.AfterClass;
+import org.junit.Assume;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.it.PMDExecutor.StartupTime;
 
 public class BinaryDistributionIT {
 
@@ -64,6 +70,7 @@ public class BinaryDistributionIT {
         result.add(basedir + "bin/cpd.bat");
         result.add(basedir + "lib/pmd-core-" + PMDVersion.VERSION + ".jar");
         result.add(basedir + "lib/pmd-java-" + PMDVersion.VERSION + ".jar");
+        result.add(basedir + "lib/pmd.classlist");
         return result;
     }
 
@@ -100,6 +107,45 @@ public class BinaryDistributionIT {
         result.assertExecutionResult(0, "");
     }
 
+    @Test
+    public void measureStartupWithClassDataSharing() throws Exception {
+        Assume.assumeFalse("run.sh only", SystemUtils.IS_OS_WINDOWS);
+        String srcFile = new File(".", "src/test/resources/sample-source/JumbledIncrementer.java").getAbsolutePath();
+        Path cdsDir = Files.createTempDirectory(tempDir, "cds-");
+
+        Map<String, String> withoutArchive = Collections.singletonMap("PMD_CDS", "off");
+        Map<String, String> withArchive = Collections.singletonMap("PMD_CDS_DIR", cdsDir.toString());
+
+        // the first run with the archive creates it, from Java 11 on
+        PMDExecutor.measureStartup(tempDir, withArchive, srcFile, "java-basic").result
+            .assertExecutionResult(4, "JumbledIncrementer.java:8:");
+        Assume.assumeTrue("no class data sharing archive with this JVM", cdsDir.toFile().list().length == 1);
+
+        int runs = 5;
+        long[][] without = new long[2][runs];
+        long[][] with = new long[2][runs];
+        for (int i = 0; i < runs; i++) {
+            StartupTime time = PMDExecutor.measureStartup(tempDir, withoutArchive, srcFile, "java-basic");
+            time.result.assertExecutionResult(4, "JumbledIncrementer.java:8:");
+            without[0][i] = time.timeToFirstFile;
+            without[1][i] = time.totalTime;
+
+            time = PMDExecutor.measureStartup(tempDir, withArchive, srcFile, "java-basic");
+            time.result.assertExecutionResult(4, "JumbledIncrementer.java:8:");
+            with[0][i] = time.timeToFirstFile;
+            with[1][i] = time.totalTime;
+        }
+        System.out.println("Startup of a one file run (median of " + runs + " runs, time to first file / total time):");
+        System.out.println("  without class data sharing archive: " + median(without[0]) + " ms / " + median(without[1]) + " ms");
+        System.out.println("  with class data sharing archive:    " + median(with[0]) + " ms / " + median(with[1]) + " ms");
+    }
+
+    private static long median(long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
     @Test
     public void runCPD() throws Exception {
         String srcDir = new File(".", "src/test/resources/sample-source-cpd/").getAbsolutePath();
@@ -4,8 +4,12 @@
 
 package net.sourceforge.pmd.it;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.SystemUtils;
@@ -52,6 +56,67 @@ public class PMDExecutor {
         return new ExecutionResult(result, output);
     }
 
+    /**
+     * Measures the startup of the PMD found in tempDir with run.sh: the time until PMD starts
+     * processing the first file, and the time of the whole execution. Only supported on Unix,
+     * as the class data sharing archive is used by run.sh only.
+     *
+     * @param tempDir the directory, to which the binary distribution has been extracted
+     * @param environment additional environment variables of run.sh, e.g. <code>PMD_CDS</code>
+     * @param sourceFile the file, that PMD should analyze
+     * @param ruleset the ruleset, that PMD should execute
+     * @return the measured times
+     * @throws Exception if the execution fails for any reason (executable not found, ...)
+     */
+    public static StartupTime measureStartup(Path tempDir, Map<String, String> environment, String sourceFile,
+            String ruleset) throws Exception {
+        String cmd = tempDir.resolve(PMD_BIN_PREFIX + PMDVersion.VERSION + "/bin/run.sh").toAbsolutePath().toString();
+        // -debug logs "Processing <file>" when the analysis of the file starts
+        ProcessBuilder pb = new ProcessBuilder(cmd, "pmd", SOURCE_DIRECTORY_FLAG, sourceFile, RULESET_FLAG, ruleset,
+                FORMAT_FLAG, FORMATTER, "-no-cache", "-debug");
+        pb.environment().putAll(environment);
+        pb.redirectErrorStream(true);
+
+        long start = System.nanoTime();
+        long firstFile = -1;
+        Process process = pb.start();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), Charset.defaultCharset()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (firstFile < 0 && line.contains("Processing ")) {
+                    firstFile = System.nanoTime();
+                }
+                output.append(line).append(System.lineSeparator());
+            }
+        }
+        int result = process.waitFor();
+        long end = System.nanoTime();
+        if (firstFile < 0) {
+            throw new AssertionError("No file processed:" + System.lineSeparator() + output);
+        }
+        return new StartupTime(new ExecutionResult(result, output.toString()), (firstFile - start) / 1000000L,
+                (end - start) / 1000000L);
+    }
+
+    /**
+     * The times measured by {@link PMDExecutor#measureStartup(Path, Map, String, String)}.
+     */
+    public static class StartupTime {
+        public final ExecutionResult result;
+        /** The time until PMD starts processing the first file, in milliseconds. */
+        public final long timeToFirstFile;
+        /** The time of the whole execution, in milliseconds. */
+        public final long totalTime;
+
+        StartupTime(ExecutionResult result, long timeToFirstFile, long totalTime) {
+            this.result = result;
+            this.timeToFirstFile = timeToFirstFile;
+            this.totalTime = totalTime;
+        }
+    }
+
     /**
      * Executes the PMD found in tempDir against the given sourceDirectory path with the given ruleset.
      *
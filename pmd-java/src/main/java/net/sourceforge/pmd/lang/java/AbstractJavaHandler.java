@@ -9,6 +9,7 @@ import java.io.Writer;
 import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
 import net.sourceforge.pmd.lang.DataFlowHandler;
 import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.XPathHandler;
 import net.sourceforge.pmd.lang.ast.Node;
@@ -42,6 +43,11 @@ import net.sf.saxon.sxpath.IndependentContext;
  */
 public abstract class AbstractJavaHandler extends AbstractLanguageVersionHandler {
 
+    @Override
+    public ParserOptions getDefaultParserOptions() {
+        return new JavaParserOptions();
+    }
+
     @Override
     public DataFlowHandler getDataFlowHandler() {
         return new JavaDataFlowHandler();
@@ -132,6 +138,12 @@ public abstract class AbstractJavaHandler extends AbstractLanguageVersionHandler
     }
 
 
+    @Override
+    public void resetMultifileData() {
+        MultifileVisitorFacade.reset();
+    }
+
+
     @Override
     public VisitorStarter getQualifiedNameResolutionFacade(final ClassLoader classLoader) {
         return new VisitorStarter() {
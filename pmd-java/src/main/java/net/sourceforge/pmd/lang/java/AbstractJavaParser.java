@@ -11,7 +11,7 @@ import net.sourceforge.pmd.lang.AbstractParser;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.AbstractTokenManager;
-import net.sourceforge.pmd.lang.ast.JavaCharStream;
+import net.sourceforge.pmd.lang.ast.JavaCharArrayStream;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.java.ast.JavaParser;
 import net.sourceforge.pmd.lang.java.ast.ParseException;
@@ -40,11 +40,14 @@ public abstract class AbstractJavaParser extends AbstractParser {
      * Subclass should override this method to modify the JavaParser as needed.
      */
     protected JavaParser createJavaParser(Reader source) throws ParseException {
-        parser = new JavaParser(new JavaCharStream(source));
+        parser = new JavaParser(JavaCharArrayStream.of(source));
         String suppressMarker = getParserOptions().getSuppressMarker();
         if (suppressMarker != null) {
             parser.setSuppressMarker(suppressMarker);
         }
+        if (getParserOptions() instanceof JavaParserOptions) {
+            parser.setSkipBodies(((JavaParserOptions) getParserOptions()).isSkipBodies());
+        }
         return parser;
     }
 
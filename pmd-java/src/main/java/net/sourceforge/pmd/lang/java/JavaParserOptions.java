@@ -0,0 +1,52 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java;
+
+import net.sourceforge.pmd.lang.ParserOptions;
+import net.sourceforge.pmd.lang.java.ast.ASTBlock;
+import net.sourceforge.pmd.util.StringUtil;
+
+/**
+ * Options of the Java parser.
+ *
+ * <p>A rule which only looks at declarations, and never inside the bodies of
+ * methods and initializers, can return options which skip the bodies from
+ * {@link net.sourceforge.pmd.Rule#getParserOptions()}. They are used if all the
+ * Java rules of the analysis do the same.
+ */
+public class JavaParserOptions extends ParserOptions {
+
+    private boolean skipBodies;
+
+    /**
+     * Returns true if the bodies of methods and initializers are skipped by
+     * the parser, see {@link ASTBlock#isSkipped()}.
+     */
+    public boolean isSkipBodies() {
+        return skipBodies;
+    }
+
+    public void setSkipBodies(boolean skipBodies) {
+        this.skipBodies = skipBodies;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + (skipBodies ? 1231 : 1237);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final JavaParserOptions that = (JavaParserOptions) obj;
+        return StringUtil.isSame(this.suppressMarker, that.suppressMarker, false, false, false)
+                && this.skipBodies == that.skipBodies;
+    }
+}
@@ -8,6 +8,7 @@ package net.sourceforge.pmd.lang.java.ast;
 public class ASTBlock extends AbstractJavaNode {
 
     private boolean containsComment;
+    private boolean skipped;
 
     public ASTBlock(int id) {
         super(id);
@@ -33,4 +34,19 @@ public class ASTBlock extends AbstractJavaNode {
         this.containsComment = true;
     }
 
+    /**
+     * Returns true if the statements of this block were skipped by the
+     * parser. A skipped block has no children: neither visitors nor
+     * {@link #findDescendantsOfType(Class)} or XPath see its statements.
+     *
+     * @see JavaParser#setSkipBodies(boolean)
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    void setSkipped() {
+        this.skipped = true;
+    }
+
 }
@@ -5,6 +5,7 @@
 
 package net.sourceforge.pmd.lang.java.ast;
 
+import net.sourceforge.pmd.lang.java.symboltable.AbstractJavaScope;
 import net.sourceforge.pmd.lang.symboltable.NameDeclaration;
 
 public class ASTName extends AbstractJavaTypeNode {
@@ -24,6 +25,10 @@ public class ASTName extends AbstractJavaTypeNode {
     }
 
     public NameDeclaration getNameDeclaration() {
+        if (nd == null && getScope() instanceof AbstractJavaScope) {
+            // the occurrences are found on demand
+            ((AbstractJavaScope) getScope()).resolveOccurrences();
+        }
         return this.nd;
     }
 
@@ -5,6 +5,8 @@
 package net.sourceforge.pmd.lang.java.ast;
 
 import net.sourceforge.pmd.lang.ast.AbstractNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
 import net.sourceforge.pmd.lang.symboltable.Scope;
 
 public abstract class AbstractJavaNode extends AbstractNode implements JavaNode {
@@ -63,6 +65,36 @@ public abstract class AbstractJavaNode extends AbstractNode implements JavaNode
         return data;
     }
 
+    @Override
+    public DataFlowNode getDataFlowNode() {
+        DataFlowNode dataFlowNode = getOwnDataFlowNode();
+        if (dataFlowNode != null) {
+            return dataFlowNode;
+        }
+        // the data flow of the outermost method or constructor is built on
+        // demand, then the flow node of the nearest ancestor is returned
+        // without going through this method again for each ancestor
+        AbstractMethodOrConstructorDeclaration declaration = null;
+        for (Node node = this; node != null; node = node.jjtGetParent()) {
+            if (node instanceof AbstractMethodOrConstructorDeclaration) {
+                declaration = (AbstractMethodOrConstructorDeclaration) node;
+            }
+        }
+        if (declaration != null) {
+            declaration.buildDataFlow();
+        }
+        for (Node node = this; node != null; node = node.jjtGetParent()) {
+            if (!(node instanceof AbstractJavaNode)) {
+                return node.getDataFlowNode();
+            }
+            dataFlowNode = ((AbstractJavaNode) node).getOwnDataFlowNode();
+            if (dataFlowNode != null) {
+                return dataFlowNode;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Scope getScope() {
         if (scope == null) {
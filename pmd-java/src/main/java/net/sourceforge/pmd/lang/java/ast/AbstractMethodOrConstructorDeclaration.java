@@ -4,12 +4,14 @@
 
 package net.sourceforge.pmd.lang.java.ast;
 
+import net.sourceforge.pmd.lang.java.dfa.DataFlowFacade;
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSignature;
 
 
 public abstract class AbstractMethodOrConstructorDeclaration extends AbstractMethodLikeNode implements ASTMethodOrConstructorDeclaration {
 
     private JavaOperationSignature signature;
+    private boolean dataFlowBuilt;
 
 
     AbstractMethodOrConstructorDeclaration(int i) {
@@ -30,4 +32,18 @@ public abstract class AbstractMethodOrConstructorDeclaration extends AbstractMet
 
         return signature;
     }
+
+
+    /**
+     * Builds the data flow of this method or constructor, unless it is
+     * already built. This is called by {@link #getDataFlowNode()} on the
+     * outermost declaration enclosing the node, so that the data flow of
+     * the methods which are not looked at by any rule is never built.
+     */
+    public void buildDataFlow() {
+        if (!dataFlowBuilt) {
+            dataFlowBuilt = true;
+            DataFlowFacade.buildDataFlowFor(this);
+        }
+    }
 }
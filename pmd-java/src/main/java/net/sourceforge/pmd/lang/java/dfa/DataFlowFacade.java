@@ -4,40 +4,69 @@
 
 package net.sourceforge.pmd.lang.java.dfa;
 
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.lang.DataFlowHandler;
+import net.sourceforge.pmd.lang.dfa.CompactDataFlow;
+import net.sourceforge.pmd.lang.java.JavaDataFlowHandler;
 import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.ASTConstructorDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
+import net.sourceforge.pmd.lang.java.ast.AbstractMethodOrConstructorDeclaration;
 import net.sourceforge.pmd.lang.java.ast.JavaParserVisitorAdapter;
 
 /**
- * TODO What about initializers? This only processes methods and
+ * Builds the data flow of methods and constructors. The data flow of a
+ * method is normally built on demand, the first time
+ * {@link net.sourceforge.pmd.lang.ast.Node#getDataFlowNode()} is called on
+ * one of its nodes, see {@link AbstractMethodOrConstructorDeclaration#buildDataFlow()}.
+ *
+ * <p>TODO What about initializers? This only processes methods and
  * constructors.
  *
  * @author raik
  */
 public class DataFlowFacade extends JavaParserVisitorAdapter {
 
-    private StatementAndBraceFinder sbf;
-    private VariableAccessVisitor vav;
+    private static final DataFlowHandler DATA_FLOW_HANDLER = new JavaDataFlowHandler();
 
+    /**
+     * Builds the data flow of all the methods and constructors of the
+     * compilation unit at once.
+     */
     public void initializeWith(DataFlowHandler dataFlowHandler, ASTCompilationUnit node) {
-        sbf = new StatementAndBraceFinder(dataFlowHandler);
-        vav = new VariableAccessVisitor();
         node.jjtAccept(this, null);
     }
 
     @Override
     public Object visit(ASTMethodDeclaration node, Object data) {
-        sbf.buildDataFlowFor(node);
-        vav.compute(node);
+        node.buildDataFlow();
         return data;
     }
 
     @Override
     public Object visit(ASTConstructorDeclaration node, Object data) {
-        sbf.buildDataFlowFor(node);
-        vav.compute(node);
+        node.buildDataFlow();
         return data;
     }
+
+    /**
+     * Builds the data flow of a method or constructor, in its
+     * {@link CompactDataFlow compact representation}. Use
+     * {@link AbstractMethodOrConstructorDeclaration#buildDataFlow()}, which
+     * builds it only once.
+     */
+    public static void buildDataFlowFor(AbstractMethodOrConstructorDeclaration node) {
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.DFA)) {
+            new StatementAndBraceFinder(DATA_FLOW_HANDLER).buildDataFlowFor(node);
+            VariableAccessVisitor vav = new VariableAccessVisitor();
+            if (node instanceof ASTMethodDeclaration) {
+                vav.compute((ASTMethodDeclaration) node);
+            } else {
+                vav.compute((ASTConstructorDeclaration) node);
+            }
+            CompactDataFlow.of(node.getDataFlowNode()).trimToSize();
+        }
+    }
 }
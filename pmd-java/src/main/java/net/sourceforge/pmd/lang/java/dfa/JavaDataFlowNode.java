@@ -12,6 +12,12 @@ import net.sourceforge.pmd.lang.dfa.DataFlowNode;
 import net.sourceforge.pmd.lang.java.ast.ASTConstructorDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
 
+/**
+ * @deprecated The data flow nodes are created by
+ *             {@link net.sourceforge.pmd.lang.dfa.CompactDataFlow}. Will be
+ *             removed in 7.0.0.
+ */
+@Deprecated
 public class JavaDataFlowNode extends AbstractDataFlowNode {
 
     public JavaDataFlowNode(List<DataFlowNode> dataFlow, Node node) {
@@ -59,7 +59,7 @@ public class StatementAndBraceFinder extends JavaParserVisitorAdapter {
             throw new RuntimeException("Can't build a data flow for anything other than a method or a constructor");
         }
 
-        this.dataFlow = new Structure(dataFlowHandler);
+        this.dataFlow = new Structure();
         this.dataFlow.createStartNode(node.getBeginLine());
         this.dataFlow.createNewNode(node);
 
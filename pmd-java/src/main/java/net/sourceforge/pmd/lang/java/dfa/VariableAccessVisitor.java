@@ -11,8 +11,8 @@ import java.util.Map;
 import java.util.Set;
 
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.dfa.CompactDataFlow;
 import net.sourceforge.pmd.lang.dfa.DataFlowNode;
-import net.sourceforge.pmd.lang.dfa.StartOrEndDataFlowNode;
 import net.sourceforge.pmd.lang.dfa.VariableAccess;
 import net.sourceforge.pmd.lang.java.ast.ASTClassOrInterfaceBodyDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTConstructorDeclaration;
@@ -46,21 +46,26 @@ public class VariableAccessVisitor extends JavaParserVisitorAdapter {
 
     private void computeNow(Node node) {
         DataFlowNode inode = node.getDataFlowNode();
+        CompactDataFlow flow = CompactDataFlow.of(inode);
 
-        List<VariableAccess> undefinitions = markUsages(inode);
+        List<String> undefinitions = markUsages(inode, flow);
 
         // all variables are first in state undefinition
-        DataFlowNode firstINode = inode.getFlow().get(0);
-        firstINode.setVariableAccess(undefinitions);
+        addUndefinitions(flow, 0, undefinitions);
 
         // all variables are getting undefined when leaving scope
-        DataFlowNode lastINode = inode.getFlow().get(inode.getFlow().size() - 1);
-        lastINode.setVariableAccess(undefinitions);
+        addUndefinitions(flow, flow.size() - 1, undefinitions);
     }
 
-    private List<VariableAccess> markUsages(DataFlowNode inode) {
+    private void addUndefinitions(CompactDataFlow flow, int index, List<String> undefinitions) {
+        for (String variable : undefinitions) {
+            flow.addVariableAccess(index, VariableAccess.UNDEFINITION, variable);
+        }
+    }
+
+    private List<String> markUsages(DataFlowNode inode, CompactDataFlow flow) {
         // undefinitions was once a field... seems like it works fine as a local
-        List<VariableAccess> undefinitions = new ArrayList<>();
+        List<String> undefinitions = new ArrayList<>();
         Set<Map<VariableNameDeclaration, List<NameOccurrence>>> variableDeclarations = collectDeclarations(inode);
         for (Map<VariableNameDeclaration, List<NameOccurrence>> declarations : variableDeclarations) {
             for (Map.Entry<VariableNameDeclaration, List<NameOccurrence>> entry : declarations.entrySet()) {
@@ -71,13 +76,12 @@ public class VariableAccessVisitor extends JavaParserVisitorAdapter {
                     continue;
                 } else if (vnd.getAccessNodeParent().getFirstDescendantOfType(ASTVariableInitializer.class) != null) {
                     // add definition for initialized variables
-                    addVariableAccess(vnd.getNode(), new VariableAccess(VariableAccess.DEFINITION, vnd.getImage()),
-                            inode.getFlow());
+                    addVariableAccess(vnd.getNode(), VariableAccess.DEFINITION, vnd.getImage(), flow);
                 }
-                undefinitions.add(new VariableAccess(VariableAccess.UNDEFINITION, vnd.getImage()));
+                undefinitions.add(vnd.getImage());
 
                 for (NameOccurrence occurrence : entry.getValue()) {
-                    addAccess((JavaNameOccurrence) occurrence, inode);
+                    addAccess((JavaNameOccurrence) occurrence, flow);
                 }
             }
         }
@@ -89,7 +93,8 @@ public class VariableAccessVisitor extends JavaParserVisitorAdapter {
         Map<VariableNameDeclaration, List<NameOccurrence>> varDecls;
         for (int i = 0; i < inode.getFlow().size(); i++) {
             DataFlowNode n = inode.getFlow().get(i);
-            if (n instanceof StartOrEndDataFlowNode) {
+            if (n.getNode() == null) {
+                // start or end node
                 continue;
             }
             varDecls = ((JavaNode) n.getNode()).getScope().getDeclarations(VariableNameDeclaration.class);
@@ -100,14 +105,12 @@ public class VariableAccessVisitor extends JavaParserVisitorAdapter {
         return decls;
     }
 
-    private void addAccess(JavaNameOccurrence occurrence, DataFlowNode inode) {
+    private void addAccess(JavaNameOccurrence occurrence, CompactDataFlow flow) {
         if (occurrence.isOnLeftHandSide()) {
-            this.addVariableAccess(occurrence.getLocation(),
-                    new VariableAccess(VariableAccess.DEFINITION, occurrence.getImage()), inode.getFlow());
+            this.addVariableAccess(occurrence.getLocation(), VariableAccess.DEFINITION, occurrence.getImage(), flow);
         } else if (occurrence.isOnRightHandSide()
                 || !occurrence.isOnLeftHandSide() && !occurrence.isOnRightHandSide()) {
-            this.addVariableAccess(occurrence.getLocation(),
-                    new VariableAccess(VariableAccess.REFERENCING, occurrence.getImage()), inode.getFlow());
+            this.addVariableAccess(occurrence.getLocation(), VariableAccess.REFERENCING, occurrence.getImage(), flow);
         }
     }
 
@@ -116,15 +119,17 @@ public class VariableAccessVisitor extends JavaParserVisitorAdapter {
      * 
      * @param node
      *            location of the access of a variable
-     * @param va
-     *            variable access to add
+     * @param accessType
+     *            type of the access to add
+     * @param varName
+     *            name of the accessed variable
      * @param flow
      *            dataflownodes that can contain the node.
      */
-    private void addVariableAccess(Node node, VariableAccess va, List<DataFlowNode> flow) {
+    private void addVariableAccess(Node node, int accessType, String varName, CompactDataFlow flow) {
         // backwards to find the right inode (not a method declaration)
         for (int i = flow.size() - 1; i > 0; i--) {
-            DataFlowNode inode = flow.get(i);
+            DataFlowNode inode = flow.getFlow().get(i);
             if (inode.getNode() == null) {
                 continue;
             }
@@ -132,9 +137,7 @@ public class VariableAccessVisitor extends JavaParserVisitorAdapter {
             List<? extends Node> children = inode.getNode().findDescendantsOfType(node.getClass());
             for (Node n : children) {
                 if (node.equals(n)) {
-                    List<VariableAccess> v = new ArrayList<>();
-                    v.add(va);
-                    inode.setVariableAccess(v);
+                    flow.addVariableAccess(i, accessType, varName);
                     return;
                 }
             }
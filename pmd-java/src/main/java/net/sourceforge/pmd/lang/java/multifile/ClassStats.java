@@ -9,6 +9,9 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import net.sourceforge.pmd.lang.java.ast.JavaQualifiedName;
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaFieldSigMask;
@@ -25,14 +28,17 @@ import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSignature;
  * then use the methods of ClassStats. Note that at this level, entities of the data structure do not manipulate
  * QualifiedNames anymore, only Strings.
  *
+ * <p>The members are kept in an immutable {@link Members} snapshot, which is built once per visit of the class and
+ * published at once. This way, another thread never sees the members of a class partially, and reads them without
+ * locking.
+ *
  * @author Clément Fournier
  * @since 6.0.0
  */
 final class ClassStats implements ClassMirror {
 
-    private Map<JavaOperationSignature, Set<String>> operations = new HashMap<>();
-    private Map<JavaFieldSignature, Set<String>> fields = new HashMap<>();
-    private Map<String, ClassStats> nestedClasses = new HashMap<>();
+    private final AtomicReference<Members> members = new AtomicReference<>(Members.EMPTY);
+    private final ConcurrentMap<String, ClassStats> nestedClasses = new ConcurrentHashMap<>();
 
     // References to the hierarchy
     // TODO:cf useful?
@@ -61,44 +67,34 @@ final class ClassStats implements ClassMirror {
      */
     ClassStats getNestedClassStats(String className, boolean createIfNotFound) {
         if (createIfNotFound && !nestedClasses.containsKey(className)) {
-            nestedClasses.put(className, new ClassStats());
+            nestedClasses.putIfAbsent(className, new ClassStats());
         }
         return nestedClasses.get(className);
     }
 
 
     /**
-     * Adds an operation to the class.
-     *
-     * @param name The name of the operation
-     * @param sig  The signature of the operation
-     */
-    void addOperation(String name, JavaOperationSignature sig) {
-        if (!operations.containsKey(sig)) {
-            operations.put(sig, new HashSet<String>());
-        }
-        operations.get(sig).add(name);
-    }
-
-
-    /**
-     * Adds a field to the class.
+     * Adds members to the class, e.g. all the members found in a file. They are published at once. A class is usually
+     * visited once, its members are then used as they are, without being copied.
      *
-     * @param name The name of the field
-     * @param sig  The signature of the field
+     * @param added The members to add, which must not be modified afterwards
      */
-    void addField(String name, JavaFieldSignature sig) {
-        if (!fields.containsKey(sig)) {
-            fields.put(sig, new HashSet<String>());
+    void addMembers(Members added) {
+        if (!members.compareAndSet(Members.EMPTY, added)) {
+            synchronized (this) {
+                Members merged = new Members();
+                merged.addAll(members.get());
+                merged.addAll(added);
+                members.set(merged);
+            }
         }
-        fields.get(sig).add(name);
     }
 
 
     @Override
     public boolean hasMatchingOpSig(String name, JavaOperationSigMask mask) {
         // Indexing on signatures optimises this type of request
-        for (Entry<JavaOperationSignature, Set<String>> entry : operations.entrySet()) {
+        for (Entry<JavaOperationSignature, Set<String>> entry : members.get().operations.entrySet()) {
             if (mask.covers(entry.getKey())) {
                 if (entry.getValue().contains(name)) {
                     return true;
@@ -111,7 +107,7 @@ final class ClassStats implements ClassMirror {
 
     @Override
     public boolean hasMatchingFieldSig(String name, JavaFieldSigMask mask) {
-        for (Entry<JavaFieldSignature, Set<String>> entry : fields.entrySet()) {
+        for (Entry<JavaFieldSignature, Set<String>> entry : members.get().fields.entrySet()) {
             if (mask.covers(entry.getKey())) {
                 if (entry.getValue().contains(name)) {
                     return true;
@@ -126,7 +122,7 @@ final class ClassStats implements ClassMirror {
     public int countMatchingOpSigs(JavaOperationSigMask sigMask) {
         int sum = 0;
 
-        for (Entry<JavaOperationSignature, Set<String>> e : operations.entrySet()) {
+        for (Entry<JavaOperationSignature, Set<String>> e : members.get().operations.entrySet()) {
             if (sigMask.covers(e.getKey())) {
                 sum += e.getValue().size();
             }
@@ -140,7 +136,7 @@ final class ClassStats implements ClassMirror {
     public int countMatchingFieldSigs(JavaFieldSigMask sigMask) {
         int sum = 0;
 
-        for (Entry<JavaFieldSignature, Set<String>> e : fields.entrySet()) {
+        for (Entry<JavaFieldSignature, Set<String>> e : members.get().fields.entrySet()) {
             if (sigMask.covers(e.getKey())) {
                 sum += e.getValue().size();
             }
@@ -149,4 +145,47 @@ final class ClassStats implements ClassMirror {
         return sum;
     }
 
+
+    /**
+     * The operations and fields of a class, by signature. The members of a class are collected in an instance, which
+     * is not modified anymore once added to the ClassStats.
+     */
+    static final class Members {
+
+        private static final Members EMPTY = new Members();
+
+        private final Map<JavaOperationSignature, Set<String>> operations = new HashMap<>();
+        private final Map<JavaFieldSignature, Set<String>> fields = new HashMap<>();
+
+
+        void addOperation(String name, JavaOperationSignature sig) {
+            if (!operations.containsKey(sig)) {
+                operations.put(sig, new HashSet<String>());
+            }
+            operations.get(sig).add(name);
+        }
+
+
+        void addField(String name, JavaFieldSignature sig) {
+            if (!fields.containsKey(sig)) {
+                fields.put(sig, new HashSet<String>());
+            }
+            fields.get(sig).add(name);
+        }
+
+
+        private void addAll(Members other) {
+            for (Entry<JavaOperationSignature, Set<String>> e : other.operations.entrySet()) {
+                for (String name : e.getValue()) {
+                    addOperation(name, e.getKey());
+                }
+            }
+            for (Entry<JavaFieldSignature, Set<String>> e : other.fields.entrySet()) {
+                for (String name : e.getValue()) {
+                    addField(name, e.getKey());
+                }
+            }
+        }
+    }
+
 }
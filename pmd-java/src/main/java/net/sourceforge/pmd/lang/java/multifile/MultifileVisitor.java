@@ -19,7 +19,7 @@ import net.sourceforge.pmd.lang.java.ast.JavaParserVisitorReducedAdapter;
  */
 public class MultifileVisitor extends JavaParserVisitorReducedAdapter {
 
-    private final Stack<ClassStats> stack = new Stack<>();
+    private final Stack<ClassStats.Members> stack = new Stack<>();
     private final PackageStats toplevel;
 
 
@@ -30,10 +30,14 @@ public class MultifileVisitor extends JavaParserVisitorReducedAdapter {
 
     @Override
     public Object visit(ASTAnyTypeDeclaration node, Object data) {
-        stack.push(toplevel.getClassStats(node.getQualifiedName(), true));
+        ClassStats.Members members = new ClassStats.Members();
+        stack.push(members);
         super.visit(node, data);
         stack.pop();
 
+        // published at once, other files may be visited concurrently
+        toplevel.getClassStats(node.getQualifiedName(), true).addMembers(members);
+
         return data;
     }
 
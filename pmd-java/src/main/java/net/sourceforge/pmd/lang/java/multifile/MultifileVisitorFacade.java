@@ -20,4 +20,12 @@ public final class MultifileVisitorFacade extends JavaParserVisitorAdapter {
     }
 
 
+    /**
+     * Clears the data gathered from all the files.
+     */
+    public static void reset() {
+        PackageStats.INSTANCE.reset();
+    }
+
+
 }
@@ -4,10 +4,10 @@
 
 package net.sourceforge.pmd.lang.java.multifile;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaFieldSigMask;
 import net.sourceforge.pmd.lang.java.multifile.signature.JavaOperationSigMask;
@@ -20,6 +20,9 @@ import net.sourceforge.pmd.lang.java.qname.JavaTypeQualifiedName;
  * stores information about the classes and subpackages it contains. This object provides signature matching utilities
  * to metrics.
  *
+ * <p>The files are visited in parallel, so the hierarchy is built with concurrent maps, and the members of a class
+ * are published at once by its {@link ClassStats}.
+ *
  * @author Clément Fournier
  * @see ClassStats
  * @since 6.0.0
@@ -28,8 +31,8 @@ final class PackageStats implements ProjectMirror {
 
     static final PackageStats INSTANCE = new PackageStats();
 
-    private final Map<String, PackageStats> subPackages = new HashMap<>();
-    private final Map<String, ClassStats> classes = new HashMap<>();
+    private final ConcurrentMap<String, PackageStats> subPackages = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ClassStats> classes = new ConcurrentHashMap<>();
 
 
     /**
@@ -66,7 +69,7 @@ final class PackageStats implements ProjectMirror {
 
         String topClassName = qname.getClassList().get(0);
         if (createIfNotFound && container.classes.get(topClassName) == null) {
-            container.classes.put(topClassName, new ClassStats());
+            container.classes.putIfAbsent(topClassName, new ClassStats());
         }
 
         ClassStats next = container.classes.get(topClassName);
@@ -109,7 +112,7 @@ final class PackageStats implements ProjectMirror {
         for (Iterator<String> it = packagePath.iterator(); it.hasNext() && next != null;) {
             String currentPackage = it.next();
             if (createIfNotFound && next.subPackages.get(currentPackage) == null) {
-                next.subPackages.put(currentPackage, new PackageStats());
+                next.subPackages.putIfAbsent(currentPackage, new PackageStats());
             }
 
             next = next.subPackages.get(currentPackage);
@@ -4,8 +4,11 @@
 
 package net.sourceforge.pmd.lang.java.rule.design;
 
+import net.sourceforge.pmd.lang.ParserOptions;
+import net.sourceforge.pmd.lang.java.JavaParserOptions;
 import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.ASTImportDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
 import net.sourceforge.pmd.util.NumericConstants;
 
 /**
@@ -35,4 +38,23 @@ public class ExcessiveImportsRule extends ExcessiveNodeCountRule {
     public Object visit(ASTImportDeclaration node, Object data) {
         return NumericConstants.ONE;
     }
+
+    /**
+     * There are no imports in type declarations, they are not visited.
+     */
+    @Override
+    public Object visit(ASTTypeDeclaration node, Object data) {
+        return NumericConstants.ZERO;
+    }
+
+    /**
+     * Only the imports are counted, the bodies of the methods don't need to be
+     * parsed.
+     */
+    @Override
+    public ParserOptions getParserOptions() {
+        JavaParserOptions options = new JavaParserOptions();
+        options.setSkipBodies(true);
+        return options;
+    }
 }
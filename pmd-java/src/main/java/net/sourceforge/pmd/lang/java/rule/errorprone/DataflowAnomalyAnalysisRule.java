@@ -6,32 +6,36 @@ package net.sourceforge.pmd.lang.java.rule.errorprone;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.logging.Logger;
 
 import net.sourceforge.pmd.RuleContext;
 import net.sourceforge.pmd.lang.ast.Node;
-import net.sourceforge.pmd.lang.dfa.DataFlowNode;
-import net.sourceforge.pmd.lang.dfa.VariableAccess;
-import net.sourceforge.pmd.lang.dfa.pathfinder.CurrentPath;
-import net.sourceforge.pmd.lang.dfa.pathfinder.DAAPathFinder;
-import net.sourceforge.pmd.lang.dfa.pathfinder.Executable;
+import net.sourceforge.pmd.lang.dfa.CompactDataFlow;
+import net.sourceforge.pmd.lang.dfa.analysis.ControlFlowGraph;
+import net.sourceforge.pmd.lang.dfa.analysis.DataflowAnomaly;
+import net.sourceforge.pmd.lang.dfa.analysis.DataflowAnomalyDetector;
 import net.sourceforge.pmd.lang.java.ast.ASTClassOrInterfaceDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
 import net.sourceforge.pmd.lang.java.rule.AbstractJavaRule;
 import net.sourceforge.pmd.properties.IntegerProperty;
 
 /**
- * Starts path search for each method and runs code if found.
+ * Checks the consecutive accesses to the variables of each method for DD, DU
+ * and UR anomalies, see {@link DataflowAnomalyDetector}.
  *
  * @author raik
  * @author Sven Jacob
  */
-public class DataflowAnomalyAnalysisRule extends AbstractJavaRule implements Executable {
+public class DataflowAnomalyAnalysisRule extends AbstractJavaRule {
+
+    private static final Logger LOG = Logger.getLogger(DataflowAnomalyAnalysisRule.class.getName());
+
+    // the anomalies are not searched path by path anymore, all the paths are checked
+    @Deprecated
     private static final IntegerProperty MAX_PATH_DESCRIPTOR
             = IntegerProperty.named("maxPaths")
-                             .desc("Maximum number of checked paths per method. A lower value will increase the performance of the rule but may decrease anomalies found.")
+                             .desc("Deprecated! Has no effect, all the paths of a method are checked.")
                              .range(100, 8000)
                              .defaultValue(1000)
                              .uiOrder(1.0f).build();
@@ -41,32 +45,23 @@ public class DataflowAnomalyAnalysisRule extends AbstractJavaRule implements Exe
                              .range(1, 2000)
                              .defaultValue(100)
                              .uiOrder(2.0f).build();
-    private RuleContext rc;
     private List<DaaRuleViolation> daaRuleViolations;
     private int maxRuleViolations;
     private int currentRuleViolationCount;
 
-
-    private static class Usage {
-        public int accessType;
-        public DataFlowNode node;
-
-        Usage(int accessType, DataFlowNode node) {
-            this.accessType = accessType;
-            this.node = node;
-        }
-
-        @Override
-        public String toString() {
-            return "accessType = " + accessType + ", line = " + node.getLine();
-        }
-    }
-
     public DataflowAnomalyAnalysisRule() {
         definePropertyDescriptor(MAX_PATH_DESCRIPTOR);
         definePropertyDescriptor(MAX_VIOLATIONS_DESCRIPTOR);
     }
 
+    @Override
+    public void start(RuleContext ctx) {
+        if (getProperty(MAX_PATH_DESCRIPTOR).intValue() != MAX_PATH_DESCRIPTOR.defaultValue()) {
+            LOG.warning("Rule DataflowAnomalyAnalysis uses deprecated property 'maxPaths'. It has no effect, "
+                    + "all the paths of a method are checked. Future versions of PMD will remove support for this property.");
+        }
+    }
+
     @Override
     public Object visit(ASTClassOrInterfaceDeclaration node, Object data) {
         maxRuleViolations = getProperty(MAX_VIOLATIONS_DESCRIPTOR);
@@ -76,62 +71,23 @@ public class DataflowAnomalyAnalysisRule extends AbstractJavaRule implements Exe
 
     @Override
     public Object visit(ASTMethodDeclaration methodDeclaration, Object data) {
-        rc = (RuleContext) data;
         daaRuleViolations = new ArrayList<>();
 
-        final DataFlowNode node = methodDeclaration.getDataFlowNode().getFlow().get(0);
-
-        final DAAPathFinder pathFinder = new DAAPathFinder(node, this, getProperty(MAX_PATH_DESCRIPTOR));
-        pathFinder.run();
-
-        super.visit(methodDeclaration, data);
-        return data;
-    }
-
-    @Override
-    public void execute(CurrentPath path) {
-
-        if (maxNumberOfViolationsReached()) {
-            return;
-        }
-
-        Map<String, Usage> usagesByVarName = new HashMap<>();
-
-        for (DataFlowNode inode : path) {
-            if (inode.getVariableAccess() != null) {
-                // iterate all variables of this node
-                for (VariableAccess va : inode.getVariableAccess()) {
-
-                    // get the last usage of the current variable
-                    Usage lastUsage = usagesByVarName.get(va.getVariableName());
-                    if (lastUsage != null) {
-                        // there was a usage to this variable before
-                        checkVariableAccess(inode, va, lastUsage);
-                    }
-
-                    Usage newUsage = new Usage(va.getAccessType(), inode);
-                    // put the new usage for the variable
-                    usagesByVarName.put(va.getVariableName(), newUsage);
-                }
+        ControlFlowGraph graph = new ControlFlowGraph(CompactDataFlow.of(methodDeclaration.getDataFlowNode()));
+        for (DataflowAnomaly anomaly : DataflowAnomalyDetector.detect(graph)) {
+            if (maxNumberOfViolationsReached()) {
+                break;
             }
+            int startLine = anomaly.getFirstNode().getLine();
+            int endLine = anomaly.getLastNode().getLine();
+            // a DU anomaly is reported on the useless definition
+            Node node = anomaly.getType() == DataflowAnomaly.Type.DU ? anomaly.getFirstNode().getNode()
+                    : anomaly.getLastNode().getNode();
+            addDaaViolation(data, node, anomaly.getType().name(), anomaly.getVariableName(), startLine, endLine);
         }
-    }
-
-    private void checkVariableAccess(DataFlowNode inode, VariableAccess va, final Usage u) {
-        // get the start and end line
-        int startLine = u.node.getLine();
-        int endLine = inode.getLine();
 
-        Node lastNode = inode.getNode();
-        Node firstNode = u.node.getNode();
-
-        if (va.accessTypeMatches(u.accessType) && va.isDefinition()) { // DD
-            addDaaViolation(rc, lastNode, "DD", va.getVariableName(), startLine, endLine);
-        } else if (u.accessType == VariableAccess.UNDEFINITION && va.isReference()) { // UR
-            addDaaViolation(rc, lastNode, "UR", va.getVariableName(), startLine, endLine);
-        } else if (u.accessType == VariableAccess.DEFINITION && va.isUndefinition()) { // DU
-            addDaaViolation(rc, firstNode, "DU", va.getVariableName(), startLine, endLine);
-        }
+        super.visit(methodDeclaration, data);
+        return data;
     }
 
     /**
@@ -4,6 +4,11 @@
 
 package net.sourceforge.pmd.lang.java.symboltable;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import net.sourceforge.pmd.lang.symboltable.AbstractScope;
@@ -17,18 +22,97 @@ import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
  */
 public abstract class AbstractJavaScope extends AbstractScope {
 
+    // the declarations of this scope by name, in the order they were added
+    private final Map<String, List<NameDeclaration>> declarationsByName = new HashMap<>();
+
+    private SourceFileScope fileScope;
+
     @Override
     public void addDeclaration(NameDeclaration declaration) {
         checkForDuplicatedNameDeclaration(declaration);
         super.addDeclaration(declaration);
+        List<NameDeclaration> declarations = declarationsByName.get(declaration.getImage());
+        if (declarations == null) {
+            declarations = new ArrayList<>(1);
+            declarationsByName.put(declaration.getImage(), declarations);
+        }
+        declarations.add(declaration);
     }
 
     protected void checkForDuplicatedNameDeclaration(NameDeclaration declaration) {
-        if (declaration instanceof VariableNameDeclaration && getDeclarations().keySet().contains(declaration)) {
+        if (declaration instanceof VariableNameDeclaration
+                && findDeclarations(declaration.getImage()).contains(declaration)) {
             throw new RuntimeException(declaration + " is already in the symbol table");
         }
     }
 
+    /**
+     * Returns the declarations of this scope with the given name, in the
+     * order they were added.
+     *
+     * @param name The name of the declarations
+     *
+     * @return The declarations, possibly empty
+     */
+    protected List<NameDeclaration> findDeclarations(String name) {
+        List<NameDeclaration> declarations = declarationsByName.get(name);
+        return declarations == null ? Collections.<NameDeclaration>emptyList() : declarations;
+    }
+
+    /**
+     * Returns the declarations of this scope with the given name and type,
+     * in the order they were added.
+     */
+    protected <T extends NameDeclaration> List<T> findDeclarations(String name, Class<T> type) {
+        List<T> result = new ArrayList<>();
+        for (NameDeclaration declaration : findDeclarations(name)) {
+            if (type.isInstance(declaration)) {
+                result.add(type.cast(declaration));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first declaration of this scope with the given name and
+     * type, or null if there is none.
+     */
+    protected <T extends NameDeclaration> T findDeclaration(String name, Class<T> type) {
+        for (NameDeclaration declaration : findDeclarations(name)) {
+            if (type.isInstance(declaration)) {
+                return type.cast(declaration);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Map<NameDeclaration, List<NameOccurrence>> getDeclarations() {
+        resolveOccurrences();
+        return super.getDeclarations();
+    }
+
+    @Override
+    public <T extends NameDeclaration> Map<T, List<NameOccurrence>> getDeclarations(Class<T> clazz) {
+        resolveOccurrences();
+        return super.getDeclarations(clazz);
+    }
+
+    /**
+     * Finds the name occurrences of the whole file, if they haven't been
+     * found yet. The {@link SymbolFacade} only builds the scopes and their
+     * declarations, the occurrences are found the first time the
+     * declarations of a scope or the declaration of a name are requested.
+     */
+    public void resolveOccurrences() {
+        if (fileScope == null) {
+            fileScope = getEnclosingScope(SourceFileScope.class);
+        }
+        if (fileScope != null) {
+            fileScope.resolvePendingOccurrences();
+        }
+    }
+
     @Override
     public boolean contains(NameOccurrence occurrence) {
         return !findVariableHere((JavaNameOccurrence) occurrence).isEmpty();
@@ -6,7 +6,9 @@ package net.sourceforge.pmd.lang.java.symboltable;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -79,6 +81,18 @@ public class ClassScope extends AbstractJavaScope {
      */
     private final ClassNameDeclaration classDeclaration;
 
+    // the methods of this class by name, built on the first method lookup
+    private Map<String, Overloads> overloads;
+
+    // the parameter types of the methods matched from this class
+    private final Map<MethodNameDeclaration, List<TypedNameDeclaration>> methodParameterTypes = new IdentityHashMap<>();
+
+    // the last lookup: an occurrence is looked up twice in a row, to know
+    // whether this scope contains it, then to add it. It is compared by
+    // identity, occurrences with equal images may be different calls
+    private JavaNameOccurrence lastOccurrence;
+    private Set<NameDeclaration> lastDeclarations;
+
     public ClassScope(final String className, final ClassNameDeclaration classNameDeclaration) {
         this.className = Objects.requireNonNull(className);
         anonymousInnerClassCounter.set(Integer.valueOf(1));
@@ -123,6 +137,13 @@ public class ClassScope extends AbstractJavaScope {
         return getDeclarations(VariableNameDeclaration.class);
     }
 
+    @Override
+    public void addDeclaration(NameDeclaration declaration) {
+        super.addDeclaration(declaration);
+        overloads = null;
+        lastOccurrence = null;
+    }
+
     @Override
     public Set<NameDeclaration> addNameOccurrence(NameOccurrence occurrence) {
         JavaNameOccurrence javaOccurrence = (JavaNameOccurrence) occurrence;
@@ -179,17 +200,26 @@ public class ClassScope extends AbstractJavaScope {
     }
 
     @Override
+    @SuppressWarnings("PMD.CompareObjectsWithEquals")
     protected Set<NameDeclaration> findVariableHere(JavaNameOccurrence occurrence) {
+        if (occurrence != lastOccurrence) {
+            lastDeclarations = findDeclarationsOf(occurrence);
+            lastOccurrence = occurrence;
+        }
+        return lastDeclarations;
+    }
+
+    private Set<NameDeclaration> findDeclarationsOf(JavaNameOccurrence occurrence) {
         if (occurrence.isThisOrSuper() || className.equals(occurrence.getImage())) {
             // Reference to ourselves!
             return Collections.<NameDeclaration>singleton(classDeclaration);
         }
 
-        Map<MethodNameDeclaration, List<NameOccurrence>> methodDeclarations = getMethodDeclarations();
         Set<NameDeclaration> result = new HashSet<>();
         if (occurrence.isMethodOrConstructorInvocation()) {
             final boolean hasAuxclasspath = getEnclosingScope(SourceFileScope.class).hasAuxclasspath();
-            matchMethodDeclaration(occurrence, methodDeclarations.keySet(), hasAuxclasspath, result);
+            MethodCall call = new MethodCall(occurrence);
+            matchMethodDeclaration(call, this, hasAuxclasspath, result);
 
             if (isEnum && "valueOf".equals(occurrence.getImage())) {
                 result.add(createBuiltInMethodDeclaration("valueOf", "String"));
@@ -197,17 +227,13 @@ public class ClassScope extends AbstractJavaScope {
 
             if (result.isEmpty()) {
                 for (ClassNameDeclaration innerClass : getClassDeclarations().keySet()) {
-                    matchMethodDeclaration(occurrence, innerClass.getScope().getDeclarations(MethodNameDeclaration.class).keySet(), hasAuxclasspath, result);
+                    matchMethodDeclaration(call, innerClass.getScope(), hasAuxclasspath, result);
                 }
             }
             return result;
         }
         if (occurrence.isMethodReference()) {
-            for (MethodNameDeclaration mnd : methodDeclarations.keySet()) {
-                if (mnd.getImage().equals(occurrence.getImage())) {
-                    result.add(mnd);
-                }
-            }
+            result.addAll(findDeclarations(occurrence.getImage(), MethodNameDeclaration.class));
             return result;
         }
 
@@ -219,16 +245,18 @@ public class ClassScope extends AbstractJavaScope {
             }
         }
 
-        Map<VariableNameDeclaration, List<NameOccurrence>> variableDeclarations = getVariableDeclarations();
-        ImageFinderFunction finder = new ImageFinderFunction(images);
-        Applier.apply(finder, variableDeclarations.keySet().iterator());
-        if (finder.getDecl() != null) {
-            result.add(finder.getDecl());
+        for (String image : images) {
+            VariableNameDeclaration variable = findDeclaration(image, VariableNameDeclaration.class);
+            if (variable != null) {
+                result.add(variable);
+                break;
+            }
         }
 
         // search inner classes
         Map<ClassNameDeclaration, List<NameOccurrence>> classDeclarations = getClassDeclarations();
         if (result.isEmpty() && !classDeclarations.isEmpty()) {
+            ImageFinderFunction finder = new ImageFinderFunction(images);
             for (ClassNameDeclaration innerClass : getClassDeclarations().keySet()) {
                 Applier.apply(finder, innerClass.getScope().getDeclarations(VariableNameDeclaration.class).keySet().iterator());
                 if (finder.getDecl() != null) {
@@ -239,48 +267,138 @@ public class ClassScope extends AbstractJavaScope {
         return result;
     }
 
-    private void matchMethodDeclaration(JavaNameOccurrence occurrence,
-            Set<MethodNameDeclaration> methodDeclarations, final boolean hasAuxclasspath,
+    private void matchMethodDeclaration(MethodCall call, Scope scope, final boolean hasAuxclasspath,
             Set<NameDeclaration> result) {
-        for (MethodNameDeclaration mnd : methodDeclarations) {
-            if (mnd.getImage().equals(occurrence.getImage())) {
-                List<TypedNameDeclaration> parameterTypes = determineParameterTypes(mnd);
-                List<TypedNameDeclaration> argumentTypes = determineArgumentTypes(occurrence, parameterTypes);
+        Overloads methods;
+        if (scope instanceof ClassScope) {
+            methods = ((ClassScope) scope).getOverloads().get(call.occurrence.getImage());
+        } else {
+            methods = new Overloads();
+            for (MethodNameDeclaration mnd : scope.getDeclarations(MethodNameDeclaration.class).keySet()) {
+                if (mnd.getImage().equals(call.occurrence.getImage())) {
+                    methods.add(mnd);
+                }
+            }
+        }
+        if (methods == null) {
+            return;
+        }
 
-                if (!mnd.isVarargs() && occurrence.getArgumentCount() == mnd.getParameterCount()
-                        && (!hasAuxclasspath || parameterTypes.equals(argumentTypes))) {
+        for (MethodNameDeclaration mnd : methods.withParameterCount(call.occurrence.getArgumentCount())) {
+            if (!hasAuxclasspath) {
+                result.add(mnd);
+            } else {
+                List<TypedNameDeclaration> parameterTypes = getParameterTypes(mnd);
+                if (parameterTypes.equals(call.getArgumentTypes(parameterTypes))) {
                     result.add(mnd);
-                } else if (mnd.isVarargs()) {
-                    int varArgIndex = parameterTypes.size() - 1;
-                    TypedNameDeclaration varArgType = parameterTypes.get(varArgIndex);
-
-                    // first parameter is varArg, calling method might have
-                    // 0 or more arguments
-                    // or the calling method has enough arguments to fill in
-                    // the parameters before the vararg
-                    if ((varArgIndex == 0 || argumentTypes.size() >= varArgIndex)
-                            && (!hasAuxclasspath || parameterTypes
-                                    .subList(0, varArgIndex).equals(argumentTypes.subList(0, varArgIndex)))) {
-
-                        if (!hasAuxclasspath) {
-                            result.add(mnd);
-                            continue;
-                        }
+                }
+            }
+        }
 
-                        boolean sameType = true;
-                        for (int i = varArgIndex; i < argumentTypes.size(); i++) {
-                            if (!varArgType.equals(argumentTypes.get(i))) {
-                                sameType = false;
-                                break;
-                            }
-                        }
-                        if (sameType) {
-                            result.add(mnd);
-                        }
+        for (MethodNameDeclaration mnd : methods.varargs) {
+            List<TypedNameDeclaration> parameterTypes = getParameterTypes(mnd);
+            List<TypedNameDeclaration> argumentTypes = call.getArgumentTypes(parameterTypes);
+            int varArgIndex = parameterTypes.size() - 1;
+            TypedNameDeclaration varArgType = parameterTypes.get(varArgIndex);
+
+            // first parameter is varArg, calling method might have
+            // 0 or more arguments
+            // or the calling method has enough arguments to fill in
+            // the parameters before the vararg
+            if ((varArgIndex == 0 || argumentTypes.size() >= varArgIndex)
+                    && (!hasAuxclasspath || parameterTypes
+                            .subList(0, varArgIndex).equals(argumentTypes.subList(0, varArgIndex)))) {
+
+                if (!hasAuxclasspath) {
+                    result.add(mnd);
+                    continue;
+                }
+
+                boolean sameType = true;
+                for (int i = varArgIndex; i < argumentTypes.size(); i++) {
+                    if (!varArgType.equals(argumentTypes.get(i))) {
+                        sameType = false;
+                        break;
                     }
                 }
+                if (sameType) {
+                    result.add(mnd);
+                }
+            }
+        }
+    }
+
+    private Map<String, Overloads> getOverloads() {
+        if (overloads == null) {
+            overloads = new HashMap<>();
+            for (MethodNameDeclaration mnd : getMethodDeclarations().keySet()) {
+                Overloads methods = overloads.get(mnd.getImage());
+                if (methods == null) {
+                    methods = new Overloads();
+                    overloads.put(mnd.getImage(), methods);
+                }
+                methods.add(mnd);
             }
         }
+        return overloads;
+    }
+
+    private List<TypedNameDeclaration> getParameterTypes(MethodNameDeclaration mnd) {
+        List<TypedNameDeclaration> types = methodParameterTypes.get(mnd);
+        if (types == null) {
+            types = determineParameterTypes(mnd);
+            methodParameterTypes.put(mnd, types);
+        }
+        return types;
+    }
+
+    /**
+     * The methods of a class with the same name, by number of parameters,
+     * and the varargs ones apart.
+     */
+    private static final class Overloads {
+        private final Map<Integer, List<MethodNameDeclaration>> byParameterCount = new HashMap<>();
+        private final List<MethodNameDeclaration> varargs = new ArrayList<>();
+
+        void add(MethodNameDeclaration mnd) {
+            if (mnd.isVarargs()) {
+                varargs.add(mnd);
+            } else {
+                List<MethodNameDeclaration> methods = byParameterCount.get(mnd.getParameterCount());
+                if (methods == null) {
+                    methods = new ArrayList<>(1);
+                    byParameterCount.put(mnd.getParameterCount(), methods);
+                }
+                methods.add(mnd);
+            }
+        }
+
+        List<MethodNameDeclaration> withParameterCount(int count) {
+            List<MethodNameDeclaration> methods = byParameterCount.get(count);
+            return methods == null ? Collections.<MethodNameDeclaration>emptyList() : methods;
+        }
+    }
+
+    /**
+     * A method call being matched, with the types of its arguments which
+     * are known without the called method.
+     */
+    private final class MethodCall {
+        private final JavaNameOccurrence occurrence;
+        private ASTArgumentList arguments;
+        private List<TypedNameDeclaration> knownTypes;
+
+        MethodCall(JavaNameOccurrence occurrence) {
+            this.occurrence = occurrence;
+        }
+
+        List<TypedNameDeclaration> getArgumentTypes(List<TypedNameDeclaration> parameterTypes) {
+            if (knownTypes == null) {
+                arguments = findArguments(occurrence);
+                knownTypes = determineKnownArgumentTypes(arguments);
+            }
+            return determineArgumentTypes(arguments, knownTypes, parameterTypes);
+        }
     }
 
     /**
@@ -436,21 +554,7 @@ public class ClassScope extends AbstractJavaScope {
         return null;
     }
 
-    /**
-     * Provide a list of types of the arguments of the given method call. The
-     * types are simple type images. If the argument type cannot be determined
-     * (e.g. because it is itself the result of a method call), the parameter
-     * type is used - so it is assumed, it is of the correct type. This might
-     * cause confusion when methods are overloaded.
-     *
-     * @param occurrence
-     *            the method call
-     * @param parameterTypes
-     *            the parameter types of the called method
-     * @return the list of argument types
-     */
-    private List<TypedNameDeclaration> determineArgumentTypes(JavaNameOccurrence occurrence,
-            List<TypedNameDeclaration> parameterTypes) {
+    private ASTArgumentList findArguments(JavaNameOccurrence occurrence) {
         ASTArgumentList arguments = null;
         Node nextSibling;
         if (occurrence.getLocation() instanceof ASTPrimarySuffix) {
@@ -463,6 +567,20 @@ public class ClassScope extends AbstractJavaScope {
             arguments = nextSibling.getFirstDescendantOfType(ASTArgumentList.class);
         }
 
+        return arguments;
+    }
+
+    /**
+     * Provide a list of the types of the arguments of the given method call
+     * which can be determined without the called method. The types are
+     * simple type images. An argument whose type is unknown, e.g. because it
+     * is itself the result of a method call, has a null type.
+     *
+     * @param arguments
+     *            the arguments of the method call, may be null
+     * @return the list of argument types
+     */
+    private List<TypedNameDeclaration> determineKnownArgumentTypes(ASTArgumentList arguments) {
         if (arguments == null) {
             return Collections.emptyList();
         }
@@ -530,7 +648,41 @@ public class ClassScope extends AbstractJavaScope {
                 ASTClassOrInterfaceType classInterface = (ASTClassOrInterfaceType) child.jjtGetChild(0);
                 type = convertToSimpleType(classInterface);
             }
-            if (type == null && !parameterTypes.isEmpty()) {
+            if (type != null && type.getType() == null) {
+                Class<?> typeBound = resolveGenericType(argument, type.getTypeImage());
+                if (typeBound != null) {
+                    type = new SimpleTypedNameDeclaration(type.getTypeImage(), typeBound);
+                }
+            }
+            argumentTypes.add(type);
+        }
+        return argumentTypes;
+    }
+
+    /**
+     * Provide a list of types of the arguments of the given method call. If
+     * the argument type cannot be determined, the parameter type is used - so
+     * it is assumed, it is of the correct type. This might cause confusion
+     * when methods are overloaded.
+     *
+     * @param arguments
+     *            the arguments of the method call, may be null
+     * @param knownTypes
+     *            the known types of the arguments
+     * @param parameterTypes
+     *            the parameter types of the called method
+     * @return the list of argument types
+     */
+    private List<TypedNameDeclaration> determineArgumentTypes(ASTArgumentList arguments,
+            List<TypedNameDeclaration> knownTypes, List<TypedNameDeclaration> parameterTypes) {
+        if (parameterTypes.isEmpty() || !knownTypes.contains(null)) {
+            return knownTypes;
+        }
+
+        List<TypedNameDeclaration> argumentTypes = new ArrayList<>(knownTypes);
+        for (int i = 0; i < argumentTypes.size(); i++) {
+            if (argumentTypes.get(i) == null) {
+                TypedNameDeclaration type;
                 // replace the unknown type with the correct parameter type
                 // of the method.
                 // in case the argument is itself a method call, we can't
@@ -547,14 +699,14 @@ public class ClassScope extends AbstractJavaScope {
                     // last parameter is the vararg type
                     type = parameterTypes.get(parameterTypes.size() - 1);
                 }
-            }
-            if (type != null && type.getType() == null) {
-                Class<?> typeBound = resolveGenericType(argument, type.getTypeImage());
-                if (typeBound != null) {
-                    type = new SimpleTypedNameDeclaration(type.getTypeImage(), typeBound);
+                if (type.getType() == null) {
+                    Class<?> typeBound = resolveGenericType(arguments.jjtGetChild(i), type.getTypeImage());
+                    if (typeBound != null) {
+                        type = new SimpleTypedNameDeclaration(type.getTypeImage(), typeBound);
+                    }
                 }
+                argumentTypes.set(i, type);
             }
-            argumentTypes.add(type);
         }
         return argumentTypes;
     }
@@ -11,7 +11,6 @@ import java.util.Set;
 
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.java.ast.ASTName;
-import net.sourceforge.pmd.lang.symboltable.Applier;
 import net.sourceforge.pmd.lang.symboltable.NameDeclaration;
 import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
 
@@ -57,7 +56,11 @@ public class LocalScope extends AbstractJavaScope {
             return Collections.emptySet();
         }
         DeclarationFinderFunction finder = new DeclarationFinderFunction(occurrence);
-        Applier.apply(finder, getVariableDeclarations().keySet().iterator());
+        for (NameDeclaration declaration : findDeclarations(occurrence.getImage(), VariableNameDeclaration.class)) {
+            if (!finder.applyTo(declaration)) {
+                break;
+            }
+        }
         if (finder.getDecl() != null) {
             return Collections.singleton(finder.getDecl());
         }
@@ -13,6 +13,9 @@ import net.sourceforge.pmd.lang.symboltable.AbstractNameDeclaration;
 
 public class MethodNameDeclaration extends AbstractNameDeclaration {
 
+    // the declarations are hashed again for each method call they match
+    private int hash;
+
     public MethodNameDeclaration(ASTMethodDeclarator node) {
         super(node);
     }
@@ -122,10 +125,18 @@ public class MethodNameDeclaration extends AbstractNameDeclaration {
 
     @Override
     public int hashCode() {
-        int hash = node.getImage().hashCode() * 31 + ((ASTMethodDeclarator) node).getParameterCount();
+        if (hash == 0) {
+            hash = computeHashCode();
+        }
+        return hash;
+    }
+
+    private int computeHashCode() {
+        int parameterCount = ((ASTMethodDeclarator) node).getParameterCount();
+        int result = node.getImage().hashCode() * 31 + parameterCount;
 
         ASTFormalParameters myParams = (ASTFormalParameters) node.jjtGetChild(0);
-        for (int i = 0; i < ((ASTMethodDeclarator) node).getParameterCount(); i++) {
+        for (int i = 0; i < parameterCount; i++) {
             ASTFormalParameter myParam = (ASTFormalParameter) myParams.jjtGetChild(i);
             Node myTypeNode = myParam.getTypeNode().jjtGetChild(0);
 
@@ -136,10 +147,10 @@ public class MethodNameDeclaration extends AbstractNameDeclaration {
                 myTypeImg = myTypeNode.jjtGetChild(0).getImage();
             }
 
-            hash = hash * 31 + myTypeImg.hashCode();
+            result = result * 31 + myTypeImg.hashCode();
         }
 
-        return hash;
+        return result;
     }
 
     @Override
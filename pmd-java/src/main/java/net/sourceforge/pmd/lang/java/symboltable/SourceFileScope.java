@@ -10,10 +10,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.ASTImportDeclaration;
-import net.sourceforge.pmd.lang.symboltable.Applier;
-import net.sourceforge.pmd.lang.symboltable.ImageFinderFunction;
 import net.sourceforge.pmd.lang.symboltable.NameDeclaration;
 import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
 import net.sourceforge.pmd.lang.symboltable.Scope;
@@ -27,6 +29,8 @@ public class SourceFileScope extends AbstractJavaScope {
     private final String packageImage;
     private final TypeSet types;
     private Map<String, Node> qualifiedTypeNames;
+    // the file whose name occurrences are still to be found
+    private ASTCompilationUnit pendingOccurrences;
 
     public SourceFileScope(final ClassLoader classLoader) {
         this(classLoader, "");
@@ -117,21 +121,37 @@ public class SourceFileScope extends AbstractJavaScope {
     }
 
     public ClassNameDeclaration findClassNameDeclaration(String name) {
-        ImageFinderFunction finder = new ImageFinderFunction(name);
-        Applier.apply(finder, getClassDeclarations().keySet().iterator());
-        return (ClassNameDeclaration) finder.getDecl();
+        return findDeclaration(name, ClassNameDeclaration.class);
     }
 
     @Override
     protected Set<NameDeclaration> findVariableHere(JavaNameOccurrence occ) {
-        ImageFinderFunction finder = new ImageFinderFunction(occ.getImage());
-        Applier.apply(finder, getDeclarations().keySet().iterator());
-        if (finder.getDecl() != null) {
-            return Collections.singleton(finder.getDecl());
+        List<NameDeclaration> declarations = findDeclarations(occ.getImage());
+        if (!declarations.isEmpty()) {
+            return Collections.singleton(declarations.get(0));
         }
         return Collections.emptySet();
     }
 
+    /**
+     * Defers finding the name occurrences of the file until they are first
+     * needed, see {@link #resolveOccurrences()}.
+     */
+    void deferOccurrences(ASTCompilationUnit node) {
+        pendingOccurrences = node;
+    }
+
+    void resolvePendingOccurrences() {
+        if (pendingOccurrences != null) {
+            ASTCompilationUnit node = pendingOccurrences;
+            pendingOccurrences = null;
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.SYMBOL_TABLE,
+                    "Name occurrences")) {
+                node.jjtAccept(new OccurrenceFinder(), null);
+            }
+        }
+    }
+
     /**
      * Returns a set of all types defined within this source file. This includes
      * all top-level types and nested types.
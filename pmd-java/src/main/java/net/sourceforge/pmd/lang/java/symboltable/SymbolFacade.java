@@ -14,7 +14,6 @@ public class SymbolFacade {
     public void initializeWith(ClassLoader classLoader, ASTCompilationUnit node) {
         ScopeAndDeclarationFinder sc = new ScopeAndDeclarationFinder(classLoader);
         node.jjtAccept(sc, null);
-        OccurrenceFinder of = new OccurrenceFinder();
-        node.jjtAccept(of, null);
+        ((SourceFileScope) node.getScope()).deferOccurrences(node);
     }
 }
@@ -6,6 +6,7 @@ package net.sourceforge.pmd.lang.java.typeresolution;
 
 import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.JavaParserVisitorAdapter;
+import net.sourceforge.pmd.lang.java.symboltable.AbstractJavaScope;
 
 /**
  * @author Allan Caplan
@@ -13,6 +14,11 @@ import net.sourceforge.pmd.lang.java.ast.JavaParserVisitorAdapter;
 public class TypeResolutionFacade extends JavaParserVisitorAdapter {
 
     public void initializeWith(ClassLoader classLoader, ASTCompilationUnit node) {
+        // the types of the names are taken from their declarations: find the
+        // name occurrences before any node is typed
+        if (node.getScope() instanceof AbstractJavaScope) {
+            ((AbstractJavaScope) node.getScope()).resolveOccurrences();
+        }
         ClassTypeResolver classTypeResolver = new ClassTypeResolver(classLoader);
         node.setClassTypeResolver(classTypeResolver);
         node.jjtAccept(classTypeResolver, null);
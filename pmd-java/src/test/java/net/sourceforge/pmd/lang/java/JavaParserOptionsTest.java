@@ -0,0 +1,40 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.RuleSetFactory;
+import net.sourceforge.pmd.RuleSetNotFoundException;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.Parser;
+
+public class JavaParserOptionsTest {
+
+    private final LanguageVersion java = LanguageRegistry.getLanguage(JavaLanguageModule.NAME).getDefaultVersion();
+
+    @Test
+    public void testBodiesAreSkippedIfNoRuleNeedsThem() throws RuleSetNotFoundException {
+        RuleSets ruleSets = new RuleSets(new RuleSetFactory().createRuleSet("category/java/design.xml/ExcessiveImports"));
+        Parser parser = PMD.parserFor(java, new PMDConfiguration(), ruleSets);
+        assertTrue(((JavaParserOptions) parser.getParserOptions()).isSkipBodies());
+        assertTrue(parser.getParserOptions().getSuppressMarker() != null);
+    }
+
+    @Test
+    public void testBodiesAreParsedIfARuleNeedsThem() throws RuleSetNotFoundException {
+        RuleSets ruleSets = new RuleSetFactory()
+                .createRuleSets("category/java/design.xml/ExcessiveImports,category/java/errorprone.xml/EmptyIfStmt");
+        Parser parser = PMD.parserFor(java, new PMDConfiguration(), ruleSets);
+        assertFalse(((JavaParserOptions) parser.getParserOptions()).isSkipBodies());
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.Parser;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.JavaParserOptions;
+import net.sourceforge.pmd.lang.java.ParserTstUtil;
+
+public class ASTBlockTest {
+
+    private static final String TEST_SKIPPED_BODIES = "import java.util.*;" + PMD.EOL
+        + "public abstract class Foo {" + PMD.EOL
+        + "  private Object o = new Object() {" + PMD.EOL
+        + "    public String toString() { return \"{\"; }" + PMD.EOL
+        + "  };" + PMD.EOL
+        + "  static {" + PMD.EOL
+        + "    int x = 1 >> 2;" + PMD.EOL
+        + "  }" + PMD.EOL
+        + "  public Foo() {" + PMD.EOL
+        + "    this(1);" + PMD.EOL
+        + "  }" + PMD.EOL
+        + "  abstract void bar();" + PMD.EOL
+        + "  List<List<String>> baz(int y) {" + PMD.EOL
+        + "\tRunnable r = () -> { new Object() { void m() { } }; };" + PMD.EOL
+        + "    if (y > 0) { return null; } // NOPMD" + PMD.EOL
+        + "    // a comment" + PMD.EOL
+        + "  }" + PMD.EOL
+        + "}";
+
+    @Test
+    public void testSkippedBodies() {
+        ASTCompilationUnit skipped = parse(TEST_SKIPPED_BODIES, true);
+
+        List<ASTBlock> blocks = new ArrayList<>();
+        skipped.jjtAccept(new BlockCollector(), blocks);
+        assertEquals(3, blocks.size());
+        for (ASTBlock block : blocks) {
+            assertTrue(block.isSkipped());
+        }
+        // the constructor isn't skipped
+        assertEquals(1, countVisitedNodes(skipped, ASTExplicitConstructorInvocation.class));
+        assertEquals(0, countVisitedNodes(skipped, ASTBlockStatement.class));
+        assertTrue(blocks.get(2).containsComment());
+    }
+
+    @Test
+    public void testSkippedBlocksHaveNoChildren() {
+        ASTCompilationUnit full = parse(TEST_SKIPPED_BODIES, false);
+        ASTCompilationUnit skipped = parse(TEST_SKIPPED_BODIES, true);
+
+        List<ASTBlock> fullBlocks = new ArrayList<>();
+        full.findDescendantsOfType(ASTBlock.class, fullBlocks, true);
+        List<ASTBlock> skippedBlocks = new ArrayList<>();
+        skipped.findDescendantsOfType(ASTBlock.class, skippedBlocks, true);
+        assertEquals(3, skippedBlocks.size());
+        assertTrue(skipped.findDescendantsOfType(ASTBlockStatement.class).isEmpty());
+        assertEquals(1, skipped.findDescendantsOfType(ASTExplicitConstructorInvocation.class).size());
+        for (ASTBlock block : skippedBlocks) {
+            assertTrue(block.isSkipped());
+            assertEquals(0, block.jjtGetNumChildren());
+        }
+        assertEquals(dump(full.getFirstDescendantOfType(ASTConstructorDeclaration.class)),
+                dump(skipped.getFirstDescendantOfType(ASTConstructorDeclaration.class)));
+        for (int i = 0; i < skippedBlocks.size(); i++) {
+            assertEquals(position(bodyOf(fullBlocks, i)), position(skippedBlocks.get(i)));
+        }
+    }
+
+    @Test
+    public void testSuppressMapWithSkippedBodies() {
+        LanguageVersionHandler handler = ParserTstUtil.getDefaultLanguageVersionHandler();
+        JavaParserOptions options = new JavaParserOptions();
+        options.setSkipBodies(true);
+        options.setSuppressMarker(PMD.SUPPRESS_MARKER);
+        Parser parser = handler.getParser(options);
+        parser.parse(null, new StringReader(TEST_SKIPPED_BODIES));
+        assertTrue(parser.getSuppressMap().containsKey(15));
+    }
+
+    @Test
+    public void testSyntaxErrorInSkippedBody() {
+        ASTCompilationUnit skipped = parse("class Foo { void bar() { int = ; } }", true);
+        ASTBlock block = skipped.getFirstDescendantOfType(ASTMethodDeclaration.class)
+                .getFirstChildOfType(ASTBlock.class);
+        assertTrue(block.isSkipped());
+        assertEquals(0, block.jjtGetNumChildren());
+    }
+
+    private static ASTCompilationUnit parse(String code, boolean skipBodies) {
+        LanguageVersionHandler handler = ParserTstUtil.getLanguageVersionHandler("1.8");
+        JavaParserOptions options = new JavaParserOptions();
+        options.setSkipBodies(skipBodies);
+        ASTCompilationUnit root = (ASTCompilationUnit) handler.getParser(options).parse(null,
+                new StringReader(code));
+        handler.getQualifiedNameResolutionFacade(ASTBlockTest.class.getClassLoader()).start(root);
+        handler.getSymbolFacade().start(root);
+        return root;
+    }
+
+    private static int countVisitedNodes(ASTCompilationUnit root, final Class<?> type) {
+        final int[] count = new int[1];
+        root.jjtAccept(new JavaParserVisitorAdapter() {
+            @Override
+            public Object visit(JavaNode node, Object data) {
+                if (type.isInstance(node)) {
+                    count[0]++;
+                }
+                return super.visit(node, data);
+            }
+        }, null);
+        return count[0];
+    }
+
+    private static String dump(Node node) {
+        StringBuilder sb = new StringBuilder(position(node)).append('\n');
+        for (int i = 0; i < node.jjtGetNumChildren(); i++) {
+            assertEquals(node, node.jjtGetChild(i).jjtGetParent());
+            assertEquals(i, node.jjtGetChild(i).jjtGetChildIndex());
+            sb.append(dump(node.jjtGetChild(i)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the i-th block which is the body of a method or initializer.
+     */
+    private static ASTBlock bodyOf(List<ASTBlock> blocks, int i) {
+        int bodies = 0;
+        for (ASTBlock block : blocks) {
+            Node parent = block.jjtGetParent();
+            if ((parent instanceof ASTMethodDeclaration || parent instanceof ASTInitializer) && bodies++ == i) {
+                return block;
+            }
+        }
+        throw new IllegalArgumentException("No body " + i);
+    }
+
+    private static String position(Node node) {
+        return node.getXPathNodeName() + ' ' + node.getImage() + ' ' + node.getBeginLine() + ':'
+            + node.getBeginColumn() + '-' + node.getEndLine() + ':' + node.getEndColumn();
+    }
+
+    private static class BlockCollector extends JavaParserVisitorAdapter {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object visit(ASTBlock node, Object data) {
+            ((List<ASTBlock>) data).add(node);
+            return super.visit(node, data);
+        }
+    }
+}
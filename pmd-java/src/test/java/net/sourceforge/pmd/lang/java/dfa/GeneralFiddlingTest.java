@@ -5,8 +5,10 @@
 package net.sourceforge.pmd.lang.java.dfa;
 
 import static net.sourceforge.pmd.lang.java.ParserTstUtil.buildDFA;
+import static net.sourceforge.pmd.lang.java.ParserTstUtil.parseJavaDefaultVersion;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 import java.util.List;
 
@@ -16,6 +18,7 @@ import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.lang.dfa.DataFlowNode;
 import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclarator;
+import net.sourceforge.pmd.lang.java.ast.ASTStatementExpression;
 
 public class GeneralFiddlingTest {
 
@@ -53,6 +56,20 @@ public class GeneralFiddlingTest {
         // }
     }
 
+    @Test
+    public void testDataFlowIsBuiltOnDemand() {
+        // only the symbol table is built here
+        ASTCompilationUnit acu = parseJavaDefaultVersion(TEST1);
+        ASTStatementExpression statement = acu.getFirstDescendantOfType(ASTStatementExpression.class);
+        List<DataFlowNode> f = statement.getDataFlowNode().getFlow();
+
+        assertEquals(6, f.size());
+        assertEquals("Undefinition(x)", String.valueOf(f.get(0).getVariableAccess().get(0)));
+        assertEquals("Definition(x)", String.valueOf(f.get(4).getVariableAccess().get(0)));
+        ASTMethodDeclarator meth = acu.getFirstDescendantOfType(ASTMethodDeclarator.class);
+        assertSame(f, meth.getDataFlowNode().getFlow());
+    }
+
     private static final String TEST1 = "class Foo {" + PMD.EOL + " void bar() {" + PMD.EOL + "  int x = 2;" + PMD.EOL
             + "  foo(x);" + PMD.EOL + "  x = 3;" + PMD.EOL + " }" + PMD.EOL + "}";
 }
@@ -5,11 +5,18 @@
 package net.sourceforge.pmd.lang.java.multifile;
 
 import static net.sourceforge.pmd.lang.java.ParserTstUtil.getOrderedNodes;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -65,8 +72,9 @@ public class PackageStatsTest {
 
         assertFalse(pack.hasMatchingSig(qname, new JavaOperationSigMask()));
 
-        ClassStats clazz = pack.getClassStats(qname.getClassName(), true);
-        clazz.addOperation("foo()", signature);
+        ClassStats.Members members = new ClassStats.Members();
+        members.addOperation("foo()", signature);
+        pack.getClassStats(qname.getClassName(), true).addMembers(members);
         assertTrue(pack.hasMatchingSig(qname, new JavaOperationSigMask()));
     }
 
@@ -84,10 +92,47 @@ public class PackageStatsTest {
 
         assertFalse(pack.hasMatchingSig(qname, fieldName, new JavaFieldSigMask()));
 
-        ClassStats clazz = pack.getClassStats(qname, true);
-        clazz.addField(fieldName, signature);
+        ClassStats.Members members = new ClassStats.Members();
+        members.addField(fieldName, signature);
+        pack.getClassStats(qname, true).addMembers(members);
         assertTrue(pack.hasMatchingSig(qname, fieldName, new JavaFieldSigMask()));
     }
 
 
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        final String TEST = "package org.foo; class Boo{ "
+            + "public void foo(){}}";
+
+        final JavaOperationSignature signature
+            = JavaOperationSignature.buildFor(getOrderedNodes(ASTMethodDeclaration.class, TEST).get(0));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100; i++) {
+                        JavaTypeQualifiedName qname
+                            = (JavaTypeQualifiedName) QualifiedNameFactory.ofString("org.foo" + i % 10 + ".Boo" + i);
+                        ClassStats.Members members = new ClassStats.Members();
+                        members.addOperation("foo" + thread + "()", signature);
+                        pack.getClassStats(qname, true).addMembers(members);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        for (int i = 0; i < 100; i++) {
+            JavaTypeQualifiedName qname
+                = (JavaTypeQualifiedName) QualifiedNameFactory.ofString("org.foo" + i % 10 + ".Boo" + i);
+            assertEquals(4, pack.getClassMirror(qname).countMatchingOpSigs(new JavaOperationSigMask()));
+        }
+    }
 }
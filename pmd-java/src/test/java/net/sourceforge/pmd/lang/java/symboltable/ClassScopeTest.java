@@ -273,6 +273,31 @@ public class ClassScopeTest extends STBBaseTst {
         }
     }
 
+    @Test
+    public void testMethodUsageSeenByArity() {
+        parseCode(METHOD_USAGE_BY_ARITY);
+        ASTClassOrInterfaceDeclaration n = acu.findDescendantsOfType(ASTClassOrInterfaceDeclaration.class).get(0);
+
+        Map<MethodNameDeclaration, List<NameOccurrence>> m = ((ClassScope) n.getScope()).getMethodDeclarations();
+
+        assertEquals(4, m.size());
+
+        for (Map.Entry<MethodNameDeclaration, List<NameOccurrence>> entry : m.entrySet()) {
+            MethodNameDeclaration mnd = entry.getKey();
+            if ("baz".equals(mnd.getImage())) {
+                continue;
+            }
+            if (mnd.isVarargs()) {
+                // without auxclasspath, any call with at least one argument
+                assertEquals(3, entry.getValue().size());
+            } else {
+                // used once, with as many arguments as parameters
+                assertEquals(1, entry.getValue().size());
+                assertEquals(mnd.getParameterCount() + 2, entry.getValue().get(0).getLocation().getBeginLine());
+            }
+        }
+    }
+
     /**
      * Test case for bug report #2410201
      */
@@ -314,6 +339,12 @@ public class ClassScopeTest extends STBBaseTst {
     private static final String METHOD_USAGE_SEEN2 = "public class Foo {" + PMD.EOL + " public void baz() {" + PMD.EOL
             + "  baz(x, y);" + PMD.EOL + " }" + PMD.EOL + " private void baz(int x, int y) {}" + PMD.EOL + "}";
 
+    private static final String METHOD_USAGE_BY_ARITY = "public class Foo {" + PMD.EOL + " public void baz() {"
+            + PMD.EOL + "  bar(1);" + PMD.EOL + "  bar(1, 2);" + PMD.EOL + "  bar(\"a\", 1, 2);" + PMD.EOL + " }"
+            + PMD.EOL
+            + " private void bar(int x) {}" + PMD.EOL + " private void bar(int x, int y) {}" + PMD.EOL
+            + " private void bar(String s, int... x) {}" + PMD.EOL + "}";
+
     private static final String METHOD_USAGE_SEEN = "public class Foo {" + PMD.EOL + " private void bar() {}" + PMD.EOL
             + " public void buz() {" + PMD.EOL + "  bar();" + PMD.EOL + " }" + PMD.EOL + "}";
 
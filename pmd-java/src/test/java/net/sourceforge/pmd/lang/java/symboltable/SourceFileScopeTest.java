@@ -6,6 +6,7 @@ package net.sourceforge.pmd.lang.java.symboltable;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 
 import java.util.Iterator;
 import java.util.List;
@@ -15,6 +16,8 @@ import org.junit.Test;
 
 import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTName;
+import net.sourceforge.pmd.lang.java.ast.ASTVariableDeclaratorId;
 import net.sourceforge.pmd.lang.symboltable.NameDeclaration;
 import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
 
@@ -52,10 +55,30 @@ public class SourceFileScopeTest extends STBBaseTst {
         assertFalse(iterator.hasNext());
     }
 
+    @Test
+    public void testOccurrencesFoundOnDemandFromName() {
+        parseCode(TEST4);
+        ASTName name = acu.getFirstDescendantOfType(ASTName.class);
+        assertEquals("x", name.getNameDeclaration().getImage());
+        assertEquals(2, acu.getFirstDescendantOfType(ASTVariableDeclaratorId.class).getUsages().size());
+    }
+
+    @Test
+    public void testOccurrencesFoundOnDemandFromScope() {
+        parseCode(TEST4);
+        assertEquals(2, acu.getFirstDescendantOfType(ASTVariableDeclaratorId.class).getUsages().size());
+        assertNotNull(acu.getFirstDescendantOfType(ASTName.class).getNameDeclaration());
+        // the occurrences are only found once
+        assertEquals(2, acu.getFirstDescendantOfType(ASTVariableDeclaratorId.class).getUsages().size());
+    }
+
     private static final String TEST1 = "public class Foo {}" + PMD.EOL;
 
     private static final String TEST2 = "package foo.bar;" + PMD.EOL + "public class Foo {" + PMD.EOL + "}" + PMD.EOL;
 
     private static final String TEST3 = "public class Foo {" + PMD.EOL + " public class Bar {" + PMD.EOL + " }"
             + PMD.EOL + "}" + PMD.EOL;
+
+    private static final String TEST4 = "public class Foo {" + PMD.EOL + " int x;" + PMD.EOL
+            + " int bar() { return x + this.x; }" + PMD.EOL + "}" + PMD.EOL;
 }
@@ -4,12 +4,10 @@
 
 package net.sourceforge.pmd.lang.ecmascript.ast;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.Stack;
 
 import org.mozilla.javascript.ast.ArrayComprehension;
 import org.mozilla.javascript.ast.ArrayComprehensionLoop;
@@ -70,117 +68,172 @@ import net.sourceforge.pmd.lang.ast.SourceCodePositioner;
 
 public final class EcmascriptTreeBuilder implements NodeVisitor {
 
-    private static final Map<Class<? extends AstNode>, Constructor<? extends EcmascriptNode<?>>> NODE_TYPE_TO_NODE_ADAPTER_TYPE = new HashMap<>();
+    private static final String TRAILING_COMMA_MESSAGE = "Trailing comma is not legal in an ECMA-262 object initializer";
 
-    static {
-        register(ArrayComprehension.class, ASTArrayComprehension.class);
-        register(ArrayComprehensionLoop.class, ASTArrayComprehensionLoop.class);
-        register(ArrayLiteral.class, ASTArrayLiteral.class);
-        register(Assignment.class, ASTAssignment.class);
-        register(AstRoot.class, ASTAstRoot.class);
-        register(Block.class, ASTBlock.class);
-        register(BreakStatement.class, ASTBreakStatement.class);
-        register(CatchClause.class, ASTCatchClause.class);
-        register(Comment.class, ASTComment.class);
-        register(ConditionalExpression.class, ASTConditionalExpression.class);
-        register(ContinueStatement.class, ASTContinueStatement.class);
-        register(DoLoop.class, ASTDoLoop.class);
-        register(ElementGet.class, ASTElementGet.class);
-        register(EmptyExpression.class, ASTEmptyExpression.class);
-        register(EmptyStatement.class, ASTEmptyStatement.class);
-        register(ExpressionStatement.class, ASTExpressionStatement.class);
-        register(ForInLoop.class, ASTForInLoop.class);
-        register(ForLoop.class, ASTForLoop.class);
-        register(FunctionCall.class, ASTFunctionCall.class);
-        register(FunctionNode.class, ASTFunctionNode.class);
-        register(IfStatement.class, ASTIfStatement.class);
-        register(InfixExpression.class, ASTInfixExpression.class);
-        register(KeywordLiteral.class, ASTKeywordLiteral.class);
-        register(Label.class, ASTLabel.class);
-        register(LabeledStatement.class, ASTLabeledStatement.class);
-        register(LetNode.class, ASTLetNode.class);
-        register(Name.class, ASTName.class);
-        register(NewExpression.class, ASTNewExpression.class);
-        register(NumberLiteral.class, ASTNumberLiteral.class);
-        register(ObjectLiteral.class, ASTObjectLiteral.class);
-        register(ObjectProperty.class, ASTObjectProperty.class);
-        register(ParenthesizedExpression.class, ASTParenthesizedExpression.class);
-        register(PropertyGet.class, ASTPropertyGet.class);
-        register(RegExpLiteral.class, ASTRegExpLiteral.class);
-        register(ReturnStatement.class, ASTReturnStatement.class);
-        register(Scope.class, ASTScope.class);
-        register(StringLiteral.class, ASTStringLiteral.class);
-        register(SwitchCase.class, ASTSwitchCase.class);
-        register(SwitchStatement.class, ASTSwitchStatement.class);
-        register(ThrowStatement.class, ASTThrowStatement.class);
-        register(TryStatement.class, ASTTryStatement.class);
-        register(UnaryExpression.class, ASTUnaryExpression.class);
-        register(VariableDeclaration.class, ASTVariableDeclaration.class);
-        register(VariableInitializer.class, ASTVariableInitializer.class);
-        register(WhileLoop.class, ASTWhileLoop.class);
-        register(WithStatement.class, ASTWithStatement.class);
-        register(XmlDotQuery.class, ASTXmlDotQuery.class);
-        register(XmlExpression.class, ASTXmlExpression.class);
-        register(XmlMemberGet.class, ASTXmlMemberGet.class);
-        register(XmlString.class, ASTXmlString.class);
-    }
-
-    private List<ParseProblem> parseProblems;
-    private Map<ParseProblem, TrailingCommaNode> parseProblemToNode = new HashMap<>();
+    // The distinct positions of the trailing commas reported by Rhino, sorted,
+    // and the inner most node containing each of them.
+    private final int[] trailingCommas;
+    private final TrailingCommaNode[] trailingCommaNodes;
 
     // The nodes having children built.
-    private Stack<Node> nodes = new Stack<>();
+    private Deque<Node> nodes = new ArrayDeque<>();
 
     // The Rhino nodes with children to build.
-    private Stack<AstNode> parents = new Stack<>();
+    private Deque<AstNode> parents = new ArrayDeque<>();
 
     private final SourceCodePositioner sourceCodePositioner;
 
     public EcmascriptTreeBuilder(String sourceCode, List<ParseProblem> parseProblems) {
         this.sourceCodePositioner = new SourceCodePositioner(sourceCode);
-        this.parseProblems = parseProblems;
+        this.trailingCommas = indexTrailingCommas(parseProblems);
+        this.trailingCommaNodes = new TrailingCommaNode[trailingCommas.length];
     }
 
-    private static <T extends AstNode> void register(Class<T> nodeType,
-            Class<? extends EcmascriptNode<T>> nodeAdapterType) {
-        try {
-            NODE_TYPE_TO_NODE_ADAPTER_TYPE.put(nodeType, nodeAdapterType.getConstructor(nodeType));
-        } catch (SecurityException e) {
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
+    private static int[] indexTrailingCommas(List<ParseProblem> parseProblems) {
+        int[] positions = new int[parseProblems.size()];
+        int count = 0;
+        for (ParseProblem parseProblem : parseProblems) {
+            if (TRAILING_COMMA_MESSAGE.equals(parseProblem.getMessage())) {
+                // the comma is the end of the problem
+                positions[count++] = parseProblem.getFileOffset() + parseProblem.getLength() - 1;
+            }
         }
+        Arrays.sort(positions, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || positions[distinct - 1] != positions[i]) {
+                positions[distinct++] = positions[i];
+            }
+        }
+        return Arrays.copyOf(positions, distinct);
     }
 
     static <T extends AstNode> EcmascriptNode<T> createNodeAdapter(T node) {
-        try {
-            // the register function makes sure only EcmascriptNode<T> can be
-            // added, where T is "T extends AstNode".
-            @SuppressWarnings("unchecked")
-            Constructor<? extends EcmascriptNode<T>> constructor = (Constructor<? extends EcmascriptNode<T>>) NODE_TYPE_TO_NODE_ADAPTER_TYPE
-                    .get(node.getClass());
-            if (constructor == null) {
-                throw new IllegalArgumentException(
-                        "There is no Node adapter class registered for the Node class: " + node.getClass());
-            }
-            return constructor.newInstance(node);
-        } catch (InstantiationException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e.getTargetException());
+        // each adapter type wraps exactly the Rhino type it is created for
+        @SuppressWarnings("unchecked")
+        EcmascriptNode<T> adapter = (EcmascriptNode<T>) createAdapter(node);
+        return adapter;
+    }
+
+    /**
+     * Creates the adapter of the exact type of the Rhino node. The most
+     * frequent types are tested first.
+     */
+    private static EcmascriptNode<?> createAdapter(AstNode node) {
+        Class<? extends AstNode> type = node.getClass();
+        if (type == Name.class) {
+            return new ASTName((Name) node);
+        } else if (type == PropertyGet.class) {
+            return new ASTPropertyGet((PropertyGet) node);
+        } else if (type == FunctionCall.class) {
+            return new ASTFunctionCall((FunctionCall) node);
+        } else if (type == StringLiteral.class) {
+            return new ASTStringLiteral((StringLiteral) node);
+        } else if (type == ExpressionStatement.class) {
+            return new ASTExpressionStatement((ExpressionStatement) node);
+        } else if (type == NumberLiteral.class) {
+            return new ASTNumberLiteral((NumberLiteral) node);
+        } else if (type == InfixExpression.class) {
+            return new ASTInfixExpression((InfixExpression) node);
+        } else if (type == Assignment.class) {
+            return new ASTAssignment((Assignment) node);
+        } else if (type == KeywordLiteral.class) {
+            return new ASTKeywordLiteral((KeywordLiteral) node);
+        } else if (type == VariableInitializer.class) {
+            return new ASTVariableInitializer((VariableInitializer) node);
+        } else if (type == VariableDeclaration.class) {
+            return new ASTVariableDeclaration((VariableDeclaration) node);
+        } else if (type == ObjectProperty.class) {
+            return new ASTObjectProperty((ObjectProperty) node);
+        } else if (type == Block.class) {
+            return new ASTBlock((Block) node);
+        } else if (type == Scope.class) {
+            return new ASTScope((Scope) node);
+        } else if (type == ReturnStatement.class) {
+            return new ASTReturnStatement((ReturnStatement) node);
+        } else if (type == IfStatement.class) {
+            return new ASTIfStatement((IfStatement) node);
+        } else if (type == FunctionNode.class) {
+            return new ASTFunctionNode((FunctionNode) node);
+        } else if (type == ObjectLiteral.class) {
+            return new ASTObjectLiteral((ObjectLiteral) node);
+        } else if (type == ArrayLiteral.class) {
+            return new ASTArrayLiteral((ArrayLiteral) node);
+        } else if (type == UnaryExpression.class) {
+            return new ASTUnaryExpression((UnaryExpression) node);
+        } else if (type == ElementGet.class) {
+            return new ASTElementGet((ElementGet) node);
+        } else if (type == ParenthesizedExpression.class) {
+            return new ASTParenthesizedExpression((ParenthesizedExpression) node);
+        } else if (type == ConditionalExpression.class) {
+            return new ASTConditionalExpression((ConditionalExpression) node);
+        } else if (type == NewExpression.class) {
+            return new ASTNewExpression((NewExpression) node);
+        } else if (type == Comment.class) {
+            return new ASTComment((Comment) node);
+        } else if (type == EmptyStatement.class) {
+            return new ASTEmptyStatement((EmptyStatement) node);
+        } else if (type == EmptyExpression.class) {
+            return new ASTEmptyExpression((EmptyExpression) node);
+        } else if (type == ArrayComprehension.class) {
+            return new ASTArrayComprehension((ArrayComprehension) node);
+        } else if (type == ArrayComprehensionLoop.class) {
+            return new ASTArrayComprehensionLoop((ArrayComprehensionLoop) node);
+        } else if (type == AstRoot.class) {
+            return new ASTAstRoot((AstRoot) node);
+        } else if (type == BreakStatement.class) {
+            return new ASTBreakStatement((BreakStatement) node);
+        } else if (type == CatchClause.class) {
+            return new ASTCatchClause((CatchClause) node);
+        } else if (type == ContinueStatement.class) {
+            return new ASTContinueStatement((ContinueStatement) node);
+        } else if (type == DoLoop.class) {
+            return new ASTDoLoop((DoLoop) node);
+        } else if (type == ForInLoop.class) {
+            return new ASTForInLoop((ForInLoop) node);
+        } else if (type == ForLoop.class) {
+            return new ASTForLoop((ForLoop) node);
+        } else if (type == Label.class) {
+            return new ASTLabel((Label) node);
+        } else if (type == LabeledStatement.class) {
+            return new ASTLabeledStatement((LabeledStatement) node);
+        } else if (type == LetNode.class) {
+            return new ASTLetNode((LetNode) node);
+        } else if (type == RegExpLiteral.class) {
+            return new ASTRegExpLiteral((RegExpLiteral) node);
+        } else if (type == SwitchCase.class) {
+            return new ASTSwitchCase((SwitchCase) node);
+        } else if (type == SwitchStatement.class) {
+            return new ASTSwitchStatement((SwitchStatement) node);
+        } else if (type == ThrowStatement.class) {
+            return new ASTThrowStatement((ThrowStatement) node);
+        } else if (type == TryStatement.class) {
+            return new ASTTryStatement((TryStatement) node);
+        } else if (type == WhileLoop.class) {
+            return new ASTWhileLoop((WhileLoop) node);
+        } else if (type == WithStatement.class) {
+            return new ASTWithStatement((WithStatement) node);
+        } else if (type == XmlDotQuery.class) {
+            return new ASTXmlDotQuery((XmlDotQuery) node);
+        } else if (type == XmlExpression.class) {
+            return new ASTXmlExpression((XmlExpression) node);
+        } else if (type == XmlMemberGet.class) {
+            return new ASTXmlMemberGet((XmlMemberGet) node);
+        } else if (type == XmlString.class) {
+            return new ASTXmlString((XmlString) node);
         }
+        throw new IllegalArgumentException(
+                "There is no Node adapter class registered for the Node class: " + type);
     }
 
     public <T extends AstNode> EcmascriptNode<T> build(T astNode) {
         EcmascriptNode<T> node = buildInternal(astNode);
 
-        calculateLineNumbers(node);
-
         // Set all the trailing comma nodes
-        for (TrailingCommaNode trailingCommaNode : parseProblemToNode.values()) {
-            trailingCommaNode.setTrailingComma(true);
+        for (TrailingCommaNode trailingCommaNode : trailingCommaNodes) {
+            if (trailingCommaNode != null) {
+                trailingCommaNode.setTrailingComma(true);
+            }
         }
 
         return node;
@@ -189,9 +242,10 @@ public final class EcmascriptTreeBuilder implements NodeVisitor {
     private <T extends AstNode> EcmascriptNode<T> buildInternal(T astNode) {
         // Create a Node
         EcmascriptNode<T> node = createNodeAdapter(astNode);
+        ((AbstractEcmascriptNode<T>) node).calculateLineNumbers(sourceCodePositioner);
 
         // Append to parent
-        Node parent = nodes.isEmpty() ? null : nodes.peek();
+        Node parent = nodes.peek();
         if (parent != null) {
             parent.jjtAddChild(node, parent.jjtGetNumChildren());
             node.jjtSetParent(parent);
@@ -220,37 +274,24 @@ public final class EcmascriptTreeBuilder implements NodeVisitor {
     }
 
     private void handleParseProblems(EcmascriptNode<? extends AstNode> node) {
-        if (node instanceof TrailingCommaNode) {
+        if (trailingCommas.length > 0 && node instanceof TrailingCommaNode) {
             TrailingCommaNode trailingCommaNode = (TrailingCommaNode) node;
             int nodeStart = node.getNode().getAbsolutePosition();
-            int nodeEnd = nodeStart + node.getNode().getLength() - 1;
-            for (ParseProblem parseProblem : parseProblems) {
-                // The node overlaps the comma (i.e. end of the problem)?
-                int problemStart = parseProblem.getFileOffset();
-                int commaPosition = problemStart + parseProblem.getLength() - 1;
-                if (nodeStart <= commaPosition && commaPosition <= nodeEnd) {
-                    if ("Trailing comma is not legal in an ECMA-262 object initializer"
-                            .equals(parseProblem.getMessage())) {
-                        // Report on the shortest code block containing the
-                        // problem (i.e. inner most code in nested structures).
-                        EcmascriptNode<?> currentNode = (EcmascriptNode<?>) parseProblemToNode.get(parseProblem);
-                        if (currentNode == null || node.getNode().getLength() < currentNode.getNode().getLength()) {
-                            parseProblemToNode.put(parseProblem, trailingCommaNode);
-                        }
-                    }
+            int nodeLength = node.getNode().getLength();
+            int nodeEnd = nodeStart + nodeLength - 1;
+            // The commas overlapped by the node
+            int i = Arrays.binarySearch(trailingCommas, nodeStart);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            for (; i < trailingCommas.length && trailingCommas[i] <= nodeEnd; i++) {
+                // Report on the shortest code block containing the
+                // problem (i.e. inner most code in nested structures).
+                EcmascriptNode<?> currentNode = (EcmascriptNode<?>) trailingCommaNodes[i];
+                if (currentNode == null || nodeLength < currentNode.getNode().getLength()) {
+                    trailingCommaNodes[i] = trailingCommaNode;
                 }
             }
         }
     }
-
-    private void calculateLineNumbers(EcmascriptNode<?> node) {
-        EcmascriptParserVisitorAdapter visitor = new EcmascriptParserVisitorAdapter() {
-            @Override
-            public Object visit(EcmascriptNode<?> node, Object data) {
-                ((AbstractEcmascriptNode<?>) node).calculateLineNumbers(sourceCodePositioner);
-                return super.visit(node, data); // also visit the children
-            }
-        };
-        node.jjtAccept(visitor, null);
-    }
 }
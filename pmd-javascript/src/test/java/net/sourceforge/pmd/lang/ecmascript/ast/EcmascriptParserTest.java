@@ -181,4 +181,17 @@ public class EcmascriptParserTest extends EcmascriptParserTestBase {
         ASTAssignment infix = rootNode.getFirstDescendantOfType(ASTAssignment.class);
         assertEquals("^=", infix.getImage());
     }
+
+    @Test
+    public void testTrailingCommaOnInnerMostObjectLiteral() {
+        ASTAstRoot rootNode = parse("var x = { a: { b: 1, }, c: { d: 2 } };\nvar y = { e: 3, };");
+        List<ASTObjectLiteral> literals = rootNode.findDescendantsOfType(ASTObjectLiteral.class);
+        assertEquals(4, literals.size());
+        assertFalse(literals.get(0).isTrailingComma());
+        assertTrue(literals.get(1).isTrailingComma());
+        assertFalse(literals.get(2).isTrailingComma());
+        assertTrue(literals.get(3).isTrailingComma());
+        assertEquals(2, literals.get(3).getBeginLine());
+        assertEquals(9, literals.get(3).getBeginColumn());
+    }
 }